@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.util.CharsetUtil;
+
+import java.util.Date;
+
+/**
+ * Caches the encoded {@code Date} header of the current second, so it is formatted at most once per second and not
+ * for every response.
+ */
+final class CachedDateHeader {
+    private static volatile CachedDateHeader current = new CachedDateHeader(currentSecond());
+
+    private final long second;
+    private final byte[] encoded;
+
+    private CachedDateHeader(long second) {
+        this.second = second;
+        String header = HttpHeaderNames.DATE + ": " + DateFormatter.format(new Date(second * 1000)) + "\r\n";
+        encoded = header.getBytes(CharsetUtil.US_ASCII);
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * Writes the {@code Date} header for the current time to the given {@link ByteBuf}.
+     */
+    static void encode(ByteBuf buf) {
+        final long second = currentSecond();
+        CachedDateHeader header = current;
+        if (header.second != second) {
+            // Racing threads may both format the header, which is harmless as the result is the same.
+            current = header = new CachedDateHeader(second);
+        }
+        buf.writeBytes(header.encoded);
+    }
+}
@@ -0,0 +1,663 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.handler.codec.DefaultHeaders.NameValidator;
+import io.netty.handler.codec.DefaultHeaders.ValueValidator;
+import io.netty.handler.codec.ValueConverter;
+import io.netty.util.AsciiString;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static io.netty.util.AsciiString.contentEquals;
+import static io.netty.util.AsciiString.contentEqualsIgnoreCase;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * A {@link HttpHeaders} implementation which stores all headers in insertion order in flat arrays of names, values and
+ * name hashes.
+ * <p>
+ * Lookups are linear scans which only compare the names whose hash matches, which is faster than the hash table of
+ * {@link DefaultHttpHeaders} for the 10 to 30 headers of a typical message and needs far less memory, as no entry
+ * objects are allocated. For messages with hundreds of headers {@link DefaultHttpHeaders} should be preferred.
+ */
+@UnstableApi
+public final class CompactHttpHeaders extends HttpHeaders {
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private final NameValidator<CharSequence> nameValidator;
+    private final ValueValidator<CharSequence> valueValidator;
+    private final boolean validate;
+    private CharSequence[] names;
+    private CharSequence[] values;
+    private int[] hashes;
+    private int size;
+
+    /**
+     * Creates a new instance which validates all header names and values.
+     */
+    public CompactHttpHeaders() {
+        this(true);
+    }
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * <b>Warning!</b> Setting {@code validate} to {@code false} has the same consequences as for
+     * {@link DefaultHttpHeaders#DefaultHttpHeaders(boolean)}.
+     *
+     * @param validate Should Netty validate header names and values.
+     */
+    public CompactHttpHeaders(boolean validate) {
+        this(validate, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param validate          Should Netty validate header names and values.
+     * @param initialCapacity   the number of headers which can be added before the arrays need to grow.
+     */
+    public CompactHttpHeaders(boolean validate, int initialCapacity) {
+        this(validate, DefaultHttpHeaders.nameValidator(validate), initialCapacity);
+    }
+
+    CompactHttpHeaders(boolean validate, NameValidator<CharSequence> nameValidator, int initialCapacity) {
+        checkPositiveOrZero(initialCapacity, "initialCapacity");
+        this.nameValidator = checkNotNull(nameValidator, "nameValidator");
+        valueValidator = DefaultHttpHeaders.valueValidator(validate);
+        this.validate = validate;
+        names = new CharSequence[initialCapacity];
+        values = new CharSequence[initialCapacity];
+        hashes = new int[initialCapacity];
+    }
+
+    private CompactHttpHeaders(CompactHttpHeaders headers) {
+        nameValidator = headers.nameValidator;
+        valueValidator = headers.valueValidator;
+        validate = headers.validate;
+        size = headers.size;
+        final int capacity = Math.max(size, DEFAULT_INITIAL_CAPACITY);
+        names = Arrays.copyOf(headers.names, capacity);
+        values = Arrays.copyOf(headers.values, capacity);
+        hashes = Arrays.copyOf(headers.hashes, capacity);
+    }
+
+    private static ValueConverter<CharSequence> converter() {
+        return DefaultHttpHeaders.valueConverter();
+    }
+
+    /**
+     * Returns the index of the first header at or after {@code fromIndex} with the given name, or {@code -1}.
+     */
+    private int indexOf(CharSequence name, int nameHash, int fromIndex) {
+        final int[] hashes = this.hashes;
+        final CharSequence[] names = this.names;
+        for (int i = fromIndex; i < size; i++) {
+            if (hashes[i] == nameHash && contentEqualsIgnoreCase(names[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private CharSequence get0(CharSequence name) {
+        final int index = indexOf(name, AsciiString.hashCode(name), 0);
+        return index == -1 ? null : values[index];
+    }
+
+    private void add0(CharSequence name, int nameHash, CharSequence value) {
+        if (size == names.length) {
+            final int capacity = Math.max(size << 1, 4);
+            names = Arrays.copyOf(names, capacity);
+            values = Arrays.copyOf(values, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        names[size] = name;
+        values[size] = value;
+        hashes[size] = nameHash;
+        size++;
+    }
+
+    private void addValidated(CharSequence name, CharSequence value) {
+        valueValidator.validate(value);
+        add0(name, AsciiString.hashCode(name), value);
+    }
+
+    private CharSequence validateName(CharSequence name) {
+        nameValidator.validateName(name);
+        return name;
+    }
+
+    private void removeAt(int index) {
+        final int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(names, index + 1, names, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+            System.arraycopy(hashes, index + 1, hashes, index, moved);
+        }
+        size--;
+        names[size] = null;
+        values[size] = null;
+    }
+
+    private boolean remove0(CharSequence name) {
+        final int nameHash = AsciiString.hashCode(name);
+        int index = indexOf(name, nameHash, 0);
+        if (index == -1) {
+            return false;
+        }
+        // Compact the arrays in a single pass.
+        int newSize = index;
+        for (int i = index + 1; i < size; i++) {
+            if (hashes[i] != nameHash || !contentEqualsIgnoreCase(names[i], name)) {
+                names[newSize] = names[i];
+                values[newSize] = values[i];
+                hashes[newSize] = hashes[i];
+                newSize++;
+            }
+        }
+        Arrays.fill(names, newSize, size, null);
+        Arrays.fill(values, newSize, size, null);
+        size = newSize;
+        return true;
+    }
+
+    @Override
+    public String get(String name) {
+        return get((CharSequence) name);
+    }
+
+    @Override
+    public String get(CharSequence name) {
+        CharSequence value = get0(name);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public Integer getInt(CharSequence name) {
+        CharSequence value = get0(name);
+        return value == null ? null : converter().convertToInt(value);
+    }
+
+    @Override
+    public int getInt(CharSequence name, int defaultValue) {
+        CharSequence value = get0(name);
+        return value == null ? defaultValue : converter().convertToInt(value);
+    }
+
+    @Override
+    public Short getShort(CharSequence name) {
+        CharSequence value = get0(name);
+        return value == null ? null : converter().convertToShort(value);
+    }
+
+    @Override
+    public short getShort(CharSequence name, short defaultValue) {
+        CharSequence value = get0(name);
+        return value == null ? defaultValue : converter().convertToShort(value);
+    }
+
+    @Override
+    public Long getTimeMillis(CharSequence name) {
+        CharSequence value = get0(name);
+        return value == null ? null : converter().convertToTimeMillis(value);
+    }
+
+    @Override
+    public long getTimeMillis(CharSequence name, long defaultValue) {
+        CharSequence value = get0(name);
+        return value == null ? defaultValue : converter().convertToTimeMillis(value);
+    }
+
+    @Override
+    public List<String> getAll(String name) {
+        return getAll((CharSequence) name);
+    }
+
+    @Override
+    public List<String> getAll(CharSequence name) {
+        final int nameHash = AsciiString.hashCode(name);
+        int index = indexOf(name, nameHash, 0);
+        if (index == -1) {
+            return Collections.emptyList();
+        }
+        List<String> all = new ArrayList<String>(4);
+        do {
+            all.add(values[index].toString());
+            index = indexOf(name, nameHash, index + 1);
+        } while (index != -1);
+        return all;
+    }
+
+    @Override
+    public List<Entry<String, String>> entries() {
+        if (isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Entry<String, String>> entries = new ArrayList<Entry<String, String>>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new SimpleImmutableEntry<String, String>(names[i].toString(), values[i].toString()));
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return get0(name) != null;
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        return get0(name) != null;
+    }
+
+    @Override
+    public boolean contains(String name, String value, boolean ignoreCase) {
+        return contains((CharSequence) name, (CharSequence) value, ignoreCase);
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value, boolean ignoreCase) {
+        final int nameHash = AsciiString.hashCode(name);
+        for (int index = indexOf(name, nameHash, 0); index != -1; index = indexOf(name, nameHash, index + 1)) {
+            if (ignoreCase ? contentEqualsIgnoreCase(values[index], value) : contentEquals(values[index], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Deprecated
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        return new StringEntryIterator();
+    }
+
+    @Override
+    public Iterator<Entry<CharSequence, CharSequence>> iteratorCharSequence() {
+        return new EntryIterator();
+    }
+
+    @Override
+    public Iterator<String> valueStringIterator(CharSequence name) {
+        final Iterator<CharSequence> itr = valueCharSequenceIterator(name);
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return itr.next().toString();
+            }
+
+            @Override
+            public void remove() {
+                itr.remove();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<CharSequence> valueCharSequenceIterator(CharSequence name) {
+        return new ValueIterator(name);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<String> names() {
+        if (isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> names = new LinkedHashSet<String>(size);
+        for (int i = 0; i < size; i++) {
+            // Only add the first spelling of each name, as names are case-insensitive.
+            if (indexOf(this.names[i], hashes[i], 0) == i) {
+                names.add(this.names[i].toString());
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public HttpHeaders add(HttpHeaders headers) {
+        if (headers instanceof CompactHttpHeaders && (!validate || ((CompactHttpHeaders) headers).validate)) {
+            final CompactHttpHeaders other = (CompactHttpHeaders) headers;
+            if (other == this) {
+                throw new IllegalArgumentException("can't add to itself.");
+            }
+            // The headers were already validated and converted, so just copy them over.
+            final int otherSize = other.size;
+            for (int i = 0; i < otherSize; i++) {
+                if (nameValidator != other.nameValidator) {
+                    nameValidator.validateName(other.names[i]);
+                }
+                add0(other.names[i], other.hashes[i], other.values[i]);
+            }
+            return this;
+        }
+        return super.add(headers);
+    }
+
+    @Override
+    public HttpHeaders set(HttpHeaders headers) {
+        if (headers != this) {
+            clear();
+            add(headers);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Object value) {
+        return add((CharSequence) name, value);
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Object value) {
+        addValidated(validateName(name), converter().convertObject(checkNotNull(value, "value")));
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Iterable<?> values) {
+        return add((CharSequence) name, values);
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Iterable<?> values) {
+        validateName(name);
+        for (Object value : values) {
+            addValidated(name, converter().convertObject(checkNotNull(value, "value")));
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addInt(CharSequence name, int value) {
+        addValidated(validateName(name), converter().convertInt(value));
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addShort(CharSequence name, short value) {
+        addValidated(validateName(name), converter().convertShort(value));
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Object value) {
+        return set((CharSequence) name, value);
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Object value) {
+        CharSequence converted = converter().convertObject(checkNotNull(value, "value"));
+        validateName(name);
+        valueValidator.validate(converted);
+        remove0(name);
+        add0(name, AsciiString.hashCode(name), converted);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Iterable<?> values) {
+        return set((CharSequence) name, values);
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Iterable<?> values) {
+        validateName(name);
+        remove0(name);
+        for (Object value : values) {
+            if (value == null) {
+                break;
+            }
+            addValidated(name, converter().convertObject(value));
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setInt(CharSequence name, int value) {
+        return set(name, converter().convertInt(value));
+    }
+
+    @Override
+    public HttpHeaders setShort(CharSequence name, short value) {
+        return set(name, converter().convertShort(value));
+    }
+
+    @Override
+    public HttpHeaders remove(String name) {
+        remove0(name);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders remove(CharSequence name) {
+        remove0(name);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        return this;
+    }
+
+    @Override
+    public HttpHeaders copy() {
+        return new CompactHttpHeaders(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompactHttpHeaders)) {
+            return false;
+        }
+        final CompactHttpHeaders other = (CompactHttpHeaders) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            final CharSequence name = names[i];
+            final int nameHash = hashes[i];
+            if (indexOf(name, nameHash, 0) != i) {
+                continue;
+            }
+            // Compare the values of each name in order, like DefaultHttpHeaders does.
+            int index = i;
+            int otherIndex = other.indexOf(name, nameHash, 0);
+            while (index != -1 && otherIndex != -1) {
+                if (!contentEquals(values[index], other.values[otherIndex])) {
+                    return false;
+                }
+                index = indexOf(name, nameHash, index + 1);
+                otherIndex = other.indexOf(name, nameHash, otherIndex + 1);
+            }
+            if (index != otherIndex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int i = 0; i < size; i++) {
+            // Independent of the order of different names, so it is consistent with equals(Object).
+            result += hashes[i] * 31 + AsciiString.hashCode(values[i]);
+        }
+        return result;
+    }
+
+    private abstract class IndexIterator {
+        int nextIndex;
+        int lastIndex = -1;
+
+        abstract int findNext(int fromIndex);
+
+        public boolean hasNext() {
+            return nextIndex != -1;
+        }
+
+        final int nextIndex() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastIndex = nextIndex;
+            nextIndex = findNext(nextIndex + 1);
+            return lastIndex;
+        }
+
+        public void remove() {
+            if (lastIndex == -1) {
+                throw new IllegalStateException();
+            }
+            removeAt(lastIndex);
+            if (nextIndex != -1) {
+                nextIndex--;
+            }
+            lastIndex = -1;
+        }
+    }
+
+    private final class EntryIterator extends IndexIterator implements Iterator<Entry<CharSequence, CharSequence>> {
+        EntryIterator() {
+            nextIndex = findNext(0);
+        }
+
+        @Override
+        int findNext(int fromIndex) {
+            return fromIndex < size ? fromIndex : -1;
+        }
+
+        @Override
+        public Entry<CharSequence, CharSequence> next() {
+            return new HeaderEntry(nextIndex());
+        }
+    }
+
+    private final class StringEntryIterator extends IndexIterator implements Iterator<Entry<String, String>> {
+        StringEntryIterator() {
+            nextIndex = findNext(0);
+        }
+
+        @Override
+        int findNext(int fromIndex) {
+            return fromIndex < size ? fromIndex : -1;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            final int index = nextIndex();
+            return new SimpleImmutableEntry<String, String>(names[index].toString(), values[index].toString());
+        }
+    }
+
+    private final class ValueIterator extends IndexIterator implements Iterator<CharSequence> {
+        private final CharSequence name;
+        private final int nameHash;
+
+        ValueIterator(CharSequence name) {
+            this.name = checkNotNull(name, "name");
+            nameHash = AsciiString.hashCode(name);
+            nextIndex = findNext(0);
+        }
+
+        @Override
+        int findNext(int fromIndex) {
+            return indexOf(name, nameHash, fromIndex);
+        }
+
+        @Override
+        public CharSequence next() {
+            return values[nextIndex()];
+        }
+    }
+
+    /**
+     * A snapshot of a single header, {@link #setValue(CharSequence)} writes through if the header was not moved.
+     */
+    private final class HeaderEntry implements Map.Entry<CharSequence, CharSequence> {
+        private final int index;
+        private final CharSequence name;
+        private CharSequence value;
+
+        HeaderEntry(int index) {
+            this.index = index;
+            name = names[index];
+            value = values[index];
+        }
+
+        @Override
+        public CharSequence getKey() {
+            return name;
+        }
+
+        @Override
+        public CharSequence getValue() {
+            return value;
+        }
+
+        @Override
+        public CharSequence setValue(CharSequence value) {
+            checkNotNull(value, "value");
+            valueValidator.validate(value);
+            CharSequence old = this.value;
+            if (index < size && names[index] == name && values[index] == old) {
+                values[index] = value;
+            }
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public String toString() {
+            return name.toString() + '=' + value.toString();
+        }
+    }
+}
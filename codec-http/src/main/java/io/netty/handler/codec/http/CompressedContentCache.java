@@ -0,0 +1,209 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Caches the compressed variants of static content, so that {@link HttpContentCompressor} compresses the content of
+ * a {@link FullHttpResponse} only once per content encoding instead of once per response.
+ * <p>
+ * The content is identified by the strong {@code "ETag"} of the response. Responses without one, or with a weak
+ * {@code "ETag"}, are compressed as usual. A variant is identified by the content encoding together with the
+ * settings of the encoder, so {@link HttpContentCompressor}s with different settings never serve each other's
+ * bytes. A variant is compressed the first time it is requested and the least recently used variants are evicted
+ * once the total size of all variants exceeds the configured maximum.
+ * <p>
+ * Each variant is served with its own strong {@code "ETag"}, see {@link #variantEntityTag(String, String)}, so that
+ * conditional and range requests never mix up the bytes of different encodings.
+ * <p>
+ * A single instance can be shared by the {@link HttpContentCompressor}s of all {@link io.netty.channel.Channel}s.
+ */
+@UnstableApi
+public final class CompressedContentCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private long usedBytes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxBytes the maximum number of bytes of all compressed variants together.
+     */
+    public CompressedContentCache(long maxBytes) {
+        this.maxBytes = ObjectUtil.checkPositive(maxBytes, "maxBytes");
+    }
+
+    /**
+     * Returns the number of cached variants.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of bytes of all cached variants together.
+     */
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Removes and releases all cached variants.
+     */
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            entry.content.release();
+        }
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Returns the {@code "ETag"} of the given {@link HttpResponse} if its content can be cached, {@code null}
+     * otherwise.
+     */
+    static String cacheableEntityTag(HttpResponse response) {
+        String etag = response.headers().get(HttpHeaderNames.ETAG);
+        if (etag == null || etag.startsWith("W/")) {
+            return null;
+        }
+        return etag;
+    }
+
+    /**
+     * Returns the {@code "ETag"} of the variant with the given content encoding of the content with the given strong
+     * {@code "ETag"}, e.g. {@code "abc-gzip"} for {@code "abc"}.
+     */
+    static String variantEntityTag(String etag, String contentEncoding) {
+        if (etag.length() > 1 && etag.charAt(etag.length() - 1) == '"') {
+            return etag.substring(0, etag.length() - 1) + '-' + contentEncoding + '"';
+        }
+        return etag + '-' + contentEncoding;
+    }
+
+    /**
+     * Returns the given content encoded by the encoder of the given {@link CompressionEncoderFactory}, compressing
+     * and caching it if it is not cached yet. The caller is responsible for releasing the returned {@link ByteBuf}.
+     *
+     * @param encoderOptions the settings of the encoders created by the {@link CompressionEncoderFactory}, compared
+     *                       with {@link Object#equals(Object)}.
+     */
+    ByteBuf compress(String etag, String contentEncoding, Object encoderOptions, ByteBuf content,
+                     CompressionEncoderFactory factory) {
+        Key key = new Key(etag, contentEncoding, encoderOptions);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            // The length guards against different content that was mistakenly served with the same ETag.
+            if (entry != null && entry.contentLength == content.readableBytes()) {
+                return entry.content.retainedDuplicate();
+            }
+        }
+
+        // Compress outside of the lock. Concurrent misses for the same variant compress it more than once, which is
+        // cheaper than blocking all other lookups for the duration of the compression.
+        ByteBuf compressed = encode(content, factory);
+        int length = compressed.readableBytes();
+        if (length > maxBytes) {
+            return compressed;
+        }
+        synchronized (this) {
+            Entry old = entries.put(key, new Entry(content.readableBytes(), compressed));
+            if (old != null) {
+                usedBytes -= old.content.readableBytes();
+                old.content.release();
+            }
+            usedBytes += length;
+            Iterator<Entry> i = entries.values().iterator();
+            while (usedBytes > maxBytes) {
+                Entry eldest = i.next();
+                i.remove();
+                usedBytes -= eldest.content.readableBytes();
+                eldest.content.release();
+            }
+            return compressed.retainedDuplicate();
+        }
+    }
+
+    private static ByteBuf encode(ByteBuf content, CompressionEncoderFactory factory) {
+        EmbeddedChannel channel = new EmbeddedChannel(factory.createEncoder());
+        CompositeByteBuf composite = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        try {
+            channel.writeOutbound(content.retainedDuplicate());
+            channel.finish();
+            for (;;) {
+                ByteBuf buf = channel.readOutbound();
+                if (buf == null) {
+                    break;
+                }
+                composite.addComponent(true, buf);
+            }
+            // Copy into a single buffer, so every response only writes one exact-sized buffer.
+            ByteBuf compressed = Unpooled.directBuffer(composite.readableBytes());
+            compressed.writeBytes(composite);
+            return compressed;
+        } finally {
+            composite.release();
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static final class Key {
+        private final String etag;
+        private final String contentEncoding;
+        private final Object encoderOptions;
+
+        Key(String etag, String contentEncoding, Object encoderOptions) {
+            this.etag = etag;
+            this.contentEncoding = contentEncoding;
+            this.encoderOptions = encoderOptions;
+        }
+
+        @Override
+        public int hashCode() {
+            return (etag.hashCode() * 31 + contentEncoding.hashCode()) * 31 + encoderOptions.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return etag.equals(other.etag) && contentEncoding.equals(other.contentEncoding) &&
+                    encoderOptions.equals(other.encoderOptions);
+        }
+    }
+
+    private static final class Entry {
+        final int contentLength;
+        final ByteBuf content;
+
+        Entry(int contentLength, ByteBuf content) {
+            this.contentLength = contentLength;
+            this.content = content;
+        }
+    }
+}
@@ -52,6 +52,15 @@ public class DefaultFullHttpRequest extends DefaultHttpRequest implements FullHt
         trailingHeader = new DefaultHttpHeaders(validateHeaders);
     }
 
+    /**
+     * Creates a new instance whose headers and trailing headers are created by the given {@link HttpHeadersFactory}s,
+     * for example {@link DefaultHttpHeadersFactory#compactHeadersFactory(boolean)}.
+     */
+    public DefaultFullHttpRequest(HttpVersion httpVersion, HttpMethod method, String uri, ByteBuf content,
+                                  HttpHeadersFactory headersFactory, HttpHeadersFactory trailersFactory) {
+        this(httpVersion, method, uri, content, headersFactory.newHeaders(), trailersFactory.newHeaders());
+    }
+
     public DefaultFullHttpRequest(HttpVersion httpVersion, HttpMethod method, String uri,
             ByteBuf content, HttpHeaders headers, HttpHeaders trailingHeader) {
         super(httpVersion, method, uri, headers);
@@ -65,6 +65,15 @@ public class DefaultFullHttpResponse extends DefaultHttpResponse implements Full
                                                   : new DefaultHttpHeaders(validateHeaders);
     }
 
+    /**
+     * Creates a new instance whose headers and trailing headers are created by the given {@link HttpHeadersFactory}s,
+     * for example {@link DefaultHttpHeadersFactory#compactHeadersFactory(boolean)}.
+     */
+    public DefaultFullHttpResponse(HttpVersion version, HttpResponseStatus status, ByteBuf content,
+                                   HttpHeadersFactory headersFactory, HttpHeadersFactory trailersFactory) {
+        this(version, status, content, headersFactory.newHeaders(), trailersFactory.newHeaders());
+    }
+
     public DefaultFullHttpResponse(HttpVersion version, HttpResponseStatus status,
             ByteBuf content, HttpHeaders headers, HttpHeaders trailingHeaders) {
         super(version, status, headers);
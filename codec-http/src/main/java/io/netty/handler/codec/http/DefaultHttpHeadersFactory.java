@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.handler.codec.DefaultHeaders.NameValidator;
+import io.netty.handler.codec.http.DefaultLastHttpContent.TrailingHttpHeaders;
+
+/**
+ * The {@link HttpHeadersFactory}s for {@link DefaultHttpHeaders} and {@link CompactHttpHeaders}.
+ * <p>
+ * The trailers factories reject the names {@code content-length}, {@code transfer-encoding} and {@code trailer} if
+ * validation is enabled, like the trailing headers of {@link DefaultLastHttpContent}.
+ */
+public final class DefaultHttpHeadersFactory implements HttpHeadersFactory {
+    private static final int COMPACT_TRAILERS_INITIAL_CAPACITY = 4;
+
+    private static final DefaultHttpHeadersFactory[] FACTORIES = new DefaultHttpHeadersFactory[8];
+
+    static {
+        for (int i = 0; i < FACTORIES.length; i++) {
+            FACTORIES[i] = new DefaultHttpHeadersFactory((i & 4) != 0, (i & 2) != 0, (i & 1) != 0);
+        }
+    }
+
+    private final boolean compact;
+    private final boolean trailers;
+    private final boolean validate;
+
+    private DefaultHttpHeadersFactory(boolean compact, boolean trailers, boolean validate) {
+        this.compact = compact;
+        this.trailers = trailers;
+        this.validate = validate;
+    }
+
+    private static HttpHeadersFactory factory(boolean compact, boolean trailers, boolean validate) {
+        return FACTORIES[(compact ? 4 : 0) | (trailers ? 2 : 0) | (validate ? 1 : 0)];
+    }
+
+    /**
+     * Returns the factory of validating {@link DefaultHttpHeaders}.
+     */
+    public static HttpHeadersFactory headersFactory() {
+        return headersFactory(true);
+    }
+
+    /**
+     * Returns the factory of {@link DefaultHttpHeaders}.
+     *
+     * @param validate Should Netty validate header names and values, see
+     *                 {@link DefaultHttpHeaders#DefaultHttpHeaders(boolean)}.
+     */
+    public static HttpHeadersFactory headersFactory(boolean validate) {
+        return factory(false, false, validate);
+    }
+
+    /**
+     * Returns the factory of {@link DefaultHttpHeaders} which are used as trailing headers.
+     *
+     * @param validate Should Netty validate header names and values, see
+     *                 {@link DefaultHttpHeaders#DefaultHttpHeaders(boolean)}.
+     */
+    public static HttpHeadersFactory trailersFactory(boolean validate) {
+        return factory(false, true, validate);
+    }
+
+    /**
+     * Returns the factory of {@link CompactHttpHeaders}.
+     *
+     * @param validate Should Netty validate header names and values.
+     */
+    public static HttpHeadersFactory compactHeadersFactory(boolean validate) {
+        return factory(true, false, validate);
+    }
+
+    /**
+     * Returns the factory of {@link CompactHttpHeaders} which are used as trailing headers.
+     *
+     * @param validate Should Netty validate header names and values.
+     */
+    public static HttpHeadersFactory compactTrailersFactory(boolean validate) {
+        return factory(true, true, validate);
+    }
+
+    @Override
+    public HttpHeaders newHeaders() {
+        if (compact) {
+            if (trailers) {
+                NameValidator<CharSequence> nameValidator = validate ?
+                        TrailingHttpHeaders.TrailerNameValidator : DefaultHttpHeaders.nameValidator(false);
+                return new CompactHttpHeaders(validate, nameValidator, COMPACT_TRAILERS_INITIAL_CAPACITY);
+            }
+            return new CompactHttpHeaders(validate);
+        }
+        return trailers ? new TrailingHttpHeaders(validate) : new DefaultHttpHeaders(validate);
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultHttpHeadersFactory(compact: " + compact + ", trailers: " + trailers +
+                ", validate: " + validate + ')';
+    }
+}
@@ -29,7 +29,7 @@ import static io.netty.util.internal.ObjectUtil.checkNotNull;
  */
 public class DefaultLastHttpContent extends DefaultHttpContent implements LastHttpContent {
     private final HttpHeaders trailingHeaders;
-    private final boolean validateHeaders;
+    private final HttpHeadersFactory trailersFactory;
 
     public DefaultLastHttpContent() {
         this(Unpooled.buffer(0));
@@ -40,15 +40,23 @@ public class DefaultLastHttpContent extends DefaultHttpContent implements LastHt
     }
 
     public DefaultLastHttpContent(ByteBuf content, boolean validateHeaders) {
+        this(content, DefaultHttpHeadersFactory.trailersFactory(validateHeaders));
+    }
+
+    /**
+     * Creates a new instance whose trailing headers, and the trailing headers of its copies, are created by the
+     * given {@link HttpHeadersFactory}.
+     */
+    public DefaultLastHttpContent(ByteBuf content, HttpHeadersFactory trailersFactory) {
         super(content);
-        trailingHeaders = new TrailingHttpHeaders(validateHeaders);
-        this.validateHeaders = validateHeaders;
+        this.trailersFactory = checkNotNull(trailersFactory, "trailersFactory");
+        trailingHeaders = trailersFactory.newHeaders();
     }
 
     public DefaultLastHttpContent(ByteBuf content, HttpHeaders trailingHeaders) {
         super(content);
         this.trailingHeaders = checkNotNull(trailingHeaders, "trailingHeaders");
-        this.validateHeaders = false;
+        trailersFactory = DefaultHttpHeadersFactory.trailersFactory(false);
     }
 
     @Override
@@ -68,7 +76,7 @@ public class DefaultLastHttpContent extends DefaultHttpContent implements LastHt
 
     @Override
     public LastHttpContent replace(ByteBuf content) {
-        final DefaultLastHttpContent dup = new DefaultLastHttpContent(content, validateHeaders);
+        final DefaultLastHttpContent dup = new DefaultLastHttpContent(content, trailersFactory);
         dup.trailingHeaders().set(trailingHeaders());
         return dup;
     }
@@ -122,8 +130,8 @@ public class DefaultLastHttpContent extends DefaultHttpContent implements LastHt
         }
     }
 
-    private static final class TrailingHttpHeaders extends DefaultHttpHeaders {
-        private static final NameValidator<CharSequence> TrailerNameValidator = new NameValidator<CharSequence>() {
+    static final class TrailingHttpHeaders extends DefaultHttpHeaders {
+        static final NameValidator<CharSequence> TrailerNameValidator = new NameValidator<CharSequence>() {
             @Override
             public void validateName(CharSequence name) {
                 DefaultHttpHeaders.HttpNameValidator.validateName(name);
@@ -0,0 +1,666 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+import java.io.Closeable;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * Sends {@link FullHttpRequest}s over HTTP/1.1 connections which are kept open and reused for later requests to the
+ * same origin, as long as both the request and the response allow it, see {@link HttpUtil#isKeepAlive(HttpMessage)}.
+ * <p>
+ * All connections to an origin, identified by its {@link SocketAddress}, and the requests waiting for one of them
+ * are handled by the same {@link EventLoop}, so no locking is needed. A request is sent over an idle connection if
+ * there is one, otherwise over a new connection as long as the maximum number of connections per origin is not
+ * reached. After that, idempotent requests may be pipelined on connections which only have idempotent requests in
+ * flight, if pipelining is enabled; all other requests wait for a connection to become idle. Idempotent requests
+ * which were in flight when their connection was closed are retried once.
+ * <p>
+ * Connections which stay idle for longer than the idle timeout are closed by a single task per {@link EventLoop},
+ * instead of an {@link io.netty.handler.timeout.IdleStateHandler} per connection. The state of an origin is dropped
+ * once it has neither connections nor waiting requests, so talking to many different origins does not accumulate
+ * state.
+ * <p>
+ * The pipeline of a connection contains the handler of the {@link Bootstrap}, if any, followed by a
+ * {@link HttpClientCodec} and a {@link HttpObjectAggregator}.
+ */
+@UnstableApi
+public class HttpConnectionPool implements Closeable {
+
+    private final Bootstrap bootstrap;
+    private final ChannelHandler bootstrapHandler;
+    private final int maxConnectionsPerOrigin;
+    private final int maxPipelinedRequests;
+    private final int maxPendingRequests;
+    private final int maxContentLength;
+    private final long idleTimeoutNanos;
+    private final ConcurrentMap<SocketAddress, OriginPool> origins = PlatformDependent.newConcurrentHashMap();
+    private final ConcurrentMap<EventExecutor, IdleSweeper> sweepers = PlatformDependent.newConcurrentHashMap();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger pendingRequestCount = new AtomicInteger();
+    private final LongCounter acquireCount = PlatformDependent.newLongCounter();
+    private final LongCounter totalAcquireTimeNanos = PlatformDependent.newLongCounter();
+    private final AtomicLong maxAcquireTimeNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance without pipelining, which closes connections that are idle for more than 60 seconds.
+     *
+     * @param bootstrap               the {@link Bootstrap} that is used for connections.
+     * @param maxConnectionsPerOrigin the maximum number of open connections per origin.
+     */
+    public HttpConnectionPool(Bootstrap bootstrap, int maxConnectionsPerOrigin) {
+        this(bootstrap, maxConnectionsPerOrigin, 1, Integer.MAX_VALUE, 1024 * 1024, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap               the {@link Bootstrap} that is used for connections.
+     * @param maxConnectionsPerOrigin the maximum number of open connections per origin.
+     * @param maxPipelinedRequests    the maximum number of requests in flight per connection, {@code 1} disables
+     *                                pipelining.
+     * @param maxPendingRequests      the maximum number of requests per origin waiting for a connection. Once this
+     *                                is exceeded requests are failed.
+     * @param maxContentLength        the maximum length of the content of a response.
+     * @param idleTimeout             the time after which an idle connection is closed, {@code 0} to keep idle
+     *                                connections open.
+     * @param unit                    the unit of {@code idleTimeout}.
+     */
+    public HttpConnectionPool(Bootstrap bootstrap, int maxConnectionsPerOrigin, int maxPipelinedRequests,
+                              int maxPendingRequests, int maxContentLength, long idleTimeout, TimeUnit unit) {
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap").clone();
+        bootstrapHandler = bootstrap.config().handler();
+        this.maxConnectionsPerOrigin = checkPositive(maxConnectionsPerOrigin, "maxConnectionsPerOrigin");
+        this.maxPipelinedRequests = checkPositive(maxPipelinedRequests, "maxPipelinedRequests");
+        this.maxPendingRequests = checkPositive(maxPendingRequests, "maxPendingRequests");
+        this.maxContentLength = checkPositive(maxContentLength, "maxContentLength");
+        idleTimeoutNanos = checkNotNull(unit, "unit").toNanos(checkPositiveOrZero(idleTimeout, "idleTimeout"));
+    }
+
+    /**
+     * Sends the request to the given origin and returns the response. The ownership of the request is transferred
+     * to this pool, and the ownership of the response to the caller.
+     *
+     * @param origin  the address of the origin.
+     * @param request the request. Its {@code Host} header is not set by this pool.
+     * @return the {@link Future} which is notified with the response on the {@link EventLoop} of the origin.
+     */
+    public Future<FullHttpResponse> request(SocketAddress origin, FullHttpRequest request) {
+        checkNotNull(origin, "origin");
+        checkNotNull(request, "request");
+        OriginPool pool = originPool(origin);
+        PendingRequest pending = new PendingRequest(request, pool.loop.<FullHttpResponse>newPromise());
+        if (closed) {
+            pending.fail(new IllegalStateException("HttpConnectionPool was closed"));
+            return pending.promise;
+        }
+        submit(pool, pending);
+        return pending.promise;
+    }
+
+    private static void submit(final OriginPool pool, final PendingRequest pending) {
+        if (pool.loop.inEventLoop()) {
+            pool.enqueue(pending);
+        } else {
+            try {
+                pool.loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        pool.enqueue(pending);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pending.fail(e);
+            }
+        }
+    }
+
+    private OriginPool originPool(SocketAddress origin) {
+        OriginPool pool = origins.get(origin);
+        if (pool == null) {
+            pool = new OriginPool(origin, bootstrap.config().group().next());
+            OriginPool old = origins.putIfAbsent(origin, pool);
+            if (old != null) {
+                return old;
+            }
+            registerIdleSweeper(pool);
+        }
+        return pool;
+    }
+
+    private void registerIdleSweeper(OriginPool pool) {
+        if (idleTimeoutNanos > 0) {
+            IdleSweeper sweeper = sweepers.get(pool.loop);
+            if (sweeper == null) {
+                sweeper = new IdleSweeper(pool.loop);
+                IdleSweeper oldSweeper = sweepers.putIfAbsent(pool.loop, sweeper);
+                if (oldSweeper != null) {
+                    sweeper = oldSweeper;
+                }
+            }
+            sweeper.add(pool);
+        }
+    }
+
+    /**
+     * Returns the number of origins with open connections or waiting requests.
+     */
+    int originCount() {
+        return origins.size();
+    }
+
+    /**
+     * Returns the number of open connections, including the ones being established.
+     */
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Returns the number of requests which are waiting for a connection.
+     */
+    public int pendingRequestCount() {
+        return pendingRequestCount.get();
+    }
+
+    /**
+     * Returns the number of requests which were sent.
+     */
+    public long acquireCount() {
+        return acquireCount.value();
+    }
+
+    /**
+     * Returns the total time in nanoseconds requests waited for a connection before they were sent.
+     */
+    public long totalAcquireTimeNanos() {
+        return totalAcquireTimeNanos.value();
+    }
+
+    /**
+     * Returns the longest time in nanoseconds a request waited for a connection before it was sent.
+     */
+    public long maxAcquireTimeNanos() {
+        return maxAcquireTimeNanos.get();
+    }
+
+    /**
+     * Closes all connections and fails all requests which are waiting for a connection or for their response.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (final OriginPool pool : origins.values()) {
+            try {
+                pool.loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        pool.close();
+                    }
+                });
+            } catch (RejectedExecutionException ignore) {
+                // The connections were closed together with the EventLoop.
+            }
+        }
+        for (IdleSweeper sweeper : sweepers.values()) {
+            sweeper.cancel();
+        }
+    }
+
+    private void recordAcquire(long startNanos) {
+        long acquireTimeNanos = System.nanoTime() - startNanos;
+        acquireCount.increment();
+        totalAcquireTimeNanos.add(acquireTimeNanos);
+        for (;;) {
+            long max = maxAcquireTimeNanos.get();
+            if (acquireTimeNanos <= max || maxAcquireTimeNanos.compareAndSet(max, acquireTimeNanos)) {
+                break;
+            }
+        }
+    }
+
+    private static boolean isIdempotent(HttpMethod method) {
+        return method.equals(HttpMethod.GET) || method.equals(HttpMethod.HEAD) || method.equals(HttpMethod.PUT) ||
+                method.equals(HttpMethod.DELETE) || method.equals(HttpMethod.OPTIONS) ||
+                method.equals(HttpMethod.TRACE);
+    }
+
+    private static final class PendingRequest {
+        final FullHttpRequest request;
+        final Promise<FullHttpResponse> promise;
+        final long startNanos = System.nanoTime();
+        final boolean idempotent;
+        // Whether the request was written, which transfers its ownership unless it was retained.
+        boolean sent;
+        // Whether this still holds the request, after a duplicate of it was written.
+        boolean retained;
+        boolean retried;
+
+        PendingRequest(FullHttpRequest request, Promise<FullHttpResponse> promise) {
+            this.request = request;
+            this.promise = promise;
+            idempotent = isIdempotent(request.method());
+        }
+
+        void fail(Throwable cause) {
+            if (retained || !sent) {
+                retained = false;
+                request.release();
+            }
+            promise.tryFailure(cause);
+        }
+
+        void succeed(FullHttpResponse response) {
+            if (retained) {
+                retained = false;
+                request.release();
+            }
+            if (!promise.trySuccess(response)) {
+                response.release();
+            }
+        }
+    }
+
+    /**
+     * The connections to an origin and the requests waiting for one of them, only accessed from {@link #loop}.
+     */
+    private final class OriginPool {
+        final SocketAddress origin;
+        final EventLoop loop;
+        final ArrayDeque<PendingRequest> pending = new ArrayDeque<PendingRequest>();
+        final List<Connection> connections = new ArrayList<Connection>();
+        int connecting;
+        boolean poolClosed;
+        // Whether this pool was removed from the origins, as it had neither connections nor pending requests.
+        boolean removed;
+        IdleSweeper sweeper;
+
+        OriginPool(SocketAddress origin, EventLoop loop) {
+            this.origin = origin;
+            this.loop = loop;
+        }
+
+        void enqueue(PendingRequest request) {
+            if (poolClosed || closed) {
+                request.fail(new IllegalStateException("HttpConnectionPool was closed"));
+            } else if (removed && !reinstate()) {
+                // The request raced with the removal of this pool and another pool took over the origin since.
+                submit(originPool(origin), request);
+            } else if (pending.size() >= maxPendingRequests) {
+                request.fail(new IllegalStateException("Too many pending requests for " + origin));
+            } else {
+                pending.add(request);
+                pendingRequestCount.incrementAndGet();
+                dispatch();
+            }
+        }
+
+        private boolean reinstate() {
+            if (origins.putIfAbsent(origin, this) != null) {
+                return false;
+            }
+            removed = false;
+            registerIdleSweeper(this);
+            return true;
+        }
+
+        private void removeIfUnused() {
+            if (!removed && pending.isEmpty() && connections.isEmpty() && connecting == 0) {
+                removed = true;
+                origins.remove(origin, this);
+                if (sweeper != null) {
+                    sweeper.remove(this);
+                }
+            }
+        }
+
+        void dispatch() {
+            for (;;) {
+                PendingRequest request = pending.peek();
+                if (request == null) {
+                    return;
+                }
+                Connection connection = idleConnection();
+                if (connection == null) {
+                    if (connections.size() + connecting < maxConnectionsPerOrigin) {
+                        if (connecting < pending.size()) {
+                            connect();
+                            continue;
+                        }
+                        return;
+                    }
+                    connection = pipelineConnection(request);
+                    if (connection == null) {
+                        return;
+                    }
+                }
+                pending.poll();
+                pendingRequestCount.decrementAndGet();
+                connection.send(request);
+            }
+        }
+
+        private Connection idleConnection() {
+            // Prefer the most recently used connection, so the others can time out.
+            Connection idle = null;
+            for (int i = 0; i < connections.size(); i++) {
+                Connection connection = connections.get(i);
+                if (connection.reusable && connection.inFlight.isEmpty() &&
+                        (idle == null || connection.lastUsedNanos - idle.lastUsedNanos > 0)) {
+                    idle = connection;
+                }
+            }
+            return idle;
+        }
+
+        private Connection pipelineConnection(PendingRequest request) {
+            if (maxPipelinedRequests == 1 || !request.idempotent) {
+                return null;
+            }
+            Connection leastLoaded = null;
+            for (int i = 0; i < connections.size(); i++) {
+                Connection connection = connections.get(i);
+                if (connection.reusable && connection.nonIdempotentInFlight == 0 &&
+                        connection.inFlight.size() < maxPipelinedRequests &&
+                        (leastLoaded == null || connection.inFlight.size() < leastLoaded.inFlight.size())) {
+                    leastLoaded = connection;
+                }
+            }
+            return leastLoaded;
+        }
+
+        private void connect() {
+            connecting++;
+            connectionCount.incrementAndGet();
+            final Connection connection = new Connection(this);
+            bootstrap.clone(loop).remoteAddress(origin).handler(new ConnectionInitializer(connection)).connect()
+                    .addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) {
+                            connecting--;
+                            if (!future.isSuccess()) {
+                                connectionCount.decrementAndGet();
+                                PendingRequest request = pending.poll();
+                                if (request != null) {
+                                    pendingRequestCount.decrementAndGet();
+                                    request.fail(future.cause());
+                                }
+                            } else if (poolClosed) {
+                                future.channel().close();
+                                return;
+                            } else {
+                                connections.add(connection);
+                            }
+                            dispatch();
+                            removeIfUnused();
+                        }
+                    });
+        }
+
+        void closed(Connection connection) {
+            // Only remove the connection once, even if it was not added because the pool is closed.
+            if (connections.remove(connection) || poolClosed) {
+                connectionCount.decrementAndGet();
+            }
+            PendingRequest request;
+            int retries = 0;
+            while ((request = connection.inFlight.pollLast()) != null) {
+                if (request.retained && !poolClosed && !request.promise.isDone()) {
+                    // Retry the idempotent requests in their original order, before the ones that are waiting.
+                    request.sent = false;
+                    request.retained = false;
+                    request.retried = true;
+                    pending.addFirst(request);
+                    retries++;
+                } else {
+                    request.fail(new ClosedChannelException());
+                }
+            }
+            pendingRequestCount.addAndGet(retries);
+            dispatch();
+            removeIfUnused();
+        }
+
+        void close() {
+            poolClosed = true;
+            PendingRequest request;
+            while ((request = pending.poll()) != null) {
+                pendingRequestCount.decrementAndGet();
+                request.fail(new ClosedChannelException());
+            }
+            for (Connection connection : connections.toArray(new Connection[0])) {
+                connection.ctx.close();
+            }
+        }
+
+        void evictIdle(long nowNanos) {
+            for (Connection connection : connections.toArray(new Connection[0])) {
+                if (connection.inFlight.isEmpty() && nowNanos - connection.lastUsedNanos >= idleTimeoutNanos) {
+                    connection.reusable = false;
+                    connection.ctx.close();
+                }
+            }
+        }
+    }
+
+    private final class ConnectionInitializer extends ChannelInitializer<Channel> {
+        private final Connection connection;
+
+        ConnectionInitializer(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        protected void initChannel(Channel ch) {
+            if (bootstrapHandler != null) {
+                ch.pipeline().addLast(bootstrapHandler);
+            }
+            ch.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(maxContentLength), connection);
+        }
+    }
+
+    /**
+     * A connection to an origin, only accessed from the {@link EventLoop} of the origin.
+     */
+    private final class Connection extends ChannelInboundHandlerAdapter {
+        private final OriginPool pool;
+        final ArrayDeque<PendingRequest> inFlight = new ArrayDeque<PendingRequest>(1);
+        ChannelHandlerContext ctx;
+        int nonIdempotentInFlight;
+        boolean reusable = true;
+        long lastUsedNanos = System.nanoTime();
+
+        Connection(OriginPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        void send(PendingRequest request) {
+            if (!request.retried) {
+                recordAcquire(request.startNanos);
+            }
+            request.sent = true;
+            inFlight.add(request);
+            if (!request.idempotent) {
+                nonIdempotentInFlight++;
+            }
+            if (!HttpUtil.isKeepAlive(request.request)) {
+                reusable = false;
+            }
+            FullHttpRequest msg = request.request;
+            if (request.idempotent && !request.retried) {
+                // Keep the request, so it can be retried if the connection is closed before the response arrives.
+                request.retained = true;
+                msg = msg.retainedDuplicate();
+            }
+            ctx.writeAndFlush(msg).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (!(msg instanceof FullHttpResponse)) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            FullHttpResponse response = (FullHttpResponse) msg;
+            PendingRequest request = inFlight.poll();
+            if (request == null) {
+                // A response that was not asked for, so the connection can not be trusted anymore.
+                response.release();
+                reusable = false;
+                ctx.close();
+                return;
+            }
+            if (!request.idempotent) {
+                nonIdempotentInFlight--;
+            }
+            if (!HttpUtil.isKeepAlive(response)) {
+                reusable = false;
+            }
+            lastUsedNanos = System.nanoTime();
+            request.succeed(response);
+            if (!reusable) {
+                // Requests which were pipelined behind this one are retried by closed(...).
+                ctx.close();
+            } else {
+                pool.dispatch();
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            reusable = false;
+            PendingRequest request = inFlight.poll();
+            if (request != null) {
+                if (!request.idempotent) {
+                    nonIdempotentInFlight--;
+                }
+                request.fail(cause);
+            }
+            ctx.close();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            reusable = false;
+            pool.closed(this);
+        }
+    }
+
+    /**
+     * Closes the idle connections of all origins of an {@link EventLoop} with a single scheduled task.
+     */
+    private final class IdleSweeper implements Runnable {
+        private final EventLoop loop;
+        // Only accessed from the loop.
+        private final List<OriginPool> pools = new ArrayList<OriginPool>();
+        private volatile ScheduledFuture<?> future;
+
+        IdleSweeper(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        void add(final OriginPool pool) {
+            try {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (pool.removed || pool.sweeper != null) {
+                            return;
+                        }
+                        pool.sweeper = IdleSweeper.this;
+                        pools.add(pool);
+                        if (future == null && !closed) {
+                            future = loop.scheduleWithFixedDelay(IdleSweeper.this, idleTimeoutNanos,
+                                    idleTimeoutNanos, TimeUnit.NANOSECONDS);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException ignore) {
+                // Nothing to sweep anymore.
+            }
+        }
+
+        void remove(OriginPool pool) {
+            assert loop.inEventLoop();
+            pool.sweeper = null;
+            pools.remove(pool);
+            if (pools.isEmpty()) {
+                cancel();
+                future = null;
+            }
+        }
+
+        @Override
+        public void run() {
+            if (closed) {
+                cancel();
+                return;
+            }
+            long nowNanos = System.nanoTime();
+            for (int i = 0; i < pools.size(); i++) {
+                pools.get(i).evictIdle(nowNanos);
+            }
+        }
+
+        void cancel() {
+            ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+}
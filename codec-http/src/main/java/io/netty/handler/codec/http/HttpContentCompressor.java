@@ -35,6 +35,8 @@ import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.handler.codec.compression.Zstd;
 import io.netty.handler.codec.compression.ZstdEncoder;
 import io.netty.handler.codec.compression.ZstdOptions;
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.internal.ObjectUtil;
 
 /**
@@ -43,9 +45,32 @@ import io.netty.util.internal.ObjectUtil;
  * If there is no matching encoding, no compression is done.  For more
  * information on how this handler modifies the message, please refer to
  * {@link HttpContentEncoder}.
+ * <p>
+ * Compressing large responses is expensive and delays all other {@link io.netty.channel.Channel}s of the event
+ * loop. Use {@link #HttpContentCompressor(EventExecutorGroup, int, boolean, CompressionOptions...)} to compress on
+ * a separate {@link EventExecutorGroup} and to skip responses that are too small or compressed already, and
+ * {@link CompressedContentCache} to compress static content only once.
  */
 public class HttpContentCompressor extends HttpContentEncoder {
 
+    private static final AsciiString[] COMPRESSED_CONTENT_TYPE_PREFIXES = {
+            AsciiString.cached("image/"),
+            AsciiString.cached("audio/"),
+            AsciiString.cached("video/"),
+            AsciiString.cached("font/woff")
+    };
+    private static final AsciiString[] COMPRESSED_CONTENT_TYPES = {
+            AsciiString.cached("application/zip"),
+            AsciiString.cached("application/gzip"),
+            AsciiString.cached("application/x-gzip"),
+            AsciiString.cached("application/zstd"),
+            AsciiString.cached("application/x-bzip2"),
+            AsciiString.cached("application/x-7z-compressed"),
+            AsciiString.cached("application/x-rar-compressed"),
+            AsciiString.cached("application/pdf")
+    };
+    private static final AsciiString IMAGE_SVG = AsciiString.cached("image/svg+xml");
+
     private final boolean supportsCompressionOptions;
     private final BrotliOptions brotliOptions;
     private final GzipOptions gzipOptions;
@@ -56,6 +81,8 @@ public class HttpContentCompressor extends HttpContentEncoder {
     private final int windowBits;
     private final int memLevel;
     private final int contentSizeThreshold;
+    private final boolean skipCompressedContent;
+    private final CompressedContentCache contentCache;
     private ChannelHandlerContext ctx;
     private final Map<String, CompressionEncoderFactory> factories;
 
@@ -134,6 +161,8 @@ public class HttpContentCompressor extends HttpContentEncoder {
         this.windowBits = ObjectUtil.checkInRange(windowBits, 9, 15, "windowBits");
         this.memLevel = ObjectUtil.checkInRange(memLevel, 1, 9, "memLevel");
         this.contentSizeThreshold = ObjectUtil.checkPositiveOrZero(contentSizeThreshold, "contentSizeThreshold");
+        this.skipCompressedContent = false;
+        this.contentCache = null;
         this.brotliOptions = null;
         this.gzipOptions = null;
         this.deflateOptions = null;
@@ -165,6 +194,61 @@ public class HttpContentCompressor extends HttpContentEncoder {
      *        if the default should be used.
      */
     public HttpContentCompressor(int contentSizeThreshold, CompressionOptions... compressionOptions) {
+        this(null, contentSizeThreshold, false, compressionOptions);
+    }
+
+    /**
+     * Create a new {@link HttpContentCompressor} instance with specified
+     * {@link CompressionOptions}s which compresses on the given {@link EventExecutorGroup}.
+     *
+     * @param executorGroup
+     *        The {@link EventExecutorGroup} the content is compressed on, while the order of the
+     *        written messages and the writability of the {@link io.netty.channel.Channel} are
+     *        preserved. {@code null} compresses on the event loop of the {@link io.netty.channel.Channel}.
+     * @param contentSizeThreshold
+     *        The response body is compressed when the size of the response
+     *        body exceeds the threshold. The value should be a non negative
+     *        number. {@code 0} will enable compression for all responses.
+     * @param skipCompressedContent
+     *        {@code true} if responses with a {@code "Content-Type"} that is compressed already
+     *        (see {@link #isCompressedContentType(CharSequence)}) should not be compressed.
+     * @param compressionOptions {@link CompressionOptions} or {@code null}
+     *        if the default should be used.
+     */
+    public HttpContentCompressor(EventExecutorGroup executorGroup, int contentSizeThreshold,
+                                 boolean skipCompressedContent, CompressionOptions... compressionOptions) {
+        this(executorGroup, contentSizeThreshold, skipCompressedContent, null, compressionOptions);
+    }
+
+    /**
+     * Create a new {@link HttpContentCompressor} instance with specified
+     * {@link CompressionOptions}s which compresses on the given {@link EventExecutorGroup} and
+     * takes the content of {@link FullHttpResponse}s with a strong {@code "ETag"} from the given
+     * {@link CompressedContentCache}.
+     *
+     * @param executorGroup
+     *        The {@link EventExecutorGroup} the content is compressed on, while the order of the
+     *        written messages and the writability of the {@link io.netty.channel.Channel} are
+     *        preserved. {@code null} compresses on the event loop of the {@link io.netty.channel.Channel}.
+     * @param contentSizeThreshold
+     *        The response body is compressed when the size of the response
+     *        body exceeds the threshold. The value should be a non negative
+     *        number. {@code 0} will enable compression for all responses.
+     * @param skipCompressedContent
+     *        {@code true} if responses with a {@code "Content-Type"} that is compressed already
+     *        (see {@link #isCompressedContentType(CharSequence)}) should not be compressed.
+     * @param contentCache
+     *        The {@link CompressedContentCache} for the compressed content of static
+     *        {@link FullHttpResponse}s, or {@code null} to compress every response.
+     * @param compressionOptions {@link CompressionOptions} or {@code null}
+     *        if the default should be used.
+     */
+    public HttpContentCompressor(EventExecutorGroup executorGroup, int contentSizeThreshold,
+                                 boolean skipCompressedContent, CompressedContentCache contentCache,
+                                 CompressionOptions... compressionOptions) {
+        super(executorGroup);
+        this.skipCompressedContent = skipCompressedContent;
+        this.contentCache = contentCache;
         this.contentSizeThreshold = ObjectUtil.checkPositiveOrZero(contentSizeThreshold, "contentSizeThreshold");
         BrotliOptions brotliOptions = null;
         GzipOptions gzipOptions = null;
@@ -233,8 +317,22 @@ public class HttpContentCompressor extends HttpContentEncoder {
     @Override
     protected Result beginEncode(HttpResponse httpResponse, String acceptEncoding) throws Exception {
         if (this.contentSizeThreshold > 0) {
-            if (httpResponse instanceof HttpContent &&
-                    ((HttpContent) httpResponse).content().readableBytes() < contentSizeThreshold) {
+            if (httpResponse instanceof HttpContent) {
+                if (((HttpContent) httpResponse).content().readableBytes() < contentSizeThreshold) {
+                    return null;
+                }
+            } else {
+                // The body follows in separate chunks, but the announced length may be below the threshold.
+                long contentLength = HttpUtil.getContentLength(httpResponse, -1L);
+                if (contentLength != -1L && contentLength < contentSizeThreshold) {
+                    return null;
+                }
+            }
+        }
+
+        if (skipCompressedContent) {
+            String contentType = httpResponse.headers().get(HttpHeaderNames.CONTENT_TYPE);
+            if (contentType != null && isCompressedContentType(contentType)) {
                 return null;
             }
         }
@@ -258,6 +356,18 @@ public class HttpContentCompressor extends HttpContentEncoder {
                 throw new Error();
             }
 
+            if (contentCache != null && httpResponse instanceof FullHttpResponse) {
+                String etag = CompressedContentCache.cacheableEntityTag(httpResponse);
+                if (etag != null) {
+                    ByteBuf encodedContent = contentCache.compress(etag, targetContentEncoding,
+                            encoderOptions(targetContentEncoding), ((FullHttpResponse) httpResponse).content(),
+                            encoderFactory);
+                    httpResponse.headers().set(HttpHeaderNames.ETAG,
+                            CompressedContentCache.variantEntityTag(etag, targetContentEncoding));
+                    return new Result(targetContentEncoding, encodedContent);
+                }
+            }
+
             return new Result(targetContentEncoding,
                     new EmbeddedChannel(ctx.channel().id(), ctx.channel().metadata().hasDisconnect(),
                             ctx.channel().config(), encoderFactory.createEncoder()));
@@ -287,6 +397,48 @@ public class HttpContentCompressor extends HttpContentEncoder {
         }
     }
 
+    /**
+     * Returns the settings of the encoders of the given content encoding, as part of the key of a
+     * {@link CompressedContentCache}.
+     */
+    private Object encoderOptions(String targetContentEncoding) {
+        DeflateOptions deflateOptions;
+        if ("gzip".equals(targetContentEncoding)) {
+            deflateOptions = gzipOptions;
+        } else if ("deflate".equals(targetContentEncoding)) {
+            deflateOptions = this.deflateOptions;
+        } else if ("zstd".equals(targetContentEncoding)) {
+            return zstdOptions.compressionLevel() + "," + zstdOptions.blockSize() + "," + zstdOptions.maxEncodeSize();
+        } else {
+            // The brotli parameters can not be compared, so variants are only shared between users of the same
+            // BrotliOptions instance.
+            return brotliOptions;
+        }
+        return deflateOptions.compressionLevel() + "," + deflateOptions.windowBits() + "," +
+                deflateOptions.memLevel();
+    }
+
+    /**
+     * Returns {@code true} if content of the given {@code "Content-Type"} is compressed already, so compressing it
+     * again would only cost CPU time. This is only consulted if the {@link HttpContentCompressor} was created
+     * with {@code skipCompressedContent} enabled. The default implementation returns {@code true} for images (except
+     * {@code image/svg+xml}), audio, video, woff fonts and common archive formats.
+     */
+    protected boolean isCompressedContentType(CharSequence contentType) {
+        for (AsciiString prefix : COMPRESSED_CONTENT_TYPE_PREFIXES) {
+            if (AsciiString.regionMatchesAscii(contentType, true, 0, prefix, 0, prefix.length())) {
+                return !AsciiString.regionMatchesAscii(contentType, true, 0, IMAGE_SVG, 0, IMAGE_SVG.length());
+            }
+        }
+        for (AsciiString type : COMPRESSED_CONTENT_TYPES) {
+            if (AsciiString.regionMatchesAscii(contentType, true, 0, type, 0, type.length()) &&
+                    (contentType.length() == type.length() || contentType.charAt(type.length()) == ';')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @SuppressWarnings("FloatingPointEquality")
     protected String determineEncoding(String acceptEncoding) {
         float starQ = -1.0f;
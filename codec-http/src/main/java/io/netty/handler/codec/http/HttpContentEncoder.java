@@ -18,16 +18,26 @@ package io.netty.handler.codec.http;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.PendingWriteQueue;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.DecoderResult;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToMessageCodec;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.PromiseCombiner;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.StringUtil;
 
+import java.nio.channels.ClosedChannelException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.*;
 
@@ -52,6 +62,12 @@ import static io.netty.handler.codec.http.HttpHeaderNames.*;
  * This handler must be placed after {@link HttpObjectEncoder} in the pipeline
  * so that this handler can intercept HTTP responses before {@link HttpObjectEncoder}
  * converts them into {@link ByteBuf}s.
+ * <p>
+ * By default the content is encoded on the event loop of the {@link io.netty.channel.Channel}. If an
+ * {@link EventExecutorGroup} is given via {@link #HttpContentEncoder(EventExecutorGroup)}, the encoding (including
+ * {@link #beginEncode(HttpResponse, String)}) runs on one of its {@link EventExecutor}s instead. Outbound messages
+ * are then queued in a {@link PendingWriteQueue}, so they still count towards the writability of the
+ * {@link io.netty.channel.Channel}, and are encoded and written one after the other in the order they were written.
  */
 public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpRequest, HttpObject> {
 
@@ -64,10 +80,43 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
     private static final CharSequence ZERO_LENGTH_HEAD = "HEAD";
     private static final CharSequence ZERO_LENGTH_CONNECT = "CONNECT";
 
-    private final Queue<CharSequence> acceptEncodingQueue = new ArrayDeque<CharSequence>();
+    private final EventExecutorGroup executorGroup;
+    private final Queue<CharSequence> acceptEncodingQueue;
     private EmbeddedChannel encoder;
     private State state = State.AWAIT_HEADERS;
 
+    // Only used if the content is encoded on the executorGroup. All of these are accessed from the event loop only,
+    // while the fields above are handed over to the executor for as long as encoding is true.
+    private EventExecutor executor;
+    private PendingWriteQueue pendingWrites;
+    private boolean encoding;
+    private boolean closed;
+    private long writeCount;
+    private long encodedCount;
+    private long flushAfter = -1;
+
+    /**
+     * Creates a new instance which encodes the content on the event loop of the {@link io.netty.channel.Channel}.
+     */
+    public HttpContentEncoder() {
+        executorGroup = null;
+        acceptEncodingQueue = new ArrayDeque<CharSequence>();
+    }
+
+    /**
+     * Creates a new instance which encodes the content on an {@link EventExecutor} of the given
+     * {@link EventExecutorGroup}, so that expensive encodings do not delay the other {@link io.netty.channel.Channel}s
+     * of the event loop. If the {@link EventExecutorGroup} rejects a task, for example because it is bounded and
+     * saturated, the message is encoded on the event loop instead.
+     *
+     * @param executorGroup the {@link EventExecutorGroup} to encode on, or {@code null} to encode on the event loop.
+     */
+    protected HttpContentEncoder(EventExecutorGroup executorGroup) {
+        this.executorGroup = executorGroup;
+        acceptEncodingQueue = executorGroup == null ?
+                new ArrayDeque<CharSequence>() : new ConcurrentLinkedQueue<CharSequence>();
+    }
+
     @Override
     public boolean acceptOutboundMessage(Object msg) throws Exception {
         return msg instanceof HttpContent || msg instanceof HttpResponse;
@@ -101,6 +150,132 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
         out.add(ReferenceCountUtil.retain(msg));
     }
 
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (executorGroup == null) {
+            super.write(ctx, msg, promise);
+            return;
+        }
+        if (pendingWrites == null) {
+            pendingWrites = new PendingWriteQueue(ctx);
+            executor = executorGroup.next();
+        }
+        if (!encoding && pendingWrites.isEmpty() && (state == State.PASS_THROUGH || !acceptOutboundMessage(msg))) {
+            // Nothing to encode and nothing queued in front of this message, no need to hand it over.
+            super.write(ctx, msg, promise);
+            return;
+        }
+        pendingWrites.add(msg, promise);
+        writeCount++;
+        if (!encoding) {
+            encodeNext(ctx);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (executorGroup == null || !encoding && (pendingWrites == null || pendingWrites.isEmpty())) {
+            ctx.flush();
+        } else {
+            // Flush once everything that was written before has been encoded.
+            flushAfter = writeCount;
+        }
+    }
+
+    private void encodeNext(final ChannelHandlerContext ctx) {
+        for (;;) {
+            final Object msg = pendingWrites.current();
+            if (msg == null) {
+                return;
+            }
+            encoding = true;
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final List<Object> out = new ArrayList<Object>(4);
+                        final Throwable cause = encodeOffloaded(ctx, msg, out);
+                        ctx.executor().execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (encoded(ctx, out, cause)) {
+                                    encodeNext(ctx);
+                                }
+                            }
+                        });
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                // The executor is saturated or shut down, encode on the event loop instead.
+                List<Object> out = new ArrayList<Object>(4);
+                if (!encoded(ctx, out, encodeOffloaded(ctx, msg, out))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Throwable encodeOffloaded(ChannelHandlerContext ctx, Object msg, List<Object> out) {
+        try {
+            if (!acceptOutboundMessage(msg)) {
+                out.add(ReferenceCountUtil.retain(msg));
+                return null;
+            }
+            encode(ctx, (HttpObject) msg, out);
+            if (out.isEmpty()) {
+                throw new EncoderException(StringUtil.simpleClassName(this) + " must produce at least one message.");
+            }
+            return null;
+        } catch (Throwable cause) {
+            return cause;
+        }
+    }
+
+    /**
+     * Writes the result of an encoding and returns {@code true} if the next pending message should be encoded.
+     */
+    private boolean encoded(ChannelHandlerContext ctx, List<Object> out, Throwable cause) {
+        encoding = false;
+        encodedCount++;
+        // Releases the original message.
+        ChannelPromise promise = pendingWrites.remove();
+        if (closed) {
+            releaseAll(out);
+            promise.tryFailure(cause != null ? cause : new ClosedChannelException());
+            pendingWrites.removeAndFailAll(new ClosedChannelException());
+            cleanupSafely(ctx);
+            return false;
+        }
+        if (cause != null) {
+            releaseAll(out);
+            promise.tryFailure(cause instanceof EncoderException ? cause : new EncoderException(cause));
+        } else if (out.size() == 1) {
+            ctx.write(out.get(0), promise);
+        } else if (promise == ctx.voidPromise()) {
+            for (int i = 0; i < out.size(); i++) {
+                ctx.write(out.get(i), promise);
+            }
+        } else {
+            PromiseCombiner combiner = new PromiseCombiner(ctx.executor());
+            for (int i = 0; i < out.size(); i++) {
+                combiner.add(ctx.write(out.get(i)));
+            }
+            combiner.finish(promise);
+        }
+        if (flushAfter != -1 && encodedCount >= flushAfter) {
+            flushAfter = -1;
+            ctx.flush();
+        }
+        return true;
+    }
+
+    private static void releaseAll(List<Object> out) {
+        for (int i = 0; i < out.size(); i++) {
+            ReferenceCountUtil.safeRelease(out.get(i));
+        }
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) throws Exception {
         final boolean isFull = msg instanceof HttpResponse && msg instanceof LastHttpContent;
@@ -173,6 +348,18 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
                     break;
                 }
 
+                final ByteBuf encodedContent = result.encodedContent();
+                if (encodedContent != null) {
+                    // The content was encoded up front, e.g. taken from a CompressedContentCache.
+                    if (!isFull) {
+                        encodedContent.release();
+                        throw new IllegalStateException(
+                                "encoded content is only supported for " + FullHttpResponse.class.getSimpleName());
+                    }
+                    encodeFullResponse(res, encodedContent, result.targetContentEncoding(), out);
+                    break;
+                }
+
                 encoder = result.contentEncoder();
 
                 // Encode the content and remove or replace the existing headers
@@ -242,6 +429,20 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
         }
     }
 
+    private static void encodeFullResponse(HttpResponse res, ByteBuf encodedContent, String targetContentEncoding,
+                                           List<Object> out) {
+        FullHttpResponse newRes = new DefaultFullHttpResponse(res.protocolVersion(), res.status(), encodedContent);
+        newRes.headers().set(res.headers());
+        newRes.headers().set(HttpHeaderNames.CONTENT_ENCODING, targetContentEncoding);
+        newRes.trailingHeaders().set(((LastHttpContent) res).trailingHeaders());
+        if (HttpUtil.isContentLengthSet(newRes)) {
+            HttpUtil.setContentLength(newRes, encodedContent.readableBytes());
+        } else {
+            newRes.headers().set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        }
+        out.add(newRes);
+    }
+
     private static boolean isPassthru(HttpVersion version, int code, CharSequence httpMethod) {
         return code < 200 || code == 204 || code == 304 ||
                (httpMethod == ZERO_LENGTH_HEAD || (httpMethod == ZERO_LENGTH_CONNECT && code == 200)) ||
@@ -304,16 +505,28 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
 
     @Override
     public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
-        cleanupSafely(ctx);
+        close(ctx);
         super.handlerRemoved(ctx);
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        cleanupSafely(ctx);
+        close(ctx);
         super.channelInactive(ctx);
     }
 
+    private void close(ChannelHandlerContext ctx) {
+        if (encoding) {
+            // The encoder is still in use by the executor, clean up once it handed it back.
+            closed = true;
+            return;
+        }
+        if (pendingWrites != null) {
+            pendingWrites.removeAndFailAll(new ClosedChannelException());
+        }
+        cleanupSafely(ctx);
+    }
+
     private void cleanup() {
         if (encoder != null) {
             // Clean-up the previous encoder if not cleaned up correctly.
@@ -362,18 +575,44 @@ public abstract class HttpContentEncoder extends MessageToMessageCodec<HttpReque
     public static final class Result {
         private final String targetContentEncoding;
         private final EmbeddedChannel contentEncoder;
+        private final ByteBuf encodedContent;
 
         public Result(String targetContentEncoding, EmbeddedChannel contentEncoder) {
             this.targetContentEncoding = ObjectUtil.checkNotNull(targetContentEncoding, "targetContentEncoding");
             this.contentEncoder = ObjectUtil.checkNotNull(contentEncoder, "contentEncoder");
+            encodedContent = null;
+        }
+
+        /**
+         * Creates a new instance for content that is encoded already, which is written as-is instead of being
+         * passed through an {@link EmbeddedChannel}. This is only supported for a {@link FullHttpResponse}, whose
+         * content is replaced by the given {@link ByteBuf}. The {@link HttpContentEncoder} takes the ownership of
+         * the {@link ByteBuf}.
+         */
+        public Result(String targetContentEncoding, ByteBuf encodedContent) {
+            this.targetContentEncoding = ObjectUtil.checkNotNull(targetContentEncoding, "targetContentEncoding");
+            this.encodedContent = ObjectUtil.checkNotNull(encodedContent, "encodedContent");
+            contentEncoder = null;
         }
 
         public String targetContentEncoding() {
             return targetContentEncoding;
         }
 
+        /**
+         * Returns the {@link EmbeddedChannel} that encodes the content, or {@code null} if the content is encoded
+         * already.
+         */
         public EmbeddedChannel contentEncoder() {
             return contentEncoder;
         }
+
+        /**
+         * Returns the content that is encoded already, or {@code null} if it is encoded by
+         * {@link #contentEncoder()}.
+         */
+        public ByteBuf encodedContent() {
+            return encodedContent;
+        }
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * The configuration of an {@link HttpObjectDecoder}, which can be used instead of the constructors with a long list
+ * of parameters. All setters return {@code this} so calls can be chained. See {@link HttpObjectDecoder} for the
+ * meaning of the parameters, which default to the {@code DEFAULT_*} constants of {@link HttpObjectDecoder}.
+ * <p>
+ * The configuration is read once when a decoder is created, so it can be reused or changed afterwards.
+ */
+public final class HttpDecoderConfig {
+    private int maxInitialLineLength = HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH;
+    private int maxHeaderSize = HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE;
+    private int maxChunkSize = HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE;
+    private boolean chunkedSupported = HttpObjectDecoder.DEFAULT_CHUNKED_SUPPORTED;
+    private boolean validateHeaders = HttpObjectDecoder.DEFAULT_VALIDATE_HEADERS;
+    private int initialBufferSize = HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE;
+    private boolean allowDuplicateContentLengths = HttpObjectDecoder.DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS;
+    private boolean allowPartialChunks = HttpObjectDecoder.DEFAULT_ALLOW_PARTIAL_CHUNKS;
+    private boolean headerViews = HttpObjectDecoder.DEFAULT_HEADER_VIEWS;
+    // null means the DefaultHttpHeadersFactory matching validateHeaders is used.
+    private HttpHeadersFactory headersFactory;
+    private HttpHeadersFactory trailersFactory;
+
+    public int getMaxInitialLineLength() {
+        return maxInitialLineLength;
+    }
+
+    public HttpDecoderConfig setMaxInitialLineLength(int maxInitialLineLength) {
+        this.maxInitialLineLength = checkPositive(maxInitialLineLength, "maxInitialLineLength");
+        return this;
+    }
+
+    public int getMaxHeaderSize() {
+        return maxHeaderSize;
+    }
+
+    public HttpDecoderConfig setMaxHeaderSize(int maxHeaderSize) {
+        this.maxHeaderSize = checkPositive(maxHeaderSize, "maxHeaderSize");
+        return this;
+    }
+
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    public HttpDecoderConfig setMaxChunkSize(int maxChunkSize) {
+        this.maxChunkSize = checkPositive(maxChunkSize, "maxChunkSize");
+        return this;
+    }
+
+    public boolean isChunkedSupported() {
+        return chunkedSupported;
+    }
+
+    public HttpDecoderConfig setChunkedSupported(boolean chunkedSupported) {
+        this.chunkedSupported = chunkedSupported;
+        return this;
+    }
+
+    public boolean isValidateHeaders() {
+        return validateHeaders;
+    }
+
+    /**
+     * Set whether header names and values are validated. Unless {@link #setHeadersFactory(HttpHeadersFactory)} or
+     * {@link #setTrailersFactory(HttpHeadersFactory)} are used, this also selects the factories of
+     * {@link DefaultHttpHeadersFactory} with the same validation.
+     */
+    public HttpDecoderConfig setValidateHeaders(boolean validateHeaders) {
+        this.validateHeaders = validateHeaders;
+        return this;
+    }
+
+    public int getInitialBufferSize() {
+        return initialBufferSize;
+    }
+
+    public HttpDecoderConfig setInitialBufferSize(int initialBufferSize) {
+        this.initialBufferSize = checkPositiveOrZero(initialBufferSize, "initialBufferSize");
+        return this;
+    }
+
+    public boolean isAllowDuplicateContentLengths() {
+        return allowDuplicateContentLengths;
+    }
+
+    public HttpDecoderConfig setAllowDuplicateContentLengths(boolean allowDuplicateContentLengths) {
+        this.allowDuplicateContentLengths = allowDuplicateContentLengths;
+        return this;
+    }
+
+    public boolean isAllowPartialChunks() {
+        return allowPartialChunks;
+    }
+
+    public HttpDecoderConfig setAllowPartialChunks(boolean allowPartialChunks) {
+        this.allowPartialChunks = allowPartialChunks;
+        return this;
+    }
+
+    public boolean isHeaderViews() {
+        return headerViews;
+    }
+
+    /**
+     * Set whether header names and values should be {@link io.netty.util.AsciiString} views of a single copy of the
+     * header block of each message.
+     */
+    public HttpDecoderConfig setHeaderViews(boolean headerViews) {
+        this.headerViews = headerViews;
+        return this;
+    }
+
+    public HttpHeadersFactory getHeadersFactory() {
+        return headersFactory != null ? headersFactory : DefaultHttpHeadersFactory.headersFactory(validateHeaders);
+    }
+
+    /**
+     * Set the {@link HttpHeadersFactory} which creates the headers of the decoded messages.
+     */
+    public HttpDecoderConfig setHeadersFactory(HttpHeadersFactory headersFactory) {
+        this.headersFactory = checkNotNull(headersFactory, "headersFactory");
+        return this;
+    }
+
+    public HttpHeadersFactory getTrailersFactory() {
+        return trailersFactory != null ? trailersFactory : DefaultHttpHeadersFactory.trailersFactory(validateHeaders);
+    }
+
+    /**
+     * Set the {@link HttpHeadersFactory} which creates the trailing headers of chunked messages.
+     */
+    public HttpDecoderConfig setTrailersFactory(HttpHeadersFactory trailersFactory) {
+        this.trailersFactory = checkNotNull(trailersFactory, "trailersFactory");
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpDecoderConfig(maxInitialLineLength: " + maxInitialLineLength +
+                ", maxHeaderSize: " + maxHeaderSize +
+                ", maxChunkSize: " + maxChunkSize +
+                ", chunkedSupported: " + chunkedSupported +
+                ", validateHeaders: " + validateHeaders +
+                ", initialBufferSize: " + initialBufferSize +
+                ", allowDuplicateContentLengths: " + allowDuplicateContentLengths +
+                ", allowPartialChunks: " + allowPartialChunks +
+                ", headerViews: " + headerViews +
+                ", headersFactory: " + getHeadersFactory() +
+                ", trailersFactory: " + getTrailersFactory() + ')';
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
+import io.netty.util.internal.StringUtil;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * An immutable set of headers which is encoded only once, so it can be written to many messages with a single copy.
+ * This is useful for headers which are sent with every response, like {@code Server}, {@code Content-Type} or CORS
+ * headers.
+ *
+ * @see HttpResponseEncoder#HttpResponseEncoder(HttpHeaderBlock, boolean)
+ */
+public final class HttpHeaderBlock {
+    private final AsciiString[] names;
+    private final CharSequence[] values;
+    private final byte[] encoded;
+
+    private HttpHeaderBlock(AsciiString[] names, CharSequence[] values) {
+        this.names = names;
+        this.values = values;
+        int length = 0;
+        for (int i = 0; i < names.length; i++) {
+            length += names[i].length() + values[i].length() + 4;
+        }
+        encoded = new byte[length];
+        ByteBuf buf = Unpooled.wrappedBuffer(encoded).clear();
+        for (int i = 0; i < names.length; i++) {
+            HttpHeadersEncoder.encoderHeader(names[i], values[i], buf);
+        }
+        assert buf.writerIndex() == length;
+    }
+
+    /**
+     * Returns a new instance which contains all headers of the given {@link HttpHeaders} in iteration order.
+     * <p>
+     * The names and values are validated like the ones of {@link DefaultHttpHeaders}, no matter if the given
+     * {@link HttpHeaders} validate them, as they are written as they are. {@code content-length},
+     * {@code transfer-encoding} and {@code connection} are rejected because the encoder decides about the framing
+     * of each message and does not look at the headers of a block.
+     *
+     * @throws IllegalArgumentException if a name or value is invalid or not allowed in a block.
+     */
+    public static HttpHeaderBlock of(HttpHeaders headers) {
+        checkNotNull(headers, "headers");
+        List<AsciiString> names = new ArrayList<AsciiString>(headers.size());
+        List<CharSequence> values = new ArrayList<CharSequence>(headers.size());
+        Iterator<Entry<CharSequence, CharSequence>> iter = headers.iteratorCharSequence();
+        while (iter.hasNext()) {
+            Entry<CharSequence, CharSequence> header = iter.next();
+            AsciiString name = AsciiString.of(header.getKey());
+            AsciiString value = AsciiString.of(header.getValue());
+            validate(name, value);
+            names.add(name);
+            values.add(value);
+        }
+        return new HttpHeaderBlock(names.toArray(new AsciiString[0]), values.toArray(new CharSequence[0]));
+    }
+
+    private static void validate(AsciiString name, AsciiString value) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("empty headers are not allowed");
+        }
+        int index = HttpHeaderValidationUtil.validateToken(name);
+        if (index != -1) {
+            throw new IllegalArgumentException("a header name can only contain \"token\" characters, " +
+                    "but found invalid character 0x" + Integer.toHexString(name.charAt(index)) +
+                    " at index " + index + " of header '" + name + "'.");
+        }
+        index = HttpHeaderValidationUtil.validateValidHeaderValue(value);
+        if (index != -1) {
+            throw new IllegalArgumentException("a header value contains prohibited character 0x" +
+                    Integer.toHexString(value.charAt(index)) + " at index " + index + " of header '" + name + "'.");
+        }
+        if (name.contentEqualsIgnoreCase(HttpHeaderNames.CONTENT_LENGTH) ||
+                name.contentEqualsIgnoreCase(HttpHeaderNames.TRANSFER_ENCODING) ||
+                name.contentEqualsIgnoreCase(HttpHeaderNames.CONNECTION)) {
+            throw new IllegalArgumentException("header '" + name + "' is not allowed in a header block");
+        }
+    }
+
+    /**
+     * Returns a new instance which contains the given headers.
+     *
+     * @param nameValuePairs An array of the structure {@code [<name,value>,<name,value>,...]}.
+     * @throws IllegalArgumentException if a name or value is invalid or not allowed in a block.
+     * @see #of(HttpHeaders)
+     */
+    public static HttpHeaderBlock of(CharSequence... nameValuePairs) {
+        if ((nameValuePairs.length & 1) != 0) {
+            throw new IllegalArgumentException("nameValuePairs must be arrays of [name, value] pairs");
+        }
+        // Validated by of(HttpHeaders).
+        HttpHeaders headers = new DefaultHttpHeaders(false);
+        for (int i = 0; i < nameValuePairs.length; i += 2) {
+            headers.add(nameValuePairs[i], nameValuePairs[i + 1]);
+        }
+        return of(headers);
+    }
+
+    /**
+     * Returns the number of headers of this block.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the number of bytes of the encoded headers.
+     */
+    public int encodedLength() {
+        return encoded.length;
+    }
+
+    /**
+     * Returns {@code true} if this block contains a header with the given name.
+     */
+    public boolean contains(CharSequence name) {
+        for (AsciiString n : names) {
+            if (n.contentEqualsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes all headers of this block to the given {@link ByteBuf}, except the ones whose names are contained in the
+     * given {@link HttpHeaders}, which take precedence. If there are none, which is the common case, the pre-encoded
+     * headers are written with a single copy.
+     */
+    public void encode(HttpHeaders headers, ByteBuf buf) {
+        if (headers.isEmpty() || !containsAnyName(headers)) {
+            buf.writeBytes(encoded);
+            return;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!headers.contains(names[i])) {
+                HttpHeadersEncoder.encoderHeader(names[i], values[i], buf);
+            }
+        }
+    }
+
+    private boolean containsAnyName(HttpHeaders headers) {
+        for (AsciiString name : names) {
+            if (headers.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(encoded.length + 16).append(StringUtil.simpleClassName(this)).append('[');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(names[i]).append(": ").append(values[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
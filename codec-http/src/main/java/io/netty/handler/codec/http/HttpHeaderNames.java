@@ -17,6 +17,7 @@
 package io.netty.handler.codec.http;
 
 import io.netty.util.AsciiString;
+import io.netty.util.internal.PlatformDependent;
 
 /**
  * Standard HTTP header names.
@@ -241,6 +242,10 @@ public final class HttpHeaderNames {
      * {@code "pragma"}
      */
     public static final AsciiString PRAGMA = AsciiString.cached("pragma");
+    /**
+     * {@code "priority"}, see <a href="https://www.rfc-editor.org/rfc/rfc9218.html#section-5">RFC 9218</a>.
+     */
+    public static final AsciiString PRIORITY = AsciiString.cached("priority");
     /**
      * {@code "proxy-authenticate"}
      */
@@ -382,5 +387,89 @@ public final class HttpHeaderNames {
      */
     public static final AsciiString ALT_SVC = AsciiString.cached("alt-svc");
 
+    /**
+     * Returns the well-known header name which is equal to the given bytes, or {@code null} if there is none. Both the
+     * lower-case form of the constants of this class and their common mixed-case form (e.g. {@code "Content-Type"})
+     * are matched, so the returned name keeps the case that was received.
+     */
+    static AsciiString lookup(byte[] bytes, int start, int length) {
+        return KnownNames.lookup(bytes, start, length);
+    }
+
+    private static final class KnownNames {
+        private static final AsciiString[] TABLE = new AsciiString[512];
+        private static final int MASK = TABLE.length - 1;
+
+        static {
+            AsciiString[] names = {
+                ACCEPT, ACCEPT_CHARSET, ACCEPT_ENCODING, ACCEPT_LANGUAGE, ACCEPT_RANGES, ACCEPT_PATCH,
+                ACCESS_CONTROL_ALLOW_CREDENTIALS, ACCESS_CONTROL_ALLOW_HEADERS, ACCESS_CONTROL_ALLOW_METHODS,
+                ACCESS_CONTROL_ALLOW_ORIGIN, ACCESS_CONTROL_ALLOW_PRIVATE_NETWORK, ACCESS_CONTROL_EXPOSE_HEADERS,
+                ACCESS_CONTROL_MAX_AGE, ACCESS_CONTROL_REQUEST_HEADERS, ACCESS_CONTROL_REQUEST_METHOD,
+                ACCESS_CONTROL_REQUEST_PRIVATE_NETWORK, AGE, ALLOW, AUTHORIZATION, CACHE_CONTROL, CONNECTION,
+                CONTENT_BASE, CONTENT_ENCODING, CONTENT_LANGUAGE, CONTENT_LENGTH, CONTENT_LOCATION,
+                CONTENT_TRANSFER_ENCODING, CONTENT_DISPOSITION, CONTENT_MD5, CONTENT_RANGE, CONTENT_SECURITY_POLICY,
+                CONTENT_TYPE, COOKIE, DATE, DNT, ETAG, EXPECT, EXPIRES, FROM, HOST, IF_MATCH, IF_MODIFIED_SINCE,
+                IF_NONE_MATCH, IF_RANGE, IF_UNMODIFIED_SINCE, KEEP_ALIVE, LAST_MODIFIED, LOCATION, MAX_FORWARDS,
+                ORIGIN, PRAGMA, PROXY_AUTHENTICATE, PROXY_AUTHORIZATION, PROXY_CONNECTION, RANGE, REFERER, RETRY_AFTER,
+                SEC_WEBSOCKET_KEY1, SEC_WEBSOCKET_KEY2, SEC_WEBSOCKET_LOCATION, SEC_WEBSOCKET_ORIGIN,
+                SEC_WEBSOCKET_PROTOCOL, SEC_WEBSOCKET_VERSION, SEC_WEBSOCKET_KEY, SEC_WEBSOCKET_ACCEPT,
+                SEC_WEBSOCKET_EXTENSIONS, SERVER, SET_COOKIE, SET_COOKIE2, TE, TRAILER, TRANSFER_ENCODING, UPGRADE,
+                UPGRADE_INSECURE_REQUESTS, USER_AGENT, VARY, VIA, WARNING, WEBSOCKET_LOCATION, WEBSOCKET_ORIGIN,
+                WEBSOCKET_PROTOCOL, WWW_AUTHENTICATE, X_FRAME_OPTIONS, X_REQUESTED_WITH, ALT_SVC, PRIORITY
+            };
+            for (AsciiString name : names) {
+                add(name);
+                add(AsciiString.cached(toMixedCase(name.toString())));
+            }
+            String[] extraNames = {
+                    "ETag", "TE", "DNT", "WWW-Authenticate", "Content-MD5", "Sec-WebSocket-Key",
+                    "Sec-WebSocket-Accept", "Sec-WebSocket-Version", "Sec-WebSocket-Protocol",
+                    "Sec-WebSocket-Extensions"
+            };
+            for (String name : extraNames) {
+                add(AsciiString.cached(name));
+            }
+        }
+
+        private static String toMixedCase(String name) {
+            char[] chars = name.toCharArray();
+            boolean upper = true;
+            for (int i = 0; i < chars.length; i++) {
+                if (upper) {
+                    chars[i] = Character.toUpperCase(chars[i]);
+                }
+                upper = chars[i] == '-';
+            }
+            return new String(chars);
+        }
+
+        private static void add(AsciiString name) {
+            int index = name.hashCode() & MASK;
+            while (TABLE[index] != null) {
+                if (TABLE[index].equals(name)) {
+                    return;
+                }
+                index = index + 1 & MASK;
+            }
+            TABLE[index] = name;
+        }
+
+        static AsciiString lookup(byte[] bytes, int start, int length) {
+            int index = PlatformDependent.hashCodeAscii(bytes, start, length) & MASK;
+            for (;;) {
+                AsciiString name = TABLE[index];
+                if (name == null) {
+                    return null;
+                }
+                if (name.length() == length &&
+                        PlatformDependent.equals(name.array(), name.arrayOffset(), bytes, start, length)) {
+                    return name;
+                }
+                index = index + 1 & MASK;
+            }
+        }
+    }
+
     private HttpHeaderNames() { }
 }
@@ -56,6 +56,10 @@ import static io.netty.handler.codec.http.HttpUtil.getContentLength;
  * For convenience, consider putting a {@link HttpServerCodec} before the {@link HttpObjectAggregator}
  * as it functions as both a {@link HttpRequestDecoder} and a {@link HttpResponseEncoder}.
  * </p>
+ * <p>
+ * If {@link #setMaxPreallocatedContentBytes(long)} is set, the content of messages with a 'content-length' and
+ * without 'chunked' transfer encoding is copied into a single buffer of that length, allocated up front.
+ * </p>
  * Be aware that {@link HttpObjectAggregator} may end up sending a {@link HttpResponse}:
  * <table border summary="Possible Responses">
  *   <tbody>
@@ -158,6 +162,25 @@ public class HttpObjectAggregator
         }
     }
 
+    @Override
+    protected long expectedContentLength(HttpMessage start) {
+        if (start instanceof HttpResponse) {
+            int code = ((HttpResponse) start).status().code();
+            if (code < 200 || code == 204 || code == 304) {
+                // These never have content, whatever the 'Content-Length' header says.
+                return -1;
+            }
+        }
+        if (HttpUtil.isTransferEncodingChunked(start)) {
+            return -1;
+        }
+        try {
+            return getContentLength(start, -1L);
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private static Object continueResponse(HttpMessage start, int maxContentLength, ChannelPipeline pipeline) {
         if (HttpUtil.isUnsupportedExpectation(start)) {
             // if the request contains an unsupported expectation, we return 417
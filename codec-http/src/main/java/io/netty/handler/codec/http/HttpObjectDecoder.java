@@ -15,7 +15,7 @@
  */
 package io.netty.handler.codec.http;
 
-import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -87,6 +87,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *     is set to {@code false}, the {@link ByteBuf} is not decoded into an {@link HttpContent} until
  *     the readable bytes are greater or equal to the chunk size.</td>
  * </tr>
+ * <tr>
+ * <td>{@code headerViews}</td>
+ * <td>{@value #DEFAULT_HEADER_VIEWS}</td>
+ * <td>When set to {@code true}, the header block of each message is copied once and header names and values are
+ *     {@link AsciiString} views of this copy instead of individually allocated {@link String}s.
+ *     Well-known header names are replaced by the constants of {@link HttpHeaderNames}.
+ *     This and the {@link HttpHeadersFactory}s can only be set through {@link HttpDecoderConfig}.</td>
+ * </tr>
  * </table>
  *
  * <h3>Chunked Content</h3>
@@ -139,11 +147,15 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     public static final boolean DEFAULT_VALIDATE_HEADERS = true;
     public static final int DEFAULT_INITIAL_BUFFER_SIZE = 128;
     public static final boolean DEFAULT_ALLOW_DUPLICATE_CONTENT_LENGTHS = false;
+    public static final boolean DEFAULT_HEADER_VIEWS = false;
     private final int maxChunkSize;
     private final boolean chunkedSupported;
     private final boolean allowPartialChunks;
     protected final boolean validateHeaders;
+    protected final HttpHeadersFactory headersFactory;
+    protected final HttpHeadersFactory trailersFactory;
     private final boolean allowDuplicateContentLengths;
+    private final boolean headerViews;
     private final ByteBuf parserScratchBuffer;
     private final HeaderParser headerParser;
     private final LineParser lineParser;
@@ -151,11 +163,13 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
     private HttpMessage message;
     private long chunkSize;
     private long contentLength = Long.MIN_VALUE;
+    // Number of bytes of the header block that were already scanned, only used if headerViews is true.
+    private int headerScanOffset;
     private final AtomicBoolean resetRequested = new AtomicBoolean();
 
     // These will be updated by splitHeader(...)
     private AsciiString name;
-    private String value;
+    private CharSequence value;
     private LastHttpContent trailer;
 
     @Override
@@ -243,18 +257,35 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
             int maxInitialLineLength, int maxHeaderSize, int maxChunkSize,
             boolean chunkedSupported, boolean validateHeaders, int initialBufferSize,
             boolean allowDuplicateContentLengths, boolean allowPartialChunks) {
-        checkPositive(maxInitialLineLength, "maxInitialLineLength");
-        checkPositive(maxHeaderSize, "maxHeaderSize");
-        checkPositive(maxChunkSize, "maxChunkSize");
-
-        parserScratchBuffer = Unpooled.buffer(initialBufferSize);
-        lineParser = new LineParser(parserScratchBuffer, maxInitialLineLength);
-        headerParser = new HeaderParser(parserScratchBuffer, maxHeaderSize);
-        this.maxChunkSize = maxChunkSize;
-        this.chunkedSupported = chunkedSupported;
-        this.validateHeaders = validateHeaders;
-        this.allowDuplicateContentLengths = allowDuplicateContentLengths;
-        this.allowPartialChunks = allowPartialChunks;
+        this(new HttpDecoderConfig()
+                .setMaxInitialLineLength(maxInitialLineLength)
+                .setMaxHeaderSize(maxHeaderSize)
+                .setMaxChunkSize(maxChunkSize)
+                .setChunkedSupported(chunkedSupported)
+                .setValidateHeaders(validateHeaders)
+                .setInitialBufferSize(initialBufferSize)
+                .setAllowDuplicateContentLengths(allowDuplicateContentLengths)
+                .setAllowPartialChunks(allowPartialChunks));
+    }
+
+    /**
+     * Creates a new instance with the given {@link HttpDecoderConfig}, which is the only way to configure the
+     * {@code headerViews} mode and the {@link HttpHeadersFactory}s of the decoded messages.
+     */
+    protected HttpObjectDecoder(HttpDecoderConfig config) {
+        checkNotNull(config, "config");
+
+        parserScratchBuffer = Unpooled.buffer(config.getInitialBufferSize());
+        lineParser = new LineParser(parserScratchBuffer, config.getMaxInitialLineLength());
+        headerParser = new HeaderParser(parserScratchBuffer, config.getMaxHeaderSize());
+        maxChunkSize = config.getMaxChunkSize();
+        chunkedSupported = config.isChunkedSupported();
+        validateHeaders = config.isValidateHeaders();
+        allowDuplicateContentLengths = config.isAllowDuplicateContentLengths();
+        allowPartialChunks = config.isAllowPartialChunks();
+        headerViews = config.isHeaderViews();
+        headersFactory = config.getHeadersFactory();
+        trailersFactory = config.getTrailersFactory();
     }
 
     @Override
@@ -579,6 +610,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         name = null;
         value = null;
         contentLength = Long.MIN_VALUE;
+        headerScanOffset = 0;
         lineParser.reset();
         headerParser.reset();
         trailer = null;
@@ -629,11 +661,57 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         final HttpMessage message = this.message;
         final HttpHeaders headers = message.headers();
 
+        if (headerViews) {
+            if (!readHeaderViews(buffer, headers)) {
+                return null;
+            }
+        } else if (!readHeaderLines(buffer, headers)) {
+            return null;
+        }
+
+        // Done parsing initial line and headers. Set decoder result.
+        HttpMessageDecoderResult decoderResult = new HttpMessageDecoderResult(lineParser.size, headerParser.size);
+        message.setDecoderResult(decoderResult);
+
+        List<String> contentLengthFields = headers.getAll(HttpHeaderNames.CONTENT_LENGTH);
+        if (!contentLengthFields.isEmpty()) {
+            HttpVersion version = message.protocolVersion();
+            boolean isHttp10OrEarlier = version.majorVersion() < 1 || (version.majorVersion() == 1
+                    && version.minorVersion() == 0);
+            // Guard against multiple Content-Length headers as stated in
+            // https://tools.ietf.org/html/rfc7230#section-3.3.2:
+            contentLength = HttpUtil.normalizeAndGetContentLength(contentLengthFields,
+                    isHttp10OrEarlier, allowDuplicateContentLengths);
+            if (contentLength != -1) {
+                String lengthValue = contentLengthFields.get(0).trim();
+                if (contentLengthFields.size() > 1 || // don't unnecessarily re-order headers
+                        !lengthValue.equals(Long.toString(contentLength))) {
+                    headers.set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+                }
+            }
+        }
+
+        if (isContentAlwaysEmpty(message)) {
+            HttpUtil.setTransferEncodingChunked(message, false);
+            return State.SKIP_CONTROL_CHARS;
+        } else if (HttpUtil.isTransferEncodingChunked(message)) {
+            if (!contentLengthFields.isEmpty() && message.protocolVersion() == HttpVersion.HTTP_1_1) {
+                handleTransferEncodingChunkedWithContentLength(message);
+            }
+            return State.READ_CHUNK_SIZE;
+        } else if (contentLength() >= 0) {
+            return State.READ_FIXED_LENGTH_CONTENT;
+        } else {
+            return State.READ_VARIABLE_LENGTH_CONTENT;
+        }
+    }
+
+    private boolean readHeaderLines(ByteBuf buffer, HttpHeaders headers) {
         final HeaderParser headerParser = this.headerParser;
 
         ByteBuf line = headerParser.parse(buffer);
         if (line == null) {
-            return null;
+            return false;
         }
         int lineLength = line.readableBytes();
         while (lineLength > 0) {
@@ -644,18 +722,18 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
                 //please do not make one line from below code
                 //as it breaks +XX:OptimizeStringConcat optimization
                 String trimmedLine = langAsciiString(lineContent, startLine, lineLength).trim();
-                String valueStr = value;
+                String valueStr = value.toString();
                 value = valueStr + ' ' + trimmedLine;
             } else {
                 if (name != null) {
                     headers.add(name, value);
                 }
-                splitHeader(lineContent, startLine, lineLength);
+                splitHeader(lineContent, startLine, lineLength, false);
             }
 
             line = headerParser.parse(buffer);
             if (line == null) {
-                return null;
+                return false;
             }
             lineLength = line.readableBytes();
         }
@@ -668,41 +746,100 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         // reset name and value fields
         name = null;
         value = null;
+        return true;
+    }
 
-        // Done parsing initial line and headers. Set decoder result.
-        HttpMessageDecoderResult decoderResult = new HttpMessageDecoderResult(lineParser.size, headerParser.size);
-        message.setDecoderResult(decoderResult);
-
-        List<String> contentLengthFields = headers.getAll(HttpHeaderNames.CONTENT_LENGTH);
-        if (!contentLengthFields.isEmpty()) {
-            HttpVersion version = message.protocolVersion();
-            boolean isHttp10OrEarlier = version.majorVersion() < 1 || (version.majorVersion() == 1
-                    && version.minorVersion() == 0);
-            // Guard against multiple Content-Length headers as stated in
-            // https://tools.ietf.org/html/rfc7230#section-3.3.2:
-            contentLength = HttpUtil.normalizeAndGetContentLength(contentLengthFields,
-                    isHttp10OrEarlier, allowDuplicateContentLengths);
-            if (contentLength != -1) {
-                String lengthValue = contentLengthFields.get(0).trim();
-                if (contentLengthFields.size() > 1 || // don't unnecessarily re-order headers
-                        !lengthValue.equals(Long.toString(contentLength))) {
-                    headers.set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+    /**
+     * Copies the whole header block once it was received completely and adds views of it to the {@link HttpHeaders}.
+     */
+    private boolean readHeaderViews(ByteBuf buffer, HttpHeaders headers) {
+        final int endOfHeaders = findEndOfHeaders(buffer);
+        if (endOfHeaders == -1) {
+            return false;
+        }
+        final byte[] block = new byte[endOfHeaders - buffer.readerIndex()];
+        buffer.readBytes(block);
+
+        int lineStart = 0;
+        for (;;) {
+            int lineEnd = lineStart;
+            while (block[lineEnd] != HttpConstants.LF) {
+                lineEnd++;
+            }
+            final int nextLineStart = lineEnd + 1;
+            if (lineEnd > lineStart && block[lineEnd - 1] == HttpConstants.CR) {
+                lineEnd--;
+            }
+            final int lineLength = lineEnd - lineStart;
+            if (lineLength == 0) {
+                break;
+            }
+            final byte firstChar = block[lineStart];
+            if (name != null && (firstChar == ' ' || firstChar == '\t')) {
+                //please do not make one line from below code
+                //as it breaks +XX:OptimizeStringConcat optimization
+                String trimmedLine = langAsciiString(block, lineStart, lineLength).trim();
+                String valueStr = value.toString();
+                value = valueStr + ' ' + trimmedLine;
+            } else {
+                if (name != null) {
+                    headers.add(name, value);
                 }
+                splitHeader(block, lineStart, lineLength, true);
             }
+            lineStart = nextLineStart;
         }
 
-        if (isContentAlwaysEmpty(message)) {
-            HttpUtil.setTransferEncodingChunked(message, false);
-            return State.SKIP_CONTROL_CHARS;
-        } else if (HttpUtil.isTransferEncodingChunked(message)) {
-            if (!contentLengthFields.isEmpty() && message.protocolVersion() == HttpVersion.HTTP_1_1) {
-                handleTransferEncodingChunkedWithContentLength(message);
+        // Add the last header.
+        if (name != null) {
+            headers.add(name, value);
+        }
+
+        // reset name and value fields
+        name = null;
+        value = null;
+        return true;
+    }
+
+    /**
+     * Returns the index after the empty line which terminates the header block, or {@code -1} if the header block was
+     * not received completely yet. Enforces the same limits as {@link HeaderParser}.
+     */
+    private int findEndOfHeaders(ByteBuf buffer) {
+        final HeaderParser headerParser = this.headerParser;
+        final int readerIndex = buffer.readerIndex();
+        final int writerIndex = buffer.writerIndex();
+        int lineStart = readerIndex + headerScanOffset;
+        for (;;) {
+            final int maxLineSize = headerParser.maxLength - headerParser.size;
+            assert maxLineSize >= 0;
+            // adding 2 to account for both CR (if present) and LF
+            final int toIndexExclusive = (int) Math.min(lineStart + maxLineSize + 2L, writerIndex);
+            final int indexOfLf = buffer.indexOf(lineStart, toIndexExclusive, HttpConstants.LF);
+            if (indexOfLf == -1) {
+                if (writerIndex - lineStart > maxLineSize) {
+                    throw headerParser.newException(headerParser.maxLength);
+                }
+                headerScanOffset = lineStart - readerIndex;
+                return -1;
             }
-            return State.READ_CHUNK_SIZE;
-        } else if (contentLength() >= 0) {
-            return State.READ_FIXED_LENGTH_CONTENT;
-        } else {
-            return State.READ_VARIABLE_LENGTH_CONTENT;
+            final int lineEnd;
+            if (indexOfLf > lineStart && buffer.getByte(indexOfLf - 1) == HttpConstants.CR) {
+                lineEnd = indexOfLf - 1;
+            } else {
+                lineEnd = indexOfLf;
+            }
+            final int lineSize = lineEnd - lineStart;
+            if (lineSize == 0) {
+                headerScanOffset = 0;
+                return indexOfLf + 1;
+            }
+            final int size = headerParser.size + lineSize;
+            if (size > headerParser.maxLength) {
+                throw headerParser.newException(headerParser.maxLength);
+            }
+            headerParser.size = size;
+            lineStart = indexOfLf + 1;
         }
     }
 
@@ -755,7 +892,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
 
         CharSequence lastHeader = null;
         if (trailer == null) {
-            trailer = this.trailer = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER, validateHeaders);
+            trailer = this.trailer = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER, trailersFactory);
         }
         while (lineLength > 0) {
             final byte[] lineContent = line.array();
@@ -772,7 +909,7 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
                     current.set(lastPos, currentLastPos + lineTrimmed);
                 }
             } else {
-                splitHeader(lineContent, startLine, lineLength);
+                splitHeader(lineContent, startLine, lineLength, false);
                 AsciiString headerName = name;
                 if (!HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(headerName) &&
                         !HttpHeaderNames.TRANSFER_ENCODING.contentEqualsIgnoreCase(headerName) &&
@@ -895,7 +1032,11 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         return new String(asciiContent, 0, start, length);
     }
 
-    private void splitHeader(byte[] line, int start, int length) {
+    /**
+     * Splits the header line into {@link #name} and {@link #value}. If {@code views} is {@code true} the given line
+     * must not be modified afterwards, as the name and value may be views of it.
+     */
+    private void splitHeader(byte[] line, int start, int length, boolean views) {
         final int end = start + length;
         int nameEnd;
         final int nameStart = findNonWhitespace(line, start, end);
@@ -933,14 +1074,23 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
                 break;
             }
         }
-        name = splitHeaderName(line, nameStart, nameEnd - nameStart);
+        if (views) {
+            final AsciiString knownName = HttpHeaderNames.lookup(line, nameStart, nameEnd - nameStart);
+            name = knownName != null ? knownName : new AsciiString(line, nameStart, nameEnd - nameStart, false);
+        } else {
+            name = splitHeaderName(line, nameStart, nameEnd - nameStart);
+        }
         final int valueStart = findNonWhitespace(line, colonEnd, end);
         if (valueStart == end) {
             value = StringUtil.EMPTY_STRING;
         } else {
             final int valueEnd = findEndOfString(line, start, end);
-            // no need to make uses of the ByteBuf's toString ASCII method here, and risk to get JIT confused
-            value = langAsciiString(line, valueStart, valueEnd - valueStart);
+            if (views) {
+                value = new AsciiString(line, valueStart, valueEnd - valueStart, false);
+            } else {
+                // no need to make uses of the ByteBuf's toString ASCII method here, and risk to get JIT confused
+                value = langAsciiString(line, valueStart, valueEnd - valueStart);
+            }
         }
     }
 
@@ -317,6 +317,7 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
             sanitizeHeadersBeforeEncode(m, state == ST_CONTENT_ALWAYS_EMPTY);
 
             encodeHeaders(m.headers(), buf);
+            encodeAdditionalHeaders(m, buf);
             ByteBufUtil.writeShortBE(buf, CRLF_SHORT);
 
             headersEncodedSizeAccumulator = HEADERS_WEIGHT_NEW * padSizeForAccumulation(buf.readableBytes()) +
@@ -508,6 +509,7 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
         sanitizeHeadersBeforeEncode(m, state == ST_CONTENT_ALWAYS_EMPTY);
 
         encodeHeaders(m.headers(), buf);
+        encodeAdditionalHeaders(m, buf);
         ByteBufUtil.writeShortBE(buf, CRLF_SHORT);
 
         headersEncodedSizeAccumulator = HEADERS_WEIGHT_NEW * padSizeForAccumulation(buf.readableBytes()) +
@@ -526,6 +528,16 @@ public abstract class HttpObjectEncoder<H extends HttpMessage> extends MessageTo
         }
     }
 
+    /**
+     * Allows to encode headers which are not part of the {@link HttpHeaders} of the message, like pre-encoded
+     * static headers. This is called after {@link #encodeHeaders(HttpHeaders, ByteBuf)} for the headers of each
+     * message, but not for trailing headers.
+     */
+    protected void encodeAdditionalHeaders(@SuppressWarnings("unused") H msg,
+                                           @SuppressWarnings("unused") ByteBuf buf) {
+        // noop
+    }
+
     private static void encodedChunkedFileRegionContent(ChannelHandlerContext ctx, FileRegion msg, List<Object> out) {
         final long contentLength = msg.count();
         if (contentLength > 0) {
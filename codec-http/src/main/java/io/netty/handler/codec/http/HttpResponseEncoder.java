@@ -25,6 +25,28 @@ import static io.netty.handler.codec.http.HttpConstants.*;
  * a {@link ByteBuf}.
  */
 public class HttpResponseEncoder extends HttpObjectEncoder<HttpResponse> {
+    private final HttpHeaderBlock staticHeaders;
+    private final boolean dateHeader;
+
+    /**
+     * Creates a new instance which only encodes the headers of each {@link HttpResponse}.
+     */
+    public HttpResponseEncoder() {
+        this(null, false);
+    }
+
+    /**
+     * Creates a new instance which adds headers to each final (non-informational) {@link HttpResponse}.
+     *
+     * @param staticHeaders the pre-encoded headers which are added to each response, or {@code null}. Headers of the
+     *                      response with the same name take precedence.
+     * @param dateHeader    {@code true} if a {@code Date} header should be added to each response which does not
+     *                      contain one. The value is formatted at most once per second.
+     */
+    public HttpResponseEncoder(HttpHeaderBlock staticHeaders, boolean dateHeader) {
+        this.staticHeaders = staticHeaders;
+        this.dateHeader = dateHeader;
+    }
 
     @Override
     public boolean acceptOutboundMessage(Object msg) throws Exception {
@@ -49,6 +71,22 @@ public class HttpResponseEncoder extends HttpObjectEncoder<HttpResponse> {
         ByteBufUtil.writeShortBE(buf, CRLF_SHORT);
     }
 
+    @Override
+    protected void encodeAdditionalHeaders(HttpResponse response, ByteBuf buf) {
+        if (staticHeaders == null && !dateHeader ||
+                response.status().codeClass() == HttpStatusClass.INFORMATIONAL) {
+            return;
+        }
+        final HttpHeaders headers = response.headers();
+        if (staticHeaders != null) {
+            staticHeaders.encode(headers, buf);
+        }
+        if (dateHeader && !headers.contains(HttpHeaderNames.DATE) &&
+                (staticHeaders == null || !staticHeaders.contains(HttpHeaderNames.DATE))) {
+            CachedDateHeader.encode(buf);
+        }
+    }
+
     @Override
     protected void sanitizeHeadersBeforeEncode(HttpResponse msg, boolean isAlwaysEmpty) {
         if (isAlwaysEmpty) {
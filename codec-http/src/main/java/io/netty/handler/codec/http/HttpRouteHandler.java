@@ -0,0 +1,37 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Handles the requests that are dispatched to a route by a {@link HttpRouterHandler}.
+ */
+@UnstableApi
+public interface HttpRouteHandler {
+
+    /**
+     * Handles a message of a request that matched the route. This is called for the {@link HttpRequest} and then
+     * for each {@link HttpContent} of the request, if it is not a {@link FullHttpRequest}. The implementation is
+     * responsible for releasing the message.
+     *
+     * @param ctx   the {@link ChannelHandlerContext} of the {@link HttpRouterHandler}.
+     * @param msg   the {@link HttpRequest} or one of its {@link HttpContent}s.
+     * @param match the matched route, which is the same for all messages of a request.
+     */
+    void handle(ChannelHandlerContext ctx, HttpObject msg, HttpRouteMatch<HttpRouteHandler> match) throws Exception;
+}
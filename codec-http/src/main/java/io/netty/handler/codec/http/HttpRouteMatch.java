@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.AsciiString;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * The route of a {@link HttpRouter} that matched a request, with the parameters that were captured from its path.
+ * The parameters are only extracted from the URI when accessed.
+ *
+ * @param <T> the type of the target of the route.
+ */
+@UnstableApi
+public final class HttpRouteMatch<T> {
+
+    private final T target;
+    private final String pattern;
+    private final String[] paramNames;
+    private final CharSequence uri;
+    private final int[] offsets;
+
+    HttpRouteMatch(T target, String pattern, String[] paramNames, CharSequence uri, int[] offsets) {
+        this.target = target;
+        this.pattern = pattern;
+        this.paramNames = paramNames;
+        this.uri = uri;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Returns the target of the route.
+     */
+    public T target() {
+        return target;
+    }
+
+    /**
+     * Returns the pattern of the route.
+     */
+    public String pattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the URI that was matched.
+     */
+    public CharSequence uri() {
+        return uri;
+    }
+
+    /**
+     * Returns the number of parameters of the route.
+     */
+    public int paramCount() {
+        return paramNames.length;
+    }
+
+    /**
+     * Returns the name of the parameter at the given index, in the order of the pattern.
+     */
+    public String paramName(int index) {
+        return paramNames[index];
+    }
+
+    /**
+     * Returns the raw value of the parameter at the given index, in the order of the pattern. If the URI is an
+     * {@link AsciiString}, the value shares its content.
+     */
+    public CharSequence param(int index) {
+        if (index < 0 || index >= paramNames.length) {
+            throw new IndexOutOfBoundsException("index: " + index + " (expected: 0-" + (paramNames.length - 1) + ')');
+        }
+        int start = offsets[index << 1];
+        int end = offsets[(index << 1) + 1];
+        if (uri instanceof AsciiString) {
+            return ((AsciiString) uri).subSequence(start, end, false);
+        }
+        return uri.subSequence(start, end);
+    }
+
+    /**
+     * Returns the raw value of the parameter with the given name, or {@code null} if the route has no such
+     * parameter.
+     */
+    public CharSequence param(String name) {
+        for (int i = 0; i < paramNames.length; i++) {
+            if (paramNames[i].equals(name)) {
+                return param(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(64).append("HttpRouteMatch(pattern: ").append(pattern);
+        for (int i = 0; i < paramNames.length; i++) {
+            buf.append(", ").append(paramNames[i]).append(": ").append(param(i));
+        }
+        return buf.append(')').toString();
+    }
+}
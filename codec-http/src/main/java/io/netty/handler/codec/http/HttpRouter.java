@@ -0,0 +1,411 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.EmptyArrays;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Matches the method and path of HTTP requests against a set of route patterns, which are compiled into a radix
+ * trie, so the cost of a lookup only depends on the length of the path and not on the number of routes.
+ * <p>
+ * A pattern is a path that starts with {@code '/'}. A segment of the form {@code :name} matches any non-empty
+ * segment and captures it as parameter {@code name}. A last segment of the form {@code *name} matches the
+ * remainder of the path, which may be empty, and captures it as parameter {@code name}. Literal segments take
+ * precedence over parameters, which take precedence over wildcards, regardless of the order the routes were added.
+ * <p>
+ * Matching works on the raw characters of the request URI, ignoring its query and fragment, and does not allocate
+ * anything but the returned {@link HttpRouteMatch} and, if the route has parameters, the array of their offsets.
+ * Parameters are not decoded, and are only extracted from the URI
+ * when accessed; use {@link QueryStringDecoder#decodeComponent(String)} to decode them if needed.
+ *
+ * @param <T> the type of the targets of the routes, for example {@link HttpRouteHandler}.
+ */
+@UnstableApi
+public final class HttpRouter<T> {
+
+    // Scratch space for the parameter offsets while matching, shared by all routers and grown as needed.
+    private static final FastThreadLocal<int[]> OFFSETS = new FastThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return EmptyArrays.EMPTY_INTS;
+        }
+    };
+
+    private final Node<T> root;
+    private final int maxParams;
+
+    private HttpRouter(Node<T> root, int maxParams) {
+        this.root = root;
+        this.maxParams = maxParams;
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     */
+    public static <T> Builder<T> builder() {
+        return new Builder<T>();
+    }
+
+    /**
+     * Returns the route that matches the given method and URI, or {@code null} if there is none.
+     *
+     * @param method the method of the request.
+     * @param uri    the URI of the request, either in origin form or in absolute form. An {@link AsciiString}
+     *               is matched without copying, and its parameters are slices of it.
+     */
+    public HttpRouteMatch<T> route(HttpMethod method, CharSequence uri) {
+        ObjectUtil.checkNotNull(method, "method");
+        int start = pathStart(uri);
+        if (start == -1) {
+            return null;
+        }
+        int end = pathEnd(uri, start);
+        int[] offsets = null;
+        if (maxParams != 0) {
+            offsets = OFFSETS.get();
+            if (offsets.length < maxParams << 1) {
+                offsets = new int[maxParams << 1];
+                OFFSETS.set(offsets);
+            }
+        }
+        Route<T> route = match(root, method, uri, start, end, offsets, 0);
+        if (route == null) {
+            return null;
+        }
+        int paramCount = route.paramNames.length;
+        return new HttpRouteMatch<T>(route.target, route.pattern, route.paramNames, uri,
+                paramCount == 0 ? null : Arrays.copyOf(offsets, paramCount << 1));
+    }
+
+    private static int pathStart(CharSequence uri) {
+        int length = uri.length();
+        if (length == 0) {
+            return -1;
+        }
+        if (uri.charAt(0) == '/') {
+            return 0;
+        }
+        // Absolute form, so skip the scheme and the authority.
+        for (int i = 0; i < length - 2; i++) {
+            char c = uri.charAt(i);
+            if (c == ':') {
+                if (uri.charAt(i + 1) != '/' || uri.charAt(i + 2) != '/') {
+                    return -1;
+                }
+                for (int j = i + 3; j < length; j++) {
+                    if (uri.charAt(j) == '/') {
+                        return j;
+                    }
+                }
+                return -1;
+            }
+            if (c == '/' || c == '?') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int pathEnd(CharSequence uri, int start) {
+        int length = uri.length();
+        for (int i = start; i < length; i++) {
+            char c = uri.charAt(i);
+            if (c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static <T> Route<T> match(Node<T> node, HttpMethod method, CharSequence path, int index, int end,
+                                      int[] offsets, int param) {
+        char[] prefix = node.prefix;
+        if (end - index < prefix.length) {
+            return null;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (path.charAt(index + i) != prefix[i]) {
+                return null;
+            }
+        }
+        index += prefix.length;
+        if (index == end) {
+            Route<T> route = node.route(method);
+            if (route != null) {
+                return route;
+            }
+        } else {
+            int child = Arrays.binarySearch(node.childKeys, path.charAt(index));
+            if (child >= 0) {
+                Route<T> route = match(node.children[child], method, path, index, end, offsets, param);
+                if (route != null) {
+                    return route;
+                }
+            }
+            Node<T> paramChild = node.paramChild;
+            if (paramChild != null) {
+                int segmentEnd = index;
+                while (segmentEnd < end && path.charAt(segmentEnd) != '/') {
+                    segmentEnd++;
+                }
+                if (segmentEnd > index) {
+                    Route<T> route = match(paramChild, method, path, segmentEnd, end, offsets, param + 1);
+                    if (route != null) {
+                        offsets[param << 1] = index;
+                        offsets[(param << 1) + 1] = segmentEnd;
+                        return route;
+                    }
+                }
+            }
+        }
+        Node<T> wildcardChild = node.wildcardChild;
+        if (wildcardChild != null) {
+            Route<T> route = wildcardChild.route(method);
+            if (route != null) {
+                offsets[param << 1] = index;
+                offsets[(param << 1) + 1] = end;
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static final class Route<T> {
+        final HttpMethod method;
+        final String pattern;
+        final String[] paramNames;
+        final T target;
+
+        Route(HttpMethod method, String pattern, String[] paramNames, T target) {
+            this.method = method;
+            this.pattern = pattern;
+            this.paramNames = paramNames;
+            this.target = target;
+        }
+    }
+
+    private static final class Node<T> {
+        final char[] prefix;
+        final char[] childKeys;
+        final Node<T>[] children;
+        final Node<T> paramChild;
+        final Node<T> wildcardChild;
+        final Route<T>[] routes;
+        final Route<T> anyMethodRoute;
+
+        Node(char[] prefix, char[] childKeys, Node<T>[] children, Node<T> paramChild, Node<T> wildcardChild,
+             Route<T>[] routes, Route<T> anyMethodRoute) {
+            this.prefix = prefix;
+            this.childKeys = childKeys;
+            this.children = children;
+            this.paramChild = paramChild;
+            this.wildcardChild = wildcardChild;
+            this.routes = routes;
+            this.anyMethodRoute = anyMethodRoute;
+        }
+
+        Route<T> route(HttpMethod method) {
+            for (Route<T> route : routes) {
+                if (route.method == method || route.method.equals(method)) {
+                    return route;
+                }
+            }
+            return anyMethodRoute;
+        }
+    }
+
+    /**
+     * Collects the routes of a {@link HttpRouter}.
+     *
+     * @param <T> the type of the targets of the routes.
+     */
+    public static final class Builder<T> {
+        private final BuilderNode<T> root = new BuilderNode<T>("");
+        private int maxParams;
+
+        Builder() {
+        }
+
+        /**
+         * Adds a route that matches requests with the given method and path.
+         *
+         * @param method  the method, or {@code null} to match any method that has no route of its own.
+         * @param pattern the pattern of the path, as described in {@link HttpRouter}.
+         * @param target  the target of the route.
+         * @throws IllegalArgumentException if the pattern is invalid or if there already is a route for the
+         *                                  same method and an equivalent pattern.
+         */
+        public Builder<T> add(HttpMethod method, String pattern, T target) {
+            ObjectUtil.checkNotNull(pattern, "pattern");
+            ObjectUtil.checkNotNull(target, "target");
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("pattern must start with '/': " + pattern);
+            }
+            List<String> paramNames = new ArrayList<String>(2);
+            BuilderNode<T> node = root;
+            int literalStart = 0;
+            int index = 0;
+            while (index < pattern.length()) {
+                char c = pattern.charAt(index);
+                if ((c == ':' || c == '*') && pattern.charAt(index - 1) == '/') {
+                    node = node.literalChild(pattern.substring(literalStart, index));
+                    int segmentEnd = pattern.indexOf('/', index);
+                    if (segmentEnd == -1) {
+                        segmentEnd = pattern.length();
+                    }
+                    String name = pattern.substring(index + 1, segmentEnd);
+                    if (name.isEmpty() || paramNames.contains(name)) {
+                        throw new IllegalArgumentException("invalid or duplicate parameter name: " + pattern);
+                    }
+                    paramNames.add(name);
+                    if (c == ':') {
+                        if (node.paramChild == null) {
+                            node.paramChild = new BuilderNode<T>("");
+                        }
+                        node = node.paramChild;
+                    } else {
+                        if (segmentEnd != pattern.length()) {
+                            throw new IllegalArgumentException("wildcard must be the last segment: " + pattern);
+                        }
+                        if (node.wildcardChild == null) {
+                            node.wildcardChild = new BuilderNode<T>("");
+                        }
+                        node = node.wildcardChild;
+                    }
+                    index = literalStart = segmentEnd;
+                } else if (c > 0x7f) {
+                    throw new IllegalArgumentException("pattern must be ASCII, percent-encode it: " + pattern);
+                } else {
+                    index++;
+                }
+            }
+            node = node.literalChild(pattern.substring(literalStart));
+            node.addRoute(new Route<T>(method, pattern, paramNames.toArray(new String[0]), target));
+            maxParams = Math.max(maxParams, paramNames.size());
+            return this;
+        }
+
+        /**
+         * Adds a route that matches {@code GET} requests with the given path.
+         */
+        public Builder<T> get(String pattern, T target) {
+            return add(HttpMethod.GET, pattern, target);
+        }
+
+        /**
+         * Adds a route that matches {@code POST} requests with the given path.
+         */
+        public Builder<T> post(String pattern, T target) {
+            return add(HttpMethod.POST, pattern, target);
+        }
+
+        /**
+         * Returns a new {@link HttpRouter} with the routes that were added so far.
+         */
+        public HttpRouter<T> build() {
+            return new HttpRouter<T>(root.compile(), maxParams);
+        }
+    }
+
+    private static final class BuilderNode<T> {
+        String prefix;
+        final TreeMap<Character, BuilderNode<T>> children = new TreeMap<Character, BuilderNode<T>>();
+        BuilderNode<T> paramChild;
+        BuilderNode<T> wildcardChild;
+        final List<Route<T>> routes = new ArrayList<Route<T>>(1);
+        Route<T> anyMethodRoute;
+
+        BuilderNode(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Returns the node that matches the given literal after this node, splitting nodes as needed.
+         */
+        BuilderNode<T> literalChild(String literal) {
+            BuilderNode<T> node = this;
+            while (!literal.isEmpty()) {
+                BuilderNode<T> child = node.children.get(literal.charAt(0));
+                if (child == null) {
+                    child = new BuilderNode<T>(literal);
+                    node.children.put(literal.charAt(0), child);
+                    return child;
+                }
+                int common = 1;
+                int max = Math.min(literal.length(), child.prefix.length());
+                while (common < max && literal.charAt(common) == child.prefix.charAt(common)) {
+                    common++;
+                }
+                if (common < child.prefix.length()) {
+                    // Split the child, so that it only covers the common prefix.
+                    BuilderNode<T> split = new BuilderNode<T>(child.prefix.substring(0, common));
+                    child.prefix = child.prefix.substring(common);
+                    split.children.put(child.prefix.charAt(0), child);
+                    node.children.put(literal.charAt(0), split);
+                    child = split;
+                }
+                node = child;
+                literal = literal.substring(common);
+            }
+            return node;
+        }
+
+        void addRoute(Route<T> route) {
+            if (route.method == null) {
+                if (anyMethodRoute != null) {
+                    throw duplicateRoute(route);
+                }
+                anyMethodRoute = route;
+                return;
+            }
+            for (Route<T> existing : routes) {
+                if (existing.method.equals(route.method)) {
+                    throw duplicateRoute(route);
+                }
+            }
+            routes.add(route);
+        }
+
+        private static IllegalArgumentException duplicateRoute(Route<?> route) {
+            return new IllegalArgumentException("duplicate route: " + route.method + ' ' + route.pattern);
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<T> compile() {
+            char[] childKeys = new char[children.size()];
+            Node<T>[] compiledChildren = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, BuilderNode<T>> entry : children.entrySet()) {
+                childKeys[i] = entry.getKey();
+                compiledChildren[i++] = entry.getValue().compile();
+            }
+            return new Node<T>(prefix.toCharArray(), childKeys, compiledChildren,
+                    paramChild == null ? null : paramChild.compile(),
+                    wildcardChild == null ? null : wildcardChild.compile(),
+                    routes.toArray(new Route[0]), anyMethodRoute);
+        }
+    }
+}
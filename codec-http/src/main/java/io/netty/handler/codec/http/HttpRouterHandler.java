@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Dispatches HTTP requests to the {@link HttpRouteHandler} of the route of a {@link HttpRouter} that matches
+ * their method and URI. Requests that match no route are passed on to the next handler in the pipeline, together
+ * with their {@link HttpContent}s, so that it can respond with {@code 404 Not Found}, for example.
+ * <p>
+ * May be placed either before or after a {@link HttpObjectAggregator}. The same {@link HttpRouter} may be used by
+ * the handlers of all channels.
+ */
+@UnstableApi
+public class HttpRouterHandler extends ChannelInboundHandlerAdapter {
+
+    private final HttpRouter<HttpRouteHandler> router;
+    private HttpRouteMatch<HttpRouteHandler> current;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param router the routes to dispatch to.
+     */
+    public HttpRouterHandler(HttpRouter<HttpRouteHandler> router) {
+        this.router = ObjectUtil.checkNotNull(router, "router");
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) msg;
+            HttpRouteMatch<HttpRouteHandler> match = router.route(request.method(), request.uri());
+            current = match != null && !(msg instanceof LastHttpContent) ? match : null;
+            if (match == null) {
+                ctx.fireChannelRead(msg);
+            } else {
+                match.target().handle(ctx, request, match);
+            }
+        } else if (msg instanceof HttpContent && current != null) {
+            HttpRouteMatch<HttpRouteHandler> match = current;
+            if (msg instanceof LastHttpContent) {
+                current = null;
+            }
+            match.target().handle(ctx, (HttpContent) msg, match);
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.netty.handler.codec.http;
 
+import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 import io.netty.util.internal.PlatformDependent;
 
@@ -58,6 +59,20 @@ import static io.netty.util.internal.StringUtil.decodeHexByte;
  * default, and you can configure it when you construct the decoder by passing an additional
  * integer parameter.
  *
+ * <h3>Lazy parameter access</h3>
+ *
+ * {@link #parameters()} decodes all parameters into a {@link Map} at once. When only a few parameters are read,
+ * {@link #parameter(String)}, {@link #parameterCount()}, {@link #parameterName(int)} and
+ * {@link #parameterValue(int)} can be used instead. They only record the offsets of the parameters on first access,
+ * and decode a name or value when it is requested, into an {@link AsciiString} if the decoded value is ASCII:
+ * <pre>
+ * {@link QueryStringDecoder} decoder = new {@link QueryStringDecoder}("/hello?recipient=world&x=1;y=2");
+ * assert decoder.parameter("x").toString().equals("1");
+ * for (int i = 0; i &lt; decoder.parameterCount(); i++) {
+ *     ... decoder.parameterName(i) ... decoder.parameterValue(i) ...
+ * }
+ * </pre>
+ *
  * @see QueryStringEncoder
  */
 public class QueryStringDecoder {
@@ -71,6 +86,9 @@ public class QueryStringDecoder {
     private int pathEndIdx;
     private String path;
     private Map<String, List<String>> params;
+    // nameStart, valueStart and valueEnd of each parameter, see indexParams(...).
+    private int[] paramOffsets;
+    private int paramCount = -1;
 
     /**
      * Creates a new decoder that decodes the specified URI. The decoder will
@@ -201,6 +219,145 @@ public class QueryStringDecoder {
         return params;
     }
 
+    /**
+     * Returns the number of key-value parameter pairs of the URI, without decoding them.
+     */
+    public int parameterCount() {
+        if (paramCount == -1) {
+            indexParams();
+        }
+        return paramCount;
+    }
+
+    /**
+     * Returns the decoded name of the parameter at the given index, in the order of the URI.
+     * The name is an {@link AsciiString} if it is ASCII.
+     */
+    public CharSequence parameterName(int index) {
+        int offset = paramOffset(index);
+        return decodeLazily(uri, paramOffsets[offset], paramOffsets[offset + 1] - 1, charset);
+    }
+
+    /**
+     * Returns the decoded value of the parameter at the given index, in the order of the URI.
+     * The value is an {@link AsciiString} if it is ASCII.
+     */
+    public CharSequence parameterValue(int index) {
+        int offset = paramOffset(index);
+        return decodeLazily(uri, paramOffsets[offset + 1], paramOffsets[offset + 2], charset);
+    }
+
+    /**
+     * Returns the index of the first parameter with the given name at or after the given index, or {@code -1} if
+     * there is none. Only the names that contain escape sequences are decoded to compare them.
+     */
+    public int indexOfParameter(String name, int fromIndex) {
+        checkNotNull(name, "name");
+        int count = parameterCount();
+        for (int i = Math.max(fromIndex, 0); i < count; i++) {
+            int offset = i * 3;
+            if (nameEquals(paramOffsets[offset], paramOffsets[offset + 1] - 1, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the decoded value of the first parameter with the given name, or {@code null} if there is none.
+     * The value is an {@link AsciiString} if it is ASCII.
+     */
+    public CharSequence parameter(String name) {
+        int index = indexOfParameter(name, 0);
+        return index == -1 ? null : parameterValue(index);
+    }
+
+    private int paramOffset(int index) {
+        if (index < 0 || index >= parameterCount()) {
+            throw new IndexOutOfBoundsException("index: " + index + " (expected: 0-" + (paramCount - 1) + ')');
+        }
+        return index * 3;
+    }
+
+    private boolean nameEquals(int from, int toExcluded, String name) {
+        for (int i = from; i < toExcluded; i++) {
+            char c = uri.charAt(i);
+            if (c == '%' || c == '+') {
+                return decodeComponent(uri, from, toExcluded, charset, false).equals(name);
+            }
+        }
+        return toExcluded - from == name.length() && uri.regionMatches(from, name, 0, name.length());
+    }
+
+    /**
+     * Records the offsets of the parameters the same way as {@link #decodeParams(String, int, Charset, int,
+     * boolean)} decodes them.
+     */
+    private void indexParams() {
+        String s = uri;
+        int from = pathEndIdx();
+        int len = s.length();
+        int paramsLimit = maxParams;
+        int[] offsets = new int[Math.min(paramsLimit, 8) * 3];
+        int count = 0;
+        if (from < len) {
+            if (s.charAt(from) == '?') {
+                from++;
+            }
+            int nameStart = from;
+            int valueStart = -1;
+            int i;
+            loop:
+            for (i = from; i < len; i++) {
+                switch (s.charAt(i)) {
+                case '=':
+                    if (nameStart == i) {
+                        nameStart = i + 1;
+                    } else if (valueStart < nameStart) {
+                        valueStart = i + 1;
+                    }
+                    break;
+                case ';':
+                    if (semicolonIsNormalChar) {
+                        continue;
+                    }
+                    // fall-through
+                case '&':
+                    if (nameStart < i) {
+                        offsets = addParamOffsets(offsets, count++, nameStart, valueStart, i);
+                        if (--paramsLimit == 0) {
+                            break loop;
+                        }
+                    }
+                    nameStart = i + 1;
+                    break;
+                case '#':
+                    break loop;
+                default:
+                    // continue
+                }
+            }
+            if (paramsLimit > 0 && nameStart < i) {
+                offsets = addParamOffsets(offsets, count++, nameStart, valueStart, i);
+            }
+        }
+        paramOffsets = offsets;
+        paramCount = count;
+    }
+
+    private static int[] addParamOffsets(int[] offsets, int index, int nameStart, int valueStart, int valueEnd) {
+        int offset = index * 3;
+        if (offset == offsets.length) {
+            int[] newOffsets = new int[offsets.length << 1];
+            System.arraycopy(offsets, 0, newOffsets, 0, offsets.length);
+            offsets = newOffsets;
+        }
+        offsets[offset] = nameStart;
+        offsets[offset + 1] = valueStart <= nameStart ? valueEnd + 1 : valueStart;
+        offsets[offset + 2] = valueEnd;
+        return offsets;
+    }
+
     /**
      * Returns the raw path string of the URI.
      */
@@ -380,6 +537,60 @@ public class QueryStringDecoder {
         return strBuf.toString();
     }
 
+    /**
+     * Decodes a component of a query like {@link #decodeComponent(String, int, int, Charset, boolean)}, but into an
+     * {@link AsciiString} if the decoded component is ASCII and the charset is ASCII compatible.
+     */
+    private static CharSequence decodeLazily(String s, int from, int toExcluded, Charset charset) {
+        int len = toExcluded - from;
+        if (len <= 0) {
+            return AsciiString.EMPTY_STRING;
+        }
+        boolean asciiCharset = CharsetUtil.UTF_8.equals(charset) || CharsetUtil.US_ASCII.equals(charset) ||
+                CharsetUtil.ISO_8859_1.equals(charset);
+        if (!asciiCharset) {
+            return decodeComponent(s, from, toExcluded, charset, false);
+        }
+        byte[] buf = null;
+        int bufIdx = 0;
+        int bytes = 0;
+        for (int i = from; i < toExcluded; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // Not an encoded URI, leave it to the general decoder.
+                return decodeComponent(s, from, toExcluded, charset, false);
+            }
+            if (c == '%' || c == '+') {
+                if (buf == null) {
+                    buf = new byte[len];
+                    for (int j = from; j < i; j++) {
+                        buf[bufIdx++] = (byte) s.charAt(j);
+                    }
+                }
+                if (c == '+') {
+                    buf[bufIdx++] = ' ';
+                } else {
+                    if (i + 3 > toExcluded) {
+                        throw new IllegalArgumentException("unterminated escape sequence at index " + i + " of: " + s);
+                    }
+                    byte b = decodeHexByte(s, i + 1);
+                    bytes |= b;
+                    buf[bufIdx++] = b;
+                    i += 2;
+                }
+            } else if (buf != null) {
+                buf[bufIdx++] = (byte) c;
+            }
+        }
+        if (buf == null) {
+            return new AsciiString(s, from, len);
+        }
+        if (bytes < 0) {
+            return new String(buf, 0, bufIdx, charset);
+        }
+        return new AsciiString(buf, 0, bufIdx, false);
+    }
+
     private static int findPathEndIndex(String uri) {
         int len = uri.length();
         for (int i = 0; i < len; i++) {
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpConstants;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Writes the file parts decoded by a {@link HttpPostMultipartStreamDecoder} to {@link FileUpload}s created by a
+ * {@link HttpDataFactory}, so that {@link DiskFileUpload}s are written to disk without blocking the event loop.
+ * <p>
+ * Must be placed right after the {@link HttpPostMultipartStreamDecoder} in the pipeline. Instead of the
+ * {@link MultipartPart} and the {@link MultipartContent}s of a file part, the completed {@link FileUpload} is
+ * passed on, which must be released once processed. All other messages are passed on unchanged and in their
+ * original order, so they may be delayed until the file uploads in front of them are complete.
+ * <p>
+ * The {@link MultipartContent}s are written by an {@link EventExecutor} of the given {@link EventExecutorGroup},
+ * one channel always using the same {@link EventExecutor}. When the bytes that were received but not yet written
+ * exceed {@code maxPendingBytes}, {@link ChannelConfig#setAutoRead(boolean) auto read} is turned off until at
+ * least half of them are written.
+ */
+@UnstableApi
+public class HttpPostMultipartFileWriter extends ChannelInboundHandlerAdapter {
+
+    private final HttpDataFactory factory;
+    private final EventExecutorGroup executorGroup;
+    private final long maxPendingBytes;
+
+    // The following fields are only accessed from the event loop.
+    private final ArrayDeque<Object> queue = new ArrayDeque<Object>();
+    private EventExecutor executor;
+    private HttpRequest request;
+    private PendingUpload current;
+    private long pendingBytes;
+    private boolean autoReadDisabled;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param factory         the {@link HttpDataFactory} that creates the {@link FileUpload}s.
+     * @param executorGroup   the {@link EventExecutorGroup} that writes the {@link FileUpload}s.
+     * @param maxPendingBytes the maximum number of received bytes that are not yet written before the reading
+     *                        from the channel is suspended.
+     */
+    public HttpPostMultipartFileWriter(HttpDataFactory factory, EventExecutorGroup executorGroup,
+                                       long maxPendingBytes) {
+        this.factory = ObjectUtil.checkNotNull(factory, "factory");
+        this.executorGroup = ObjectUtil.checkNotNull(executorGroup, "executorGroup");
+        this.maxPendingBytes = ObjectUtil.checkPositive(maxPendingBytes, "maxPendingBytes");
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        executor = executorGroup.next();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            request = (HttpRequest) msg;
+        } else if (msg instanceof MultipartPart && request != null) {
+            MultipartPart part = (MultipartPart) msg;
+            if (part.isFileUpload()) {
+                current = newUpload(part);
+                queue.add(current);
+                return;
+            }
+        } else if (msg instanceof MultipartContent && current != null) {
+            write(ctx, current, (MultipartContent) msg);
+            return;
+        }
+        if (queue.isEmpty()) {
+            ctx.fireChannelRead(msg);
+        } else {
+            queue.add(msg);
+        }
+    }
+
+    private PendingUpload newUpload(MultipartPart part) {
+        String contentType = part.contentType();
+        if (contentType == null) {
+            contentType = HttpPostBodyUtil.DEFAULT_BINARY_CONTENT_TYPE;
+        }
+        FileUpload upload = factory.createFileUpload(request, part.name(), part.filename(), contentType,
+                part.headers().get(HttpHeaderNames.CONTENT_TRANSFER_ENCODING),
+                HttpUtil.getCharset(contentType, HttpConstants.DEFAULT_CHARSET), 0);
+        return new PendingUpload(request, upload);
+    }
+
+    private void write(ChannelHandlerContext ctx, PendingUpload upload, MultipartContent content) {
+        if (content.isLast()) {
+            current = null;
+        }
+        WriteTask task = new WriteTask(ctx, upload, content);
+        pendingBytes += task.bytes;
+        if (!autoReadDisabled && pendingBytes > maxPendingBytes && ctx.channel().config().isAutoRead()) {
+            autoReadDisabled = true;
+            ctx.channel().config().setAutoRead(false);
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Write on the event loop rather than losing the content.
+            task.run();
+        }
+    }
+
+    private void written(ChannelHandlerContext ctx, WriteTask task) {
+        pendingBytes -= task.bytes;
+        if (autoReadDisabled && pendingBytes <= maxPendingBytes >>> 1) {
+            autoReadDisabled = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+        if (task.last || task.upload.cause != null) {
+            task.upload.done = true;
+            drain(ctx);
+        }
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        for (;;) {
+            Object head = queue.peek();
+            if (head == null) {
+                return;
+            }
+            if (head instanceof PendingUpload) {
+                PendingUpload upload = (PendingUpload) head;
+                if (!upload.done) {
+                    return;
+                }
+                queue.poll();
+                if (upload.cause != null) {
+                    // The remaining content of a failed upload is released by the write tasks.
+                    discard(upload);
+                    ctx.fireExceptionCaught(upload.cause);
+                } else {
+                    factory.removeHttpDataFromClean(upload.request, upload.upload);
+                    ctx.fireChannelRead(upload.upload);
+                }
+            } else {
+                ctx.fireChannelRead(queue.poll());
+            }
+        }
+    }
+
+    private void discard(final PendingUpload upload) {
+        upload.discarded = true;
+        factory.removeHttpDataFromClean(upload.request, upload.upload);
+        Runnable delete = new Runnable() {
+            @Override
+            public void run() {
+                upload.upload.delete();
+                upload.upload.release();
+            }
+        };
+        try {
+            // Runs after the writes that were already submitted.
+            executor.execute(delete);
+        } catch (RejectedExecutionException e) {
+            delete.run();
+        }
+    }
+
+    private void releaseAll() {
+        for (;;) {
+            Object msg = queue.poll();
+            if (msg == null) {
+                break;
+            }
+            if (msg instanceof PendingUpload) {
+                discard((PendingUpload) msg);
+            } else {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+        if (current != null && !current.discarded) {
+            discard(current);
+        }
+        current = null;
+        request = null;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        releaseAll();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseAll();
+        ctx.fireChannelInactive();
+    }
+
+    private static final class PendingUpload {
+        // The request the upload belongs to, as the request field may refer to a pipelined request already.
+        final HttpRequest request;
+        final FileUpload upload;
+        // Only accessed from the event loop.
+        boolean done;
+        // Written by the executor, read by the event loop once the write task is done.
+        Throwable cause;
+        volatile boolean discarded;
+
+        PendingUpload(HttpRequest request, FileUpload upload) {
+            this.request = request;
+            this.upload = upload;
+        }
+    }
+
+    private final class WriteTask implements Runnable {
+        private final ChannelHandlerContext ctx;
+        final PendingUpload upload;
+        private final MultipartContent content;
+        final int bytes;
+        final boolean last;
+
+        WriteTask(ChannelHandlerContext ctx, PendingUpload upload, MultipartContent content) {
+            this.ctx = ctx;
+            this.upload = upload;
+            this.content = content;
+            bytes = content.content().readableBytes();
+            last = content.isLast();
+        }
+
+        @Override
+        public void run() {
+            if (upload.discarded || upload.cause != null) {
+                content.release();
+            } else {
+                try {
+                    // Takes over the ownership of the content.
+                    upload.upload.addContent(content.content(), last);
+                } catch (IOException e) {
+                    upload.cause = e;
+                }
+            }
+            if (ctx.executor().inEventLoop()) {
+                written(ctx, this);
+            } else {
+                ctx.executor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        written(ctx, WriteTask.this);
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.search.AbstractSearchProcessorFactory;
+import io.netty.buffer.search.SearchProcessorFactory;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder.ErrorDataDecoderException;
+import io.netty.util.ByteProcessor;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.List;
+
+/**
+ * Decodes the body of {@code multipart/form-data} {@link HttpRequest}s as it is received, without aggregating it
+ * and without copying the content of the parts.
+ * <p>
+ * For a multipart request the following messages are produced instead of the {@link HttpContent}s of the request:
+ * <ul>
+ * <li>the {@link HttpRequest} (without content),</li>
+ * <li>for every part a {@link MultipartPart} with its headers, followed by one or more {@link MultipartContent}s
+ * with its content, the last of which returns {@code true} for {@link MultipartContent#isLast()},</li>
+ * <li>a {@link LastHttpContent} without content but with the trailing headers of the request.</li>
+ * </ul>
+ * The content of a {@link MultipartContent} is a slice of the received {@link HttpContent}, so it retains the
+ * received buffer until released. Other messages, including requests that are not multipart, are passed through.
+ * <p>
+ * The boundaries are located with a {@link SearchProcessorFactory} that is precomputed once per request, so every
+ * received byte is scanned only once, apart from the few bytes at the end of a chunk that may be the beginning of a
+ * boundary. Use {@link HttpPostMultipartFileWriter} to write uploaded files to disk without blocking the event loop.
+ * <p>
+ * Nested {@code multipart/mixed} parts are not decoded, but passed on as the content of their enclosing part.
+ */
+@UnstableApi
+public class HttpPostMultipartStreamDecoder extends MessageToMessageDecoder<HttpObject> {
+
+    private static final int DEFAULT_MAX_HEADER_SIZE = 8192;
+
+    private enum State {
+        PASS_THROUGH,
+        PREAMBLE,
+        DELIMITER,
+        HEADERS,
+        CONTENT,
+        EPILOGUE,
+        DISCARD
+    }
+
+    private final int maxHeaderSize;
+    private State state = State.PASS_THROUGH;
+    private int delimiterLength;
+    private SearchProcessorFactory delimiterSearch;
+    private ByteBuf undecoded;
+    private HttpHeaders partHeaders;
+    private int partHeadersSize;
+
+    /**
+     * Creates a new instance which allows up to {@value #DEFAULT_MAX_HEADER_SIZE} bytes of headers per part.
+     */
+    public HttpPostMultipartStreamDecoder() {
+        this(DEFAULT_MAX_HEADER_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxHeaderSize the maximum number of bytes of the headers of a part.
+     */
+    public HttpPostMultipartStreamDecoder(int maxHeaderSize) {
+        super(HttpObject.class);
+        this.maxHeaderSize = ObjectUtil.checkPositive(maxHeaderSize, "maxHeaderSize");
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) msg;
+            reset();
+            String contentType = request.headers().get(HttpHeaderNames.CONTENT_TYPE);
+            String[] boundary = contentType != null && HttpPostRequestDecoder.isMultipart(request) ?
+                    HttpPostRequestDecoder.getMultipartDataBoundary(contentType) : null;
+            if (boundary == null) {
+                out.add(ReferenceCountUtil.retain(msg));
+                return;
+            }
+
+            byte[] delimiter = ('\n' + boundary[0]).getBytes(CharsetUtil.US_ASCII);
+            delimiterLength = delimiter.length;
+            delimiterSearch = AbstractSearchProcessorFactory.newKmpSearchProcessorFactory(delimiter);
+            // The body may start with the delimiter right away, without the line break in front of it.
+            undecoded = ctx.alloc().buffer(1).writeByte('\n');
+            state = State.PREAMBLE;
+            if (!(msg instanceof HttpContent)) {
+                out.add(ReferenceCountUtil.retain(msg));
+                return;
+            }
+            out.add(new DefaultHttpRequest(
+                    request.protocolVersion(), request.method(), request.uri(), request.headers()));
+        }
+
+        if (state == State.PASS_THROUGH || !(msg instanceof HttpContent)) {
+            out.add(ReferenceCountUtil.retain(msg));
+            return;
+        }
+
+        if (state == State.DISCARD) {
+            // The body was malformed, so the rest of it is dropped until the request ends.
+            if (msg instanceof LastHttpContent) {
+                reset();
+                out.add(lastContent((LastHttpContent) msg));
+            }
+            return;
+        }
+
+        try {
+            decodeContent(ctx, ((HttpContent) msg).content(), out);
+        } catch (ErrorDataDecoderException e) {
+            // Never parse what follows a malformed part as if the body was still valid.
+            reset();
+            if (msg instanceof LastHttpContent) {
+                out.add(lastContent((LastHttpContent) msg));
+            } else {
+                state = State.DISCARD;
+            }
+            throw e;
+        }
+
+        if (msg instanceof LastHttpContent) {
+            boolean complete = state == State.EPILOGUE;
+            reset();
+            out.add(lastContent((LastHttpContent) msg));
+            if (!complete) {
+                throw new ErrorDataDecoderException("multipart body ended before its close delimiter");
+            }
+        }
+    }
+
+    private static LastHttpContent lastContent(LastHttpContent msg) {
+        HttpHeaders trailingHeaders = msg.trailingHeaders();
+        if (trailingHeaders.isEmpty()) {
+            return LastHttpContent.EMPTY_LAST_CONTENT;
+        }
+        LastHttpContent last = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER);
+        last.trailingHeaders().set(trailingHeaders);
+        return last;
+    }
+
+    private void decodeContent(ChannelHandlerContext ctx, ByteBuf content, List<Object> out) {
+        if (state == State.EPILOGUE) {
+            return;
+        }
+        ByteBuf buf;
+        if (undecoded == null) {
+            buf = content.retain();
+        } else {
+            // Only the few bytes that were left over are in front of the new content, so compose instead of copy.
+            buf = ctx.alloc().compositeBuffer(2).addComponents(true, undecoded, content.retain());
+            undecoded = null;
+        }
+        try {
+            int index = buf.readerIndex();
+            int end = buf.writerIndex();
+            loop: for (;;) {
+                switch (state) {
+                    case PREAMBLE:
+                    case CONTENT: {
+                        int found = buf.forEachByte(index, end - index, delimiterSearch.newSearchProcessor());
+                        if (found == -1) {
+                            // Hold back what may be the beginning of a delimiter, including a preceding '\r'.
+                            int safeEnd = end - delimiterLength;
+                            if (safeEnd > index) {
+                                if (state == State.CONTENT) {
+                                    out.add(new MultipartContent(buf.retainedSlice(index, safeEnd - index), false));
+                                }
+                                index = safeEnd;
+                            }
+                            break loop;
+                        }
+                        if (state == State.CONTENT) {
+                            int contentEnd = found - delimiterLength + 1;
+                            if (contentEnd > index && buf.getByte(contentEnd - 1) == '\r') {
+                                contentEnd--;
+                            }
+                            out.add(new MultipartContent(contentEnd > index ?
+                                    buf.retainedSlice(index, contentEnd - index) : Unpooled.EMPTY_BUFFER, true));
+                        }
+                        index = found + 1;
+                        state = State.DELIMITER;
+                        break;
+                    }
+                    case DELIMITER: {
+                        if (end - index < 2) {
+                            break loop;
+                        }
+                        if (buf.getByte(index) == '-' && buf.getByte(index + 1) == '-') {
+                            state = State.EPILOGUE;
+                            index = end;
+                            break loop;
+                        }
+                        // Skip the transport padding up to the end of the line.
+                        int lf = buf.forEachByte(index, end - index, ByteProcessor.FIND_LF);
+                        if (lf == -1) {
+                            if (end - index > maxHeaderSize) {
+                                throw new ErrorDataDecoderException("multipart delimiter line is too long");
+                            }
+                            break loop;
+                        }
+                        index = lf + 1;
+                        partHeaders = new DefaultHttpHeaders();
+                        partHeadersSize = 0;
+                        state = State.HEADERS;
+                        break;
+                    }
+                    case HEADERS: {
+                        int lf = buf.forEachByte(index, end - index, ByteProcessor.FIND_LF);
+                        int lineSize = lf == -1 ? end - index : lf + 1 - index;
+                        if (partHeadersSize + lineSize > maxHeaderSize) {
+                            throw new ErrorDataDecoderException(
+                                    "multipart part headers are larger than " + maxHeaderSize + " bytes");
+                        }
+                        if (lf == -1) {
+                            break loop;
+                        }
+                        partHeadersSize += lineSize;
+                        int lineEnd = lf > index && buf.getByte(lf - 1) == '\r' ? lf - 1 : lf;
+                        if (lineEnd == index) {
+                            index = lf + 1;
+                            out.add(newPart(partHeaders));
+                            partHeaders = null;
+                            state = State.CONTENT;
+                            break;
+                        }
+                        String line = buf.toString(index, lineEnd - index, CharsetUtil.UTF_8);
+                        index = lf + 1;
+                        int colon = line.indexOf(':');
+                        if (colon <= 0) {
+                            throw new ErrorDataDecoderException("invalid multipart part header: " + line);
+                        }
+                        partHeaders.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+                        break;
+                    }
+                    case EPILOGUE: {
+                        index = end;
+                        break loop;
+                    }
+                    default:
+                        throw new Error();
+                }
+            }
+            if (index < end) {
+                undecoded = ctx.alloc().buffer(end - index).writeBytes(buf, index, end - index);
+            }
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static MultipartPart newPart(HttpHeaders headers) {
+        String disposition = headers.get(HttpHeaderNames.CONTENT_DISPOSITION);
+        if (disposition == null) {
+            throw new ErrorDataDecoderException("multipart part without Content-Disposition");
+        }
+        String name = null;
+        String filename = null;
+        int start = 0;
+        boolean quoted = false;
+        for (int i = 0; i <= disposition.length(); i++) {
+            char c = i < disposition.length() ? disposition.charAt(i) : ';';
+            if (c == '"' && (i == 0 || disposition.charAt(i - 1) != '\\')) {
+                quoted = !quoted;
+            } else if (c == ';' && !quoted) {
+                String parameter = disposition.substring(start, i);
+                start = i + 1;
+                int equals = parameter.indexOf('=');
+                if (equals == -1) {
+                    continue;
+                }
+                String key = parameter.substring(0, equals).trim();
+                if ("name".equalsIgnoreCase(key)) {
+                    name = unquote(parameter.substring(equals + 1).trim());
+                } else if ("filename".equalsIgnoreCase(key)) {
+                    filename = unquote(parameter.substring(equals + 1).trim());
+                }
+            }
+        }
+        if (name == null) {
+            throw new ErrorDataDecoderException("multipart part without name: " + disposition);
+        }
+        return new MultipartPart(headers, name, filename);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return value;
+        }
+        return value.substring(1, value.length() - 1).replace("\\\"", "\"");
+    }
+
+    private void reset() {
+        if (undecoded != null) {
+            undecoded.release();
+            undecoded = null;
+        }
+        partHeaders = null;
+        delimiterSearch = null;
+        state = State.PASS_THROUGH;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        reset();
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reset();
+        super.channelInactive(ctx);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * A chunk of the content of the {@link MultipartPart} that was decoded last by a
+ * {@link HttpPostMultipartStreamDecoder}. The content is a slice of the received {@link ByteBuf}s and must be
+ * released once processed.
+ */
+@UnstableApi
+public class MultipartContent extends DefaultByteBufHolder {
+
+    private final boolean last;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param content the content of the part.
+     * @param last    {@code true} if this is the last chunk of the part.
+     */
+    public MultipartContent(ByteBuf content, boolean last) {
+        super(content);
+        this.last = last;
+    }
+
+    /**
+     * Returns {@code true} if this is the last chunk of the part.
+     */
+    public boolean isLast() {
+        return last;
+    }
+
+    @Override
+    public MultipartContent copy() {
+        return (MultipartContent) super.copy();
+    }
+
+    @Override
+    public MultipartContent duplicate() {
+        return (MultipartContent) super.duplicate();
+    }
+
+    @Override
+    public MultipartContent retainedDuplicate() {
+        return (MultipartContent) super.retainedDuplicate();
+    }
+
+    @Override
+    public MultipartContent replace(ByteBuf content) {
+        return new MultipartContent(content, last);
+    }
+
+    @Override
+    public MultipartContent retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public MultipartContent retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public MultipartContent touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public MultipartContent touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(data: " + contentToString() + ", last: " + last + ')';
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * The headers of a part of a {@code multipart/form-data} body, as decoded by a
+ * {@link HttpPostMultipartStreamDecoder}. The content of the part follows as one or more {@link MultipartContent}s.
+ */
+@UnstableApi
+public final class MultipartPart {
+
+    private final HttpHeaders headers;
+    private final String name;
+    private final String filename;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param headers  the headers of the part.
+     * @param name     the {@code name} parameter of the {@code Content-Disposition} header.
+     * @param filename the {@code filename} parameter of the {@code Content-Disposition} header, or {@code null}.
+     */
+    public MultipartPart(HttpHeaders headers, String name, String filename) {
+        this.headers = ObjectUtil.checkNotNull(headers, "headers");
+        this.name = ObjectUtil.checkNotNull(name, "name");
+        this.filename = filename;
+    }
+
+    /**
+     * Returns the headers of the part.
+     */
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * Returns the name of the form field.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the name of the uploaded file, or {@code null} if this part is not a file upload.
+     */
+    public String filename() {
+        return filename;
+    }
+
+    /**
+     * Returns the {@code Content-Type} of the part, or {@code null} if not specified.
+     */
+    public String contentType() {
+        return headers.get(HttpHeaderNames.CONTENT_TYPE);
+    }
+
+    /**
+     * Returns {@code true} if this part is a file upload.
+     */
+    public boolean isFileUpload() {
+        return filename != null;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(name: " + name + ", filename: " + filename +
+                ", headers: " + headers + ')';
+    }
+}
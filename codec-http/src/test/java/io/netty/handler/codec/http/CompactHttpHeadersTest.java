@@ -0,0 +1,217 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.AsciiString;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.ACCEPT;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
+import static io.netty.handler.codec.http.HttpHeaderValues.CLOSE;
+import static io.netty.handler.codec.http.HttpHeaderValues.KEEP_ALIVE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompactHttpHeadersTest {
+
+    @Test
+    public void testAddAndGet() {
+        CompactHttpHeaders headers = new CompactHttpHeaders(true, 1);
+        headers.add(ACCEPT, APPLICATION_JSON);
+        headers.add("Connection", CLOSE);
+        headers.add("connection", KEEP_ALIVE);
+        headers.addInt(CONTENT_LENGTH, 10);
+
+        assertEquals(4, headers.size());
+        assertEquals("application/json", headers.get(ACCEPT));
+        assertEquals("close", headers.get(CONNECTION));
+        assertEquals(Arrays.asList("close", "keep-alive"), headers.getAll("CONNECTION"));
+        assertEquals(10, headers.getInt(CONTENT_LENGTH).intValue());
+        assertTrue(headers.contains(CONNECTION, "KEEP-ALIVE", true));
+        assertFalse(headers.contains(CONNECTION, "KEEP-ALIVE", false));
+        assertNull(headers.get(TRANSFER_ENCODING));
+        assertEquals(3, headers.names().size());
+    }
+
+    @Test
+    public void testSetAndRemoveKeepOrder() {
+        CompactHttpHeaders headers = new CompactHttpHeaders();
+        headers.add("a", "1");
+        headers.add("b", "2");
+        headers.add("A", "3");
+        headers.add("c", "4");
+
+        headers.set("b", "5");
+        assertEquals(Arrays.asList("a", "A", "c", "b"), names(headers));
+
+        headers.remove("a");
+        assertEquals(Arrays.asList("c", "b"), names(headers));
+        assertEquals("5", headers.get("b"));
+        assertEquals(2, headers.size());
+
+        headers.clear();
+        assertTrue(headers.isEmpty());
+        assertNull(headers.get("c"));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        CompactHttpHeaders headers = new CompactHttpHeaders();
+        headers.add("a", "1");
+        headers.add("b", "2");
+        headers.add("a", "3");
+
+        Iterator<CharSequence> values = headers.valueCharSequenceIterator("a");
+        assertEquals("1", values.next().toString());
+        values.remove();
+        assertEquals("3", values.next().toString());
+        assertFalse(values.hasNext());
+        assertEquals(Arrays.asList("b", "a"), names(headers));
+
+        Iterator<Entry<CharSequence, CharSequence>> entries = headers.iteratorCharSequence();
+        entries.next().setValue("4");
+        entries.remove();
+        assertEquals("3", entries.next().getValue().toString());
+        assertFalse(entries.hasNext());
+        assertEquals(1, headers.size());
+    }
+
+    @Test
+    public void testValidation() {
+        final CompactHttpHeaders headers = new CompactHttpHeaders(true);
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                headers.add("invalid name", "value");
+            }
+        });
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                headers.set("name", "invalid\r\nvalue");
+            }
+        });
+        assertTrue(headers.isEmpty());
+
+        final HttpHeaders trailers = DefaultHttpHeadersFactory.compactTrailersFactory(true).newHeaders();
+        assertInstanceOf(CompactHttpHeaders.class, trailers);
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                trailers.add(CONTENT_LENGTH, 1);
+            }
+        });
+    }
+
+    @Test
+    public void testCopyAndEquals() {
+        CompactHttpHeaders headers = new CompactHttpHeaders();
+        headers.add("a", "1");
+        headers.add("b", "2");
+        headers.add("a", "3");
+
+        HttpHeaders copy = headers.copy();
+        assertInstanceOf(CompactHttpHeaders.class, copy);
+        assertEquals(headers, copy);
+        assertEquals(headers.hashCode(), copy.hashCode());
+
+        CompactHttpHeaders reordered = new CompactHttpHeaders();
+        reordered.add("B", "2");
+        reordered.add("A", "1");
+        reordered.add("a", "3");
+        assertEquals(headers, reordered);
+        assertEquals(headers.hashCode(), reordered.hashCode());
+
+        copy.set("a", "1");
+        assertNotEquals(headers, copy);
+
+        CompactHttpHeaders added = new CompactHttpHeaders();
+        added.add(headers);
+        assertEquals(headers, added);
+    }
+
+    @Test
+    public void testDecoderUsesHeadersFactory() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(new HttpDecoderConfig()
+                .setHeaderViews(true)
+                .setHeadersFactory(DefaultHttpHeadersFactory.compactHeadersFactory(true))
+                .setTrailersFactory(DefaultHttpHeadersFactory.compactTrailersFactory(true))));
+        String request = "POST / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Transfer-Encoding: chunked\r\n\r\n" +
+                "1\r\na\r\n" +
+                "0\r\n" +
+                "X-Trailer: value\r\n\r\n";
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.US_ASCII)));
+
+        HttpRequest req = channel.readInbound();
+        assertInstanceOf(CompactHttpHeaders.class, req.headers());
+        assertEquals("localhost", req.headers().get(HttpHeaderNames.HOST));
+        assertTrue(HttpUtil.isTransferEncodingChunked(req));
+
+        HttpContent content = channel.readInbound();
+        content.release();
+        LastHttpContent last = channel.readInbound();
+        assertInstanceOf(CompactHttpHeaders.class, last.trailingHeaders());
+        assertEquals("value", last.trailingHeaders().get("x-trailer"));
+        LastHttpContent copy = last.copy();
+        assertInstanceOf(CompactHttpHeaders.class, copy.trailingHeaders());
+        assertEquals(last.trailingHeaders(), copy.trailingHeaders());
+        copy.release();
+        last.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFullHttpRequestWithHeadersFactory() {
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/",
+                Unpooled.EMPTY_BUFFER, DefaultHttpHeadersFactory.compactHeadersFactory(true),
+                DefaultHttpHeadersFactory.compactTrailersFactory(true));
+        request.headers().set(HttpHeaderNames.HOST, AsciiString.of("localhost"));
+        FullHttpRequest copy = request.copy();
+        assertInstanceOf(CompactHttpHeaders.class, copy.headers());
+        assertInstanceOf(CompactHttpHeaders.class, copy.trailingHeaders());
+        assertEquals(request, copy);
+        copy.release();
+        request.release();
+    }
+
+    private static List<String> names(HttpHeaders headers) {
+        List<String> names = new ArrayList<String>();
+        for (Entry<String, String> entry : headers) {
+            names.add(entry.getKey());
+        }
+        return names;
+    }
+}
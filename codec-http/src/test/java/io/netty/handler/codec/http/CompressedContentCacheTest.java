@@ -0,0 +1,161 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CompressedContentCacheTest {
+    private static final Object OPTIONS = "6,15,8";
+
+    private static final class CountingEncoderFactory implements CompressionEncoderFactory {
+        int count;
+
+        @Override
+        public MessageToByteEncoder<ByteBuf> createEncoder() {
+            count++;
+            return ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP);
+        }
+    }
+
+    @Test
+    public void testCompressesOnce() {
+        CompressedContentCache cache = new CompressedContentCache(1024);
+        CountingEncoderFactory factory = new CountingEncoderFactory();
+        ByteBuf content = Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII);
+
+        ByteBuf compressed1 = cache.compress("\"1\"", "gzip", OPTIONS, content, factory);
+        ByteBuf compressed2 = cache.compress("\"1\"", "gzip", OPTIONS, content, factory);
+        assertEquals(1, factory.count);
+        assertEquals(compressed1, compressed2);
+        assertEquals(1, cache.size());
+        assertEquals(compressed1.readableBytes(), cache.usedBytes());
+        // The content itself is not consumed.
+        assertEquals(12, content.readableBytes());
+
+        // Another encoding of the same content is another variant.
+        cache.compress("\"1\"", "deflate", OPTIONS, content, factory).release();
+        assertEquals(2, factory.count);
+        assertEquals(2, cache.size());
+
+        compressed1.release();
+        compressed2.release();
+        content.release();
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.usedBytes());
+    }
+
+    @Test
+    public void testEncoderOptionsArePartOfTheKey() {
+        CompressedContentCache cache = new CompressedContentCache(1024);
+        CountingEncoderFactory factory = new CountingEncoderFactory();
+        ByteBuf content = Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII);
+
+        cache.compress("\"1\"", "gzip", OPTIONS, content, factory).release();
+        cache.compress("\"1\"", "gzip", "9,15,8", content, factory).release();
+        assertEquals(2, factory.count);
+        assertEquals(2, cache.size());
+
+        content.release();
+        cache.clear();
+    }
+
+    @Test
+    public void testVariantEntityTag() {
+        assertEquals("\"1-gzip\"", CompressedContentCache.variantEntityTag("\"1\"", "gzip"));
+        assertEquals("1-br", CompressedContentCache.variantEntityTag("1", "br"));
+    }
+
+    @Test
+    public void testRecompressesIfLengthChanged() {
+        CompressedContentCache cache = new CompressedContentCache(1024);
+        CountingEncoderFactory factory = new CountingEncoderFactory();
+        ByteBuf content1 = Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII);
+        ByteBuf content2 = Unpooled.copiedBuffer("Hello, World!", CharsetUtil.US_ASCII);
+
+        cache.compress("\"1\"", "gzip", OPTIONS, content1, factory).release();
+        cache.compress("\"1\"", "gzip", OPTIONS, content2, factory).release();
+        assertEquals(2, factory.count);
+        assertEquals(1, cache.size());
+
+        content1.release();
+        content2.release();
+        cache.clear();
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        CountingEncoderFactory factory = new CountingEncoderFactory();
+        ByteBuf content = Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII);
+        ByteBuf compressed = new CompressedContentCache(1024).compress("\"0\"", "gzip", OPTIONS, content, factory);
+        int length = compressed.readableBytes();
+        compressed.release();
+
+        CompressedContentCache cache = new CompressedContentCache(length * 2);
+        cache.compress("\"1\"", "gzip", OPTIONS, content, factory).release();
+        cache.compress("\"2\"", "gzip", OPTIONS, content, factory).release();
+        // Touch "1", so "2" is the least recently used variant.
+        cache.compress("\"1\"", "gzip", OPTIONS, content, factory).release();
+        cache.compress("\"3\"", "gzip", OPTIONS, content, factory).release();
+        assertEquals(2, cache.size());
+        assertEquals(length * 2, cache.usedBytes());
+        assertEquals(4, factory.count);
+
+        cache.compress("\"1\"", "gzip", OPTIONS, content, factory).release();
+        assertEquals(4, factory.count);
+        cache.compress("\"2\"", "gzip", OPTIONS, content, factory).release();
+        assertEquals(5, factory.count);
+
+        // Variants that are bigger than the cache are not cached at all.
+        CompressedContentCache small = new CompressedContentCache(1);
+        small.compress("\"1\"", "gzip", OPTIONS, content, factory).release();
+        assertEquals(0, small.size());
+
+        content.release();
+        cache.clear();
+    }
+
+    @Test
+    public void testCacheableEntityTag() {
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        assertNull(CompressedContentCache.cacheableEntityTag(response));
+        response.headers().set(HttpHeaderNames.ETAG, "W/\"1\"");
+        assertNull(CompressedContentCache.cacheableEntityTag(response));
+        response.headers().set(HttpHeaderNames.ETAG, "\"1\"");
+        assertEquals("\"1\"", CompressedContentCache.cacheableEntityTag(response));
+    }
+
+    @Test
+    public void testInvalidMaxBytes() {
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                new CompressedContentCache(0);
+            }
+        });
+    }
+}
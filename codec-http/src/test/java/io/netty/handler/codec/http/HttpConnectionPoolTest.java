@@ -0,0 +1,258 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpConnectionPoolTest {
+    private static EventLoopGroup group;
+
+    private final Queue<Channel> serverChannels = new ConcurrentLinkedQueue<Channel>();
+    private final AtomicBoolean flaky = new AtomicBoolean();
+    private LocalAddress addr;
+    private Channel sc;
+    private Bootstrap cb;
+
+    @BeforeAll
+    public static void createEventLoop() {
+        group = new DefaultEventLoopGroup(2);
+    }
+
+    @AfterAll
+    public static void destroyEventLoop() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @BeforeEach
+    public void startServer() {
+        addr = new LocalAddress(UUID.randomUUID().toString());
+        cb = new Bootstrap().group(group).channel(LocalChannel.class);
+        sc = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        serverChannels.add(ch);
+                        ch.pipeline().addLast(new HttpServerCodec(), new HttpObjectAggregator(1024),
+                                new ServerHandler());
+                    }
+                })
+                .bind(addr).syncUninterruptibly().channel();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        sc.close().syncUninterruptibly();
+    }
+
+    /**
+     * Responds with the URI of each request. Waits for three requests before responding to {@code /batch}
+     * requests, closes the connection instead of responding to {@code /flaky} once, and never responds to
+     * {@code /hang}.
+     */
+    private final class ServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        private final List<String> batch = new ArrayList<String>();
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            String uri = request.uri();
+            if (uri.startsWith("/batch")) {
+                batch.add(uri);
+                if (batch.size() == 3) {
+                    for (String batchUri : batch) {
+                        respond(ctx, batchUri, true);
+                    }
+                    batch.clear();
+                }
+            } else if (uri.equals("/flaky") && flaky.compareAndSet(false, true)) {
+                ctx.close();
+            } else if (!uri.equals("/hang")) {
+                respond(ctx, uri, !uri.equals("/close"));
+            }
+        }
+
+        private void respond(ChannelHandlerContext ctx, String uri, boolean keepAlive) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.copiedBuffer(uri, CharsetUtil.US_ASCII));
+            HttpUtil.setContentLength(response, response.content().readableBytes());
+            HttpUtil.setKeepAlive(response, keepAlive);
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static FullHttpRequest request(HttpMethod method, String uri) {
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, uri);
+    }
+
+    private static String content(Future<FullHttpResponse> future) {
+        FullHttpResponse response = future.syncUninterruptibly().getNow();
+        try {
+            return response.content().toString(CharsetUtil.US_ASCII);
+        } finally {
+            response.release();
+        }
+    }
+
+    @Test
+    public void testReusesConnection() {
+        HttpConnectionPool pool = new HttpConnectionPool(cb, 2);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("/" + i, content(pool.request(addr, request(HttpMethod.GET, "/" + i))));
+        }
+        assertEquals(1, serverChannels.size());
+        assertEquals(1, pool.connectionCount());
+        assertEquals(3, pool.acquireCount());
+        assertTrue(pool.totalAcquireTimeNanos() >= pool.maxAcquireTimeNanos());
+        pool.close();
+    }
+
+    @Test
+    public void testConnectionCloseIsNotReused() {
+        HttpConnectionPool pool = new HttpConnectionPool(cb, 2);
+        assertEquals("/close", content(pool.request(addr, request(HttpMethod.GET, "/close"))));
+        assertEquals("/a", content(pool.request(addr, request(HttpMethod.GET, "/a"))));
+        assertEquals(2, serverChannels.size());
+        serverChannels.peek().closeFuture().syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test
+    public void testPipelinesIdempotentRequests() {
+        HttpConnectionPool pool = new HttpConnectionPool(cb, 1, 3, Integer.MAX_VALUE, 1024, 0, TimeUnit.SECONDS);
+        List<Future<FullHttpResponse>> futures = new ArrayList<Future<FullHttpResponse>>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(pool.request(addr, request(HttpMethod.GET, "/batch" + i)));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals("/batch" + i, content(futures.get(i)));
+        }
+        assertEquals(1, serverChannels.size());
+        pool.close();
+    }
+
+    @Test
+    public void testDoesNotPipelineNonIdempotentRequests() {
+        HttpConnectionPool pool = new HttpConnectionPool(cb, 1, 3, Integer.MAX_VALUE, 1024, 0, TimeUnit.SECONDS);
+        Future<FullHttpResponse> post = pool.request(addr, request(HttpMethod.POST, "/post"));
+        Future<FullHttpResponse> get = pool.request(addr, request(HttpMethod.GET, "/get"));
+        assertEquals("/post", content(post));
+        assertEquals("/get", content(get));
+        pool.close();
+    }
+
+    @Test
+    public void testRetriesIdempotentRequest() {
+        HttpConnectionPool pool = new HttpConnectionPool(cb, 1);
+        assertEquals("/flaky", content(pool.request(addr, request(HttpMethod.GET, "/flaky"))));
+        assertEquals(2, serverChannels.size());
+        assertEquals(1, pool.acquireCount());
+
+        flaky.set(false);
+        Future<FullHttpResponse> post = pool.request(addr, request(HttpMethod.POST, "/flaky"));
+        assertInstanceOf(ClosedChannelException.class, post.awaitUninterruptibly().cause());
+        pool.close();
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testEvictsIdleConnections() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(cb, 1, 1, Integer.MAX_VALUE, 1024, 50,
+                TimeUnit.MILLISECONDS);
+        assertEquals("/a", content(pool.request(addr, request(HttpMethod.GET, "/a"))));
+        serverChannels.peek().closeFuture().syncUninterruptibly();
+        while (pool.connectionCount() != 0) {
+            Thread.sleep(10);
+        }
+        pool.close();
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testRemovesUnusedOrigins() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(cb, 1, 1, Integer.MAX_VALUE, 1024, 50,
+                TimeUnit.MILLISECONDS);
+        assertEquals("/a", content(pool.request(addr, request(HttpMethod.GET, "/a"))));
+        assertEquals(1, pool.originCount());
+        // The idle connection is evicted, after which the origin has no state left.
+        while (pool.originCount() != 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pool.connectionCount());
+
+        // Later requests to the same origin still work.
+        assertEquals("/b", content(pool.request(addr, request(HttpMethod.GET, "/b"))));
+        assertEquals(2, serverChannels.size());
+        pool.close();
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testCloseFailsRequests() throws Exception {
+        HttpConnectionPool pool = new HttpConnectionPool(cb, 1, 1, 1, 1024, 0, TimeUnit.SECONDS);
+        Future<FullHttpResponse> inFlight = pool.request(addr, request(HttpMethod.GET, "/hang"));
+        while (pool.acquireCount() != 1) {
+            Thread.sleep(10);
+        }
+        Future<FullHttpResponse> pending = pool.request(addr, request(HttpMethod.GET, "/a"));
+        Future<FullHttpResponse> rejected = pool.request(addr, request(HttpMethod.GET, "/b"));
+        assertInstanceOf(IllegalStateException.class, rejected.awaitUninterruptibly().cause());
+        assertFalse(pending.isDone());
+        assertEquals(1, pool.pendingRequestCount());
+
+        pool.close();
+        assertInstanceOf(ClosedChannelException.class, inFlight.awaitUninterruptibly().cause());
+        assertInstanceOf(ClosedChannelException.class, pending.awaitUninterruptibly().cause());
+        assertInstanceOf(IllegalStateException.class,
+                pool.request(addr, request(HttpMethod.GET, "/c")).awaitUninterruptibly().cause());
+        assertEquals(0, pool.pendingRequestCount());
+    }
+}
@@ -24,6 +24,7 @@ import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
@@ -39,9 +40,13 @@ import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.compression.Brotli;
 import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
 import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
@@ -520,6 +525,264 @@ public class HttpContentCompressorTest {
         }
     }
 
+    @Test
+    public void testOffloadedCompression() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(
+                new HttpContentCompressor(ImmediateEventExecutor.INSTANCE, 0, false));
+        assertOffloadedCompression(ch);
+    }
+
+    @Test
+    public void testOffloadedCompressionRejected() throws Exception {
+        EventExecutorGroup group = new DefaultEventExecutorGroup(1);
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        // The group rejects all tasks, so the content is compressed on the event loop.
+        assertOffloadedCompression(new EmbeddedChannel(new HttpContentCompressor(group, 0, false)));
+    }
+
+    private static void assertOffloadedCompression(EmbeddedChannel ch) {
+        ch.writeInbound(newRequest());
+        ch.writeInbound(newRequest());
+        FullHttpRequest request = ch.readInbound();
+        request.release();
+        request = ch.readInbound();
+        request.release();
+
+        ChannelFuture future1 = ch.write(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII)));
+        ChannelFuture future2 = ch.write(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII)));
+        ch.flush();
+        ch.runPendingTasks();
+        assertTrue(future1.isSuccess());
+        assertTrue(future2.isSuccess());
+
+        for (int i = 0; i < 2; i++) {
+            assertEncodedResponse(ch);
+            HttpContent c = ch.readOutbound();
+            assertThat(ByteBufUtil.hexDump(c.content()),
+                    is("1f8b0800000000000000f248cdc9c9d75108cf2fca4901000000ffff"));
+            c.release();
+
+            c = ch.readOutbound();
+            assertThat(ByteBufUtil.hexDump(c.content()), is("0300c6865b260c000000"));
+            c.release();
+
+            LastHttpContent last = ch.readOutbound();
+            assertThat(last.content().readableBytes(), is(0));
+            last.release();
+        }
+        assertThat(ch.readOutbound(), is(nullValue()));
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testOffloadedCompressionPreservesOrdering() throws Exception {
+        final EventExecutorGroup compressorGroup = new DefaultEventExecutorGroup(1);
+        EventLoopGroup localGroup = new DefaultEventLoopGroup(1);
+        Channel server = null;
+        Channel client = null;
+        try {
+            ServerBootstrap bootstrap = new ServerBootstrap()
+                .channel(LocalServerChannel.class)
+                .group(localGroup)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                @Override
+                protected void initChannel(LocalChannel ch) throws Exception {
+                    ch.pipeline()
+                        .addLast(new HttpServerCodec())
+                        .addLast(new HttpObjectAggregator(1024))
+                        .addLast(new HttpContentCompressor(compressorGroup, 0, true))
+                        .addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                                if (msg instanceof FullHttpRequest) {
+                                    FullHttpRequest req = (FullHttpRequest) msg;
+                                    FullHttpResponse res =
+                                        new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                                            Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+                                    // Every other response is passed through, which must not overtake the others.
+                                    res.headers().set(HttpHeaderNames.CONTENT_TYPE, req.uri().substring(1));
+                                    HttpUtil.setContentLength(res, res.content().readableBytes());
+                                    ctx.writeAndFlush(res);
+                                    req.release();
+                                    return;
+                                }
+                                super.channelRead(ctx, msg);
+                            }
+                        });
+                }
+            });
+
+            LocalAddress address = new LocalAddress(UUID.randomUUID().toString());
+            server = bootstrap.bind(address).sync().channel();
+
+            final BlockingQueue<HttpObject> responses = new LinkedBlockingQueue<HttpObject>();
+
+            client = new Bootstrap()
+                .channel(LocalChannel.class)
+                .remoteAddress(address)
+                .group(localGroup)
+                .handler(new ChannelInitializer<LocalChannel>() {
+                @Override
+                protected void initChannel(LocalChannel ch) throws Exception {
+                    ch.pipeline()
+                        .addLast(new HttpClientCodec())
+                        .addLast(new HttpObjectAggregator(1024))
+                        .addLast(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                            if (msg instanceof HttpObject) {
+                                responses.put((HttpObject) msg);
+                                return;
+                            }
+                            super.channelRead(ctx, msg);
+                        }
+                    });
+                }
+            }).connect().sync().channel();
+
+            String[] contentTypes = { "text/plain", "image/png", "text/html", "video/mp4", "application/json" };
+            for (String contentType : contentTypes) {
+                FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET,
+                        "/" + contentType);
+                req.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+                client.write(req);
+            }
+            client.flush();
+
+            for (String contentType : contentTypes) {
+                FullHttpResponse res = (FullHttpResponse) responses.poll(5, TimeUnit.SECONDS);
+                assertNotNull(res);
+                assertEquals(contentType, res.headers().get(HttpHeaderNames.CONTENT_TYPE));
+                if (contentType.startsWith("text/") || contentType.startsWith("application/")) {
+                    assertEquals("gzip", res.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+                    assertThat(ByteBufUtil.hexDump(res.content()), is(
+                            "1f8b0800000000000000f248cdc9c9d75108cf2fca4901000000ffff0300c6865b260c000000"));
+                } else {
+                    assertFalse(res.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+                    assertEquals("Hello, World", res.content().toString(CharsetUtil.US_ASCII));
+                }
+                res.release();
+            }
+            assertNull(responses.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            if (client != null) {
+                client.close().sync();
+            }
+            if (server != null) {
+                server.close().sync();
+            }
+            compressorGroup.shutdownGracefully();
+            localGroup.shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void testCompressedContentCache() throws Exception {
+        CompressedContentCache cache = new CompressedContentCache(1024);
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(null, 0, false, cache));
+        for (int i = 0; i < 2; i++) {
+            assertTrue(ch.writeInbound(newRequest()));
+            FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+            res.headers().set(HttpHeaderNames.ETAG, "\"1\"");
+            HttpUtil.setContentLength(res, res.content().readableBytes());
+            assertTrue(ch.writeOutbound(res));
+
+            FullHttpResponse response = ch.readOutbound();
+            assertEquals("gzip", response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            // The encoded variant has its own ETag.
+            assertEquals("\"1-gzip\"", response.headers().get(HttpHeaderNames.ETAG));
+            assertEquals(response.content().readableBytes(), HttpUtil.getContentLength(response));
+            assertThat(ByteBufUtil.hexDump(response.content()),
+                    is("1f8b0800000000000000f248cdc9c9d75108cf2fca4901000000ffff0300c6865b260c000000"));
+            response.release();
+            assertEquals(1, cache.size());
+        }
+
+        // Responses without a strong ETag are compressed as usual.
+        assertTrue(ch.writeInbound(newRequest()));
+        FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+        res.headers().set(HttpHeaderNames.ETAG, "W/\"1\"");
+        assertTrue(ch.writeOutbound(res));
+        assertEncodedResponse(ch);
+        ch.releaseOutbound();
+        assertEquals(1, cache.size());
+        assertFalse(ch.finish());
+        cache.clear();
+    }
+
+    @Test
+    public void testCompressedContentCacheIsNotSharedBetweenSettings() throws Exception {
+        CompressedContentCache cache = new CompressedContentCache(1024);
+        EmbeddedChannel fast = new EmbeddedChannel(new HttpContentCompressor(null, 0, false, cache,
+                StandardCompressionOptions.gzip(1, 15, 8)));
+        EmbeddedChannel best = new EmbeddedChannel(new HttpContentCompressor(null, 0, false, cache,
+                StandardCompressionOptions.gzip(9, 15, 8)));
+        for (EmbeddedChannel ch : new EmbeddedChannel[] { fast, best }) {
+            assertTrue(ch.writeInbound(newRequest()));
+            FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+            res.headers().set(HttpHeaderNames.ETAG, "\"1\"");
+            assertTrue(ch.writeOutbound(res));
+            ch.finishAndReleaseAll();
+        }
+        assertEquals(2, cache.size());
+        cache.clear();
+    }
+
+    @Test
+    public void testSkipCompressedContentType() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(null, 0, true));
+        String[] contentTypes = { "image/jpeg", "VIDEO/mp4", "application/zip", "application/gzip; foo=bar" };
+        for (String contentType : contentTypes) {
+            assertTrue(ch.writeInbound(newRequest()));
+            FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+            res.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+            assertTrue(ch.writeOutbound(res));
+            FullHttpResponse response = ch.readOutbound();
+            assertFalse(response.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+            response.release();
+        }
+
+        for (String contentType : new String[] { "image/svg+xml", "application/zipper", "text/plain" }) {
+            assertTrue(ch.writeInbound(newRequest()));
+            FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.copiedBuffer("Hello, World", CharsetUtil.US_ASCII));
+            res.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+            assertTrue(ch.writeOutbound(res));
+            assertEncodedResponse(ch);
+            ch.releaseOutbound();
+        }
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testCompressThresholdContentLength() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new HttpContentCompressor(1024, (CompressionOptions[]) null));
+        assertTrue(ch.writeInbound(newRequest()));
+
+        HttpResponse res = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpUtil.setContentLength(res, 1023);
+        assertTrue(ch.writeOutbound(res));
+        HttpResponse response = ch.readOutbound();
+        assertFalse(response.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+        assertTrue(ch.writeOutbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[1023]))));
+        ch.releaseOutbound();
+
+        assertTrue(ch.writeInbound(newRequest()));
+        res = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpUtil.setContentLength(res, 1024);
+        assertTrue(ch.writeOutbound(res));
+        response = ch.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING), is("gzip"));
+        assertTrue(ch.writeOutbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[1024]))));
+        assertTrue(ch.finishAndReleaseAll());
+    }
+
     /**
      * If the length of the content is unknown, {@link HttpContentEncoder} should not skip encoding the content
      * even if the actual length is turned out to be 0.
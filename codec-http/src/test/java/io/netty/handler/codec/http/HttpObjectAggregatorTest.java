@@ -36,6 +36,7 @@ import java.util.List;
 import static io.netty.handler.codec.http.HttpHeadersTestUtils.of;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -87,6 +88,89 @@ public class HttpObjectAggregatorTest {
         aggregatedMessage.release();
     }
 
+    @Test
+    public void testAggregatePreallocated() {
+        HttpObjectAggregator aggr = new HttpObjectAggregator(1024 * 1024);
+        aggr.setMaxPreallocatedContentBytes(1024);
+        EmbeddedChannel embedder = new EmbeddedChannel(aggr);
+
+        HttpRequest message = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "http://localhost");
+        HttpUtil.setContentLength(message, 9);
+        assertFalse(embedder.writeInbound(message));
+        assertFalse(embedder.writeInbound(
+                new DefaultHttpContent(Unpooled.copiedBuffer("test", CharsetUtil.US_ASCII))));
+        assertTrue(embedder.writeInbound(
+                new DefaultLastHttpContent(Unpooled.copiedBuffer("test2", CharsetUtil.US_ASCII))));
+        FullHttpRequest aggregatedMessage = embedder.readInbound();
+
+        assertThat(aggregatedMessage.content(), is(not(instanceOf(CompositeByteBuf.class))));
+        assertEquals(9, aggregatedMessage.content().capacity());
+        assertEquals("testtest2", aggregatedMessage.content().toString(CharsetUtil.US_ASCII));
+        assertEquals(9, HttpUtil.getContentLength(aggregatedMessage));
+        aggregatedMessage.release();
+        assertFalse(embedder.finish());
+    }
+
+    @Test
+    public void testAggregatePreallocatedLimit() {
+        HttpObjectAggregator aggr1 = new HttpObjectAggregator(1024 * 1024);
+        aggr1.setMaxPreallocatedContentBytes(8);
+        HttpObjectAggregator aggr2 = new HttpObjectAggregator(1024 * 1024);
+        aggr2.setMaxPreallocatedContentBytes(8);
+        EmbeddedChannel embedder1 = new EmbeddedChannel(aggr1);
+        EmbeddedChannel embedder2 = new EmbeddedChannel(aggr2);
+
+        HttpRequest message1 = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "http://localhost");
+        HttpUtil.setContentLength(message1, 5);
+        assertFalse(embedder1.writeInbound(message1));
+
+        // Both aggregators run on the same thread, so only 3 bytes are left for the second one.
+        HttpRequest message2 = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "http://localhost");
+        HttpUtil.setContentLength(message2, 5);
+        assertFalse(embedder2.writeInbound(message2));
+        assertTrue(embedder2.writeInbound(
+                new DefaultLastHttpContent(Unpooled.copiedBuffer("test2", CharsetUtil.US_ASCII))));
+        FullHttpRequest aggregatedMessage = embedder2.readInbound();
+        assertThat(aggregatedMessage.content(), is(instanceOf(CompositeByteBuf.class)));
+        aggregatedMessage.release();
+
+        assertTrue(embedder1.writeInbound(
+                new DefaultLastHttpContent(Unpooled.copiedBuffer("test1", CharsetUtil.US_ASCII))));
+        aggregatedMessage = embedder1.readInbound();
+        assertThat(aggregatedMessage.content(), is(not(instanceOf(CompositeByteBuf.class))));
+        aggregatedMessage.release();
+
+        // The bytes of the first aggregation are available again.
+        HttpRequest message3 = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "http://localhost");
+        HttpUtil.setContentLength(message3, 8);
+        assertFalse(embedder2.writeInbound(message3));
+        assertTrue(embedder2.writeInbound(
+                new DefaultLastHttpContent(Unpooled.copiedBuffer("testtest", CharsetUtil.US_ASCII))));
+        aggregatedMessage = embedder2.readInbound();
+        assertThat(aggregatedMessage.content(), is(not(instanceOf(CompositeByteBuf.class))));
+        aggregatedMessage.release();
+
+        assertFalse(embedder1.finish());
+        assertFalse(embedder2.finish());
+    }
+
+    @Test
+    public void testAggregatePreallocatedChunked() {
+        HttpObjectAggregator aggr = new HttpObjectAggregator(1024 * 1024);
+        aggr.setMaxPreallocatedContentBytes(1024);
+        EmbeddedChannel embedder = new EmbeddedChannel(aggr);
+
+        HttpRequest message = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "http://localhost");
+        HttpUtil.setTransferEncodingChunked(message, true);
+        assertFalse(embedder.writeInbound(message));
+        assertTrue(embedder.writeInbound(
+                new DefaultLastHttpContent(Unpooled.copiedBuffer("test", CharsetUtil.US_ASCII))));
+        FullHttpRequest aggregatedMessage = embedder.readInbound();
+        assertThat(aggregatedMessage.content(), is(instanceOf(CompositeByteBuf.class)));
+        aggregatedMessage.release();
+        assertFalse(embedder.finish());
+    }
+
     @Test
     public void testAggregateWithTrailer() {
         HttpObjectAggregator aggr = new HttpObjectAggregator(1024 * 1024);
@@ -24,6 +24,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +38,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpRequestDecoderTest {
@@ -602,6 +604,110 @@ public class HttpRequestDecoderTest {
         assertFalse(channel.finish());
     }
 
+    @Test
+    public void testHeaderViewsDecodeWholeRequestAtOnce() {
+        EmbeddedChannel channel = new EmbeddedChannel(newHeaderViewsDecoder(HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE));
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(CONTENT_MIXED_DELIMITERS)));
+        HttpRequest req = channel.readInbound();
+        assertTrue(req.decoderResult().isSuccess());
+        checkHeaders(req.headers());
+        LastHttpContent c = channel.readInbound();
+        assertEquals(CONTENT_LENGTH, c.content().readableBytes());
+        c.release();
+
+        assertFalse(channel.finish());
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void testHeaderViewsDecodeWholeRequestInMultipleSteps() {
+        byte[] content = CONTENT_MIXED_DELIMITERS;
+        int headerLength = content.length - CONTENT_LENGTH;
+        for (int fragmentSize = 1; fragmentSize < headerLength; fragmentSize++) {
+            EmbeddedChannel channel = new EmbeddedChannel(
+                    newHeaderViewsDecoder(HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE));
+            for (int a = 0; a < content.length; a += fragmentSize) {
+                channel.writeInbound(Unpooled.copiedBuffer(content, a, Math.min(fragmentSize, content.length - a)));
+            }
+            HttpRequest req = channel.readInbound();
+            assertNotNull(req);
+            checkHeaders(req.headers());
+            assertTrue(channel.finishAndReleaseAll());
+        }
+    }
+
+    @Test
+    public void testHeaderViewsUseKnownNames() {
+        EmbeddedChannel channel = new EmbeddedChannel(newHeaderViewsDecoder(HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE));
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "content-type: text/plain\r\n" +
+                "X-Custom: value\r\n\r\n";
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        List<Map.Entry<CharSequence, CharSequence>> entries = new ArrayList<Map.Entry<CharSequence, CharSequence>>();
+        Iterator<Map.Entry<CharSequence, CharSequence>> iterator = req.headers().iteratorCharSequence();
+        while (iterator.hasNext()) {
+            entries.add(iterator.next());
+        }
+        assertEquals(3, entries.size());
+        assertSame(HttpHeaderNames.CONTENT_TYPE, entries.get(1).getKey());
+        assertTrue(AsciiString.contentEquals("Host", entries.get(0).getKey()));
+        assertTrue(AsciiString.contentEquals("X-Custom", entries.get(2).getKey()));
+        assertTrue(AsciiString.contentEquals("value", entries.get(2).getValue()));
+        assertEquals("text/plain", req.headers().get(HttpHeaderNames.CONTENT_TYPE));
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testHeaderViewsMultiLineHeader() {
+        EmbeddedChannel channel = new EmbeddedChannel(newHeaderViewsDecoder(HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE));
+        String crlf = "\r\n";
+        String request =  "GET /some/path HTTP/1.1" + crlf +
+                "Host: localhost" + crlf +
+                "MyTestHeader: part1" + crlf +
+                "              newLinePart2" + crlf +
+                "MyTestHeader2: part21" + crlf +
+                "\t            newLinePart22" + crlf +
+                "EmptyHeader:" + crlf + crlf;
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(request, CharsetUtil.US_ASCII)));
+        HttpRequest req = channel.readInbound();
+        assertEquals("part1 newLinePart2", req.headers().get(of("MyTestHeader")));
+        assertEquals("part21 newLinePart22", req.headers().get(of("MyTestHeader2")));
+        assertEquals("", req.headers().get(of("EmptyHeader")));
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testHeaderViewsTooLargeHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(newHeaderViewsDecoder(10));
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "Host: localhost1\r\n\r\n";
+
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest request = channel.readInbound();
+        assertTrue(request.decoderResult().isFailure());
+        assertTrue(request.decoderResult().cause() instanceof TooLongHttpHeaderException);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testHeaderViewsTooLargeIncompleteHeaders() {
+        EmbeddedChannel channel = new EmbeddedChannel(newHeaderViewsDecoder(10));
+        String requestStr = "GET /some/path HTTP/1.1\r\n" +
+                "Host: localhost1";
+
+        assertTrue(channel.writeInbound(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII)));
+        HttpRequest request = channel.readInbound();
+        assertTrue(request.decoderResult().isFailure());
+        assertTrue(request.decoderResult().cause() instanceof TooLongHttpHeaderException);
+        assertFalse(channel.finish());
+    }
+
+    private static HttpRequestDecoder newHeaderViewsDecoder(int maxHeaderSize) {
+        return new HttpRequestDecoder(new HttpDecoderConfig().setMaxHeaderSize(maxHeaderSize).setHeaderViews(true));
+    }
+
     private static void testInvalidHeaders0(String requestStr) {
         testInvalidHeaders0(Unpooled.copiedBuffer(requestStr, CharsetUtil.US_ASCII));
     }
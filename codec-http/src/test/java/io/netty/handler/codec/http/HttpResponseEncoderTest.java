@@ -19,8 +19,10 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.FileRegion;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DateFormatter;
 import io.netty.util.CharsetUtil;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
 
 import java.io.IOException;
 import java.nio.channels.WritableByteChannel;
@@ -30,6 +32,7 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpResponseEncoderTest {
@@ -401,4 +404,91 @@ public class HttpResponseEncoderTest {
         assertEquals(responseText.toString(), written.toString());
         assertFalse(channel.finish());
     }
+
+    @Test
+    public void testStaticHeaders() {
+        HttpHeaderBlock block = HttpHeaderBlock.of(HttpHeaderNames.SERVER, "netty",
+                HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(block, false));
+
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+        assertEquals("HTTP/1.1 200 OK\r\ncontent-length: 0\r\nserver: netty\r\ncontent-type: text/plain\r\n\r\n",
+                encodeHeaders(channel, response));
+
+        // Headers of the response take precedence.
+        response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        assertEquals("HTTP/1.1 200 OK\r\ncontent-length: 0\r\ncontent-type: application/json\r\n" +
+                "server: netty\r\n\r\n", encodeHeaders(channel, response));
+
+        // Informational responses are not modified.
+        response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE);
+        assertEquals("HTTP/1.1 100 Continue\r\n\r\n", encodeHeaders(channel, response));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testStaticHeadersAreValidated() {
+        // Non-validating headers must not allow to smuggle anything into the pre-encoded block.
+        final HttpHeaders injected = new DefaultHttpHeaders(false).add("X-Foo", "bar\r\nX-Injected: baz");
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                HttpHeaderBlock.of(injected);
+            }
+        });
+        final HttpHeaders invalidName = new DefaultHttpHeaders(false).add("X Foo", "bar");
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                HttpHeaderBlock.of(invalidName);
+            }
+        });
+        for (final CharSequence name : new CharSequence[] {
+                HttpHeaderNames.CONTENT_LENGTH, "Transfer-Encoding", HttpHeaderNames.CONNECTION }) {
+            assertThrows(IllegalArgumentException.class, new Executable() {
+                @Override
+                public void execute() {
+                    HttpHeaderBlock.of(name, "1");
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testDateHeader() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(null, true));
+
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+        long before = System.currentTimeMillis() / 1000 * 1000;
+        String encoded = encodeHeaders(channel, response);
+        long after = System.currentTimeMillis();
+        String prefix = "HTTP/1.1 200 OK\r\ncontent-length: 0\r\ndate: ";
+        assertTrue(encoded.startsWith(prefix));
+        assertTrue(encoded.endsWith("\r\n\r\n"));
+        long date = DateFormatter.parseHttpDate(encoded.substring(prefix.length(), encoded.length() - 4)).getTime();
+        assertTrue(date >= before && date <= after);
+
+        // An existing Date header is not replaced.
+        response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+        response.headers().set(HttpHeaderNames.DATE, "Thu, 01 Jan 1970 00:00:00 GMT");
+        assertEquals("HTTP/1.1 200 OK\r\ncontent-length: 0\r\ndate: Thu, 01 Jan 1970 00:00:00 GMT\r\n\r\n",
+                encodeHeaders(channel, response));
+        assertFalse(channel.finish());
+    }
+
+    private static String encodeHeaders(EmbeddedChannel channel, HttpResponse response) {
+        assertTrue(channel.writeOutbound(response));
+        ByteBuf buffer = channel.readOutbound();
+        String encoded = buffer.toString(CharsetUtil.US_ASCII);
+        buffer.release();
+        assertTrue(channel.writeOutbound(LastHttpContent.EMPTY_LAST_CONTENT));
+        buffer = channel.readOutbound();
+        buffer.release();
+        return encoded;
+    }
 }
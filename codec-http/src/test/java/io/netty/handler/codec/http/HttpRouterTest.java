@@ -0,0 +1,192 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.AsciiString;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpRouterTest {
+
+    private static final HttpRouter<String> ROUTER = HttpRouter.<String>builder()
+            .get("/", "root")
+            .get("/users", "users")
+            .get("/users/new", "newUser")
+            .get("/users/:id", "user")
+            .add(HttpMethod.DELETE, "/users/:id", "deleteUser")
+            .get("/users/:id/posts/:post", "post")
+            .get("/users/:user/settings", "settings")
+            .get("/usage", "usage")
+            .get("/static/*path", "static")
+            .add(null, "/health", "health")
+            .get("/health", "getHealth")
+            .build();
+
+    @Test
+    public void testLiteral() {
+        assertEquals("root", ROUTER.route(HttpMethod.GET, "/").target());
+        assertEquals("users", ROUTER.route(HttpMethod.GET, "/users").target());
+        assertEquals("usage", ROUTER.route(HttpMethod.GET, "/usage").target());
+        assertEquals("newUser", ROUTER.route(HttpMethod.GET, "/users/new").target());
+        assertNull(ROUTER.route(HttpMethod.GET, "/user"));
+        assertNull(ROUTER.route(HttpMethod.GET, "/users/"));
+        assertNull(ROUTER.route(HttpMethod.GET, ""));
+    }
+
+    @Test
+    public void testParams() {
+        HttpRouteMatch<String> match = ROUTER.route(HttpMethod.GET, "/users/42");
+        assertEquals("user", match.target());
+        assertEquals("/users/:id", match.pattern());
+        assertEquals(1, match.paramCount());
+        assertEquals("id", match.paramName(0));
+        assertEquals("42", match.param("id").toString());
+        assertNull(match.param("post"));
+
+        match = ROUTER.route(HttpMethod.GET, "/users/42/posts/7");
+        assertEquals("post", match.target());
+        assertEquals("42", match.param("id").toString());
+        assertEquals("7", match.param("post").toString());
+
+        // Different routes may use different names for the same parameter.
+        match = ROUTER.route(HttpMethod.GET, "/users/42/settings");
+        assertEquals("settings", match.target());
+        assertEquals("42", match.param("user").toString());
+        assertNull(match.param("id"));
+    }
+
+    @Test
+    public void testLiteralTakesPrecedenceButBacktracks() {
+        assertEquals("newUser", ROUTER.route(HttpMethod.GET, "/users/new").target());
+        HttpRouteMatch<String> match = ROUTER.route(HttpMethod.GET, "/users/newest");
+        assertEquals("user", match.target());
+        assertEquals("newest", match.param("id").toString());
+        match = ROUTER.route(HttpMethod.GET, "/users/new/posts/1");
+        assertEquals("post", match.target());
+        assertEquals("new", match.param("id").toString());
+    }
+
+    @Test
+    public void testWildcard() {
+        HttpRouteMatch<String> match = ROUTER.route(HttpMethod.GET, "/static/css/site.css");
+        assertEquals("static", match.target());
+        assertEquals("css/site.css", match.param("path").toString());
+        assertEquals("", ROUTER.route(HttpMethod.GET, "/static/").param("path").toString());
+        assertNull(ROUTER.route(HttpMethod.GET, "/static"));
+    }
+
+    @Test
+    public void testMethods() {
+        assertEquals("deleteUser", ROUTER.route(HttpMethod.DELETE, "/users/42").target());
+        assertNull(ROUTER.route(HttpMethod.POST, "/users/42"));
+        assertEquals("getHealth", ROUTER.route(HttpMethod.GET, "/health").target());
+        assertEquals("health", ROUTER.route(HttpMethod.HEAD, "/health").target());
+        assertEquals("health", ROUTER.route(HttpMethod.valueOf("CUSTOM"), "/health").target());
+    }
+
+    @Test
+    public void testQueryAndAbsoluteForm() {
+        assertEquals("42", ROUTER.route(HttpMethod.GET, "/users/42?fields=name#top").param("id").toString());
+        assertEquals("users", ROUTER.route(HttpMethod.GET, "/users?q=a/b").target());
+        assertEquals("42", ROUTER.route(HttpMethod.GET, "http://example.com:8080/users/42?x").param("id").toString());
+        assertEquals("root", ROUTER.route(HttpMethod.GET, "http://example.com/").target());
+        assertNull(ROUTER.route(HttpMethod.GET, "http://example.com"));
+        assertNull(ROUTER.route(HttpMethod.GET, "*"));
+    }
+
+    @Test
+    public void testAsciiStringParamsShareContent() {
+        AsciiString uri = AsciiString.of("/users/42/posts/7");
+        HttpRouteMatch<String> match = ROUTER.route(HttpMethod.GET, uri);
+        AsciiString post = (AsciiString) match.param("post");
+        assertEquals(AsciiString.of("7"), post);
+        assertSame(uri.array(), post.array());
+        assertSame(uri, match.uri());
+    }
+
+    @Test
+    public void testInvalidRoutes() {
+        assertInvalid("users");
+        assertInvalid("/users/:");
+        assertInvalid("/users/:id/:id");
+        assertInvalid("/static/*path/more");
+        assertInvalid("/café");
+        assertInvalid("/users/:name");
+    }
+
+    private static void assertInvalid(final String pattern) {
+        final HttpRouter.Builder<String> builder = HttpRouter.<String>builder().get("/users/:id", "user");
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                builder.get(pattern, "invalid");
+            }
+        });
+    }
+
+    @Test
+    public void testRouterHandler() {
+        final List<Object> routed = new ArrayList<Object>();
+        HttpRouteHandler handler = new HttpRouteHandler() {
+            @Override
+            public void handle(ChannelHandlerContext ctx, HttpObject msg, HttpRouteMatch<HttpRouteHandler> match) {
+                routed.add(match.param("id").toString());
+                routed.add(msg);
+            }
+        };
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRouterHandler(
+                HttpRouter.<HttpRouteHandler>builder().post("/items/:id", handler).build()));
+
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/items/3");
+        HttpContent content = new DefaultHttpContent(Unpooled.copiedBuffer("abc", CharsetUtil.US_ASCII));
+        assertFalse(channel.writeInbound(request, content, LastHttpContent.EMPTY_LAST_CONTENT));
+        assertEquals(6, routed.size());
+        assertEquals("3", routed.get(0));
+        assertSame(request, routed.get(1));
+        assertSame(content, routed.get(3));
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, routed.get(5));
+        content.release();
+
+        // Requests without a route are passed on, together with their content.
+        HttpRequest notFound = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/items/3");
+        HttpContent notFoundContent = new DefaultLastHttpContent();
+        assertTrue(channel.writeInbound(notFound, notFoundContent));
+        assertSame(notFound, channel.readInbound());
+        assertSame(notFoundContent, channel.readInbound());
+
+        FullHttpRequest full = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/items/4");
+        assertFalse(channel.writeInbound(full));
+        assertSame(full, routed.get(7));
+        assertInstanceOf(FullHttpRequest.class, routed.get(7));
+        full.release();
+        assertFalse(channel.finish());
+    }
+}
@@ -15,19 +15,26 @@
  */
 package io.netty.handler.codec.http;
 
+import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class QueryStringDecoderTest {
@@ -381,4 +388,80 @@ public class QueryStringDecoderTest {
         assertEquals("", empty.rawPath());
         assertEquals("", empty.rawQuery());
     }
+
+    @Test
+    public void testLazyParametersMatchParameters() {
+        String[] uris = {
+                "/foo", "/foo?", "/foo?a", "/foo?a=", "/foo?a=1&a=2&b=3", "/foo?=a&b==c&&d=", "/foo?a=1;b=2",
+                "/foo?a=1#b=2", "/foo?%20a+b=%E3%81%BB+c&x=%41", "/foo?a=%C3%A9&a=%e9", "/foo?q=caf\u00e9",
+                "/foo?a=b=c&;&a"
+        };
+        for (String uri : uris) {
+            assertLazyParameters(new QueryStringDecoder(uri));
+            assertLazyParameters(new QueryStringDecoder(uri, CharsetUtil.ISO_8859_1, true, 1024, true));
+            assertLazyParameters(new QueryStringDecoder(uri, CharsetUtil.UTF_16, true, 2, false));
+        }
+    }
+
+    private static void assertLazyParameters(QueryStringDecoder decoder) {
+        Map<String, List<String>> params = new LinkedHashMap<String, List<String>>();
+        for (int i = 0; i < decoder.parameterCount(); i++) {
+            String name = decoder.parameterName(i).toString();
+            List<String> values = params.get(name);
+            if (values == null) {
+                values = new ArrayList<String>(1);
+                params.put(name, values);
+            }
+            values.add(decoder.parameterValue(i).toString());
+            assertEquals(i, decoder.indexOfParameter(name, i));
+            assertTrue(decoder.indexOfParameter(name, 0) <= i);
+        }
+        assertEquals(decoder.parameters(), params, decoder.uri());
+        for (Entry<String, List<String>> entry : params.entrySet()) {
+            assertEquals(entry.getValue().get(0), decoder.parameter(entry.getKey()).toString());
+        }
+    }
+
+    @Test
+    public void testLazyParameters() {
+        QueryStringDecoder decoder = new QueryStringDecoder("/foo?a=1&b=%41+b&c=%C3%A9&a=2");
+        assertEquals(4, decoder.parameterCount());
+        assertInstanceOf(AsciiString.class, decoder.parameter("a"));
+        assertEquals(AsciiString.of("1"), decoder.parameter("a"));
+        assertEquals(AsciiString.of("A b"), decoder.parameter("b"));
+        assertEquals("\u00e9", decoder.parameter("c"));
+        assertNull(decoder.parameter("d"));
+        assertEquals(0, decoder.indexOfParameter("a", 0));
+        assertEquals(3, decoder.indexOfParameter("a", 1));
+        assertEquals(-1, decoder.indexOfParameter("a", 4));
+        assertEquals(AsciiString.of("2"), decoder.parameterValue(3));
+        assertEquals(AsciiString.of("a"), decoder.parameterName(3));
+    }
+
+    @Test
+    public void testLazyParametersHashDos() {
+        StringBuilder buf = new StringBuilder("/?");
+        for (int i = 0; i < 65536; i++) {
+            buf.append('k').append(i).append("=v").append(i).append('&');
+        }
+        assertEquals(100, new QueryStringDecoder(buf.toString(), CharsetUtil.UTF_8, true, 100).parameterCount());
+    }
+
+    @Test
+    public void testLazyParametersMalformed() {
+        final QueryStringDecoder decoder = new QueryStringDecoder("/foo?a=%4");
+        assertEquals(1, decoder.parameterCount());
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                decoder.parameterValue(0);
+            }
+        });
+        assertThrows(IndexOutOfBoundsException.class, new Executable() {
+            @Override
+            public void execute() {
+                decoder.parameterValue(1);
+            }
+        });
+    }
 }
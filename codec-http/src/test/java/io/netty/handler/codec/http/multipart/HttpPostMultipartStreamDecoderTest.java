@@ -0,0 +1,358 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http.multipart;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder.ErrorDataDecoderException;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpPostMultipartStreamDecoderTest {
+
+    private static final String BOUNDARY = "dLV9Wyq26L_-JQxk6ferf-RT153LhOO";
+    private static final String BODY =
+            "preamble\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"field\"\r\n" +
+            "\r\n" +
+            "value\r\n" +
+            "--" + BOUNDARY + "  \r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"a;b.txt\"\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "first line\r\n--not the boundary\r\n\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"empty\"\r\n" +
+            "\r\n" +
+            "\r\n" +
+            "--" + BOUNDARY + "--\r\n" +
+            "epilogue";
+
+    @Test
+    public void testDecodeFullRequest() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder());
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload",
+                Unpooled.copiedBuffer(BODY, CharsetUtil.US_ASCII));
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=" + BOUNDARY);
+        assertTrue(channel.writeInbound(request));
+
+        HttpRequest decoded = channel.readInbound();
+        assertFalse(decoded instanceof HttpContent);
+        assertEquals("/upload", decoded.uri());
+        assertExpectedParts(channel);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testDecodeByteByByte() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder());
+        channel.writeInbound(newRequest());
+        ByteBuf body = Unpooled.copiedBuffer(BODY, CharsetUtil.US_ASCII);
+        while (body.isReadable()) {
+            channel.writeInbound(new DefaultHttpContent(body.readRetainedSlice(1)));
+        }
+        body.release();
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        assertInstanceOf(HttpRequest.class, channel.readInbound());
+        assertExpectedParts(channel);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testContentIsSliceOfReceivedBuffer() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder());
+        channel.writeInbound(newRequest());
+        channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"file.bin\"\r\n\r\n",
+                CharsetUtil.US_ASCII)));
+        ByteBuf content = Unpooled.wrappedBuffer(("0123456789abcdefghijklmnopqrstuvwxyz" +
+                "0123456789abcdefghijklmnopqrstuvwxyz").getBytes(CharsetUtil.US_ASCII));
+        channel.writeInbound(new DefaultHttpContent(content));
+        assertInstanceOf(HttpRequest.class, channel.readInbound());
+        MultipartPart part = channel.readInbound();
+        assertTrue(part.isFileUpload());
+
+        // Everything but the bytes that may start the next delimiter is passed on, without copying.
+        MultipartContent chunk = channel.readInbound();
+        assertFalse(chunk.isLast());
+        assertSame(content, chunk.content().unwrap());
+        assertEquals(72 - BOUNDARY.length() - 3, chunk.content().readableBytes());
+        chunk.release();
+        assertNull(channel.readInbound());
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testPassThroughNonMultipart() {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder());
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/");
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/x-www-form-urlencoded");
+        HttpContent content = new DefaultLastHttpContent(Unpooled.copiedBuffer("a=b", CharsetUtil.US_ASCII));
+        assertTrue(channel.writeInbound(request, content));
+        assertSame(request, channel.readInbound());
+        assertSame(content, channel.readInbound());
+        content.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testMissingCloseDelimiter() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder());
+        channel.writeInbound(newRequest());
+        channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"field\"\r\n\r\nvalue", CharsetUtil.US_ASCII)));
+        assertThrows(ErrorDataDecoderException.class, new Executable() {
+            @Override
+            public void execute() {
+                channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+            }
+        });
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testHeadersTooLarge() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder(64));
+        channel.writeInbound(newRequest());
+        assertThrows(ErrorDataDecoderException.class, new Executable() {
+            @Override
+            public void execute() {
+                channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("--" + BOUNDARY + "\r\n" +
+                        "Content-Disposition: form-data; name=\"aVeryLongFieldNameThatDoesNotFit\"\r\n",
+                        CharsetUtil.US_ASCII)));
+            }
+        });
+        assertTrue(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    public void testContentAfterMalformedPartIsDiscarded() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder());
+        channel.writeInbound(newRequest());
+        assertThrows(ErrorDataDecoderException.class, new Executable() {
+            @Override
+            public void execute() {
+                channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("--" + BOUNDARY + "\r\n" +
+                        "no colon\r\n", CharsetUtil.US_ASCII)));
+            }
+        });
+        assertInstanceOf(HttpRequest.class, channel.readInbound());
+        assertNull(channel.readInbound());
+
+        // The rest of the body must not be decoded as if the body was still valid.
+        ByteBuf rest = Unpooled.copiedBuffer("Content-Disposition: form-data; name=\"field\"\r\n\r\nvalue\r\n" +
+                "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"other\"\r\n\r\nvalue\r\n" +
+                "--" + BOUNDARY + "--\r\n", CharsetUtil.US_ASCII);
+        assertFalse(channel.writeInbound(new DefaultHttpContent(rest)));
+        assertEquals(0, rest.refCnt());
+        assertTrue(channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT));
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+        assertNull(channel.readInbound());
+
+        // The next request is decoded again.
+        assertTrue(channel.writeInbound(newRequest()));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer(BODY, CharsetUtil.US_ASCII)));
+        assertInstanceOf(HttpRequest.class, channel.readInbound());
+        assertExpectedParts(channel);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFileWriter() throws Exception {
+        testFileWriter(false);
+    }
+
+    @Test
+    public void testFileWriterToDisk() throws Exception {
+        testFileWriter(true);
+    }
+
+    private static void testFileWriter(boolean useDisk) throws Exception {
+        DefaultHttpDataFactory factory = new DefaultHttpDataFactory(useDisk);
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder(),
+                new HttpPostMultipartFileWriter(factory, ImmediateEventExecutor.INSTANCE, 1024));
+        HttpRequest request = newRequest();
+        channel.writeInbound(request);
+        ByteBuf body = Unpooled.copiedBuffer(BODY, CharsetUtil.US_ASCII);
+        while (body.isReadable()) {
+            channel.writeInbound(new DefaultHttpContent(body.readRetainedSlice(Math.min(7, body.readableBytes()))));
+        }
+        body.release();
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        assertSame(request, channel.readInbound());
+        MultipartPart field = channel.readInbound();
+        assertEquals("field", field.name());
+        assertEquals("value", readContent(channel));
+
+        FileUpload upload = channel.readInbound();
+        assertEquals("file", upload.getName());
+        assertEquals("a;b.txt", upload.getFilename());
+        assertEquals("text/plain", upload.getContentType());
+        assertTrue(upload.isCompleted());
+        assertEquals(useDisk, !upload.isInMemory());
+        assertEquals("first line\r\n--not the boundary\r\n", upload.getString(CharsetUtil.US_ASCII));
+        upload.delete();
+        upload.release();
+
+        MultipartPart empty = channel.readInbound();
+        assertEquals("empty", empty.name());
+        assertEquals("", readContent(channel));
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+        assertFalse(channel.finish());
+        factory.cleanAllHttpData();
+    }
+
+    @Test
+    public void testFileWriterOnSeparateExecutor() throws Exception {
+        DefaultHttpDataFactory factory = new DefaultHttpDataFactory(true);
+        EventExecutorGroup group = new DefaultEventExecutorGroup(1);
+        try {
+            EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder(),
+                    new HttpPostMultipartFileWriter(factory, group, 16));
+
+            // Hold back all writes, so the test thread is the only one that uses the channel until they are released.
+            final CountDownLatch latch = new CountDownLatch(1);
+            group.next().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+
+            // Two pipelined requests, the second arrives while the upload of the first is still pending.
+            HttpRequest request1 = newRequest();
+            HttpRequest request2 = newRequest();
+            writeFileRequest(channel, request1, "0123456789abcdefghijklmnopqrstuvwxyz");
+            assertFalse(channel.config().isAutoRead());
+            writeFileRequest(channel, request2, "zyxwvutsrqponmlkjihgfedcba9876543210");
+            assertNull(channel.readInbound());
+
+            latch.countDown();
+            group.next().submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).sync();
+            channel.runPendingTasks();
+            assertTrue(channel.config().isAutoRead());
+
+            assertSame(request1, channel.readInbound());
+            FileUpload upload1 = channel.readInbound();
+            assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+            assertSame(request2, channel.readInbound());
+            FileUpload upload2 = channel.readInbound();
+            assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+            assertNull(channel.readInbound());
+
+            // The uploads were handed over, so cleaning their requests must not delete them.
+            factory.cleanRequestHttpData(request1);
+            factory.cleanRequestHttpData(request2);
+            assertEquals(1, upload1.refCnt());
+            assertEquals("0123456789abcdefghijklmnopqrstuvwxyz", upload1.getString(CharsetUtil.US_ASCII));
+            assertEquals(1, upload2.refCnt());
+            assertEquals("zyxwvutsrqponmlkjihgfedcba9876543210", upload2.getString(CharsetUtil.US_ASCII));
+            upload1.delete();
+            upload1.release();
+            upload2.delete();
+            upload2.release();
+            assertFalse(channel.finish());
+        } finally {
+            group.shutdownGracefully();
+            factory.cleanAllHttpData();
+        }
+    }
+
+    private static void writeFileRequest(EmbeddedChannel channel, HttpRequest request, String data) {
+        channel.writeInbound(request);
+        channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"file.txt\"\r\n\r\n" +
+                data + "\r\n--" + BOUNDARY + "--\r\n", CharsetUtil.US_ASCII)));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+
+    private static HttpRequest newRequest() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload");
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=\"" + BOUNDARY + '"');
+        return request;
+    }
+
+    private static void assertExpectedParts(EmbeddedChannel channel) {
+        MultipartPart field = channel.readInbound();
+        assertEquals("field", field.name());
+        assertFalse(field.isFileUpload());
+        assertEquals("value", readContent(channel));
+
+        MultipartPart file = channel.readInbound();
+        assertEquals("file", file.name());
+        assertEquals("a;b.txt", file.filename());
+        assertEquals("text/plain", file.contentType());
+        assertEquals("first line\r\n--not the boundary\r\n", readContent(channel));
+
+        MultipartPart empty = channel.readInbound();
+        assertEquals("empty", empty.name());
+        assertEquals("", readContent(channel));
+
+        assertSame(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+        assertNull(channel.readInbound());
+    }
+
+    private static String readContent(EmbeddedChannel channel) {
+        StringBuilder builder = new StringBuilder();
+        for (;;) {
+            MultipartContent content = channel.readInbound();
+            builder.append(content.content().toString(CharsetUtil.US_ASCII));
+            content.release();
+            if (content.isLast()) {
+                return builder.toString();
+            }
+        }
+    }
+}
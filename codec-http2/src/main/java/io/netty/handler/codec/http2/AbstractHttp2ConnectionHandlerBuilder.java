@@ -22,7 +22,9 @@ import io.netty.util.internal.UnstableApi;
 
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_LIST_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_RESERVED_STREAMS;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE;
 import static io.netty.handler.codec.http2.Http2PromisedRequestVerifier.ALWAYS_VERIFY;
+import static io.netty.util.internal.ObjectUtil.checkInRange;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 
@@ -109,6 +111,9 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
     private boolean autoAckPingFrame = true;
     private int maxQueuedControlFrames = Http2CodecUtil.DEFAULT_MAX_QUEUED_CONTROL_FRAMES;
     private int maxConsecutiveEmptyFrames = 2;
+    private StreamByteDistributor.Factory streamByteDistributorFactory;
+    private int maxAutoTunedStreamWindowSize;
+    private int maxAutoTunedConnectionWindowSize;
 
     /**
      * Sets the {@link Http2Settings} to use for the initial connection settings exchange.
@@ -258,6 +263,10 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
         enforceConstraint("codec", "frameLogger", frameLogger);
         enforceConstraint("codec", "validateHeaders", validateHeaders);
         enforceConstraint("codec", "headerSensitivityDetector", headerSensitivityDetector);
+        enforceConstraint("codec", "streamByteDistributorFactory", streamByteDistributorFactory);
+        if (maxAutoTunedStreamWindowSize != 0) {
+            enforceConstraint("codec", "flowControlWindowAutoTuning", maxAutoTunedStreamWindowSize);
+        }
         enforceConstraint("codec", "encoderEnforceMaxConcurrentStreams", encoderEnforceMaxConcurrentStreams);
 
         checkNotNull(decoder, "decoder");
@@ -309,6 +318,56 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
         return self();
     }
 
+    /**
+     * Returns the factory of the {@link StreamByteDistributor} that distributes the connection window across the
+     * streams.
+     *
+     * @return the {@link StreamByteDistributor.Factory} if set, or {@code null} if the default
+     * {@link WeightedFairQueueByteDistributor} is used.
+     */
+    protected StreamByteDistributor.Factory streamByteDistributorFactory() {
+        return streamByteDistributorFactory;
+    }
+
+    /**
+     * Sets the factory of the {@link StreamByteDistributor} that distributes the connection window across the
+     * streams, for example to use a {@link RoundRobinStreamByteDistributor} for connections with many concurrent
+     * streams without priorities.
+     */
+    protected B streamByteDistributorFactory(StreamByteDistributor.Factory streamByteDistributorFactory) {
+        enforceNonCodecConstraints("streamByteDistributorFactory");
+        this.streamByteDistributorFactory = checkNotNull(streamByteDistributorFactory, "streamByteDistributorFactory");
+        return self();
+    }
+
+    /**
+     * Returns the maximum size to which the window of a stream is auto-tuned, or {@code 0} if auto-tuning is disabled.
+     */
+    protected int maxAutoTunedStreamWindowSize() {
+        return maxAutoTunedStreamWindowSize;
+    }
+
+    /**
+     * Returns the maximum size to which the window of the connection is auto-tuned, or {@code 0} if auto-tuning is
+     * disabled.
+     */
+    protected int maxAutoTunedConnectionWindowSize() {
+        return maxAutoTunedConnectionWindowSize;
+    }
+
+    /**
+     * Enables auto-tuning of the local flow control windows based on the bandwidth-delay product of the connection,
+     * see {@link DefaultHttp2LocalFlowController#windowAutoTuning(int, int)}.
+     */
+    protected B flowControlWindowAutoTuning(int maxStreamWindowSize, int maxConnectionWindowSize) {
+        enforceNonCodecConstraints("flowControlWindowAutoTuning");
+        this.maxAutoTunedStreamWindowSize = checkInRange(maxStreamWindowSize, 1, MAX_INITIAL_WINDOW_SIZE,
+                "maxStreamWindowSize");
+        this.maxAutoTunedConnectionWindowSize = checkInRange(maxConnectionWindowSize, 1, MAX_INITIAL_WINDOW_SIZE,
+                "maxConnectionWindowSize");
+        return self();
+    }
+
     /**
      * Returns if the encoder should queue frames if the maximum number of concurrent streams
      * would otherwise be exceeded.
@@ -548,6 +607,14 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
             writer = new Http2OutboundFrameLogger(writer, frameLogger);
         }
 
+        if (streamByteDistributorFactory != null) {
+            connection.remote().flowController(new DefaultHttp2RemoteFlowController(connection,
+                    streamByteDistributorFactory.newStreamByteDistributor(connection)));
+        }
+        if (maxAutoTunedStreamWindowSize != 0) {
+            enableWindowAutoTuning(connection, maxAutoTunedStreamWindowSize, maxAutoTunedConnectionWindowSize);
+        }
+
         Http2ConnectionEncoder encoder = new DefaultHttp2ConnectionEncoder(connection, writer);
         boolean encoderEnforceMaxConcurrentStreams = encoderEnforceMaxConcurrentStreams();
 
@@ -613,6 +680,21 @@ public abstract class AbstractHttp2ConnectionHandlerBuilder<T extends Http2Conne
         return (B) this;
     }
 
+    static void enableWindowAutoTuning(Http2Connection connection, int maxStreamWindowSize,
+                                       int maxConnectionWindowSize) {
+        Http2LocalFlowController flowController = connection.local().flowController();
+        if (flowController == null) {
+            flowController = new DefaultHttp2LocalFlowController(connection);
+            connection.local().flowController(flowController);
+        } else if (!(flowController instanceof DefaultHttp2LocalFlowController)) {
+            throw new IllegalStateException("flowControlWindowAutoTuning() requires a " +
+                    DefaultHttp2LocalFlowController.class.getSimpleName() + " but the connection uses a " +
+                    flowController.getClass().getName());
+        }
+        ((DefaultHttp2LocalFlowController) flowController).windowAutoTuning(maxStreamWindowSize,
+                maxConnectionWindowSize);
+    }
+
     private void enforceNonCodecConstraints(String rejected) {
         enforceConstraint(rejected, "server/connection", decoder);
         enforceConstraint(rejected, "server/connection", encoder);
@@ -30,6 +30,7 @@ public abstract class AbstractInboundHttp2ToHttpAdapterBuilder<
     private int maxContentLength;
     private boolean validateHttpHeaders;
     private boolean propagateSettings;
+    private boolean wrapHeaders;
 
     /**
      * Creates a new {@link InboundHttp2ToHttpAdapter} builder for the specified {@link Http2Connection}.
@@ -113,6 +114,27 @@ public abstract class AbstractInboundHttp2ToHttpAdapterBuilder<
         return self();
     }
 
+    /**
+     * Returns {@code true} if the received {@link Http2Headers} should be wrapped instead of copied.
+     */
+    protected boolean isWrapHeaders() {
+        return wrapHeaders;
+    }
+
+    /**
+     * Specifies whether the received {@link Http2Headers} should be presented as the headers of the HTTP/1.x
+     * messages instead of being copied, see
+     * {@link HttpConversionUtil#toHttpHeadersView(int, Http2Headers, io.netty.handler.codec.http.HttpVersion,
+     * boolean, boolean)}.
+     *
+     * @param wrap {@code true} to wrap the {@link Http2Headers}, {@code false} to copy them
+     * @return {@link AbstractInboundHttp2ToHttpAdapterBuilder} the builder for the {@link InboundHttp2ToHttpAdapter}
+     */
+    protected B wrapHeaders(boolean wrap) {
+        wrapHeaders = wrap;
+        return self();
+    }
+
     /**
      * Builds/creates a new {@link InboundHttp2ToHttpAdapter} instance using this builder's current settings.
      */
@@ -120,7 +142,7 @@ public abstract class AbstractInboundHttp2ToHttpAdapterBuilder<
         final T instance;
         try {
             instance = build(connection(), maxContentLength(),
-                                     isValidateHttpHeaders(), isPropagateSettings());
+                                     isValidateHttpHeaders(), isPropagateSettings(), isWrapHeaders());
         } catch (Throwable t) {
             throw new IllegalStateException("failed to create a new InboundHttp2ToHttpAdapter", t);
         }
@@ -133,4 +155,16 @@ public abstract class AbstractInboundHttp2ToHttpAdapterBuilder<
      */
     protected abstract T build(Http2Connection connection, int maxContentLength,
                                boolean validateHttpHeaders, boolean propagateSettings) throws Exception;
+
+    /**
+     * Creates a new {@link InboundHttp2ToHttpAdapter} with the specified properties. Builders that support
+     * {@link #wrapHeaders(boolean)} override this method, by default only {@code wrapHeaders == false} is supported.
+     */
+    protected T build(Http2Connection connection, int maxContentLength, boolean validateHttpHeaders,
+                      boolean propagateSettings, boolean wrapHeaders) throws Exception {
+        if (wrapHeaders) {
+            throw new UnsupportedOperationException("wrapHeaders is not supported by " + getClass().getName());
+        }
+        return build(connection, maxContentLength, validateHttpHeaders, propagateSettings);
+    }
 }
@@ -49,6 +49,10 @@ import static io.netty.handler.codec.http.HttpHeaderValues.ZSTD;
 /**
  * A decorating HTTP2 encoder that will compress data frames according to the {@code content-encoding} header for each
  * stream. The compression provided by this class will be applied to the data for the entire stream.
+ * <p>
+ * Streams whose headers are {@link Http2PreEncodedHeaders} are not compressed, as those headers can not be changed.
+ * Their {@code content-encoding} and {@code content-length} are written as they are and the data must already be
+ * encoded accordingly.
  */
 @UnstableApi
 public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionEncoder {
@@ -328,7 +332,8 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
 
     /**
      * Checks if a new compressor object is needed for the stream identified by {@code streamId}. This method will
-     * modify the {@code content-encoding} header contained in {@code headers}.
+     * modify the {@code content-encoding} header contained in {@code headers}, unless they are
+     * {@link Http2PreEncodedHeaders}.
      *
      * @param ctx the context.
      * @param headers Object representing headers which are to be written
@@ -338,7 +343,7 @@ public class CompressorHttp2ConnectionEncoder extends DecoratingHttp2ConnectionE
      */
     private EmbeddedChannel newCompressor(ChannelHandlerContext ctx, Http2Headers headers, boolean endOfStream)
             throws Http2Exception {
-        if (endOfStream) {
+        if (endOfStream || headers instanceof Http2PreEncodedHeaders) {
             return null;
         }
 
@@ -14,6 +14,9 @@
  */
 package io.netty.handler.codec.http2;
 
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.util.internal.UnstableApi;
 
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
@@ -61,6 +64,23 @@ public class DecoratingHttp2ConnectionEncoder extends DecoratingHttp2FrameWriter
         delegate.remoteSettings(settings);
     }
 
+    /**
+     * Writes 103 (Early Hints) through the delegate, which must be a {@link DefaultHttp2ConnectionEncoder} or
+     * another {@link DecoratingHttp2ConnectionEncoder}.
+     *
+     * @see DefaultHttp2ConnectionEncoder#writeEarlyHints(ChannelHandlerContext, int, Http2Headers, ChannelPromise)
+     */
+    public ChannelFuture writeEarlyHints(ChannelHandlerContext ctx, int streamId, Http2Headers headers,
+                                         ChannelPromise promise) {
+        if (delegate instanceof DefaultHttp2ConnectionEncoder) {
+            return ((DefaultHttp2ConnectionEncoder) delegate).writeEarlyHints(ctx, streamId, headers, promise);
+        }
+        if (delegate instanceof DecoratingHttp2ConnectionEncoder) {
+            return ((DecoratingHttp2ConnectionEncoder) delegate).writeEarlyHints(ctx, streamId, headers, promise);
+        }
+        return promise.setFailure(new IllegalStateException("delegate " + delegate + " can not write early hints"));
+    }
+
     @Override
     public void consumeReceivedSettings(Http2Settings settings) {
         if (delegate instanceof Http2SettingsReceivedConsumer) {
@@ -19,9 +19,6 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http2.Http2Stream.State;
-import io.netty.util.collection.IntObjectHashMap;
-import io.netty.util.collection.IntObjectMap;
-import io.netty.util.collection.IntObjectMap.PrimitiveEntry;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.Promise;
 import io.netty.util.concurrent.PromiseNotifier;
@@ -34,7 +31,6 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
@@ -65,7 +61,7 @@ import static java.lang.Integer.MAX_VALUE;
 public class DefaultHttp2Connection implements Http2Connection {
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(DefaultHttp2Connection.class);
     // Fields accessed by inner classes
-    final IntObjectMap<Http2Stream> streamMap = new IntObjectHashMap<Http2Stream>();
+    final Http2StreamIndex streamMap = new Http2StreamIndex();
     final PropertyKeyRegistry propertyKeyRegistry = new PropertyKeyRegistry();
     final ConnectionStream connectionStream = new ConnectionStream();
     final DefaultEndpoint<Http2LocalFlowController> localEndpoint;
@@ -107,7 +103,7 @@ public class DefaultHttp2Connection implements Http2Connection {
         remoteEndpoint = new DefaultEndpoint<Http2RemoteFlowController>(!server, maxReservedStreams);
 
         // Add the connection stream to the map.
-        streamMap.put(connectionStream.id(), connectionStream);
+        streamMap.put(connectionStream);
     }
 
     /**
@@ -138,14 +134,14 @@ public class DefaultHttp2Connection implements Http2Connection {
             return promise;
         }
 
-        Iterator<PrimitiveEntry<Http2Stream>> itr = streamMap.entries().iterator();
+        Iterator<Http2Stream> itr = streamMap.iterator();
         // We must take care while iterating the streamMap as to not modify while iterating in case there are other code
         // paths iterating over the active streams.
         if (activeStreams.allowModifications()) {
             activeStreams.incrementPendingIterations();
             try {
                 while (itr.hasNext()) {
-                    DefaultStream stream = (DefaultStream) itr.next().value();
+                    DefaultStream stream = (DefaultStream) itr.next();
                     if (stream.id() != CONNECTION_STREAM_ID) {
                         // If modifications of the activeStream map is allowed, then a stream close operation will also
                         // modify the streamMap. Pass the iterator in so that remove will be called to prevent
@@ -158,7 +154,7 @@ public class DefaultHttp2Connection implements Http2Connection {
             }
         } else {
             while (itr.hasNext()) {
-                Http2Stream stream = itr.next().value();
+                Http2Stream stream = itr.next();
                 if (stream.id() != CONNECTION_STREAM_ID) {
                     // We are not allowed to make modifications, so the close calls will be executed after this
                     // iteration completes.
@@ -388,13 +384,21 @@ public class DefaultHttp2Connection implements Http2Connection {
         private static final byte META_STATE_RECV_HEADERS = 1 << 4;
         private static final byte META_STATE_RECV_TRAILERS = 1 << 5;
         private final int id;
-        private final PropertyMap properties = new PropertyMap();
         private State state;
         private byte metaState;
+        /**
+         * Property values indexed by {@link DefaultPropertyKey#index}. Sized for all keys registered when the stream
+         * is created, and only grown if a key is registered afterwards.
+         */
+        private Object[] properties;
+        // Links of the intrusive list of active streams maintained by ActiveStreams.
+        DefaultStream prevActive;
+        DefaultStream nextActive;
 
         DefaultStream(int id, State state) {
             this.id = id;
             this.state = state;
+            properties = propertyKeyRegistry.newValues();
         }
 
         @Override
@@ -466,18 +470,34 @@ public class DefaultHttp2Connection implements Http2Connection {
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public final <V> V setProperty(PropertyKey key, V value) {
-            return properties.add(verifyKey(key), value);
+            final int index = verifyKey(key).index;
+            if (index >= properties.length) {
+                properties = Arrays.copyOf(properties, propertyKeyRegistry.size());
+            }
+            V prevValue = (V) properties[index];
+            properties[index] = value;
+            return prevValue;
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public final <V> V getProperty(PropertyKey key) {
-            return properties.get(verifyKey(key));
+            final int index = verifyKey(key).index;
+            return index < properties.length ? (V) properties[index] : null;
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public final <V> V removeProperty(PropertyKey key) {
-            return properties.remove(verifyKey(key));
+            final int index = verifyKey(key).index;
+            if (index >= properties.length) {
+                return null;
+            }
+            V prevValue = (V) properties[index];
+            properties[index] = null;
+            return prevValue;
         }
 
         @Override
@@ -560,45 +580,6 @@ public class DefaultHttp2Connection implements Http2Connection {
         final boolean isLocal() {
             return localEndpoint.isValidStreamId(id);
         }
-
-        /**
-         * Provides the lazy initialization for the {@link DefaultStream} data map.
-         */
-        private class PropertyMap {
-            Object[] values = EmptyArrays.EMPTY_OBJECTS;
-
-            <V> V add(DefaultPropertyKey key, V value) {
-                resizeIfNecessary(key.index);
-                @SuppressWarnings("unchecked")
-                V prevValue = (V) values[key.index];
-                values[key.index] = value;
-                return prevValue;
-            }
-
-            @SuppressWarnings("unchecked")
-            <V> V get(DefaultPropertyKey key) {
-                if (key.index >= values.length) {
-                    return null;
-                }
-                return (V) values[key.index];
-            }
-
-            @SuppressWarnings("unchecked")
-            <V> V remove(DefaultPropertyKey key) {
-                V prevValue = null;
-                if (key.index < values.length) {
-                    prevValue = (V) values[key.index];
-                    values[key.index] = null;
-                }
-                return prevValue;
-            }
-
-            void resizeIfNecessary(int index) {
-                if (index >= values.length) {
-                    values = Arrays.copyOf(values, propertyKeyRegistry.size());
-                }
-            }
-        }
     }
 
     /**
@@ -797,7 +778,7 @@ public class DefaultHttp2Connection implements Http2Connection {
 
         private void addStream(DefaultStream stream) {
             // Add the stream to the map and priority tree.
-            streamMap.put(stream.id(), stream);
+            streamMap.put(stream);
 
             // Notify the listeners of the event.
             for (int i = 0; i < listeners.size(); i++) {
@@ -934,7 +915,11 @@ public class DefaultHttp2Connection implements Http2Connection {
     private final class ActiveStreams {
         private final List<Listener> listeners;
         private final Queue<Event> pendingEvents = new ArrayDeque<Event>(4);
-        private final Set<Http2Stream> streams = new LinkedHashSet<Http2Stream>();
+        // Active streams are kept in an intrusive doubly linked list in activation order, so no per stream entry
+        // needs to be allocated.
+        private DefaultStream head;
+        private DefaultStream tail;
+        private int size;
         private int pendingIterations;
 
         ActiveStreams(List<Listener> listeners) {
@@ -942,7 +927,7 @@ public class DefaultHttp2Connection implements Http2Connection {
         }
 
         public int size() {
-            return streams.size();
+            return size;
         }
 
         public void activate(final DefaultStream stream) {
@@ -974,10 +959,15 @@ public class DefaultHttp2Connection implements Http2Connection {
         public Http2Stream forEachActiveStream(Http2StreamVisitor visitor) throws Http2Exception {
             incrementPendingIterations();
             try {
-                for (Http2Stream stream : streams) {
+                DefaultStream stream = head;
+                while (stream != null) {
+                    // Modifications are deferred while iterating, but load the successor first anyway so a stream
+                    // that unlinks itself does not end the iteration.
+                    DefaultStream next = stream.nextActive;
                     if (!visitor.visit(stream)) {
                         return stream;
                     }
+                    stream = next;
                 }
                 return null;
             } finally {
@@ -986,7 +976,7 @@ public class DefaultHttp2Connection implements Http2Connection {
         }
 
         void addToActiveStreams(DefaultStream stream) {
-            if (streams.add(stream)) {
+            if (link(stream)) {
                 // Update the number of active streams initiated by the endpoint.
                 stream.createdBy().numActiveStreams++;
 
@@ -1001,7 +991,7 @@ public class DefaultHttp2Connection implements Http2Connection {
         }
 
         void removeFromActiveStreams(DefaultStream stream, Iterator<?> itr) {
-            if (streams.remove(stream)) {
+            if (unlink(stream)) {
                 // Update the number of active streams initiated by the endpoint.
                 stream.createdBy().numActiveStreams--;
                 notifyClosed(stream);
@@ -1009,6 +999,47 @@ public class DefaultHttp2Connection implements Http2Connection {
             removeStream(stream, itr);
         }
 
+        private boolean contains(DefaultStream stream) {
+            return stream.prevActive != null || head == stream;
+        }
+
+        private boolean link(DefaultStream stream) {
+            if (contains(stream)) {
+                return false;
+            }
+            if (tail == null) {
+                head = stream;
+            } else {
+                tail.nextActive = stream;
+                stream.prevActive = tail;
+            }
+            tail = stream;
+            ++size;
+            return true;
+        }
+
+        private boolean unlink(DefaultStream stream) {
+            if (!contains(stream)) {
+                return false;
+            }
+            DefaultStream prev = stream.prevActive;
+            DefaultStream next = stream.nextActive;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.nextActive = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prevActive = prev;
+            }
+            stream.prevActive = null;
+            stream.nextActive = null;
+            --size;
+            return true;
+        }
+
         boolean allowModifications() {
             return pendingIterations == 0;
         }
@@ -1073,6 +1104,13 @@ public class DefaultHttp2Connection implements Http2Connection {
             return key;
         }
 
+        /**
+         * Returns a new array that can hold a value for every key registered so far.
+         */
+        Object[] newValues() {
+            return keys.isEmpty() ? EmptyArrays.EMPTY_OBJECTS : new Object[keys.size()];
+        }
+
         int size() {
             return keys.size();
         }
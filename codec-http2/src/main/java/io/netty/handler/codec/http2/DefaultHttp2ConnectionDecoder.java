@@ -27,12 +27,14 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 import java.util.List;
 
 import static io.netty.handler.codec.http.HttpStatusClass.INFORMATIONAL;
+import static io.netty.handler.codec.http2.Http2CodecUtil.CONNECTION_STREAM_ID;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT;
 import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
 import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
 import static io.netty.handler.codec.http2.Http2Error.STREAM_CLOSED;
 import static io.netty.handler.codec.http2.Http2Exception.connectionError;
 import static io.netty.handler.codec.http2.Http2Exception.streamError;
+import static io.netty.handler.codec.http2.Http2FrameTypes.PRIORITY_UPDATE;
 import static io.netty.handler.codec.http2.Http2PromisedRequestVerifier.ALWAYS_VERIFY;
 import static io.netty.handler.codec.http2.Http2Stream.State.CLOSED;
 import static io.netty.handler.codec.http2.Http2Stream.State.HALF_CLOSED_REMOTE;
@@ -222,6 +224,22 @@ public class DefaultHttp2ConnectionDecoder implements Http2ConnectionDecoder {
         listener.onUnknownFrame(ctx, frameType, streamId, flags, payload);
     }
 
+    /**
+     * Returns the {@link ExtensiblePriorityStreamByteDistributor} of the remote flow controller, or {@code null} if
+     * it does not schedule streams by their RFC 9218 priority.
+     */
+    private ExtensiblePriorityStreamByteDistributor extensiblePriorityDistributor() {
+        Http2RemoteFlowController flowController = encoder.flowController();
+        if (flowController instanceof DefaultHttp2RemoteFlowController) {
+            StreamByteDistributor distributor =
+                    ((DefaultHttp2RemoteFlowController) flowController).streamByteDistributor();
+            if (distributor instanceof ExtensiblePriorityStreamByteDistributor) {
+                return (ExtensiblePriorityStreamByteDistributor) distributor;
+            }
+        }
+        return null;
+    }
+
     // See https://tools.ietf.org/html/rfc7540#section-8.1.2.6
     private void verifyContentLength(Http2Stream stream, int data, boolean isEnd) throws Http2Exception {
         ContentLength contentLength = stream.getProperty(contentLengthKey);
@@ -239,7 +257,7 @@ public class DefaultHttp2ConnectionDecoder implements Http2ConnectionDecoder {
     /**
      * Handles all inbound frames from the network.
      */
-    private final class FrameReadListener implements Http2FrameListener {
+    private final class FrameReadListener implements Http2FrameListener, Http2PriorityUpdateListener {
         @Override
         public int onDataRead(final ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
                               boolean endOfStream) throws Http2Exception {
@@ -406,6 +424,16 @@ public class DefaultHttp2ConnectionDecoder implements Http2ConnectionDecoder {
             stream.headersReceived(isInformational);
             verifyContentLength(stream, 0, endOfStream);
             encoder.flowController().updateDependencyTree(streamId, streamDependency, weight, exclusive);
+            if (!isTrailers && connection.isServer()) {
+                // See https://www.rfc-editor.org/rfc/rfc9218.html#section-5
+                CharSequence priority = headers.get(HttpHeaderNames.PRIORITY);
+                if (priority != null) {
+                    ExtensiblePriorityStreamByteDistributor distributor = extensiblePriorityDistributor();
+                    if (distributor != null) {
+                        distributor.updatePriority(streamId, Http2ExtensiblePriority.parse(priority));
+                    }
+                }
+            }
             listener.onHeadersRead(ctx, streamId, headers, streamDependency,
                     weight, exclusive, padding, endOfStream);
             // If the headers completes this stream, close it.
@@ -526,6 +554,12 @@ public class DefaultHttp2ConnectionDecoder implements Http2ConnectionDecoder {
 
         @Override
         public void onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+            Http2LocalFlowController flowController = flowController();
+            if (flowController instanceof DefaultHttp2LocalFlowController &&
+                    ((DefaultHttp2LocalFlowController) flowController).pingAckReceived(data)) {
+                // The PING was sent by the flow controller to auto-tune the windows.
+                return;
+            }
             listener.onPingAckRead(ctx, data);
         }
 
@@ -605,6 +639,26 @@ public class DefaultHttp2ConnectionDecoder implements Http2ConnectionDecoder {
             onUnknownFrame0(ctx, frameType, streamId, flags, payload);
         }
 
+        @Override
+        public void onPriorityUpdateRead(ChannelHandlerContext ctx, int prioritizedStreamId,
+                Http2ExtensiblePriority priority, Http2Flags flags, ByteBuf payload) throws Http2Exception {
+            // See https://www.rfc-editor.org/rfc/rfc9218.html#section-7.1
+            if (!connection.isServer()) {
+                throw connectionError(PROTOCOL_ERROR, "A client must not receive PRIORITY_UPDATE.");
+            }
+            ExtensiblePriorityStreamByteDistributor distributor = extensiblePriorityDistributor();
+            if (distributor != null) {
+                distributor.updatePriority(prioritizedStreamId, priority);
+            }
+            if (listener instanceof Http2PriorityUpdateListener) {
+                ((Http2PriorityUpdateListener) listener).onPriorityUpdateRead(ctx, prioritizedStreamId, priority,
+                        flags, payload);
+            } else {
+                // Listeners that do not know about the extension keep seeing the frame as an unknown frame.
+                onUnknownFrame0(ctx, PRIORITY_UPDATE, CONNECTION_STREAM_ID, flags, payload);
+            }
+        }
+
         /**
          * Helper method to determine if a frame that has the semantics of headers or data should be ignored for the
          * {@code stream} (which may be {@code null}) associated with {@code streamId}.
@@ -671,7 +725,7 @@ public class DefaultHttp2ConnectionDecoder implements Http2ConnectionDecoder {
         }
     }
 
-    private final class PrefaceFrameListener implements Http2FrameListener {
+    private final class PrefaceFrameListener implements Http2FrameListener, Http2PriorityUpdateListener {
         /**
          * Verifies that the HTTP/2 connection preface has been received from the remote endpoint.
          * It is possible that the current call to
@@ -772,6 +826,14 @@ public class DefaultHttp2ConnectionDecoder implements Http2ConnectionDecoder {
                 ByteBuf payload) throws Http2Exception {
             onUnknownFrame0(ctx, frameType, streamId, flags, payload);
         }
+
+        @Override
+        public void onPriorityUpdateRead(ChannelHandlerContext ctx, int prioritizedStreamId,
+                Http2ExtensiblePriority priority, Http2Flags flags, ByteBuf payload) throws Http2Exception {
+            verifyPrefaceReceived();
+            ((Http2PriorityUpdateListener) internalFrameListener).onPriorityUpdateRead(ctx, prioritizedStreamId,
+                    priority, flags, payload);
+        }
     }
 
     private static final class ContentLength {
@@ -27,6 +27,7 @@ import io.netty.util.internal.UnstableApi;
 import java.util.ArrayDeque;
 import java.util.Queue;
 
+import static io.netty.handler.codec.http.HttpResponseStatus.EARLY_HINTS;
 import static io.netty.handler.codec.http.HttpStatusClass.INFORMATIONAL;
 import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
 import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
@@ -151,6 +152,45 @@ public class DefaultHttp2ConnectionEncoder implements Http2ConnectionEncoder, Ht
         return writeHeaders0(ctx, streamId, headers, false, 0, (short) 0, false, padding, endStream, promise);
     }
 
+    /**
+     * Writes a <a href="https://www.rfc-editor.org/rfc/rfc8297.html">103 (Early Hints)</a> informational response,
+     * which lets the client start loading resources, for example those listed in {@code link} headers, while the
+     * final response is still being prepared. Any number of early hints may be written before the final response.
+     * <p>
+     * Only a server can write early hints. If {@code headers} contain no {@code :status} a copy with status
+     * {@code 103} is written, {@code headers} are not modified. Any other status is rejected.
+     * {@link Http2PreEncodedHeaders} can be used to write the same hints without encoding them for every response,
+     * in which case they must contain the {@code :status} as it can not be added to an encoded block.
+     *
+     * @param ctx the context to use for writing.
+     * @param streamId the stream of the request the hints belong to.
+     * @param headers the hints to send.
+     * @param promise the promise for the write.
+     * @return the future for the write.
+     */
+    public ChannelFuture writeEarlyHints(ChannelHandlerContext ctx, int streamId, Http2Headers headers,
+                                         ChannelPromise promise) {
+        try {
+            if (!connection.isServer()) {
+                throw new IllegalStateException("Only a server can send 103 (Early Hints)");
+            }
+            CharSequence status = headers.status();
+            if (status == null) {
+                if (headers instanceof Http2PreEncodedHeaders) {
+                    throw new IllegalArgumentException("Pre-encoded early hints must contain status 103");
+                }
+                headers = new DefaultHttp2Headers(false, headers.size() + 1)
+                        .status(EARLY_HINTS.codeAsText())
+                        .add(headers);
+            } else if (!EARLY_HINTS.codeAsText().contentEquals(status)) {
+                throw new IllegalArgumentException("Early hints must have status 103 but had " + status);
+            }
+        } catch (Throwable e) {
+            return promise.setFailure(e);
+        }
+        return writeHeaders(ctx, streamId, headers, 0, false, promise);
+    }
+
     private static boolean validateHeadersSentState(Http2Stream stream, Http2Headers headers, boolean isServer,
                                                     boolean endOfStream) {
         boolean isInformational = isServer && HttpStatusClass.valueOf(headers.status()) == INFORMATIONAL;
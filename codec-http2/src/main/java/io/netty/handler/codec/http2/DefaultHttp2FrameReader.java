@@ -18,6 +18,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http2.Http2FrameReader.Configuration;
+import io.netty.util.CharsetUtil;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.UnstableApi;
 
@@ -42,6 +43,7 @@ import static io.netty.handler.codec.http2.Http2FrameTypes.GO_AWAY;
 import static io.netty.handler.codec.http2.Http2FrameTypes.HEADERS;
 import static io.netty.handler.codec.http2.Http2FrameTypes.PING;
 import static io.netty.handler.codec.http2.Http2FrameTypes.PRIORITY;
+import static io.netty.handler.codec.http2.Http2FrameTypes.PRIORITY_UPDATE;
 import static io.netty.handler.codec.http2.Http2FrameTypes.PUSH_PROMISE;
 import static io.netty.handler.codec.http2.Http2FrameTypes.RST_STREAM;
 import static io.netty.handler.codec.http2.Http2FrameTypes.SETTINGS;
@@ -144,7 +146,7 @@ public class DefaultHttp2FrameReader implements Http2FrameReader, Http2FrameSize
         try {
             do {
                 if (readingHeaders) {
-                    processHeaderState(input);
+                    processHeaderState(input, listener);
                     if (readingHeaders) {
                         // Wait until the entire header has arrived.
                         return;
@@ -174,7 +176,7 @@ public class DefaultHttp2FrameReader implements Http2FrameReader, Http2FrameSize
         }
     }
 
-    private void processHeaderState(ByteBuf in) throws Http2Exception {
+    private void processHeaderState(ByteBuf in, Http2FrameListener listener) throws Http2Exception {
         if (in.readableBytes() < FRAME_HEADER_LENGTH) {
             // Wait until the entire frame header has been read.
             return;
@@ -224,6 +226,14 @@ public class DefaultHttp2FrameReader implements Http2FrameReader, Http2FrameSize
             case CONTINUATION:
                 verifyContinuationFrame();
                 break;
+            case PRIORITY_UPDATE:
+                if (listener instanceof Http2PriorityUpdateListener) {
+                    verifyPriorityUpdateFrame();
+                } else {
+                    // The listener does not know about the extension, so the frame is just an unknown frame.
+                    verifyUnknownFrame();
+                }
+                break;
             default:
                 // Unknown frame type, could be an extension.
                 verifyUnknownFrame();
@@ -276,6 +286,9 @@ public class DefaultHttp2FrameReader implements Http2FrameReader, Http2FrameSize
             case CONTINUATION:
                 readContinuationFrame(in, payloadEndIndex, listener);
                 break;
+            case PRIORITY_UPDATE:
+                readPriorityUpdateFrame(ctx, in, payloadEndIndex, listener);
+                break;
             default:
                 readUnknownFrame(ctx, in, payloadEndIndex, listener);
                 break;
@@ -398,6 +411,17 @@ public class DefaultHttp2FrameReader implements Http2FrameReader, Http2FrameSize
         }
     }
 
+    private void verifyPriorityUpdateFrame() throws Http2Exception {
+        verifyNotProcessingHeaders();
+        if (streamId != 0) {
+            throw connectionError(PROTOCOL_ERROR, "A stream ID must be zero.");
+        }
+        if (payloadLength < INT_FIELD_LENGTH) {
+            throw connectionError(FRAME_SIZE_ERROR,
+                    "Frame length %d too small for priority update.", payloadLength);
+        }
+    }
+
     private void verifyUnknownFrame() throws Http2Exception {
         verifyNotProcessingHeaders();
     }
@@ -599,6 +623,26 @@ public class DefaultHttp2FrameReader implements Http2FrameReader, Http2FrameSize
         resetHeadersContinuationIfEnd(flags.endOfHeaders());
     }
 
+    private void readPriorityUpdateFrame(ChannelHandlerContext ctx, ByteBuf payload, int payloadEndIndex,
+            Http2FrameListener listener) throws Http2Exception {
+        if (!(listener instanceof Http2PriorityUpdateListener)) {
+            // The listener does not know about the extension, keep treating the frame as unknown.
+            readUnknownFrame(ctx, payload, payloadEndIndex, listener);
+            return;
+        }
+        // Keep the complete payload, so the frame can still be passed on as an unknown frame.
+        ByteBuf framePayload = payload.readSlice(payloadEndIndex - payload.readerIndex());
+        ByteBuf in = framePayload.duplicate();
+        int prioritizedStreamId = readUnsignedInt(in);
+        if (prioritizedStreamId == 0) {
+            throw connectionError(PROTOCOL_ERROR, "PRIORITY_UPDATE must not prioritize the connection.");
+        }
+        Http2ExtensiblePriority priority = Http2ExtensiblePriority.parse(
+                in.readCharSequence(in.readableBytes(), CharsetUtil.US_ASCII));
+        ((Http2PriorityUpdateListener) listener).onPriorityUpdateRead(ctx, prioritizedStreamId, priority, flags,
+                framePayload);
+    }
+
     private void readUnknownFrame(ChannelHandlerContext ctx, ByteBuf payload,
             int payloadEndIndex, Http2FrameListener listener) throws Http2Exception {
         payload = payload.readSlice(payloadEndIndex - payload.readerIndex());
@@ -23,6 +23,7 @@ import io.netty.handler.codec.http2.Http2CodecUtil.SimpleChannelPromiseAggregato
 import io.netty.handler.codec.http2.Http2FrameWriter.Configuration;
 import io.netty.handler.codec.http2.Http2HeadersEncoder.SensitivityDetector;
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.UnstableApi;
 
 import static io.netty.buffer.Unpooled.directBuffer;
@@ -80,6 +81,13 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
      */
     private static final ByteBuf ZERO_BUFFER =
             unreleasableBuffer(directBuffer(MAX_UNSIGNED_BYTE).writeZero(MAX_UNSIGNED_BYTE)).asReadOnly();
+    /**
+     * {@code DATA} frames without padding and with at most this many bytes of payload are copied into a single
+     * buffer together with their frame header. Many streams sending small frames then produce a few contiguous
+     * buffers instead of a tiny frame header buffer plus a payload buffer per frame.
+     */
+    private static final int DATA_COALESCE_THRESHOLD =
+            SystemPropertyUtil.getInt("io.netty.http2.dataFrameCoalesceThreshold", 512);
 
     private final Http2HeadersEncoder headersEncoder;
     private int maxFrameSize;
@@ -135,6 +143,9 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
     @Override
     public ChannelFuture writeData(ChannelHandlerContext ctx, int streamId, ByteBuf data,
             int padding, boolean endStream, ChannelPromise promise) {
+        if (padding == 0 && data.readableBytes() <= min(DATA_COALESCE_THRESHOLD, maxFrameSize)) {
+            return writeCoalescedData(ctx, streamId, data, endStream, promise);
+        }
         final SimpleChannelPromiseAggregator promiseAggregator =
                 new SimpleChannelPromiseAggregator(promise, ctx.channel(), ctx.executor());
         ByteBuf frameHeader = null;
@@ -254,6 +265,41 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
         return promiseAggregator.doneAllocatingPromises();
     }
 
+    /**
+     * Writes a {@code DATA} frame that fits into a single frame as one buffer, by copying the payload behind the
+     * frame header.
+     */
+    private static ChannelFuture writeCoalescedData(ChannelHandlerContext ctx, int streamId, ByteBuf data,
+            boolean endStream, ChannelPromise promise) {
+        ByteBuf frame = null;
+        try {
+            verifyStreamId(streamId, STREAM_ID);
+
+            int payloadLength = data.readableBytes();
+            frame = ctx.alloc().buffer(FRAME_HEADER_LENGTH + payloadLength);
+            writeFrameHeaderInternal(frame, payloadLength, DATA, new Http2Flags().endOfStream(endStream), streamId);
+            frame.writeBytes(data, data.readerIndex(), payloadLength);
+
+            ByteBuf payload = data;
+            data = null;
+            payload.release();
+        } catch (Throwable cause) {
+            if (frame != null) {
+                frame.release();
+            }
+            // Use a try/finally here in case the data has been released before calling this method.
+            try {
+                if (data != null) {
+                    data.release();
+                }
+            } finally {
+                promise.setFailure(cause);
+            }
+            return promise;
+        }
+        return ctx.write(frame, promise);
+    }
+
     @Override
     public ChannelFuture writeHeaders(ChannelHandlerContext ctx, int streamId,
             Http2Headers headers, int padding, boolean endStream, ChannelPromise promise) {
@@ -496,23 +542,35 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
                 verifyWeight(weight);
             }
 
-            // Encode the entire header block.
-            headerBlock = ctx.alloc().buffer();
-            headersEncoder.encodeHeaders(streamId, headers, headerBlock);
-
             Http2Flags flags =
                     new Http2Flags().endOfStream(endStream).priorityPresent(hasPriority).paddingPresent(padding > 0);
-
-            // Read the first fragment (possibly everything).
             int nonFragmentBytes = padding + flags.getNumPriorityBytes();
             int maxFragmentLength = maxFrameSize - nonFragmentBytes;
-            ByteBuf fragment = headerBlock.readRetainedSlice(min(headerBlock.readableBytes(), maxFragmentLength));
 
-            // Set the end of headers flag for the first frame.
-            flags.endOfHeaders(!headerBlock.isReadable());
+            // Encode the entire header block behind room for the frame header, so that a header block which fits
+            // into a single frame can be written as a single buffer.
+            int frameHeaderLength =
+                    FRAME_HEADER_LENGTH + flags.getPaddingPresenceFieldLength() + flags.getNumPriorityBytes();
+            headerBlock = ctx.alloc().buffer();
+            headerBlock.writeZero(frameHeaderLength);
+            headersEncoder.encodeHeaders(streamId, headers, headerBlock);
+            int headerBlockLength = headerBlock.writerIndex() - frameHeaderLength;
+
+            ByteBuf buf;
+            ByteBuf fragment = null;
+            int headerBlockEndIndex = headerBlock.writerIndex();
+            if (headerBlockLength <= maxFragmentLength) {
+                flags.endOfHeaders(true);
+                buf = headerBlock;
+                buf.writerIndex(0);
+            } else {
+                // Read the first fragment.
+                headerBlock.skipBytes(frameHeaderLength);
+                fragment = headerBlock.readRetainedSlice(maxFragmentLength);
+                buf = ctx.alloc().buffer(HEADERS_FRAME_HEADER_LENGTH);
+            }
 
-            int payloadLength = fragment.readableBytes() + nonFragmentBytes;
-            ByteBuf buf = ctx.alloc().buffer(HEADERS_FRAME_HEADER_LENGTH);
+            int payloadLength = min(headerBlockLength, maxFragmentLength) + nonFragmentBytes;
             writeFrameHeaderInternal(buf, payloadLength, HEADERS, flags, streamId);
             writePaddingLength(buf, padding);
 
@@ -522,14 +580,25 @@ public class DefaultHttp2FrameWriter implements Http2FrameWriter, Http2FrameSize
                 // Adjust the weight so that it fits into a single byte on the wire.
                 buf.writeByte(weight - 1);
             }
-            ctx.write(buf, promiseAggregator.newPromise());
 
-            // Write the first fragment.
-            ctx.write(fragment, promiseAggregator.newPromise());
+            if (fragment == null) {
+                // The header block follows the frame header in the same buffer.
+                buf.writerIndex(headerBlockEndIndex);
+                if (paddingBytes(padding) > 0) {
+                    buf.writeZero(paddingBytes(padding));
+                }
+                headerBlock = null;
+                ctx.write(buf, promiseAggregator.newPromise());
+            } else {
+                ctx.write(buf, promiseAggregator.newPromise());
 
-            // Write out the padding, if any.
-            if (paddingBytes(padding) > 0) {
-                ctx.write(ZERO_BUFFER.slice(0, paddingBytes(padding)), promiseAggregator.newPromise());
+                // Write the first fragment.
+                ctx.write(fragment, promiseAggregator.newPromise());
+
+                // Write out the padding, if any.
+                if (paddingBytes(padding) > 0) {
+                    ctx.write(ZERO_BUFFER.slice(0, paddingBytes(padding)), promiseAggregator.newPromise());
+                }
             }
 
             if (!flags.endOfHeaders()) {
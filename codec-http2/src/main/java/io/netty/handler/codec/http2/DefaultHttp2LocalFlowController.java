@@ -23,6 +23,7 @@ import static io.netty.handler.codec.http2.Http2Error.FLOW_CONTROL_ERROR;
 import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
 import static io.netty.handler.codec.http2.Http2Exception.connectionError;
 import static io.netty.handler.codec.http2.Http2Exception.streamError;
+import static io.netty.util.internal.ObjectUtil.checkInRange;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
 import static java.lang.Math.max;
@@ -48,6 +49,17 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
      */
     public static final float DEFAULT_WINDOW_UPDATE_RATIO = 0.5f;
 
+    /**
+     * The data of the {@code PING} frames that are sent to estimate the bandwidth-delay product of the connection.
+     */
+    static final long BDP_PING_DATA = 0x6264702d70696e67L;
+
+    // See https://github.com/grpc/grpc-go/blob/master/internal/transport/bdp_estimator.go
+    private static final double BDP_RTT_SMOOTHING_FACTOR = 0.9;
+    private static final double BDP_GROWTH_THRESHOLD = 0.66;
+    private static final int BDP_WINDOW_MULTIPLIER = 2;
+    private static final int BDP_RTT_WARM_UP_SAMPLES = 10;
+
     private final Http2Connection connection;
     private final Http2Connection.PropertyKey stateKey;
     private Http2FrameWriter frameWriter;
@@ -55,6 +67,18 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
     private float windowUpdateRatio;
     private int initialWindowSize = DEFAULT_WINDOW_SIZE;
 
+    // Window auto-tuning, which is disabled while the maximum stream window size is 0.
+    private int maxAutoTunedStreamWindowSize;
+    private int maxAutoTunedConnectionWindowSize;
+    private int autoTunedStreamWindowSize;
+    private int bdp = DEFAULT_WINDOW_SIZE;
+    private boolean bdpPingPending;
+    private long bdpPingSentNanos;
+    private long bdpSample;
+    private int bdpSampleCount;
+    private double rttNanos;
+    private double maxBandwidth;
+
     public DefaultHttp2LocalFlowController(Http2Connection connection) {
         this(connection, DEFAULT_WINDOW_UPDATE_RATIO, false);
     }
@@ -98,7 +122,13 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
             public void onStreamActive(Http2Stream stream) {
                 // Need to be sure the stream's initial window is adjusted for SETTINGS
                 // frames which may have been exchanged while it was in IDLE
-                stream.setProperty(stateKey, new DefaultState(stream, initialWindowSize));
+                DefaultState state = new DefaultState(stream, initialWindowSize);
+                if (autoTunedStreamWindowSize > initialWindowSize) {
+                    // The window is expanded with the first WINDOW_UPDATE, which avoids sending a WINDOW_UPDATE for
+                    // a stream that we did not open yet.
+                    state.incrementInitialStreamWindow(autoTunedStreamWindowSize - initialWindowSize);
+                }
+                stream.setProperty(stateKey, state);
             }
 
             @Override
@@ -262,6 +292,104 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
         return state(stream).windowUpdateRatio();
     }
 
+    /**
+     * Enables auto-tuning of the flow control windows, which grows the windows of the streams and the connection to
+     * twice the bandwidth-delay product of the connection, up to the given maximums. The bandwidth-delay product is
+     * estimated from the number of bytes received during the round trip of a {@code PING} frame, which is sent when
+     * {@code DATA} is received and no such {@code PING} is in flight.
+     * <p>
+     * The windows are never shrunk, so this allows to use small initial windows on connections with low latency
+     * while still saturating connections with a high latency.
+     *
+     * @param maxStreamWindowSize the maximum size of the window of a stream.
+     * @param maxConnectionWindowSize the maximum size of the window of the connection.
+     */
+    public void windowAutoTuning(int maxStreamWindowSize, int maxConnectionWindowSize) {
+        assert ctx == null || ctx.executor().inEventLoop();
+        maxAutoTunedStreamWindowSize = checkInRange(maxStreamWindowSize, 1, MAX_INITIAL_WINDOW_SIZE,
+                "maxStreamWindowSize");
+        maxAutoTunedConnectionWindowSize = checkInRange(maxConnectionWindowSize, 1, MAX_INITIAL_WINDOW_SIZE,
+                "maxConnectionWindowSize");
+    }
+
+    /**
+     * Returns {@code true} if the flow control windows are auto-tuned, see {@link #windowAutoTuning(int, int)}.
+     */
+    public boolean isWindowAutoTuning() {
+        return maxAutoTunedStreamWindowSize != 0;
+    }
+
+    /**
+     * Called when a {@code PING} acknowledgement was received.
+     *
+     * @return {@code true} if the {@code PING} was sent by this controller, in which case it must not be passed to
+     * the application.
+     */
+    boolean pingAckReceived(long data) throws Http2Exception {
+        if (data != BDP_PING_DATA || !bdpPingPending) {
+            return false;
+        }
+        bdpPingPending = false;
+
+        double rttSample = max(1, System.nanoTime() - bdpPingSentNanos);
+        if (bdpSampleCount < BDP_RTT_WARM_UP_SAMPLES) {
+            rttNanos += (rttSample - rttNanos) / bdpSampleCount;
+        } else {
+            rttNanos += (rttSample - rttNanos) * BDP_RTT_SMOOTHING_FACTOR;
+        }
+
+        // The sample includes the bytes that were received during the round trip and half of one afterwards.
+        double bandwidth = bdpSample / (rttNanos * 1.5);
+        if (bandwidth <= maxBandwidth) {
+            return true;
+        }
+        maxBandwidth = bandwidth;
+        if (bdpSample >= BDP_GROWTH_THRESHOLD * bdp) {
+            // The window limited the throughput, so grow it.
+            bdp = (int) min(MAX_INITIAL_WINDOW_SIZE, BDP_WINDOW_MULTIPLIER * bdpSample);
+            autoTuneWindows();
+        }
+        return true;
+    }
+
+    private void autoTuneWindows() throws Http2Exception {
+        int streamWindowSize = min(bdp, maxAutoTunedStreamWindowSize);
+        if (streamWindowSize > autoTunedStreamWindowSize) {
+            autoTunedStreamWindowSize = streamWindowSize;
+            connection.forEachActiveStream(new Http2StreamVisitor() {
+                @Override
+                public boolean visit(Http2Stream stream) throws Http2Exception {
+                    growWindow(state(stream), autoTunedStreamWindowSize);
+                    return true;
+                }
+            });
+        }
+        growWindow(connectionState(), min(bdp, maxAutoTunedConnectionWindowSize));
+    }
+
+    private static void growWindow(FlowState state, int windowSize) throws Http2Exception {
+        int delta = windowSize - state.initialWindowSize();
+        if (delta > 0 && state != REDUCED_FLOW_STATE) {
+            state.incrementInitialStreamWindow(delta);
+            state.writeWindowUpdateIfNeeded();
+        }
+    }
+
+    private void sampleBdp(int dataLength) {
+        if (!bdpPingPending) {
+            if (bdp >= maxAutoTunedStreamWindowSize && bdp >= maxAutoTunedConnectionWindowSize) {
+                // The windows reached their maximum, so there is no need to measure anymore.
+                return;
+            }
+            bdpPingPending = true;
+            bdpPingSentNanos = System.nanoTime();
+            bdpSample = 0;
+            bdpSampleCount++;
+            frameWriter.writePing(ctx, false, BDP_PING_DATA, ctx.newPromise());
+        }
+        bdpSample += dataLength;
+    }
+
     @Override
     public void receiveFlowControlledFrame(Http2Stream stream, ByteBuf data, int padding,
             boolean endOfStream) throws Http2Exception {
@@ -271,6 +399,9 @@ public class DefaultHttp2LocalFlowController implements Http2LocalFlowController
         // Apply the connection-level flow control
         FlowState connectionState = connectionState();
         connectionState.receiveFlowControlledFrame(dataLength);
+        if (maxAutoTunedStreamWindowSize != 0 && dataLength > 0) {
+            sampleBdp(dataLength);
+        }
 
         if (stream != null && !isClosed(stream)) {
             // Apply the stream-level flow control
@@ -188,6 +188,13 @@ public class DefaultHttp2RemoteFlowController implements Http2RemoteFlowControll
         streamByteDistributor.updateDependencyTree(childStreamId, parentStreamId, weight, exclusive);
     }
 
+    /**
+     * Returns the {@link StreamByteDistributor} that allocates the connection window to the streams.
+     */
+    StreamByteDistributor streamByteDistributor() {
+        return streamByteDistributor;
+    }
+
     private boolean isChannelWritable() {
         return ctx != null && isChannelWritable0();
     }
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.streamableBytes;
+import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
+import static io.netty.handler.codec.http2.Http2Exception.connectionError;
+import static io.netty.handler.codec.http2.Http2ExtensiblePriority.MAX_URGENCY;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static java.lang.Math.min;
+
+/**
+ * A {@link StreamByteDistributor} that implements the extensible priority scheme of
+ * <a href="https://www.rfc-editor.org/rfc/rfc9218.html">RFC 9218</a>, which browsers use instead of the deprecated
+ * dependency tree of RFC 7540.
+ *
+ * <p>Streams are served strictly by urgency, so that a stream of urgency {@code u=0} gets all bytes before any stream
+ * of urgency {@code u=1} is allowed to write. Within an urgency, the non-incremental streams are served one at a
+ * time in the order of their stream ids, followed by the incremental streams, which are served in round-robin order
+ * with a {@link #quantum(int) quantum} of bytes per turn.
+ *
+ * <p>The priorities are updated by {@link #updatePriority(int, Http2ExtensiblePriority)}, which
+ * {@link DefaultHttp2ConnectionDecoder} calls for the {@code priority} request header and for
+ * {@code PRIORITY_UPDATE} frames. The RFC 7540 dependency tree is ignored.
+ */
+@UnstableApi
+public final class ExtensiblePriorityStreamByteDistributor implements StreamByteDistributor {
+    private final Http2Connection connection;
+    private final Http2Connection.PropertyKey stateKey;
+    // One queue of non-incremental and one of incremental streams per urgency, in the order they are served.
+    private final Queue[] queues = new Queue[(MAX_URGENCY + 1) * 2];
+    // States of removed streams, linked via State.next, which are reused for new streams.
+    private State free;
+
+    /**
+     * The maximum number of bytes that an incremental stream may write in its turn.
+     */
+    private int quantum = DEFAULT_MAX_FRAME_SIZE;
+    private long totalStreamableBytes;
+
+    public ExtensiblePriorityStreamByteDistributor(Http2Connection connection) {
+        this.connection = checkNotNull(connection, "connection");
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new Queue((i & 1) != 0);
+        }
+
+        // Add a state for the connection.
+        stateKey = connection.newKey();
+        Http2Stream connectionStream = connection.connectionStream();
+        connectionStream.setProperty(stateKey, newState(connectionStream));
+
+        // Register for notification of new streams.
+        connection.addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamAdded(Http2Stream stream) {
+                stream.setProperty(stateKey, newState(stream));
+            }
+
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                State state = state(stream);
+                if (state != null) {
+                    state.close();
+                }
+            }
+
+            @Override
+            public void onStreamRemoved(Http2Stream stream) {
+                State state = stream.removeProperty(stateKey);
+                if (state != null) {
+                    state.close();
+                    state.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the maximum number of bytes that an incremental stream may write in its turn. Defaults to 16KiB, which
+     * is the default {@code SETTINGS_MAX_FRAME_SIZE}.
+     *
+     * @param quantum the maximum number of bytes that a stream may write in its turn. Must be > 0.
+     */
+    public void quantum(int quantum) {
+        this.quantum = checkPositive(quantum, "quantum");
+    }
+
+    /**
+     * Updates the priority of a stream. Updates for streams that do not exist (anymore) are ignored.
+     *
+     * @param streamId the id of the stream.
+     * @param priority the new priority of the stream.
+     */
+    public void updatePriority(int streamId, Http2ExtensiblePriority priority) {
+        checkNotNull(priority, "priority");
+        Http2Stream stream = connection.stream(streamId);
+        if (stream != null) {
+            State state = state(stream);
+            if (state != null) {
+                state.updatePriority(priority);
+            }
+        }
+    }
+
+    /**
+     * Returns the priority of the stream with the given id, or {@code null} if the stream does not exist.
+     */
+    public Http2ExtensiblePriority priority(int streamId) {
+        Http2Stream stream = connection.stream(streamId);
+        State state = stream == null ? null : state(stream);
+        return state == null ? null : state.priority;
+    }
+
+    @Override
+    public void updateStreamableBytes(StreamState streamState) {
+        State state = state(streamState.stream());
+        if (state != null) {
+            state.updateStreamableBytes(streamableBytes(streamState), streamState.hasFrame(),
+                                        streamState.windowSize());
+        }
+    }
+
+    @Override
+    public void updateDependencyTree(int childStreamId, int parentStreamId, short weight, boolean exclusive) {
+        // RFC 9218 replaces the dependency tree, see updatePriority.
+    }
+
+    @Override
+    public boolean distribute(int maxBytes, Writer writer) throws Http2Exception {
+        for (Queue queue : queues) {
+            State state;
+            while ((state = queue.head) != null) {
+                if (maxBytes == 0 && state.streamableBytes > 0) {
+                    // Stop at the first state that can't send. It stays at the head of its queue, so that it
+                    // continues on the next call. Note that empty frames at the head of a queue will always be
+                    // written.
+                    return totalStreamableBytes > 0;
+                }
+                queue.unlink(state);
+
+                // A non-incremental stream writes as much as it can, an incremental one as much as its turn allows.
+                int chunk = min(maxBytes, state.streamableBytes);
+                if (queue.incremental) {
+                    chunk = min(quantum - state.allocated, chunk);
+                }
+                maxBytes -= chunk;
+                state.allocated += chunk;
+
+                // Write the allocated bytes, which re-enqueues the state if it has more to write.
+                state.write(chunk, writer);
+
+                if (queue.incremental && maxBytes == 0 && state.queue == queue && state.allocated < quantum) {
+                    // The connection window ended the turn early, continue it first the next time.
+                    queue.unlink(state);
+                    queue.linkFirst(state);
+                } else {
+                    state.allocated = 0;
+                }
+            }
+        }
+
+        return totalStreamableBytes > 0;
+    }
+
+    private State state(Http2Stream stream) {
+        return checkNotNull(stream, "stream").getProperty(stateKey);
+    }
+
+    private State newState(Http2Stream stream) {
+        State state = free;
+        if (state == null) {
+            return new State(stream);
+        }
+        free = state.next;
+        state.next = null;
+        state.stream = stream;
+        return state;
+    }
+
+    private Queue queue(Http2ExtensiblePriority priority) {
+        return queues[(priority.urgency() << 1) | (priority.isIncremental() ? 1 : 0)];
+    }
+
+    /**
+     * An intrusive doubly linked list of the streams of one urgency and incremental flag.
+     */
+    private static final class Queue {
+        final boolean incremental;
+        State head;
+        State tail;
+
+        Queue(boolean incremental) {
+            this.incremental = incremental;
+        }
+
+        void link(State state) {
+            if (incremental) {
+                linkLast(state);
+                return;
+            }
+            // Non-incremental streams are served in the order of their ids. Streams are usually created in that
+            // order, so search from the tail.
+            State prev = tail;
+            int streamId = state.stream.id();
+            while (prev != null && prev.stream.id() > streamId) {
+                prev = prev.prev;
+            }
+            if (prev == null) {
+                linkFirst(state);
+            } else {
+                state.queue = this;
+                state.prev = prev;
+                state.next = prev.next;
+                if (prev.next == null) {
+                    tail = state;
+                } else {
+                    prev.next.prev = state;
+                }
+                prev.next = state;
+            }
+        }
+
+        void linkLast(State state) {
+            state.queue = this;
+            state.prev = tail;
+            if (tail == null) {
+                head = state;
+            } else {
+                tail.next = state;
+            }
+            tail = state;
+        }
+
+        void linkFirst(State state) {
+            state.queue = this;
+            state.next = head;
+            if (head == null) {
+                tail = state;
+            } else {
+                head.prev = state;
+            }
+            head = state;
+        }
+
+        void unlink(State state) {
+            if (state.prev == null) {
+                head = state.next;
+            } else {
+                state.prev.next = state.next;
+            }
+            if (state.next == null) {
+                tail = state.prev;
+            } else {
+                state.next.prev = state.prev;
+            }
+            state.prev = null;
+            state.next = null;
+            state.queue = null;
+        }
+    }
+
+    /**
+     * The remote flow control state for a single stream.
+     */
+    private final class State {
+        Http2Stream stream;
+        Http2ExtensiblePriority priority = Http2ExtensiblePriority.DEFAULT;
+        // The queue this state is enqueued in, or null.
+        Queue queue;
+        State prev;
+        State next;
+        int streamableBytes;
+        // The number of bytes written in the current turn of an incremental stream.
+        int allocated;
+        boolean writing;
+
+        State(Http2Stream stream) {
+            this.stream = stream;
+        }
+
+        void updatePriority(Http2ExtensiblePriority newPriority) {
+            if (priority != newPriority) {
+                priority = newPriority;
+                allocated = 0;
+                if (queue != null) {
+                    queue.unlink(this);
+                    queue(newPriority).link(this);
+                }
+            }
+        }
+
+        void updateStreamableBytes(int newStreamableBytes, boolean hasFrame, int windowSize) {
+            assert hasFrame || newStreamableBytes == 0 :
+                "hasFrame: " + hasFrame + " newStreamableBytes: " + newStreamableBytes;
+
+            int delta = newStreamableBytes - streamableBytes;
+            if (delta != 0) {
+                streamableBytes = newStreamableBytes;
+                totalStreamableBytes += delta;
+            }
+            if (windowSize < 0) {
+                // Never allow a stream with a negative window to write, removal is cheap.
+                unlink();
+                allocated = 0;
+            } else if (hasFrame && (windowSize > 0 || windowSize == 0 && !writing) && queue == null) {
+                // If the window is zero only enqueue if we are not writing. If we are writing that means we gave the
+                // state a chance to write zero length frames. We wait until updateStreamableBytes is called again
+                // before this state is allowed to write.
+                queue(priority).link(this);
+            }
+        }
+
+        /**
+         * Write any allocated bytes for the given stream and updates the streamable bytes,
+         * assuming all of the bytes will be written.
+         */
+        void write(int numBytes, Writer writer) throws Http2Exception {
+            writing = true;
+            try {
+                // Write the allocated bytes.
+                writer.write(stream, numBytes);
+            } catch (Throwable t) {
+                throw connectionError(INTERNAL_ERROR, t, "byte distribution write error");
+            } finally {
+                writing = false;
+            }
+        }
+
+        void unlink() {
+            if (queue != null) {
+                queue.unlink(this);
+            }
+        }
+
+        void close() {
+            // Remove this state from its queue.
+            unlink();
+
+            // Clear the streamable bytes.
+            updateStreamableBytes(0, false, 0);
+        }
+
+        /**
+         * Returns this state to the free list once its stream was removed from the connection.
+         */
+        void release() {
+            assert queue == null;
+            stream = null;
+            priority = Http2ExtensiblePriority.DEFAULT;
+            allocated = 0;
+            next = free;
+            free = this;
+        }
+    }
+}
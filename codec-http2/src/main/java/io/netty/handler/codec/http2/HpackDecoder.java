@@ -35,6 +35,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpHeaderValidationUtil;
 import io.netty.handler.codec.http2.HpackUtil.IndexType;
 import io.netty.util.AsciiString;
+import io.netty.util.internal.SystemPropertyUtil;
 
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
 import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_LIST_SIZE;
@@ -88,7 +89,13 @@ final class HpackDecoder {
     private static final byte READ_LITERAL_HEADER_VALUE_LENGTH = 7;
     private static final byte READ_LITERAL_HEADER_VALUE = 8;
 
-    private final HpackHuffmanDecoder huffmanDecoder = new HpackHuffmanDecoder();
+    private static final boolean TABLE_HUFFMAN_DECODER =
+            SystemPropertyUtil.getBoolean("io.netty.http2.hpackTableHuffmanDecoder", false);
+
+    // Exactly one of them is not null.
+    private final HpackHuffmanDecoder huffmanDecoder;
+    private final HpackHuffmanTableDecoder huffmanTableDecoder;
+    private final HpackHuffmanCache huffmanCache;
     private final HpackDynamicTable hpackDynamicTable;
     private long maxHeaderListSize;
     private long maxDynamicTableSize;
@@ -111,6 +118,30 @@ final class HpackDecoder {
      * for testing but violate the RFC if used outside the scope of testing.
      */
     HpackDecoder(long maxHeaderListSize, int maxHeaderTableSize) {
+        this(maxHeaderListSize, maxHeaderTableSize, HpackHuffmanCache.shared());
+    }
+
+    /**
+     * Exposed Used for testing only! Uses the given {@link HpackHuffmanCache} instead of the process-wide one.
+     */
+    HpackDecoder(long maxHeaderListSize, int maxHeaderTableSize, HpackHuffmanCache huffmanCache) {
+        this(maxHeaderListSize, maxHeaderTableSize, huffmanCache, TABLE_HUFFMAN_DECODER);
+    }
+
+    /**
+     * Exposed Used for testing only! Uses the {@link HpackHuffmanTableDecoder} instead of the
+     * {@link HpackHuffmanDecoder} if {@code tableHuffmanDecoder} is {@code true}.
+     */
+    HpackDecoder(long maxHeaderListSize, int maxHeaderTableSize, HpackHuffmanCache huffmanCache,
+                 boolean tableHuffmanDecoder) {
+        this.huffmanCache = huffmanCache;
+        if (tableHuffmanDecoder) {
+            huffmanDecoder = null;
+            huffmanTableDecoder = HpackHuffmanTableDecoder.INSTANCE;
+        } else {
+            huffmanDecoder = new HpackHuffmanDecoder();
+            huffmanTableDecoder = null;
+        }
         this.maxHeaderListSize = checkPositive(maxHeaderListSize, "maxHeaderListSize");
 
         maxDynamicTableSize = encoderMaxDynamicTableSize = maxHeaderTableSize;
@@ -262,7 +293,7 @@ final class HpackDecoder {
                         throw notEnoughDataException(in);
                     }
 
-                    name = readStringLiteral(in, nameLength, huffmanEncoded);
+                    name = readName(in, nameLength, huffmanEncoded);
 
                     state = READ_LITERAL_HEADER_VALUE_LENGTH_PREFIX;
                     break;
@@ -299,7 +330,8 @@ final class HpackDecoder {
                         throw notEnoughDataException(in);
                     }
 
-                    AsciiString value = readStringLiteral(in, valueLength, huffmanEncoded);
+                    AsciiString value = readStringLiteral(in, valueLength, huffmanEncoded,
+                            isValueCacheable(name, indexType));
                     insertHeader(sink, name, value, indexType);
                     state = READ_HEADER_REPRESENTATION;
                     break;
@@ -447,15 +479,50 @@ final class HpackDecoder {
         }
     }
 
-    private AsciiString readStringLiteral(ByteBuf in, int length, boolean huffmanEncoded) throws Http2Exception {
+    private boolean isValueCacheable(AsciiString name, IndexType indexType) {
+        // Never share sensitive values with other connections.
+        return huffmanCache != null && indexType != IndexType.NEVER && huffmanCache.isCacheable(name);
+    }
+
+    private AsciiString readName(ByteBuf in, int length, boolean huffmanEncoded) throws Http2Exception {
+        if (huffmanCache == null || !huffmanEncoded) {
+            return readStringLiteral(in, length, huffmanEncoded, false);
+        }
+        AsciiString name = huffmanCache.getDecoded(in, length);
+        if (name == null) {
+            int readerIndex = in.readerIndex();
+            name = decodeHuffman(in, length);
+            // Only names on the allow-list are shared, so a hit never reveals any other name.
+            if (huffmanCache.isCacheable(name)) {
+                huffmanCache.putDecoded(in, readerIndex, length, name);
+            }
+        }
+        return name;
+    }
+
+    private AsciiString readStringLiteral(ByteBuf in, int length, boolean huffmanEncoded, boolean cacheable)
+            throws Http2Exception {
         if (huffmanEncoded) {
-            return huffmanDecoder.decode(in, length);
+            if (!cacheable) {
+                return decodeHuffman(in, length);
+            }
+            AsciiString value = huffmanCache.getDecoded(in, length);
+            if (value == null) {
+                int readerIndex = in.readerIndex();
+                value = decodeHuffman(in, length);
+                huffmanCache.putDecoded(in, readerIndex, length, value);
+            }
+            return value;
         }
         byte[] buf = new byte[length];
         in.readBytes(buf);
         return new AsciiString(buf, false);
     }
 
+    private AsciiString decodeHuffman(ByteBuf in, int length) throws Http2Exception {
+        return huffmanDecoder != null ? huffmanDecoder.decode(in, length) : huffmanTableDecoder.decode(in, length);
+    }
+
     private static IllegalArgumentException notEnoughDataException(ByteBuf in) {
         return new IllegalArgumentException("decode only works with an entire header block! " + in);
     }
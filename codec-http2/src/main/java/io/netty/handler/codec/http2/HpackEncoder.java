@@ -75,6 +75,7 @@ final class HpackEncoder {
     private NameValueEntry latest = head;
 
     private final HpackHuffmanEncoder hpackHuffmanEncoder = new HpackHuffmanEncoder();
+    private final HpackHuffmanCache huffmanCache;
     private final byte hashMask;
     private final boolean ignoreMaxHeaderListSize;
     private final int huffCodeThreshold;
@@ -100,6 +101,15 @@ final class HpackEncoder {
      * Creates a new encoder.
      */
     HpackEncoder(boolean ignoreMaxHeaderListSize, int arraySizeHint, int huffCodeThreshold) {
+        this(ignoreMaxHeaderListSize, arraySizeHint, huffCodeThreshold, HpackHuffmanCache.shared());
+    }
+
+    /**
+     * Creates a new encoder that uses the given {@link HpackHuffmanCache}, which may be {@code null}.
+     */
+    HpackEncoder(boolean ignoreMaxHeaderListSize, int arraySizeHint, int huffCodeThreshold,
+                 HpackHuffmanCache huffmanCache) {
+        this.huffmanCache = huffmanCache;
         this.ignoreMaxHeaderListSize = ignoreMaxHeaderListSize;
         maxHeaderTableSize = DEFAULT_HEADER_TABLE_SIZE;
         maxHeaderListSize = MAX_HEADER_LIST_SIZE;
@@ -118,13 +128,38 @@ final class HpackEncoder {
      */
     public void encodeHeaders(int streamId, ByteBuf out, Http2Headers headers, SensitivityDetector sensitivityDetector)
       throws Http2Exception {
-        if (ignoreMaxHeaderListSize) {
+        if (headers instanceof Http2PreEncodedHeaders) {
+            encodePreEncodedHeaders(streamId, out, (Http2PreEncodedHeaders) headers, sensitivityDetector);
+        } else if (ignoreMaxHeaderListSize) {
             encodeHeadersIgnoreMaxHeaderListSize(out, headers, sensitivityDetector);
         } else {
             encodeHeadersEnforceMaxHeaderListSize(streamId, out, headers, sensitivityDetector);
         }
     }
 
+    /**
+     * Copies the block of the {@link Http2PreEncodedHeaders} and encodes the headers that follow it. The block does
+     * not use the dynamic table, so it is valid regardless of the state of this encoder.
+     */
+    private void encodePreEncodedHeaders(int streamId, ByteBuf out, Http2PreEncodedHeaders headers,
+                                         SensitivityDetector sensitivityDetector) throws Http2Exception {
+        Http2Headers additionalHeaders = headers.additionalHeaders();
+        if (!ignoreMaxHeaderListSize) {
+            long headerSize = headers.encodedHeaderListSize();
+            if (headerSize > maxHeaderListSize) {
+                headerListSizeExceeded(streamId, maxHeaderListSize, false);
+            }
+            for (Map.Entry<CharSequence, CharSequence> header : additionalHeaders) {
+                headerSize += HpackHeaderField.sizeOf(header.getKey(), header.getValue());
+                if (headerSize > maxHeaderListSize) {
+                    headerListSizeExceeded(streamId, maxHeaderListSize, false);
+                }
+            }
+        }
+        headers.writeEncodedHeaders(out);
+        encodeHeadersIgnoreMaxHeaderListSize(out, additionalHeaders, sensitivityDetector);
+    }
+
     private void encodeHeadersEnforceMaxHeaderListSize(int streamId, ByteBuf out, Http2Headers headers,
                                                        SensitivityDetector sensitivityDetector)
       throws Http2Exception {
@@ -292,24 +327,34 @@ final class HpackEncoder {
     /**
      * Encode string literal according to Section 5.2.
      */
-    private void encodeStringLiteral(ByteBuf out, CharSequence string) {
-        int huffmanLength;
-        if (string.length() >= huffCodeThreshold
-          && (huffmanLength = hpackHuffmanEncoder.getEncodedLength(string)) < string.length()) {
-            encodeInteger(out, 0x80, 7, huffmanLength);
-            hpackHuffmanEncoder.encode(out, string);
-        } else {
-            encodeInteger(out, 0x00, 7, string.length());
-            if (string instanceof AsciiString) {
-                // Fast-path
-                AsciiString asciiString = (AsciiString) string;
-                out.writeBytes(asciiString.array(), asciiString.arrayOffset(), asciiString.length());
+    private void encodeStringLiteral(ByteBuf out, CharSequence string, boolean cacheable) {
+        if (string.length() >= huffCodeThreshold) {
+            if (cacheable && huffmanCache != null && string.length() <= huffmanCache.maxLength()) {
+                byte[] huffman = huffmanCache.encode(hpackHuffmanEncoder, string);
+                if (huffman != null) {
+                    encodeInteger(out, 0x80, 7, huffman.length);
+                    out.writeBytes(huffman);
+                    return;
+                }
             } else {
-                // Only ASCII is allowed in http2 headers, so its fine to use this.
-                // https://tools.ietf.org/html/rfc7540#section-8.1.2
-                out.writeCharSequence(string, CharsetUtil.ISO_8859_1);
+                int huffmanLength = hpackHuffmanEncoder.getEncodedLength(string);
+                if (huffmanLength < string.length()) {
+                    encodeInteger(out, 0x80, 7, huffmanLength);
+                    hpackHuffmanEncoder.encode(out, string);
+                    return;
+                }
             }
         }
+        encodeInteger(out, 0x00, 7, string.length());
+        if (string instanceof AsciiString) {
+            // Fast-path
+            AsciiString asciiString = (AsciiString) string;
+            out.writeBytes(asciiString.array(), asciiString.arrayOffset(), asciiString.length());
+        } else {
+            // Only ASCII is allowed in http2 headers, so its fine to use this.
+            // https://tools.ietf.org/html/rfc7540#section-8.1.2
+            out.writeCharSequence(string, CharsetUtil.ISO_8859_1);
+        }
     }
 
     /**
@@ -331,10 +376,12 @@ final class HpackEncoder {
             default:
                 throw new Error("should not reach here");
         }
+        boolean cacheable = huffmanCache != null && huffmanCache.isCacheable(name);
         if (!nameIndexValid) {
-            encodeStringLiteral(out, name);
+            encodeStringLiteral(out, name, cacheable);
         }
-        encodeStringLiteral(out, value);
+        // Sensitive values are never shared with the process-wide cache.
+        encodeStringLiteral(out, value, cacheable && indexType != IndexType.NEVER);
     }
 
     private int getNameIndex(CharSequence name) {
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * A process-wide cache of the Huffman encoded and decoded forms of short header strings, which is shared by the
+ * {@link HpackEncoder}s and {@link HpackDecoder}s of all connections. Values like {@code user-agent},
+ * {@code content-type} or {@code :path} tend to repeat across thousands of connections, but the dynamic table of a
+ * single connection only avoids decoding them again on that connection.
+ *
+ * <p>Both directions use a direct-mapped table of immutable entries, so lookups never lock and a string simply
+ * replaces a colliding one.
+ *
+ * <p>Because the cache is shared, the time it takes to process a string reveals whether any other connection sent
+ * the same string recently. When connections of different tenants share a process, a peer could use this to probe
+ * for header names and values that other tenants send. To limit what can be learned, only header names on an
+ * allow-list and the values of these headers are cached, and {@link HpackUtil.IndexType#NEVER never indexed}
+ * values are not cached at all. The allow-list is set with {@code io.netty.http2.hpackHuffmanCacheHeaders} as a
+ * comma separated list of header names and defaults to a few well-known headers that do not carry secrets. Never add
+ * headers like {@code authorization}, {@code cookie} or {@code :path}, whose values may contain credentials.
+ *
+ * <p>The cache is disabled by default and enabled by setting {@code io.netty.http2.hpackHuffmanCacheSize} to the
+ * number of entries per direction. Only strings up to {@code io.netty.http2.hpackHuffmanCacheMaxLength} bytes are
+ * cached.
+ */
+final class HpackHuffmanCache {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(HpackHuffmanCache.class);
+
+    private static final String DEFAULT_CACHEABLE_HEADERS = "accept,accept-encoding,accept-language,accept-ranges," +
+            "cache-control,content-encoding,content-type,pragma,server,te,user-agent,vary";
+
+    private static final HpackHuffmanCache SHARED;
+
+    static {
+        int size = SystemPropertyUtil.getInt("io.netty.http2.hpackHuffmanCacheSize", 0);
+        int maxLength = SystemPropertyUtil.getInt("io.netty.http2.hpackHuffmanCacheMaxLength", 64);
+        String headers = SystemPropertyUtil.get("io.netty.http2.hpackHuffmanCacheHeaders", DEFAULT_CACHEABLE_HEADERS);
+        SHARED = size > 0 && maxLength > 0 ? new HpackHuffmanCache(size, maxLength, headers.split(",")) : null;
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.http2.hpackHuffmanCacheSize: {}", size);
+            logger.debug("-Dio.netty.http2.hpackHuffmanCacheMaxLength: {}", maxLength);
+            logger.debug("-Dio.netty.http2.hpackHuffmanCacheHeaders: {}", headers);
+        }
+    }
+
+    /**
+     * Returns the process-wide cache, or {@code null} if it is disabled.
+     */
+    static HpackHuffmanCache shared() {
+        return SHARED;
+    }
+
+    private final DecodedEntry[] decoded;
+    private final EncodedEntry[] encoded;
+    private final int mask;
+    private final int maxLength;
+    private final AsciiString[] cacheableNames;
+
+    HpackHuffmanCache(int size, int maxLength) {
+        this(size, maxLength, DEFAULT_CACHEABLE_HEADERS.split(","));
+    }
+
+    HpackHuffmanCache(int size, int maxLength, String... cacheableNames) {
+        int tableSize = findNextPositivePowerOfTwo(checkPositive(size, "size"));
+        decoded = new DecodedEntry[tableSize];
+        encoded = new EncodedEntry[tableSize];
+        mask = tableSize - 1;
+        this.maxLength = checkPositive(maxLength, "maxLength");
+        List<AsciiString> names = new ArrayList<AsciiString>(cacheableNames.length);
+        for (String name : cacheableNames) {
+            name = name.trim();
+            if (!name.isEmpty()) {
+                names.add(AsciiString.of(name).toLowerCase());
+            }
+        }
+        this.cacheableNames = names.toArray(new AsciiString[0]);
+    }
+
+    /**
+     * Returns {@code true} if the name and the values of a header with the given name may be cached.
+     */
+    boolean isCacheable(CharSequence name) {
+        for (AsciiString cacheableName : cacheableNames) {
+            if (cacheableName.contentEquals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cached decoded form of the {@code length} Huffman encoded bytes at the reader index of {@code in}
+     * and skips them, or {@code null} if there is none.
+     */
+    AsciiString getDecoded(ByteBuf in, int length) {
+        if (length > maxLength) {
+            return null;
+        }
+        int readerIndex = in.readerIndex();
+        int hash = hash(in, readerIndex, length);
+        DecodedEntry entry = decoded[hash & mask];
+        if (entry != null && entry.hash == hash && entry.matches(in, readerIndex, length)) {
+            in.skipBytes(length);
+            return entry.value;
+        }
+        return null;
+    }
+
+    /**
+     * Caches {@code value} as the decoded form of the {@code length} Huffman encoded bytes at {@code index} of
+     * {@code in}.
+     */
+    void putDecoded(ByteBuf in, int index, int length, AsciiString value) {
+        if (length > maxLength) {
+            return;
+        }
+        int hash = hash(in, index, length);
+        byte[] bytes = new byte[length];
+        in.getBytes(index, bytes);
+        decoded[hash & mask] = new DecodedEntry(hash, bytes, value);
+    }
+
+    /**
+     * Returns the Huffman encoded form of {@code string}, or {@code null} if it is not shorter than {@code string}
+     * itself.
+     */
+    byte[] encode(HpackHuffmanEncoder encoder, CharSequence string) {
+        int hash = AsciiString.hashCode(string);
+        int slot = hash & mask;
+        EncodedEntry entry = encoded[slot];
+        if (entry != null && entry.hash == hash && AsciiString.contentEquals(entry.string, string)) {
+            return entry.encoded;
+        }
+        byte[] bytes = null;
+        int huffmanLength = encoder.getEncodedLength(string);
+        if (huffmanLength < string.length()) {
+            bytes = new byte[huffmanLength];
+            encoder.encode(Unpooled.wrappedBuffer(bytes).clear(), string);
+        }
+        encoded[slot] = new EncodedEntry(hash, AsciiString.of(string), bytes);
+        return bytes;
+    }
+
+    int maxLength() {
+        return maxLength;
+    }
+
+    private static int hash(ByteBuf in, int index, int length) {
+        int hash = 0;
+        for (int i = index; i < index + length; i++) {
+            hash = 31 * hash + in.getByte(i);
+        }
+        return hash;
+    }
+
+    private static final class DecodedEntry {
+        final int hash;
+        final byte[] bytes;
+        final AsciiString value;
+
+        DecodedEntry(int hash, byte[] bytes, AsciiString value) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        boolean matches(ByteBuf in, int index, int length) {
+            if (bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != in.getByte(index + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class EncodedEntry {
+        final int hash;
+        final AsciiString string;
+        final byte[] encoded;
+
+        EncodedEntry(int hash, AsciiString string, byte[] encoded) {
+            this.hash = hash;
+            this.string = string;
+            this.encoded = encoded;
+        }
+    }
+}
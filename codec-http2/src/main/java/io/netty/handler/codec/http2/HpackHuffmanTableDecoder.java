@@ -0,0 +1,190 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AsciiString;
+
+import static io.netty.handler.codec.http2.Http2Error.COMPRESSION_ERROR;
+import static io.netty.handler.codec.http2.HpackUtil.HUFFMAN_CODES;
+import static io.netty.handler.codec.http2.HpackUtil.HUFFMAN_CODE_LENGTHS;
+import static io.netty.handler.codec.http2.HpackUtil.HUFFMAN_EOS;
+
+/**
+ * A table driven alternative to {@link HpackHuffmanDecoder} which decodes a whole symbol per lookup instead of
+ * walking a state machine four bits at a time.
+ *
+ * <p>Input bits are collected in a {@code long} accumulator. The next {@value #LOOKUP_BITS} bits index a table that
+ * holds the symbol and code length of every code of up to {@value #LOOKUP_BITS} bits, which covers all printable
+ * ASCII characters except {@code #$<>@[\]^`{}~}. The rare longer codes are decoded by exploiting that the HPACK
+ * Huffman code is canonical, so the codes of each length form a contiguous range of values.
+ *
+ * <p>This class is stateless and thread-safe.
+ */
+final class HpackHuffmanTableDecoder {
+
+    private static final Http2Exception BAD_ENCODING =
+            Http2Exception.newStatic(COMPRESSION_ERROR, "HPACK - Bad Encoding",
+                    Http2Exception.ShutdownHint.HARD_SHUTDOWN, HpackHuffmanTableDecoder.class, "decode(..)");
+
+    static final HpackHuffmanTableDecoder INSTANCE = new HpackHuffmanTableDecoder();
+
+    private static final int LOOKUP_BITS = 12;
+    private static final int LOOKUP_MASK = (1 << LOOKUP_BITS) - 1;
+    private static final int MAX_CODE_LENGTH = 30;
+    // The accumulator is only refilled while it holds at most this many bits, so a byte always fits.
+    private static final int MAX_BUFFERED_BITS = Long.SIZE - Byte.SIZE;
+
+    /**
+     * {@code (codeLength << 8) | symbol} of the code that prefixes the index, or {@code 0} if that code is longer
+     * than {@link #LOOKUP_BITS}.
+     */
+    private static final short[] LOOKUP = new short[1 << LOOKUP_BITS];
+    /**
+     * The value of the first code of each length.
+     */
+    private static final int[] FIRST_CODE = new int[MAX_CODE_LENGTH + 1];
+    /**
+     * The number of codes of each length.
+     */
+    private static final int[] CODE_COUNT = new int[MAX_CODE_LENGTH + 1];
+    /**
+     * The index into {@link #SYMBOLS} of the symbol of the first code of each length.
+     */
+    private static final int[] FIRST_SYMBOL = new int[MAX_CODE_LENGTH + 1];
+    /**
+     * All symbols, ordered by code length and then by symbol, which is also the order of their codes.
+     */
+    private static final short[] SYMBOLS = new short[HUFFMAN_CODE_LENGTHS.length];
+
+    static {
+        for (int symbol = 0; symbol < HUFFMAN_CODE_LENGTHS.length; symbol++) {
+            int length = HUFFMAN_CODE_LENGTHS[symbol];
+            CODE_COUNT[length]++;
+            if (length <= LOOKUP_BITS) {
+                int shift = LOOKUP_BITS - length;
+                int first = HUFFMAN_CODES[symbol] << shift;
+                for (int i = 0; i < 1 << shift; i++) {
+                    LOOKUP[first + i] = (short) ((length << 8) | symbol);
+                }
+            }
+        }
+        int code = 0;
+        int index = 0;
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            FIRST_CODE[length] = code;
+            FIRST_SYMBOL[length] = index;
+            code = (code + CODE_COUNT[length]) << 1;
+            index += CODE_COUNT[length];
+        }
+        int[] next = FIRST_SYMBOL.clone();
+        for (int symbol = 0; symbol < HUFFMAN_CODE_LENGTHS.length; symbol++) {
+            int length = HUFFMAN_CODE_LENGTHS[symbol];
+            // Validates that the code is canonical, which the decoding of long codes relies on.
+            assert HUFFMAN_CODES[symbol] == FIRST_CODE[length] + next[length] - FIRST_SYMBOL[length];
+            SYMBOLS[next[length]++] = (short) symbol;
+        }
+    }
+
+    private HpackHuffmanTableDecoder() { }
+
+    /**
+     * Decompresses the given Huffman coded string literal.
+     *
+     * @param buf the string literal to be decoded
+     * @return the output stream for the compressed data
+     * @throws Http2Exception EOS Decoded
+     */
+    public AsciiString decode(ByteBuf buf, int length) throws Http2Exception {
+        if (length == 0) {
+            return AsciiString.EMPTY_STRING;
+        }
+        byte[] dest = new byte[length * 8 / 5];
+        int k = 0;
+        int index = buf.readerIndex();
+        int endIndex = index + length;
+        long bits = 0;
+        int bitCount = 0;
+        for (;;) {
+            while (bitCount <= MAX_BUFFERED_BITS && index < endIndex) {
+                if (bitCount <= Integer.SIZE && endIndex - index >= 4) {
+                    bits = (bits << Integer.SIZE) | (buf.getInt(index) & 0xFFFFFFFFL);
+                    index += 4;
+                    bitCount += Integer.SIZE;
+                } else {
+                    bits = (bits << Byte.SIZE) | (buf.getByte(index++) & 0xFF);
+                    bitCount += Byte.SIZE;
+                }
+            }
+            // Unless the input is exhausted there are now more bits buffered than the longest code has, so a code
+            // that does not fit into the remaining bits can only be padding.
+            if (bitCount == 0) {
+                break;
+            }
+            int peek;
+            if (bitCount >= LOOKUP_BITS) {
+                peek = (int) (bits >>> (bitCount - LOOKUP_BITS)) & LOOKUP_MASK;
+            } else {
+                // Fill up with ones, which is the prefix of EOS and so never completes a short code.
+                int missing = LOOKUP_BITS - bitCount;
+                peek = ((int) (bits << missing) & LOOKUP_MASK) | ((1 << missing) - 1);
+            }
+            int entry = LOOKUP[peek];
+            if (entry != 0) {
+                int codeLength = entry >>> 8;
+                if (codeLength > bitCount) {
+                    break;
+                }
+                dest[k++] = (byte) entry;
+                bitCount -= codeLength;
+                continue;
+            }
+            int symbol = decodeLongCode(bits, bitCount);
+            if (symbol < 0) {
+                break;
+            }
+            if (symbol == HUFFMAN_EOS) {
+                buf.readerIndex(index);
+                throw BAD_ENCODING;
+            }
+            dest[k++] = (byte) symbol;
+            bitCount -= HUFFMAN_CODE_LENGTHS[symbol];
+        }
+        buf.readerIndex(endIndex);
+        // The remaining bits must be a prefix of EOS which is shorter than a byte.
+        long padding = (1L << bitCount) - 1;
+        if (bitCount >= Byte.SIZE || (bits & padding) != padding) {
+            throw BAD_ENCODING;
+        }
+        return new AsciiString(dest, 0, k, false);
+    }
+
+    /**
+     * Returns the symbol of the code longer than {@link #LOOKUP_BITS} at the top of the {@code bitCount} low bits of
+     * {@code bits}, or {@code -1} if they end before the code does.
+     */
+    private static int decodeLongCode(long bits, int bitCount) {
+        int maxLength = Math.min(bitCount, MAX_CODE_LENGTH);
+        for (int length = LOOKUP_BITS + 1; length <= maxLength; length++) {
+            // The code is not shorter, so its first length bits can not be smaller than the first code of length.
+            int offset = ((int) (bits >>> (bitCount - length)) & ((1 << length) - 1)) - FIRST_CODE[length];
+            if (offset < CODE_COUNT[length]) {
+                return SYMBOLS[FIRST_SYMBOL[length] + offset];
+            }
+        }
+        return -1;
+    }
+}
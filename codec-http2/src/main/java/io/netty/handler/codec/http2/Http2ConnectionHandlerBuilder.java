@@ -87,6 +87,18 @@ public final class Http2ConnectionHandlerBuilder
         return super.encoderIgnoreMaxHeaderListSize(encoderIgnoreMaxHeaderListSize);
     }
 
+    @Override
+    public Http2ConnectionHandlerBuilder streamByteDistributorFactory(
+            StreamByteDistributor.Factory streamByteDistributorFactory) {
+        return super.streamByteDistributorFactory(streamByteDistributorFactory);
+    }
+
+    @Override
+    public Http2ConnectionHandlerBuilder flowControlWindowAutoTuning(int maxStreamWindowSize,
+                                                                     int maxConnectionWindowSize) {
+        return super.flowControlWindowAutoTuning(maxStreamWindowSize, maxConnectionWindowSize);
+    }
+
     @Override
     public Http2ConnectionHandlerBuilder headerSensitivityDetector(SensitivityDetector headerSensitivityDetector) {
         return super.headerSensitivityDetector(headerSensitivityDetector);
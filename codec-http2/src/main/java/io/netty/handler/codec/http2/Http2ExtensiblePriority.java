@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * The priority of a stream as defined by <a href="https://www.rfc-editor.org/rfc/rfc9218.html">RFC 9218</a>, which
+ * is carried in the {@code priority} header and in {@code PRIORITY_UPDATE} frames.
+ */
+@UnstableApi
+public final class Http2ExtensiblePriority {
+    /**
+     * The lowest urgency value, which is the most important one.
+     */
+    public static final int MIN_URGENCY = 0;
+    /**
+     * The highest urgency value, which is the least important one.
+     */
+    public static final int MAX_URGENCY = 7;
+    /**
+     * The urgency of streams without a priority.
+     */
+    public static final int DEFAULT_URGENCY = 3;
+
+    private static final Http2ExtensiblePriority[] VALUES = new Http2ExtensiblePriority[(MAX_URGENCY + 1) * 2];
+
+    static {
+        for (int urgency = MIN_URGENCY; urgency <= MAX_URGENCY; urgency++) {
+            VALUES[urgency << 1] = new Http2ExtensiblePriority(urgency, false);
+            VALUES[(urgency << 1) | 1] = new Http2ExtensiblePriority(urgency, true);
+        }
+    }
+
+    /**
+     * The priority of streams without a priority, {@code u=3} and not incremental.
+     */
+    public static final Http2ExtensiblePriority DEFAULT = valueOf(DEFAULT_URGENCY, false);
+
+    private final int urgency;
+    private final boolean incremental;
+
+    private Http2ExtensiblePriority(int urgency, boolean incremental) {
+        this.urgency = urgency;
+        this.incremental = incremental;
+    }
+
+    /**
+     * Returns the priority with the given {@code urgency} and {@code incremental} flag.
+     *
+     * @param urgency the urgency, between {@link #MIN_URGENCY} and {@link #MAX_URGENCY}.
+     * @param incremental {@code true} if the response can be processed incrementally.
+     */
+    public static Http2ExtensiblePriority valueOf(int urgency, boolean incremental) {
+        if (urgency < MIN_URGENCY || urgency > MAX_URGENCY) {
+            throw new IllegalArgumentException("urgency: " + urgency + " (expected: " + MIN_URGENCY + '-' +
+                    MAX_URGENCY + ')');
+        }
+        return VALUES[(urgency << 1) | (incremental ? 1 : 0)];
+    }
+
+    /**
+     * Parses the value of a {@code priority} header or the priority field value of a {@code PRIORITY_UPDATE} frame.
+     * As required by RFC 9218, unknown parameters and invalid values are ignored, so that the corresponding default
+     * is used.
+     *
+     * @param value the structured field dictionary, like {@code u=1, i}.
+     * @return the parsed priority, never {@code null}.
+     */
+    public static Http2ExtensiblePriority parse(CharSequence value) {
+        int urgency = DEFAULT_URGENCY;
+        boolean incremental = false;
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            // Skip the separator and the optional white space before the key.
+            char c = value.charAt(i);
+            if (c == ',' || c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            int keyStart = i;
+            while (i < length && isKeyChar(value.charAt(i))) {
+                i++;
+            }
+            int keyLength = i - keyStart;
+            int valueStart = -1;
+            if (i < length && value.charAt(i) == '=') {
+                valueStart = ++i;
+            }
+            // Skip the rest of the member, including its parameters.
+            while (i < length && value.charAt(i) != ',') {
+                i++;
+            }
+            if (keyLength != 1) {
+                continue;
+            }
+            char key = value.charAt(keyStart);
+            if (key == 'u') {
+                if (valueStart != -1 && i - valueStart >= 1) {
+                    char digit = value.charAt(valueStart);
+                    if (digit >= '0' + MIN_URGENCY && digit <= '0' + MAX_URGENCY &&
+                            isEndOfItem(value, valueStart + 1, i)) {
+                        urgency = digit - '0';
+                    }
+                }
+            } else if (key == 'i') {
+                if (valueStart == -1) {
+                    incremental = true;
+                } else if (i - valueStart >= 2 && value.charAt(valueStart) == '?' &&
+                        isEndOfItem(value, valueStart + 2, i)) {
+                    char bool = value.charAt(valueStart + 1);
+                    if (bool == '1') {
+                        incremental = true;
+                    } else if (bool == '0') {
+                        incremental = false;
+                    }
+                }
+            }
+        }
+        return valueOf(urgency, incremental);
+    }
+
+    private static boolean isKeyChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '_' || c == '-' || c == '.' || c == '*';
+    }
+
+    private static boolean isEndOfItem(CharSequence value, int start, int end) {
+        // Only parameters and trailing white space may follow the bare item.
+        return start == end || value.charAt(start) == ';' || value.charAt(start) == ' ' ||
+                value.charAt(start) == '\t';
+    }
+
+    /**
+     * Returns the urgency, between {@link #MIN_URGENCY} and {@link #MAX_URGENCY}. Lower values are more important.
+     */
+    public int urgency() {
+        return urgency;
+    }
+
+    /**
+     * Returns {@code true} if the response can be processed incrementally, so that its bytes may be interleaved with
+     * those of other incremental responses of the same urgency.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    @Override
+    public String toString() {
+        return incremental ? "u=" + urgency + ", i" : "u=" + urgency;
+    }
+}
@@ -153,6 +153,32 @@ public class Http2FrameCodecBuilder extends
         return super.headerSensitivityDetector(headerSensitivityDetector);
     }
 
+    @Override
+    public StreamByteDistributor.Factory streamByteDistributorFactory() {
+        return super.streamByteDistributorFactory();
+    }
+
+    @Override
+    public Http2FrameCodecBuilder streamByteDistributorFactory(
+            StreamByteDistributor.Factory streamByteDistributorFactory) {
+        return super.streamByteDistributorFactory(streamByteDistributorFactory);
+    }
+
+    @Override
+    public int maxAutoTunedStreamWindowSize() {
+        return super.maxAutoTunedStreamWindowSize();
+    }
+
+    @Override
+    public int maxAutoTunedConnectionWindowSize() {
+        return super.maxAutoTunedConnectionWindowSize();
+    }
+
+    @Override
+    public Http2FrameCodecBuilder flowControlWindowAutoTuning(int maxStreamWindowSize, int maxConnectionWindowSize) {
+        return super.flowControlWindowAutoTuning(maxStreamWindowSize, maxConnectionWindowSize);
+    }
+
     @Override
     public Http2FrameCodecBuilder encoderIgnoreMaxHeaderListSize(boolean ignoreMaxHeaderListSize) {
         return super.encoderIgnoreMaxHeaderListSize(ignoreMaxHeaderListSize);
@@ -213,6 +239,15 @@ public class Http2FrameCodecBuilder extends
                 frameWriter = new Http2OutboundFrameLogger(frameWriter, frameLogger());
                 frameReader = new Http2InboundFrameLogger(frameReader, frameLogger());
             }
+            StreamByteDistributor.Factory streamByteDistributorFactory = streamByteDistributorFactory();
+            if (streamByteDistributorFactory != null) {
+                connection.remote().flowController(new DefaultHttp2RemoteFlowController(connection,
+                        streamByteDistributorFactory.newStreamByteDistributor(connection)));
+            }
+            if (maxAutoTunedStreamWindowSize() != 0) {
+                enableWindowAutoTuning(connection, maxAutoTunedStreamWindowSize(),
+                        maxAutoTunedConnectionWindowSize());
+            }
             Http2ConnectionEncoder encoder = new DefaultHttp2ConnectionEncoder(connection, frameWriter);
             if (encoderEnforceMaxConcurrentStreams()) {
                 encoder = new StreamBufferingEncoder(encoder);
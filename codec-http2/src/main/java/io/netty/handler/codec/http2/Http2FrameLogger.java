@@ -100,6 +100,14 @@ public class Http2FrameLogger extends ChannelHandlerAdapter {
         }
     }
 
+    public void logPriorityUpdate(Direction direction, ChannelHandlerContext ctx, int prioritizedStreamId,
+            Http2ExtensiblePriority priority) {
+        if (isEnabled()) {
+            logger.log(level, "{} {} PRIORITY_UPDATE: prioritizedStreamId={} priority={}", ctx.channel(),
+                    direction.name(), prioritizedStreamId, priority);
+        }
+    }
+
     public void logRstStream(Direction direction, ChannelHandlerContext ctx, int streamId, long errorCode) {
         if (isEnabled()) {
             logger.log(level, "{} {} RST_STREAM: streamId={} errorCode={}", ctx.channel(),
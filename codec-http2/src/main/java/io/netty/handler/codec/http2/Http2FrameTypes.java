@@ -18,7 +18,7 @@ package io.netty.handler.codec.http2;
 import io.netty.util.internal.UnstableApi;
 
 /**
- * Registry of all standard frame types defined by the HTTP/2 specification.
+ * Registry of all standard frame types defined by the HTTP/2 specification and its extensions.
  */
 @UnstableApi
 public final class Http2FrameTypes {
@@ -32,6 +32,10 @@ public final class Http2FrameTypes {
     public static final byte GO_AWAY = 0x7;
     public static final byte WINDOW_UPDATE = 0x8;
     public static final byte CONTINUATION = 0x9;
+    /**
+     * See <a href="https://www.rfc-editor.org/rfc/rfc9218.html#section-7.1">RFC 9218</a>.
+     */
+    public static final byte PRIORITY_UPDATE = 0x10;
 
     private Http2FrameTypes() {
     }
@@ -36,103 +36,10 @@ public class Http2InboundFrameLogger implements Http2FrameReader {
     }
 
     @Override
-    public void readFrame(ChannelHandlerContext ctx, ByteBuf input, final Http2FrameListener listener)
+    public void readFrame(ChannelHandlerContext ctx, ByteBuf input, Http2FrameListener listener)
             throws Http2Exception {
-        reader.readFrame(ctx, input, new Http2FrameListener() {
-
-            @Override
-            public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data,
-                    int padding, boolean endOfStream)
-                    throws Http2Exception {
-                logger.logData(INBOUND, ctx, streamId, data, padding, endOfStream);
-                return listener.onDataRead(ctx, streamId, data, padding, endOfStream);
-            }
-
-            @Override
-            public void onHeadersRead(ChannelHandlerContext ctx, int streamId,
-                    Http2Headers headers, int padding, boolean endStream)
-                    throws Http2Exception {
-                logger.logHeaders(INBOUND, ctx, streamId, headers, padding, endStream);
-                listener.onHeadersRead(ctx, streamId, headers, padding, endStream);
-            }
-
-            @Override
-            public void onHeadersRead(ChannelHandlerContext ctx, int streamId,
-                    Http2Headers headers, int streamDependency, short weight, boolean exclusive,
-                    int padding, boolean endStream) throws Http2Exception {
-                logger.logHeaders(INBOUND, ctx, streamId, headers, streamDependency, weight, exclusive,
-                        padding, endStream);
-                listener.onHeadersRead(ctx, streamId, headers, streamDependency, weight, exclusive,
-                        padding, endStream);
-            }
-
-            @Override
-            public void onPriorityRead(ChannelHandlerContext ctx, int streamId,
-                    int streamDependency, short weight, boolean exclusive) throws Http2Exception {
-                logger.logPriority(INBOUND, ctx, streamId, streamDependency, weight, exclusive);
-                listener.onPriorityRead(ctx, streamId, streamDependency, weight, exclusive);
-            }
-
-            @Override
-            public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode)
-                    throws Http2Exception {
-                logger.logRstStream(INBOUND, ctx, streamId, errorCode);
-                listener.onRstStreamRead(ctx, streamId, errorCode);
-            }
-
-            @Override
-            public void onSettingsAckRead(ChannelHandlerContext ctx) throws Http2Exception {
-                logger.logSettingsAck(INBOUND, ctx);
-                listener.onSettingsAckRead(ctx);
-            }
-
-            @Override
-            public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings)
-                    throws Http2Exception {
-                logger.logSettings(INBOUND, ctx, settings);
-                listener.onSettingsRead(ctx, settings);
-            }
-
-            @Override
-            public void onPingRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
-                logger.logPing(INBOUND, ctx, data);
-                listener.onPingRead(ctx, data);
-            }
-
-            @Override
-            public void onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
-                logger.logPingAck(INBOUND, ctx, data);
-                listener.onPingAckRead(ctx, data);
-            }
-
-            @Override
-            public void onPushPromiseRead(ChannelHandlerContext ctx, int streamId,
-                    int promisedStreamId, Http2Headers headers, int padding) throws Http2Exception {
-                logger.logPushPromise(INBOUND, ctx, streamId, promisedStreamId, headers, padding);
-                listener.onPushPromiseRead(ctx, streamId, promisedStreamId, headers, padding);
-            }
-
-            @Override
-            public void onGoAwayRead(ChannelHandlerContext ctx, int lastStreamId, long errorCode,
-                    ByteBuf debugData) throws Http2Exception {
-                logger.logGoAway(INBOUND, ctx, lastStreamId, errorCode, debugData);
-                listener.onGoAwayRead(ctx, lastStreamId, errorCode, debugData);
-            }
-
-            @Override
-            public void onWindowUpdateRead(ChannelHandlerContext ctx, int streamId, int windowSizeIncrement)
-                    throws Http2Exception {
-                logger.logWindowsUpdate(INBOUND, ctx, streamId, windowSizeIncrement);
-                listener.onWindowUpdateRead(ctx, streamId, windowSizeIncrement);
-            }
-
-            @Override
-            public void onUnknownFrame(ChannelHandlerContext ctx, byte frameType, int streamId,
-                    Http2Flags flags, ByteBuf payload) throws Http2Exception {
-                logger.logUnknownFrame(INBOUND, ctx, frameType, streamId, flags, payload);
-                listener.onUnknownFrame(ctx, frameType, streamId, flags, payload);
-            }
-        });
+        reader.readFrame(ctx, input, listener instanceof Http2PriorityUpdateListener ?
+                new PriorityUpdateLoggingFrameListener(listener) : new LoggingFrameListener(listener));
     }
 
     @Override
@@ -144,4 +51,120 @@ public class Http2InboundFrameLogger implements Http2FrameReader {
     public Configuration configuration() {
         return reader.configuration();
     }
+
+    private class LoggingFrameListener implements Http2FrameListener {
+        final Http2FrameListener listener;
+
+        LoggingFrameListener(Http2FrameListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data,
+                int padding, boolean endOfStream)
+                throws Http2Exception {
+            logger.logData(INBOUND, ctx, streamId, data, padding, endOfStream);
+            return listener.onDataRead(ctx, streamId, data, padding, endOfStream);
+        }
+
+        @Override
+        public void onHeadersRead(ChannelHandlerContext ctx, int streamId,
+                Http2Headers headers, int padding, boolean endStream)
+                throws Http2Exception {
+            logger.logHeaders(INBOUND, ctx, streamId, headers, padding, endStream);
+            listener.onHeadersRead(ctx, streamId, headers, padding, endStream);
+        }
+
+        @Override
+        public void onHeadersRead(ChannelHandlerContext ctx, int streamId,
+                Http2Headers headers, int streamDependency, short weight, boolean exclusive,
+                int padding, boolean endStream) throws Http2Exception {
+            logger.logHeaders(INBOUND, ctx, streamId, headers, streamDependency, weight, exclusive,
+                    padding, endStream);
+            listener.onHeadersRead(ctx, streamId, headers, streamDependency, weight, exclusive,
+                    padding, endStream);
+        }
+
+        @Override
+        public void onPriorityRead(ChannelHandlerContext ctx, int streamId,
+                int streamDependency, short weight, boolean exclusive) throws Http2Exception {
+            logger.logPriority(INBOUND, ctx, streamId, streamDependency, weight, exclusive);
+            listener.onPriorityRead(ctx, streamId, streamDependency, weight, exclusive);
+        }
+
+        @Override
+        public void onRstStreamRead(ChannelHandlerContext ctx, int streamId, long errorCode)
+                throws Http2Exception {
+            logger.logRstStream(INBOUND, ctx, streamId, errorCode);
+            listener.onRstStreamRead(ctx, streamId, errorCode);
+        }
+
+        @Override
+        public void onSettingsAckRead(ChannelHandlerContext ctx) throws Http2Exception {
+            logger.logSettingsAck(INBOUND, ctx);
+            listener.onSettingsAckRead(ctx);
+        }
+
+        @Override
+        public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings)
+                throws Http2Exception {
+            logger.logSettings(INBOUND, ctx, settings);
+            listener.onSettingsRead(ctx, settings);
+        }
+
+        @Override
+        public void onPingRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+            logger.logPing(INBOUND, ctx, data);
+            listener.onPingRead(ctx, data);
+        }
+
+        @Override
+        public void onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+            logger.logPingAck(INBOUND, ctx, data);
+            listener.onPingAckRead(ctx, data);
+        }
+
+        @Override
+        public void onPushPromiseRead(ChannelHandlerContext ctx, int streamId,
+                int promisedStreamId, Http2Headers headers, int padding) throws Http2Exception {
+            logger.logPushPromise(INBOUND, ctx, streamId, promisedStreamId, headers, padding);
+            listener.onPushPromiseRead(ctx, streamId, promisedStreamId, headers, padding);
+        }
+
+        @Override
+        public void onGoAwayRead(ChannelHandlerContext ctx, int lastStreamId, long errorCode,
+                ByteBuf debugData) throws Http2Exception {
+            logger.logGoAway(INBOUND, ctx, lastStreamId, errorCode, debugData);
+            listener.onGoAwayRead(ctx, lastStreamId, errorCode, debugData);
+        }
+
+        @Override
+        public void onWindowUpdateRead(ChannelHandlerContext ctx, int streamId, int windowSizeIncrement)
+                throws Http2Exception {
+            logger.logWindowsUpdate(INBOUND, ctx, streamId, windowSizeIncrement);
+            listener.onWindowUpdateRead(ctx, streamId, windowSizeIncrement);
+        }
+
+        @Override
+        public void onUnknownFrame(ChannelHandlerContext ctx, byte frameType, int streamId,
+                Http2Flags flags, ByteBuf payload) throws Http2Exception {
+            logger.logUnknownFrame(INBOUND, ctx, frameType, streamId, flags, payload);
+            listener.onUnknownFrame(ctx, frameType, streamId, flags, payload);
+        }
+    }
+
+    private final class PriorityUpdateLoggingFrameListener extends LoggingFrameListener
+            implements Http2PriorityUpdateListener {
+        PriorityUpdateLoggingFrameListener(Http2FrameListener listener) {
+            super(listener);
+        }
+
+        @Override
+        public void onPriorityUpdateRead(ChannelHandlerContext ctx, int prioritizedStreamId,
+                Http2ExtensiblePriority priority, Http2Flags flags, ByteBuf payload) throws Http2Exception {
+            logger.logPriorityUpdate(INBOUND, ctx, prioritizedStreamId, priority);
+            ((Http2PriorityUpdateListener) listener).onPriorityUpdateRead(ctx, prioritizedStreamId, priority, flags,
+                    payload);
+        }
+    }
 }
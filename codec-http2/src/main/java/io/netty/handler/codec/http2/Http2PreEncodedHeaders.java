@@ -0,0 +1,779 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.Headers;
+import io.netty.handler.codec.http2.Http2HeadersEncoder.SensitivityDetector;
+import io.netty.util.AsciiString;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static io.netty.handler.codec.CharSequenceValueConverter.INSTANCE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MIN_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.hasPseudoHeaderFormat;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Read-only {@link Http2Headers} whose HPACK encoding is computed once and then copied into every header block they
+ * are written in, instead of being encoded again for each response.
+ * <p>
+ * The headers are encoded as if the peer only used the static table: a header that is in the
+ * <a href="https://www.rfc-editor.org/rfc/rfc7541#appendix-A">static table</a> is written as an indexed header
+ * field, any other as a literal header field without indexing. Such a block never refers to or changes the dynamic
+ * table, so one instance can be shared by all connections and threads.
+ * <p>
+ * Headers that differ between responses, for example {@code content-length}, can be added with
+ * {@link #withHeaders(Http2Headers)}. They follow the pre-encoded block and are encoded by the connection as usual.
+ * <pre>
+ * static final Http2PreEncodedHeaders OK_JSON = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers()
+ *         .status("200").set("content-type", "application/json").set("server", "gateway"));
+ *
+ * encoder.writeHeaders(ctx, streamId, OK_JSON.withHeaders(new DefaultHttp2Headers().setInt("content-length", 42)),
+ *         0, false, promise);
+ * </pre>
+ */
+@UnstableApi
+public final class Http2PreEncodedHeaders implements Http2Headers {
+    private final Http2Headers headers;
+    private final Http2Headers additionalHeaders;
+    private final byte[] encodedHeaders;
+    private final long encodedHeaderListSize;
+
+    private Http2PreEncodedHeaders(Http2Headers headers, Http2Headers additionalHeaders, byte[] encodedHeaders,
+                                   long encodedHeaderListSize) {
+        this.headers = headers;
+        this.additionalHeaders = additionalHeaders;
+        this.encodedHeaders = encodedHeaders;
+        this.encodedHeaderListSize = encodedHeaderListSize;
+    }
+
+    /**
+     * Encodes the given headers, none of which are considered sensitive.
+     *
+     * @see #encode(Http2Headers, SensitivityDetector)
+     */
+    public static Http2PreEncodedHeaders encode(Http2Headers headers) {
+        return encode(headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+    }
+
+    /**
+     * Encodes the given headers. The headers are copied, later changes to {@code headers} are not reflected.
+     *
+     * @param headers the headers to encode. The names must be valid HTTP/2 header names, they are not validated again.
+     * @param sensitivityDetector detects the headers which must be encoded as never indexed literals.
+     */
+    public static Http2PreEncodedHeaders encode(Http2Headers headers, SensitivityDetector sensitivityDetector) {
+        checkNotNull(headers, "headers");
+        checkNotNull(sensitivityDetector, "sensitivityDetector");
+
+        Http2Headers copy = new DefaultHttp2Headers(false, headers.size());
+        long headerListSize = 0;
+        for (Map.Entry<CharSequence, CharSequence> header : headers) {
+            AsciiString name = AsciiString.of(header.getKey());
+            AsciiString value = AsciiString.of(header.getValue());
+            copy.add(name, value);
+            headerListSize += HpackHeaderField.sizeOf(name, value);
+        }
+
+        // Without a dynamic table the encoder only uses indexed fields for static table entries and literals without
+        // indexing. Huffman encoding is always used when it is shorter as the cost is only paid once.
+        HpackEncoder encoder = new HpackEncoder(true, 2, 0, null);
+        ByteBuf out = Unpooled.buffer();
+        try {
+            encoder.setMaxHeaderTableSize(out, MIN_HEADER_TABLE_SIZE);
+            // Drop the dynamic table size update, the connection's encoder takes care of those.
+            out.clear();
+            encoder.encodeHeaders(0, out, copy, sensitivityDetector);
+            return new Http2PreEncodedHeaders(copy, EmptyHttp2Headers.INSTANCE, ByteBufUtil.getBytes(out),
+                    headerListSize);
+        } catch (Http2Exception e) {
+            throw new IllegalArgumentException("failed to encode headers: " + e.getMessage(), e);
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Returns new {@link Http2PreEncodedHeaders} that contain these headers followed by {@code additionalHeaders}.
+     * The encoded block is shared, {@code additionalHeaders} are encoded when the headers are written and are not
+     * copied.
+     *
+     * @param additionalHeaders the headers to add, which must not contain pseudo-headers as those have to precede
+     *                          all other headers of a header block, nor any name that is already in the encoded
+     *                          block.
+     */
+    public Http2PreEncodedHeaders withHeaders(Http2Headers additionalHeaders) {
+        for (Map.Entry<CharSequence, CharSequence> header : checkNotNull(additionalHeaders, "additionalHeaders")) {
+            if (hasPseudoHeaderFormat(header.getKey())) {
+                throw new IllegalArgumentException(
+                        "pseudo-headers can not follow pre-encoded headers: " + header.getKey());
+            }
+            if (headers.contains(header.getKey())) {
+                throw new IllegalArgumentException("header is already pre-encoded: " + header.getKey());
+            }
+        }
+        if (!this.additionalHeaders.isEmpty()) {
+            Http2Headers merged = new DefaultHttp2Headers(false, this.additionalHeaders.size() +
+                    additionalHeaders.size());
+            merged.add(this.additionalHeaders);
+            merged.add(additionalHeaders);
+            additionalHeaders = merged;
+        }
+        return new Http2PreEncodedHeaders(headers, additionalHeaders, encodedHeaders, encodedHeaderListSize);
+    }
+
+    /**
+     * Returns the headers which follow the pre-encoded block.
+     */
+    Http2Headers additionalHeaders() {
+        return additionalHeaders;
+    }
+
+    /**
+     * Returns the size of the pre-encoded headers as defined for {@code SETTINGS_MAX_HEADER_LIST_SIZE}.
+     */
+    long encodedHeaderListSize() {
+        return encodedHeaderListSize;
+    }
+
+    /**
+     * Writes the pre-encoded block to {@code out}.
+     */
+    void writeEncodedHeaders(ByteBuf out) {
+        out.writeBytes(encodedHeaders);
+    }
+
+    @Override
+    public CharSequence get(CharSequence name) {
+        CharSequence value = headers.get(name);
+        return value != null ? value : additionalHeaders.get(name);
+    }
+
+    @Override
+    public CharSequence get(CharSequence name, CharSequence defaultValue) {
+        CharSequence value = get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public List<CharSequence> getAll(CharSequence name) {
+        List<CharSequence> values = headers.getAll(name);
+        List<CharSequence> additionalValues = additionalHeaders.getAll(name);
+        if (additionalValues.isEmpty()) {
+            return values;
+        }
+        if (values.isEmpty()) {
+            return additionalValues;
+        }
+        List<CharSequence> all = new ArrayList<CharSequence>(values.size() + additionalValues.size());
+        all.addAll(values);
+        all.addAll(additionalValues);
+        return all;
+    }
+
+    @Override
+    public Boolean getBoolean(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToBoolean(value) : null;
+    }
+
+    @Override
+    public boolean getBoolean(CharSequence name, boolean defaultValue) {
+        Boolean value = getBoolean(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Byte getByte(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToByte(value) : null;
+    }
+
+    @Override
+    public byte getByte(CharSequence name, byte defaultValue) {
+        Byte value = getByte(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Character getChar(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToChar(value) : null;
+    }
+
+    @Override
+    public char getChar(CharSequence name, char defaultValue) {
+        Character value = getChar(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Short getShort(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToShort(value) : null;
+    }
+
+    @Override
+    public short getShort(CharSequence name, short defaultValue) {
+        Short value = getShort(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Integer getInt(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToInt(value) : null;
+    }
+
+    @Override
+    public int getInt(CharSequence name, int defaultValue) {
+        Integer value = getInt(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Long getLong(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToLong(value) : null;
+    }
+
+    @Override
+    public long getLong(CharSequence name, long defaultValue) {
+        Long value = getLong(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Float getFloat(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToFloat(value) : null;
+    }
+
+    @Override
+    public float getFloat(CharSequence name, float defaultValue) {
+        Float value = getFloat(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Double getDouble(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToDouble(value) : null;
+    }
+
+    @Override
+    public double getDouble(CharSequence name, double defaultValue) {
+        Double value = getDouble(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Long getTimeMillis(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToTimeMillis(value) : null;
+    }
+
+    @Override
+    public long getTimeMillis(CharSequence name, long defaultValue) {
+        Long value = getTimeMillis(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public CharSequence getAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public CharSequence getAndRemove(CharSequence name, CharSequence defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public List<CharSequence> getAllAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Boolean getBooleanAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public boolean getBooleanAndRemove(CharSequence name, boolean defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Byte getByteAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public byte getByteAndRemove(CharSequence name, byte defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Character getCharAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public char getCharAndRemove(CharSequence name, char defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Short getShortAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public short getShortAndRemove(CharSequence name, short defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Integer getIntAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public int getIntAndRemove(CharSequence name, int defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Long getLongAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public long getLongAndRemove(CharSequence name, long defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Float getFloatAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public float getFloatAndRemove(CharSequence name, float defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Double getDoubleAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public double getDoubleAndRemove(CharSequence name, double defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Long getTimeMillisAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public long getTimeMillisAndRemove(CharSequence name, long defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        return headers.contains(name) || additionalHeaders.contains(name);
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value) {
+        return headers.contains(name, value) || additionalHeaders.contains(name, value);
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value, boolean caseInsensitive) {
+        return headers.contains(name, value, caseInsensitive) ||
+                additionalHeaders.contains(name, value, caseInsensitive);
+    }
+
+    @Override
+    public boolean containsObject(CharSequence name, Object value) {
+        return headers.containsObject(name, value) || additionalHeaders.containsObject(name, value);
+    }
+
+    @Override
+    public boolean containsBoolean(CharSequence name, boolean value) {
+        return headers.containsBoolean(name, value) || additionalHeaders.containsBoolean(name, value);
+    }
+
+    @Override
+    public boolean containsByte(CharSequence name, byte value) {
+        return headers.containsByte(name, value) || additionalHeaders.containsByte(name, value);
+    }
+
+    @Override
+    public boolean containsChar(CharSequence name, char value) {
+        return headers.containsChar(name, value) || additionalHeaders.containsChar(name, value);
+    }
+
+    @Override
+    public boolean containsShort(CharSequence name, short value) {
+        return headers.containsShort(name, value) || additionalHeaders.containsShort(name, value);
+    }
+
+    @Override
+    public boolean containsInt(CharSequence name, int value) {
+        return headers.containsInt(name, value) || additionalHeaders.containsInt(name, value);
+    }
+
+    @Override
+    public boolean containsLong(CharSequence name, long value) {
+        return headers.containsLong(name, value) || additionalHeaders.containsLong(name, value);
+    }
+
+    @Override
+    public boolean containsFloat(CharSequence name, float value) {
+        return headers.containsFloat(name, value) || additionalHeaders.containsFloat(name, value);
+    }
+
+    @Override
+    public boolean containsDouble(CharSequence name, double value) {
+        return headers.containsDouble(name, value) || additionalHeaders.containsDouble(name, value);
+    }
+
+    @Override
+    public boolean containsTimeMillis(CharSequence name, long value) {
+        return headers.containsTimeMillis(name, value) || additionalHeaders.containsTimeMillis(name, value);
+    }
+
+    @Override
+    public int size() {
+        return headers.size() + additionalHeaders.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return headers.isEmpty() && additionalHeaders.isEmpty();
+    }
+
+    @Override
+    public Set<CharSequence> names() {
+        if (additionalHeaders.isEmpty()) {
+            return headers.names();
+        }
+        Set<CharSequence> names = new LinkedHashSet<CharSequence>(headers.names());
+        names.addAll(additionalHeaders.names());
+        return names;
+    }
+
+    @Override
+    public Iterator<Map.Entry<CharSequence, CharSequence>> iterator() {
+        return new ConcatIterator(headers.iterator(), additionalHeaders.iterator());
+    }
+
+    @Override
+    public Iterator<CharSequence> valueIterator(CharSequence name) {
+        return Collections.unmodifiableList(getAll(name)).iterator();
+    }
+
+    @Override
+    public Http2Headers add(CharSequence name, CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers add(CharSequence name, Iterable<? extends CharSequence> values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers add(CharSequence name, CharSequence... values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addObject(CharSequence name, Object value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addObject(CharSequence name, Iterable<?> values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addObject(CharSequence name, Object... values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addBoolean(CharSequence name, boolean value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addByte(CharSequence name, byte value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addChar(CharSequence name, char value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addShort(CharSequence name, short value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addInt(CharSequence name, int value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addLong(CharSequence name, long value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addFloat(CharSequence name, float value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addDouble(CharSequence name, double value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addTimeMillis(CharSequence name, long value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers add(Headers<? extends CharSequence, ? extends CharSequence, ?> headers) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers set(CharSequence name, CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers set(CharSequence name, Iterable<? extends CharSequence> values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers set(CharSequence name, CharSequence... values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setObject(CharSequence name, Object value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setObject(CharSequence name, Iterable<?> values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setObject(CharSequence name, Object... values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setBoolean(CharSequence name, boolean value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setByte(CharSequence name, byte value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setChar(CharSequence name, char value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setShort(CharSequence name, short value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setInt(CharSequence name, int value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setLong(CharSequence name, long value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setFloat(CharSequence name, float value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setDouble(CharSequence name, double value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setTimeMillis(CharSequence name, long value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers set(Headers<? extends CharSequence, ? extends CharSequence, ?> headers) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setAll(Headers<? extends CharSequence, ? extends CharSequence, ?> headers) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public boolean remove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers clear() {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers method(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers scheme(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers authority(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers path(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers status(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public CharSequence method() {
+        return headers.method();
+    }
+
+    @Override
+    public CharSequence scheme() {
+        return headers.scheme();
+    }
+
+    @Override
+    public CharSequence authority() {
+        return headers.authority();
+    }
+
+    @Override
+    public CharSequence path() {
+        return headers.path();
+    }
+
+    @Override
+    public CharSequence status() {
+        return headers.status();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append('[');
+        String separator = "";
+        for (Map.Entry<CharSequence, CharSequence> entry : this) {
+            builder.append(separator);
+            builder.append(entry.getKey()).append(": ").append(entry.getValue());
+            separator = ", ";
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Iterates over the pre-encoded headers and then the additional headers without allowing removal.
+     */
+    private static final class ConcatIterator implements Iterator<Map.Entry<CharSequence, CharSequence>> {
+        private Iterator<Map.Entry<CharSequence, CharSequence>> current;
+        private Iterator<Map.Entry<CharSequence, CharSequence>> next;
+
+        ConcatIterator(Iterator<Map.Entry<CharSequence, CharSequence>> first,
+                       Iterator<Map.Entry<CharSequence, CharSequence>> second) {
+            current = first;
+            next = second;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!current.hasNext() && next != null) {
+                current = next;
+                next = null;
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Map.Entry<CharSequence, CharSequence> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("read only");
+        }
+    }
+}
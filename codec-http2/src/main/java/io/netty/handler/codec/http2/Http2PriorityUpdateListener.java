@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * An extension of {@link Http2FrameListener} for the {@code PRIORITY_UPDATE} frame defined by
+ * <a href="https://www.rfc-editor.org/rfc/rfc9218.html#section-7.1">RFC 9218</a>. {@link DefaultHttp2FrameReader}
+ * passes the frame to {@link Http2FrameListener}s that also implement this interface via
+ * {@link #onPriorityUpdateRead}, and to all others via {@link Http2FrameListener#onUnknownFrame}.
+ *
+ * <p>{@link DefaultHttp2ConnectionDecoder} applies the frame to an {@link ExtensiblePriorityStreamByteDistributor}
+ * and then forwards it to its {@link Http2FrameListener}, via {@link #onPriorityUpdateRead} if the listener
+ * implements this interface and via {@link Http2FrameListener#onUnknownFrame} otherwise.
+ */
+@UnstableApi
+public interface Http2PriorityUpdateListener {
+    /**
+     * Handles an inbound {@code PRIORITY_UPDATE} frame.
+     *
+     * @param ctx the context from the handler where the frame was read.
+     * @param prioritizedStreamId the stream whose priority is updated.
+     * @param priority the parsed priority field value.
+     * @param flags the flags of the frame, {@code PRIORITY_UPDATE} does not define any.
+     * @param payload the complete payload of the frame, for listeners that pass the frame on as is. It is released
+     *                once this method returns.
+     */
+    void onPriorityUpdateRead(ChannelHandlerContext ctx, int prioritizedStreamId, Http2ExtensiblePriority priority,
+                              Http2Flags flags, ByteBuf payload) throws Http2Exception;
+}
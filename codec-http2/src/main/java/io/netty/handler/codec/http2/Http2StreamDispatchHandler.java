@@ -0,0 +1,404 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.socket.ChannelInputShutdownReadComplete;
+import io.netty.channel.socket.ChannelOutputShutdownEvent;
+import io.netty.handler.codec.http2.Http2FrameCodec.DefaultHttp2FrameStream;
+import io.netty.handler.ssl.SslCloseCompletionEvent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import javax.net.ssl.SSLException;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * An HTTP/2 handler that dispatches the {@link Http2StreamFrame}s of every stream to a {@link Http2StreamHandler}.
+ * This handler must be used in combination with {@link Http2FrameCodec}.
+ *
+ * <p>This is a lightweight alternative to the {@link Http2MultiplexHandler}: instead of a child
+ * {@link io.netty.channel.Channel} with its own pipeline, id, config and attributes, every stream only gets a
+ * {@link Http2StreamHandlerContext}. This makes it a good fit for connections that carry many short-lived streams,
+ * like gRPC-style request/response exchanges.
+ *
+ * <h3>Flow Control</h3>
+ *
+ * By default the flow-controlled bytes of every {@link Http2DataFrame} are returned to the
+ * {@link Http2LocalFlowController} once {@link Http2StreamHandler#streamRead(Http2StreamHandlerContext,
+ * Http2StreamFrame)} returned. Handlers that want to apply backpressure can disable this and call
+ * {@link Http2StreamHandlerContext#consumeBytes(int)} themselves. Outbound flow control is exposed via
+ * {@link Http2StreamHandlerContext#isWritable()} and
+ * {@link Http2StreamHandler#streamWritabilityChanged(Http2StreamHandlerContext)}.
+ *
+ * <h3>Reference Counting</h3>
+ *
+ * {@link Http2StreamFrame}s that implement {@link io.netty.util.ReferenceCounted} are passed to the
+ * {@link Http2StreamHandler} without being retained, and must be released by it.
+ *
+ * <p>Connection level frames like {@link Http2SettingsFrame} and {@link Http2GoAwayFrame} are propagated down the
+ * pipeline for other handlers to act on.
+ */
+@UnstableApi
+public final class Http2StreamDispatchHandler extends Http2ChannelDuplexHandler {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Http2StreamDispatchHandler.class);
+
+    private final Http2StreamHandler inboundStreamHandler;
+    private final boolean autoConsume;
+
+    private ChannelHandlerContext ctx;
+    private Http2FrameCodec frameCodec;
+    private boolean parentReadInProgress;
+    private boolean flushPending;
+
+    /**
+     * Creates a new instance which returns the bytes of received {@link Http2DataFrame}s to the flow controller
+     * automatically.
+     *
+     * @param inboundStreamHandler the {@link Http2StreamHandler} for new inbound streams.
+     */
+    public Http2StreamDispatchHandler(Http2StreamHandler inboundStreamHandler) {
+        this(inboundStreamHandler, true);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param inboundStreamHandler the {@link Http2StreamHandler} for new inbound streams.
+     * @param autoConsume {@code true} if the bytes of received {@link Http2DataFrame}s should be returned to the flow
+     *                    controller once they were passed to the {@link Http2StreamHandler}, {@code false} if
+     *                    {@link Http2StreamHandlerContext#consumeBytes(int)} is called by the handler.
+     */
+    public Http2StreamDispatchHandler(Http2StreamHandler inboundStreamHandler, boolean autoConsume) {
+        this.inboundStreamHandler = checkNotNull(inboundStreamHandler, "inboundStreamHandler");
+        this.autoConsume = autoConsume;
+    }
+
+    @Override
+    protected void handlerAdded0(ChannelHandlerContext ctx) {
+        if (ctx.executor() != ctx.channel().eventLoop()) {
+            throw new IllegalStateException("EventExecutor must be EventLoop of Channel");
+        }
+        this.ctx = ctx;
+        frameCodec = frameCodec();
+    }
+
+    /**
+     * Creates a new outbound stream that is handled by the given {@link Http2StreamHandler}. The stream is opened by
+     * writing a {@link Http2HeadersFrame} via {@link Http2StreamHandlerContext#write(Http2StreamFrame)}.
+     *
+     * <p>This method may only be called from the eventloop thread.
+     */
+    public Http2StreamHandlerContext newStream(Http2StreamHandler handler) {
+        checkNotNull(handler, "handler");
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null || !ctx.executor().inEventLoop()) {
+            throw new IllegalStateException("Must be called from the EventLoop of an active handler");
+        }
+        Http2StreamHandlerContext streamCtx = newContext((DefaultHttp2FrameStream) newStream(), handler);
+        invokeStreamActive(streamCtx);
+        return streamCtx;
+    }
+
+    private Http2StreamHandlerContext newContext(DefaultHttp2FrameStream stream, Http2StreamHandler handler) {
+        // Contexts are not pooled, as a handler may still hold on to the context of a closed stream.
+        Http2StreamHandlerContext streamCtx = new Http2StreamHandlerContext(this, ctx);
+        streamCtx.init(stream, handler);
+        return streamCtx;
+    }
+
+    void streamClosed(Http2StreamHandlerContext streamCtx) {
+        if (!streamCtx.isBound()) {
+            return;
+        }
+        try {
+            streamCtx.handler().streamClosed(streamCtx);
+        } catch (Throwable cause) {
+            logger.warn("An exception was thrown by {}.streamClosed()", streamCtx.handler().getClass().getName(),
+                    cause);
+        } finally {
+            streamCtx.unbind();
+        }
+    }
+
+    boolean isWritable(DefaultHttp2FrameStream stream) {
+        Http2Connection connection = frameCodec.connection();
+        Http2Stream http2Stream = connection.stream(stream.id());
+        return http2Stream != null && ctx.channel().isWritable() &&
+                connection.remote().flowController().isWritable(http2Stream);
+    }
+
+    void consumeBytes(DefaultHttp2FrameStream stream, int bytes) throws Http2Exception {
+        if (frameCodec.consumeBytes(stream.id(), bytes)) {
+            // A WINDOW_UPDATE frame was written.
+            flush();
+        }
+    }
+
+    void flush() {
+        if (ctx.executor().inEventLoop() && parentReadInProgress) {
+            // Coalesce the flushes of all streams until the read is complete.
+            flushPending = true;
+        } else {
+            ctx.flush();
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        parentReadInProgress = true;
+        if (msg instanceof Http2StreamFrame) {
+            if (msg instanceof Http2WindowUpdateFrame) {
+                // We dont want to propagate update frames to the user
+                return;
+            }
+            Http2StreamFrame frame = (Http2StreamFrame) msg;
+            DefaultHttp2FrameStream stream = (DefaultHttp2FrameStream) frame.stream();
+            if (!(stream.attachment instanceof Http2StreamHandlerContext)) {
+                // Nobody will ever consume the bytes of this frame, so return them right away. Otherwise the
+                // connection window shrinks until the peer stalls.
+                int bytes = frame instanceof Http2DataFrame ? ((Http2DataFrame) frame).initialFlowControlledBytes() : 0;
+                ReferenceCountUtil.release(frame);
+                if (bytes != 0) {
+                    try {
+                        consumeBytes(stream, bytes);
+                    } catch (Http2Exception e) {
+                        ctx.fireExceptionCaught(e);
+                    }
+                }
+                return;
+            }
+            Http2StreamHandlerContext streamCtx = (Http2StreamHandlerContext) stream.attachment;
+            int bytes = autoConsume && frame instanceof Http2DataFrame ?
+                    ((Http2DataFrame) frame).initialFlowControlledBytes() : 0;
+            try {
+                streamCtx.handler().streamRead(streamCtx, frame);
+            } catch (Throwable cause) {
+                invokeExceptionCaught(streamCtx, cause);
+            }
+            if (bytes != 0) {
+                try {
+                    consumeBytes(stream, bytes);
+                } catch (Http2Exception e) {
+                    if (stream.attachment == streamCtx) {
+                        invokeExceptionCaught(streamCtx, e);
+                    }
+                }
+            }
+            return;
+        }
+
+        if (msg instanceof Http2GoAwayFrame) {
+            onHttp2GoAwayFrame((Http2GoAwayFrame) msg);
+        }
+
+        // Send everything down the pipeline
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        parentReadInProgress = false;
+        if (flushPending) {
+            flushPending = false;
+            ctx.flush();
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            forEachActiveStream(new StreamContextVisitor() {
+                @Override
+                void visit(Http2StreamHandlerContext streamCtx) {
+                    invokeStreamWritabilityChanged(streamCtx);
+                }
+            });
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, final Object evt) throws Exception {
+        if (evt instanceof Http2FrameStreamEvent) {
+            Http2FrameStreamEvent event = (Http2FrameStreamEvent) evt;
+            DefaultHttp2FrameStream stream = (DefaultHttp2FrameStream) event.stream();
+            if (event.type() == Http2FrameStreamEvent.Type.Writability) {
+                if (stream.attachment instanceof Http2StreamHandlerContext) {
+                    invokeStreamWritabilityChanged((Http2StreamHandlerContext) stream.attachment);
+                }
+                return;
+            }
+            switch (stream.state()) {
+                case HALF_CLOSED_LOCAL:
+                    if (stream.id() != Http2CodecUtil.HTTP_UPGRADE_STREAM_ID) {
+                        // Ignore everything which was not caused by an upgrade
+                        break;
+                    }
+                    // fall-through
+                case HALF_CLOSED_REMOTE:
+                    // fall-through
+                case OPEN:
+                    if (stream.attachment == null) {
+                        invokeStreamActive(newContext(stream, inboundStreamHandler));
+                    }
+                    break;
+                case CLOSED:
+                    if (stream.attachment instanceof Http2StreamHandlerContext) {
+                        streamClosed((Http2StreamHandlerContext) stream.attachment);
+                    }
+                    break;
+                default:
+                    // ignore for now
+                    break;
+            }
+            return;
+        }
+        if (evt == ChannelInputShutdownReadComplete.INSTANCE || evt == ChannelOutputShutdownEvent.INSTANCE ||
+                evt == SslCloseCompletionEvent.SUCCESS) {
+            forEachActiveStream(new StreamContextVisitor() {
+                @Override
+                void visit(Http2StreamHandlerContext streamCtx) {
+                    invokeUserEventTriggered(streamCtx, evt);
+                }
+            });
+        }
+        ctx.fireUserEventTriggered(evt);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, final Throwable cause) throws Exception {
+        if (cause instanceof Http2FrameStreamException) {
+            Http2FrameStreamException exception = (Http2FrameStreamException) cause;
+            DefaultHttp2FrameStream stream = (DefaultHttp2FrameStream) exception.stream();
+            if (stream.attachment instanceof Http2StreamHandlerContext) {
+                Http2StreamHandlerContext streamCtx = (Http2StreamHandlerContext) stream.attachment;
+                try {
+                    invokeExceptionCaught(streamCtx, cause.getCause());
+                } finally {
+                    // Reset with the correct error unless the handler did so already.
+                    if (stream.attachment == streamCtx) {
+                        streamCtx.reset(exception.error());
+                    }
+                }
+            }
+            return;
+        }
+        if (cause instanceof Http2MultiplexActiveStreamsException) {
+            // Unwrap the cause that was used to create it and fire it for all the active streams.
+            fireExceptionCaughtForActiveStreams(cause.getCause());
+            return;
+        }
+
+        if (cause.getCause() instanceof SSLException) {
+            fireExceptionCaughtForActiveStreams(cause);
+        }
+        ctx.fireExceptionCaught(cause);
+    }
+
+    private void fireExceptionCaughtForActiveStreams(final Throwable cause) throws Http2Exception {
+        forEachActiveStream(new StreamContextVisitor() {
+            @Override
+            void visit(Http2StreamHandlerContext streamCtx) {
+                invokeExceptionCaught(streamCtx, cause);
+            }
+        });
+    }
+
+    private void onHttp2GoAwayFrame(final Http2GoAwayFrame goAwayFrame) {
+        if (goAwayFrame.lastStreamId() == Integer.MAX_VALUE) {
+            // None of the streams can have an id greater than Integer.MAX_VALUE
+            return;
+        }
+        // Notify which streams were not processed by the remote peer and are safe to retry on another connection:
+        try {
+            final boolean server = frameCodec.connection().isServer();
+            forEachActiveStream(new StreamContextVisitor() {
+                @Override
+                void visit(Http2StreamHandlerContext streamCtx) {
+                    int streamId = streamCtx.stream().id();
+                    if (streamId > goAwayFrame.lastStreamId() && Http2CodecUtil.isStreamIdValid(streamId, server)) {
+                        invokeUserEventTriggered(streamCtx, goAwayFrame.retainedDuplicate());
+                    }
+                }
+            });
+        } catch (Http2Exception e) {
+            ctx.fireExceptionCaught(e);
+            ctx.close();
+        }
+    }
+
+    private static void invokeStreamActive(Http2StreamHandlerContext streamCtx) {
+        try {
+            streamCtx.handler().streamActive(streamCtx);
+        } catch (Throwable cause) {
+            invokeExceptionCaught(streamCtx, cause);
+        }
+    }
+
+    private static void invokeStreamWritabilityChanged(Http2StreamHandlerContext streamCtx) {
+        try {
+            streamCtx.handler().streamWritabilityChanged(streamCtx);
+        } catch (Throwable cause) {
+            invokeExceptionCaught(streamCtx, cause);
+        }
+    }
+
+    private static void invokeUserEventTriggered(Http2StreamHandlerContext streamCtx, Object evt) {
+        try {
+            streamCtx.handler().userEventTriggered(streamCtx, evt);
+        } catch (Throwable cause) {
+            invokeExceptionCaught(streamCtx, cause);
+        }
+    }
+
+    private static void invokeExceptionCaught(Http2StreamHandlerContext streamCtx, Throwable cause) {
+        Http2StreamHandler handler = streamCtx.handler();
+        if (handler == null) {
+            // The stream was closed in the meantime.
+            return;
+        }
+        try {
+            handler.exceptionCaught(streamCtx, cause);
+        } catch (Throwable error) {
+            logger.warn("An exception was thrown by {}.exceptionCaught() while handling the following exception:",
+                    handler.getClass().getName(), cause);
+            logger.warn("The exception thrown by {}.exceptionCaught():", handler.getClass().getName(), error);
+        }
+    }
+
+    /**
+     * {@link Http2FrameStreamVisitor} that only visits streams which are handled by a {@link Http2StreamHandler}.
+     */
+    private abstract static class StreamContextVisitor implements Http2FrameStreamVisitor {
+
+        @Override
+        public final boolean visit(Http2FrameStream stream) {
+            Object attachment = ((DefaultHttp2FrameStream) stream).attachment;
+            if (attachment instanceof Http2StreamHandlerContext) {
+                visit((Http2StreamHandlerContext) attachment);
+            }
+            return true;
+        }
+
+        abstract void visit(Http2StreamHandlerContext streamCtx);
+    }
+}
@@ -31,6 +31,7 @@ import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpRequest;
@@ -66,11 +67,33 @@ public class Http2StreamFrameToHttpObjectCodec extends MessageToMessageCodec<Htt
 
     private final boolean isServer;
     private final boolean validateHeaders;
+    private final boolean wrapHeaders;
 
+    /**
+     * @param isServer {@code true} if this codec is used on the server side of the stream.
+     * @param validateHeaders {@code true} to validate the headers that are created by this codec.
+     * @param wrapHeaders {@code true} to present the headers of the received frames as {@link HttpHeaders} and the
+     *        headers of the written messages as {@link Http2Headers} instead of copying them. The headers of a
+     *        written {@link HttpMessage} must then not be modified after it was written. The views do not validate
+     *        the headers, so {@code validateHeaders} must be {@code false}. See
+     *        {@link HttpConversionUtil#toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)} and
+     *        {@link HttpConversionUtil#toHttp2HeadersView(HttpMessage)}.
+     * @throws IllegalArgumentException if both {@code validateHeaders} and {@code wrapHeaders} are {@code true}.
+     */
     public Http2StreamFrameToHttpObjectCodec(final boolean isServer,
-                                             final boolean validateHeaders) {
+                                             final boolean validateHeaders,
+                                             final boolean wrapHeaders) {
+        if (validateHeaders && wrapHeaders) {
+            throw new IllegalArgumentException("wrapHeaders requires validateHeaders to be false");
+        }
         this.isServer = isServer;
         this.validateHeaders = validateHeaders;
+        this.wrapHeaders = wrapHeaders;
+    }
+
+    public Http2StreamFrameToHttpObjectCodec(final boolean isServer,
+                                             final boolean validateHeaders) {
+        this(isServer, validateHeaders, false);
     }
 
     public Http2StreamFrameToHttpObjectCodec(final boolean isServer) {
@@ -102,9 +125,15 @@ public class Http2StreamFrameToHttpObjectCodec extends MessageToMessageCodec<Htt
 
             if (headersFrame.isEndStream()) {
                 if (headers.method() == null && status == null) {
-                    LastHttpContent last = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER, validateHeaders);
-                    HttpConversionUtil.addHttp2ToHttpHeaders(id, headers, last.trailingHeaders(),
-                                                             HttpVersion.HTTP_1_1, true, true);
+                    final LastHttpContent last;
+                    if (wrapHeaders) {
+                        last = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER, HttpConversionUtil.toHttpHeadersView(
+                                id, headers, HttpVersion.HTTP_1_1, true, true));
+                    } else {
+                        last = new DefaultLastHttpContent(Unpooled.EMPTY_BUFFER, validateHeaders);
+                        HttpConversionUtil.addHttp2ToHttpHeaders(id, headers, last.trailingHeaders(),
+                                                                 HttpVersion.HTTP_1_1, true, true);
+                    }
                     out.add(last);
                 } else {
                     FullHttpMessage full = newFullMessage(id, headers, ctx.alloc());
@@ -133,7 +162,8 @@ public class Http2StreamFrameToHttpObjectCodec extends MessageToMessageCodec<Htt
             out.add(new DefaultHttp2DataFrame(last.content().retain(), last.trailingHeaders().isEmpty()));
         }
         if (!last.trailingHeaders().isEmpty()) {
-            Http2Headers headers = HttpConversionUtil.toHttp2Headers(last.trailingHeaders(), validateHeaders);
+            Http2Headers headers = wrapHeaders ? HttpConversionUtil.toHttp2HeadersView(last.trailingHeaders()) :
+                    HttpConversionUtil.toHttp2Headers(last.trailingHeaders(), validateHeaders);
             out.add(new DefaultHttp2HeadersFrame(headers, true));
         }
     }
@@ -199,11 +229,17 @@ public class Http2StreamFrameToHttpObjectCodec extends MessageToMessageCodec<Htt
                     connectionScheme(ctx));
         }
 
-        return HttpConversionUtil.toHttp2Headers(msg, validateHeaders);
+        return wrapHeaders ? HttpConversionUtil.toHttp2HeadersView(msg) :
+                HttpConversionUtil.toHttp2Headers(msg, validateHeaders);
     }
 
     private HttpMessage newMessage(final int id,
                                    final Http2Headers headers) throws Http2Exception {
+        if (wrapHeaders) {
+            return isServer ?
+                    HttpConversionUtil.toHttpRequestView(id, headers) :
+                    HttpConversionUtil.toHttpResponseView(id, headers);
+        }
         return isServer ?
                 HttpConversionUtil.toHttpRequest(id, headers, validateHeaders) :
                 HttpConversionUtil.toHttpResponse(id, headers, validateHeaders);
@@ -212,6 +248,11 @@ public class Http2StreamFrameToHttpObjectCodec extends MessageToMessageCodec<Htt
     private FullHttpMessage newFullMessage(final int id,
                                            final Http2Headers headers,
                                            final ByteBufAllocator alloc) throws Http2Exception {
+        if (wrapHeaders) {
+            return isServer ?
+                    HttpConversionUtil.toFullHttpRequestView(id, headers, alloc.buffer(), validateHeaders) :
+                    HttpConversionUtil.toFullHttpResponseView(id, headers, alloc.buffer(), validateHeaders);
+        }
         return isServer ?
                 HttpConversionUtil.toFullHttpRequest(id, headers, alloc, validateHeaders) :
                 HttpConversionUtil.toFullHttpResponse(id, headers, alloc, validateHeaders);
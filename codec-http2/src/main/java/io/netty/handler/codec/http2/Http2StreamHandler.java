@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.ReferenceCounted;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Handles the frames of HTTP/2 streams that are dispatched by a {@link Http2StreamDispatchHandler}. In contrast to the
+ * child channels of the {@link Http2MultiplexHandler} there is no {@link io.netty.channel.ChannelPipeline} per stream;
+ * every method is called directly from the {@link io.netty.channel.EventLoop} of the connection with the
+ * {@link Http2StreamHandlerContext} of the stream.
+ *
+ * <p>A single instance is usually shared by all streams of a connection (or even all connections), so any per stream
+ * state should be stored via {@link Http2StreamHandlerContext#attach(Object)}.
+ */
+@UnstableApi
+public interface Http2StreamHandler {
+
+    /**
+     * Called once the {@link Http2StreamHandlerContext} was created for a stream. For inbound streams this is before
+     * the first {@link Http2HeadersFrame} is passed to
+     * {@link #streamRead(Http2StreamHandlerContext, Http2StreamFrame)}, for outbound streams this is from within
+     * {@link Http2StreamDispatchHandler#newStream(Http2StreamHandler)}.
+     */
+    void streamActive(Http2StreamHandlerContext ctx) throws Exception;
+
+    /**
+     * Called for every {@link Http2StreamFrame} that was received for the stream, including {@link Http2ResetFrame}s.
+     * Frames that implement {@link ReferenceCounted} must be released by the handler.
+     */
+    void streamRead(Http2StreamHandlerContext ctx, Http2StreamFrame frame) throws Exception;
+
+    /**
+     * Called once the result of {@link Http2StreamHandlerContext#isWritable()} may have changed.
+     */
+    void streamWritabilityChanged(Http2StreamHandlerContext ctx) throws Exception;
+
+    /**
+     * Called for events of the connection that affect the stream, like a {@link Http2GoAwayFrame} which indicates that
+     * the stream was not processed by the remote peer. Events that implement {@link ReferenceCounted} must be released
+     * by the handler.
+     */
+    void userEventTriggered(Http2StreamHandlerContext ctx, Object evt) throws Exception;
+
+    /**
+     * Called if an error was caught for the stream, either by the codec or because one of the other methods threw.
+     */
+    void exceptionCaught(Http2StreamHandlerContext ctx, Throwable cause) throws Exception;
+
+    /**
+     * Called once the stream was closed. All writes through the {@link Http2StreamHandlerContext} fail after this
+     * method returns.
+     */
+    void streamClosed(Http2StreamHandlerContext ctx) throws Exception;
+}
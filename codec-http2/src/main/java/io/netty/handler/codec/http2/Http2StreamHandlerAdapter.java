@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Skeleton implementation of a {@link Http2StreamHandler}, which releases all frames and events it is notified of and
+ * resets the stream if an exception was caught, using the error of a caught {@link Http2Exception} or
+ * {@link Http2Error#INTERNAL_ERROR}.
+ */
+@UnstableApi
+public class Http2StreamHandlerAdapter implements Http2StreamHandler {
+
+    @Override
+    public void streamActive(Http2StreamHandlerContext ctx) throws Exception {
+        // NOOP
+    }
+
+    @Override
+    public void streamRead(Http2StreamHandlerContext ctx, Http2StreamFrame frame) throws Exception {
+        ReferenceCountUtil.release(frame);
+    }
+
+    @Override
+    public void streamWritabilityChanged(Http2StreamHandlerContext ctx) throws Exception {
+        // NOOP
+    }
+
+    @Override
+    public void userEventTriggered(Http2StreamHandlerContext ctx, Object evt) throws Exception {
+        ReferenceCountUtil.release(evt);
+    }
+
+    @Override
+    public void exceptionCaught(Http2StreamHandlerContext ctx, Throwable cause) throws Exception {
+        ctx.reset(cause instanceof Http2Exception ? ((Http2Exception) cause).error() : Http2Error.INTERNAL_ERROR);
+    }
+
+    @Override
+    public void streamClosed(Http2StreamHandlerContext ctx) throws Exception {
+        // NOOP
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http2.Http2FrameCodec.DefaultHttp2FrameStream;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.nio.channels.ClosedChannelException;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * The state of a single HTTP/2 stream that is handled by a {@link Http2StreamHandler}. Instances are created by the
+ * {@link Http2StreamDispatchHandler} of the connection, one per stream. Once
+ * {@link Http2StreamHandler#streamClosed(Http2StreamHandlerContext)} returned the context is unbound from its stream
+ * and all writes fail with a {@link ClosedChannelException}, so a reference that is kept around, e.g. by a listener,
+ * can never write to another stream.
+ *
+ * <p>All writes go to the {@link Http2FrameCodec} of the connection directly. Flushes that are requested while the
+ * connection is reading are coalesced into a single flush once the read is complete.
+ */
+@UnstableApi
+public final class Http2StreamHandlerContext {
+
+    private final Http2StreamDispatchHandler dispatcher;
+    private final ChannelHandlerContext ctx;
+    private DefaultHttp2FrameStream stream;
+    private Http2StreamHandler handler;
+    private Object attachment;
+
+    Http2StreamHandlerContext(Http2StreamDispatchHandler dispatcher, ChannelHandlerContext ctx) {
+        this.dispatcher = dispatcher;
+        this.ctx = ctx;
+    }
+
+    void init(DefaultHttp2FrameStream stream, Http2StreamHandler handler) {
+        this.stream = stream;
+        this.handler = handler;
+        stream.attachment = this;
+    }
+
+    void unbind() {
+        stream.attachment = null;
+        stream = null;
+        handler = null;
+        attachment = null;
+    }
+
+    boolean isBound() {
+        return stream != null;
+    }
+
+    /**
+     * Returns the {@link Http2FrameStream} this context belongs to.
+     */
+    public Http2FrameStream stream() {
+        return stream;
+    }
+
+    /**
+     * Returns the {@link Http2StreamHandler} that handles the stream.
+     */
+    public Http2StreamHandler handler() {
+        return handler;
+    }
+
+    /**
+     * Returns the {@link Channel} of the HTTP/2 connection.
+     */
+    public Channel channel() {
+        return ctx.channel();
+    }
+
+    /**
+     * Returns the {@link ByteBufAllocator} of the HTTP/2 connection.
+     */
+    public ByteBufAllocator alloc() {
+        return ctx.alloc();
+    }
+
+    /**
+     * Attaches the given object to this context, replacing the previously attached one.
+     *
+     * @return the previously attached object or {@code null}.
+     */
+    public Object attach(Object attachment) {
+        Object old = this.attachment;
+        this.attachment = attachment;
+        return old;
+    }
+
+    /**
+     * Returns the object that was attached via {@link #attach(Object)} or {@code null}.
+     */
+    public Object attachment() {
+        return attachment;
+    }
+
+    /**
+     * Returns {@code true} if the connection is writable and the stream has flow-control window left, which means that
+     * {@link Http2DataFrame}s will be written out without being queued.
+     */
+    public boolean isWritable() {
+        return stream != null && dispatcher.isWritable(stream);
+    }
+
+    /**
+     * Returns the given number of bytes of received {@link Http2DataFrame}s to the local flow-control window. This is
+     * only needed if the {@link Http2StreamDispatchHandler} was created without automatically consuming the bytes.
+     *
+     * @see Http2DataFrame#initialFlowControlledBytes()
+     */
+    public void consumeBytes(int bytes) throws Http2Exception {
+        checkPositiveOrZero(bytes, "bytes");
+        if (stream != null) {
+            dispatcher.consumeBytes(stream, bytes);
+        }
+    }
+
+    /**
+     * Writes the given frame for this stream without flushing it.
+     */
+    public ChannelFuture write(Http2StreamFrame frame) {
+        return write(frame, ctx.newPromise());
+    }
+
+    /**
+     * Writes the given frame for this stream without flushing it.
+     */
+    public ChannelFuture write(Http2StreamFrame frame, ChannelPromise promise) {
+        checkNotNull(frame, "frame");
+        final DefaultHttp2FrameStream stream = this.stream;
+        if (stream == null) {
+            ReferenceCountUtil.release(frame);
+            return promise.setFailure(new ClosedChannelException());
+        }
+        if (frame instanceof Http2HeadersFrame && stream.state() == Http2Stream.State.IDLE) {
+            // The HEADERS frame opens an outbound stream. If it can not be opened we will never see it being closed,
+            // so release the context once the write failed.
+            promise = promise.unvoid();
+            promise.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (!future.isSuccess() && Http2StreamHandlerContext.this.stream == stream &&
+                            stream.state() == Http2Stream.State.IDLE) {
+                        dispatcher.streamClosed(Http2StreamHandlerContext.this);
+                    }
+                }
+            });
+        }
+        return ctx.write(frame.stream(stream), promise);
+    }
+
+    /**
+     * Writes and flushes the given frame for this stream.
+     */
+    public ChannelFuture writeAndFlush(Http2StreamFrame frame) {
+        ChannelFuture future = write(frame);
+        flush();
+        return future;
+    }
+
+    /**
+     * Flushes the connection, or marks it to be flushed once the connection completed the current read.
+     */
+    public Http2StreamHandlerContext flush() {
+        dispatcher.flush();
+        return this;
+    }
+
+    /**
+     * Resets the stream with the given error and flushes the connection.
+     */
+    public ChannelFuture reset(Http2Error error) {
+        return writeAndFlush(new DefaultHttp2ResetFrame(error));
+    }
+
+    @Override
+    public String toString() {
+        return "Http2StreamHandlerContext(" + stream + ')';
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * An open addressing index from stream id to {@link Http2Stream} using linear probing.
+ * <p>
+ * All streams created by one endpoint share the same parity, so the low bit of the id is dropped when computing the
+ * slot. The streams that are alive at the same time usually have consecutive ids, which means they occupy consecutive
+ * slots without collisions and the table can run at a higher load factor than a general purpose map.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class Http2StreamIndex {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Http2Stream[] values;
+    private int mask;
+    private int maxSize;
+    private int size;
+
+    Http2StreamIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    Http2StreamIndex(int initialCapacity) {
+        allocate(findNextPositivePowerOfTwo(max(2, checkPositive(initialCapacity, "initialCapacity"))));
+    }
+
+    /**
+     * Returns the number of streams in this index.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the stream with the given id, or {@code null} if there is none.
+     */
+    Http2Stream get(int streamId) {
+        int index = indexOf(streamId);
+        return index == -1 ? null : values[index];
+    }
+
+    /**
+     * Adds the stream under its {@link Http2Stream#id()}, returning the stream it replaced or {@code null}.
+     */
+    Http2Stream put(Http2Stream stream) {
+        final int streamId = stream.id();
+        int index = hashIndex(streamId);
+        for (;;) {
+            Http2Stream value = values[index];
+            if (value == null) {
+                keys[index] = streamId;
+                values[index] = stream;
+                if (++size > maxSize) {
+                    rehash(keys.length << 1);
+                }
+                return null;
+            }
+            if (keys[index] == streamId) {
+                values[index] = stream;
+                return value;
+            }
+            index = probeNext(index);
+        }
+    }
+
+    /**
+     * Removes the stream with the given id, returning it or {@code null} if there was none.
+     */
+    Http2Stream remove(int streamId) {
+        int index = indexOf(streamId);
+        if (index == -1) {
+            return null;
+        }
+        Http2Stream prev = values[index];
+        removeAt(index);
+        return prev;
+    }
+
+    /**
+     * Returns an {@link Iterator} over all streams in this index. {@link Iterator#remove()} is supported, any other
+     * modification while iterating results in undefined behaviour. When only some streams are removed, a stream whose
+     * probe sequence wrapped around the end of the table may be returned twice.
+     */
+    Iterator<Http2Stream> iterator() {
+        return new StreamIterator();
+    }
+
+    private int indexOf(int streamId) {
+        int index = hashIndex(streamId);
+        for (;;) {
+            if (values[index] == null) {
+                return -1;
+            }
+            if (keys[index] == streamId) {
+                return index;
+            }
+            index = probeNext(index);
+        }
+    }
+
+    private int hashIndex(int streamId) {
+        // Map the connection stream to slot 0 and streams 1 and 2, 3 and 4, ... to the following slots.
+        return (streamId + 1 >>> 1) & mask;
+    }
+
+    private int probeNext(int index) {
+        return index + 1 & mask;
+    }
+
+    /**
+     * Removes the entry at {@code index} and shifts back the entries that follow it in the same probe sequence, so
+     * that no tombstones are needed.
+     *
+     * @return {@code true} if an entry was moved into {@code index}.
+     */
+    private boolean removeAt(final int index) {
+        --size;
+        keys[index] = 0;
+        values[index] = null;
+
+        int nextFree = index;
+        int i = probeNext(index);
+        for (Http2Stream value = values[i]; value != null; value = values[i = probeNext(i)]) {
+            int key = keys[i];
+            int bucket = hashIndex(key);
+            // Move the entry if its home bucket is not within the cyclic range (nextFree, i].
+            if (i < bucket && (bucket <= nextFree || nextFree <= i) || bucket <= nextFree && nextFree <= i) {
+                keys[nextFree] = key;
+                values[nextFree] = value;
+                keys[i] = 0;
+                values[i] = null;
+                nextFree = i;
+            }
+        }
+        return nextFree != index;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Http2Stream[capacity];
+        mask = capacity - 1;
+        // Load factor of 0.75, but always keep a free slot so that probing terminates.
+        maxSize = min(capacity - 1, capacity - (capacity >>> 2));
+    }
+
+    private void rehash(int newCapacity) {
+        final int[] oldKeys = keys;
+        final Http2Stream[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            Http2Stream value = oldValues[i];
+            if (value != null) {
+                int index = hashIndex(oldKeys[i]);
+                while (values[index] != null) {
+                    index = probeNext(index);
+                }
+                keys[index] = oldKeys[i];
+                values[index] = value;
+            }
+        }
+    }
+
+    private final class StreamIterator implements Iterator<Http2Stream> {
+        private int prevIndex = -1;
+        private int nextIndex = -1;
+
+        private void scanNext() {
+            while (++nextIndex != values.length && values[nextIndex] == null) {
+                // NOOP
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextIndex == -1) {
+                scanNext();
+            }
+            return nextIndex != values.length;
+        }
+
+        @Override
+        public Http2Stream next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            prevIndex = nextIndex;
+            scanNext();
+            return values[prevIndex];
+        }
+
+        @Override
+        public void remove() {
+            if (prevIndex == -1) {
+                throw new IllegalStateException("next must be called before each remove.");
+            }
+            if (removeAt(prevIndex)) {
+                // An entry that follows in the probe sequence was moved back into the slot we just visited, so it
+                // must be visited next.
+                nextIndex = prevIndex;
+            }
+            prevIndex = -1;
+        }
+    }
+}
@@ -0,0 +1,588 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.HttpConversionUtil.ExtensionHeaderNames;
+import io.netty.util.AsciiString;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static io.netty.handler.codec.CharSequenceValueConverter.INSTANCE;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.hasPseudoHeaderFormat;
+import static io.netty.util.AsciiString.contentEquals;
+import static io.netty.util.AsciiString.contentEqualsIgnoreCase;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * Presents {@link Http2Headers} as {@link HttpHeaders} without copying them.
+ * <p>
+ * The wrapped {@link Http2Headers} are never modified. The HTTP/1.x headers that are derived from them, which are
+ * {@code host}, the {@link ExtensionHeaderNames extension headers}, {@code connection} and a single {@code cookie}
+ * header that joins all cookies, are computed while they are read. Pseudo-headers, {@code transfer-encoding} and
+ * {@code trailer} are not visible through this view and pseudo-headers can not be added. Names are looked up
+ * case-insensitively.
+ * <p>
+ * The first write to a name copies the values of that name into separate {@link HttpHeaders}, which hold the values
+ * of that name from then on. All other names are still read from the wrapped {@link Http2Headers}. Nothing is
+ * validated by the view.
+ *
+ * @see HttpConversionUtil#toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)
+ */
+final class Http2ToHttpHeadersAdapter extends HttpHeaders {
+    /**
+     * Pseudo-header names and the names of the HTTP/1.x headers they are translated to at even and odd indexes.
+     */
+    private static final AsciiString[] REQUEST_TRANSLATIONS = {
+            Http2Headers.PseudoHeaderName.AUTHORITY.value(), HttpHeaderNames.HOST,
+            Http2Headers.PseudoHeaderName.SCHEME.value(), ExtensionHeaderNames.SCHEME.text()
+    };
+    private static final AsciiString[] RESPONSE_TRANSLATIONS = {
+            Http2Headers.PseudoHeaderName.AUTHORITY.value(), HttpHeaderNames.HOST,
+            Http2Headers.PseudoHeaderName.SCHEME.value(), ExtensionHeaderNames.SCHEME.text(),
+            Http2Headers.PseudoHeaderName.PATH.value(), ExtensionHeaderNames.PATH.text()
+    };
+
+    private final Http2Headers headers;
+    private final AsciiString[] translations;
+    /**
+     * The value of the stream id extension header, or {@code null} for trailers.
+     */
+    private final String streamId;
+    /**
+     * {@code true} if the HTTP version keeps connections alive by default, so no {@code connection} header is needed.
+     */
+    private final boolean keepAliveDefault;
+    private CharSequence cookie;
+    private boolean cookieJoined;
+    /**
+     * The values and the names of the headers that were written through this view, created on the first write.
+     */
+    private HttpHeaders written;
+    private CharSequenceMap<AsciiString> writtenNames;
+    /**
+     * {@code true} once {@link #clear()} was called, from then on nothing is read from {@link #headers}.
+     */
+    private boolean cleared;
+
+    Http2ToHttpHeadersAdapter(Http2Headers headers, int streamId, HttpVersion httpVersion, boolean isTrailer,
+                              boolean isRequest) {
+        this.headers = checkNotNull(headers, "headers");
+        translations = isRequest ? REQUEST_TRANSLATIONS : RESPONSE_TRANSLATIONS;
+        this.streamId = isTrailer ? null : String.valueOf(streamId);
+        keepAliveDefault = httpVersion.isKeepAliveDefault();
+    }
+
+    private boolean isWritten(CharSequence name) {
+        return cleared || writtenNames != null && writtenNames.contains(name);
+    }
+
+    /**
+     * Returns {@code true} if the headers of {@link #headers} with the given name are not visible as they are.
+     */
+    private boolean isHidden(CharSequence name) {
+        return hasPseudoHeaderFormat(name) ||
+                contentEqualsIgnoreCase(HttpHeaderNames.TRANSFER_ENCODING, name) ||
+                contentEqualsIgnoreCase(HttpHeaderNames.TRAILER, name) ||
+                streamId != null && (contentEqualsIgnoreCase(HttpHeaderNames.CONNECTION, name) ||
+                        contentEqualsIgnoreCase(ExtensionHeaderNames.STREAM_ID.text(), name));
+    }
+
+    /**
+     * Returns the values of all {@code cookie} headers joined into one, see
+     * <a href="https://tools.ietf.org/html/rfc7540#section-8.1.2.5">RFC 7540, 8.1.2.5</a>.
+     */
+    private CharSequence cookie() {
+        if (!cookieJoined) {
+            cookieJoined = true;
+            Iterator<CharSequence> itr = headers.valueIterator(HttpHeaderNames.COOKIE);
+            if (itr.hasNext()) {
+                CharSequence value = itr.next();
+                if (itr.hasNext()) {
+                    StringBuilder cookies = new StringBuilder().append(value);
+                    do {
+                        cookies.append("; ").append(itr.next());
+                    } while (itr.hasNext());
+                    value = cookies.toString();
+                }
+                cookie = value;
+            }
+        }
+        return cookie;
+    }
+
+    /**
+     * Adds the values of {@code name} as they are derived from {@link #headers} to {@code values} and returns the
+     * first one. If {@code values} is {@code null}, only the first value is looked up.
+     */
+    private CharSequence readValues(CharSequence name, List<CharSequence> values) {
+        if (streamId != null) {
+            if (contentEqualsIgnoreCase(ExtensionHeaderNames.STREAM_ID.text(), name)) {
+                return addValue(values, streamId);
+            }
+            if (contentEqualsIgnoreCase(HttpHeaderNames.CONNECTION, name)) {
+                return keepAliveDefault ? null : addValue(values, HttpHeaderValues.KEEP_ALIVE);
+            }
+        }
+        if (isHidden(name)) {
+            return null;
+        }
+        if (contentEqualsIgnoreCase(HttpHeaderNames.COOKIE, name)) {
+            CharSequence cookie = cookie();
+            return cookie != null ? addValue(values, cookie) : null;
+        }
+        CharSequence first = null;
+        Iterator<CharSequence> itr = headers.valueIterator(HttpConversionUtil.toLowerCase(name));
+        while (itr.hasNext()) {
+            CharSequence value = itr.next();
+            if (values == null) {
+                return value;
+            }
+            if (first == null) {
+                first = value;
+            }
+            values.add(value);
+        }
+        for (int i = 0; i < translations.length; i += 2) {
+            if (contentEqualsIgnoreCase(translations[i + 1], name)) {
+                CharSequence value = headers.get(translations[i]);
+                if (value != null) {
+                    addValue(values, value);
+                    return first != null ? first : value;
+                }
+                break;
+            }
+        }
+        return first;
+    }
+
+    private static CharSequence addValue(List<CharSequence> values, CharSequence value) {
+        if (values != null) {
+            values.add(value);
+        }
+        return value;
+    }
+
+    private CharSequence getCharSequence(CharSequence name) {
+        return isWritten(name) ? written.get(name) : readValues(name, null);
+    }
+
+    /**
+     * Returns the {@link HttpHeaders} that hold the values of {@code name} from now on.
+     *
+     * @param copyValues {@code true} to keep the current values of {@code name} if it was not written before.
+     */
+    private HttpHeaders write(CharSequence name, boolean copyValues) {
+        checkNotNull(name, "name");
+        if (hasPseudoHeaderFormat(name)) {
+            throw new IllegalArgumentException("pseudo-headers can not be set through HttpHeaders: " + name);
+        }
+        if (written == null) {
+            written = new DefaultHttpHeaders(false);
+            writtenNames = new CharSequenceMap<AsciiString>(false);
+        }
+        if (!isWritten(name)) {
+            if (copyValues) {
+                List<CharSequence> values = new ArrayList<CharSequence>(2);
+                readValues(name, values);
+                written.add(name, values);
+            }
+            writtenNames.add(name, AsciiString.EMPTY_STRING);
+        }
+        return written;
+    }
+
+    @Override
+    public String get(String name) {
+        return get((CharSequence) name);
+    }
+
+    @Override
+    public String get(CharSequence name) {
+        CharSequence value = getCharSequence(name);
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public Integer getInt(CharSequence name) {
+        CharSequence value = getCharSequence(name);
+        try {
+            return value != null ? INSTANCE.convertToInt(value) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public int getInt(CharSequence name, int defaultValue) {
+        Integer value = getInt(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Short getShort(CharSequence name) {
+        CharSequence value = getCharSequence(name);
+        try {
+            return value != null ? INSTANCE.convertToShort(value) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public short getShort(CharSequence name, short defaultValue) {
+        Short value = getShort(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Long getTimeMillis(CharSequence name) {
+        CharSequence value = getCharSequence(name);
+        try {
+            return value != null ? INSTANCE.convertToTimeMillis(value) : null;
+        } catch (RuntimeException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public long getTimeMillis(CharSequence name, long defaultValue) {
+        Long value = getTimeMillis(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public List<String> getAll(String name) {
+        return getAll((CharSequence) name);
+    }
+
+    @Override
+    public List<String> getAll(CharSequence name) {
+        if (isWritten(name)) {
+            return written.getAll(name);
+        }
+        List<CharSequence> values = new ArrayList<CharSequence>(2);
+        readValues(name, values);
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<String>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            result.add(values.get(i).toString());
+        }
+        return result;
+    }
+
+    @Override
+    public List<Entry<String, String>> entries() {
+        if (isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Entry<String, String>> entries = new ArrayList<Entry<String, String>>(headers.size());
+        for (Entry<String, String> entry : this) {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return contains((CharSequence) name);
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        return getCharSequence(name) != null;
+    }
+
+    @Override
+    public boolean contains(String name, String value, boolean ignoreCase) {
+        return contains((CharSequence) name, value, ignoreCase);
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value, boolean ignoreCase) {
+        Iterator<? extends CharSequence> itr = valueCharSequenceIterator(name);
+        while (itr.hasNext()) {
+            CharSequence next = itr.next();
+            if (ignoreCase ? contentEqualsIgnoreCase(next, value) : contentEquals(next, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        return new StringEntryIterator(iteratorCharSequence());
+    }
+
+    @Override
+    public Iterator<Entry<CharSequence, CharSequence>> iteratorCharSequence() {
+        return new EntryIterator();
+    }
+
+    @Override
+    public Iterator<? extends CharSequence> valueCharSequenceIterator(CharSequence name) {
+        if (isWritten(name)) {
+            return written.valueCharSequenceIterator(name);
+        }
+        List<CharSequence> values = new ArrayList<CharSequence>(2);
+        readValues(name, values);
+        return values.iterator();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !iteratorCharSequence().hasNext();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Iterator<Entry<CharSequence, CharSequence>> itr = iteratorCharSequence(); itr.hasNext(); itr.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public Set<String> names() {
+        Set<String> names = new LinkedHashSet<String>();
+        for (Iterator<Entry<CharSequence, CharSequence>> itr = iteratorCharSequence(); itr.hasNext();) {
+            names.add(itr.next().getKey().toString());
+        }
+        return names;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Object value) {
+        return add((CharSequence) name, value);
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Object value) {
+        write(name, true).add(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders add(String name, Iterable<?> values) {
+        return add((CharSequence) name, values);
+    }
+
+    @Override
+    public HttpHeaders add(CharSequence name, Iterable<?> values) {
+        write(name, true).add(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addInt(CharSequence name, int value) {
+        write(name, true).addInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders addShort(CharSequence name, short value) {
+        write(name, true).addShort(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Object value) {
+        return set((CharSequence) name, value);
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Object value) {
+        write(name, false).set(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders set(String name, Iterable<?> values) {
+        return set((CharSequence) name, values);
+    }
+
+    @Override
+    public HttpHeaders set(CharSequence name, Iterable<?> values) {
+        write(name, false).set(name, values);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setInt(CharSequence name, int value) {
+        write(name, false).setInt(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders setShort(CharSequence name, short value) {
+        write(name, false).setShort(name, value);
+        return this;
+    }
+
+    @Override
+    public HttpHeaders remove(String name) {
+        return remove((CharSequence) name);
+    }
+
+    @Override
+    public HttpHeaders remove(CharSequence name) {
+        if (!hasPseudoHeaderFormat(name)) {
+            write(name, false).remove(name);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpHeaders clear() {
+        if (written == null) {
+            written = new DefaultHttpHeaders(false);
+            writtenNames = new CharSequenceMap<AsciiString>(false);
+        } else {
+            written.clear();
+            writtenNames.clear();
+        }
+        cleared = true;
+        return this;
+    }
+
+    /**
+     * Returns the visible headers of the wrapped {@link Http2Headers} in their order, followed by the headers that are
+     * derived from the pseudo-headers and the stream and finally the headers that were written through the view. Only
+     * looks ahead in {@link #hasNext()}, so an entry returned by {@link #next()} stays valid until the next call to
+     * {@link #hasNext()}, even if the wrapped {@link Http2Headers} reuse their entries.
+     */
+    private final class EntryIterator implements Iterator<Entry<CharSequence, CharSequence>> {
+        private final Iterator<Entry<CharSequence, CharSequence>> itr = cleared ? null : headers.iterator();
+        private Iterator<Entry<CharSequence, CharSequence>> writtenItr;
+        private int derivedIndex;
+        private boolean cookieSeen;
+        private Entry<CharSequence, CharSequence> next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = findNext();
+            }
+            return next != null;
+        }
+
+        private Entry<CharSequence, CharSequence> findNext() {
+            if (itr != null) {
+                while (itr.hasNext()) {
+                    Entry<CharSequence, CharSequence> entry = itr.next();
+                    CharSequence name = entry.getKey();
+                    if (isHidden(name) || isWritten(name)) {
+                        continue;
+                    }
+                    if (contentEqualsIgnoreCase(HttpHeaderNames.COOKIE, name)) {
+                        if (cookieSeen) {
+                            continue;
+                        }
+                        cookieSeen = true;
+                        return new SimpleImmutableEntry<CharSequence, CharSequence>(name, cookie());
+                    }
+                    return entry;
+                }
+                while (derivedIndex < translations.length) {
+                    AsciiString name = translations[derivedIndex + 1];
+                    CharSequence value = headers.get(translations[derivedIndex]);
+                    derivedIndex += 2;
+                    if (value != null && !isWritten(name)) {
+                        return new SimpleImmutableEntry<CharSequence, CharSequence>(name, value);
+                    }
+                }
+                if (streamId != null && derivedIndex == translations.length) {
+                    derivedIndex++;
+                    if (!isWritten(ExtensionHeaderNames.STREAM_ID.text())) {
+                        return new SimpleImmutableEntry<CharSequence, CharSequence>(
+                                ExtensionHeaderNames.STREAM_ID.text(), streamId);
+                    }
+                }
+                if (streamId != null && !keepAliveDefault && derivedIndex == translations.length + 1) {
+                    derivedIndex++;
+                    if (!isWritten(HttpHeaderNames.CONNECTION)) {
+                        return new SimpleImmutableEntry<CharSequence, CharSequence>(
+                                HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+                    }
+                }
+            }
+            if (written != null) {
+                if (writtenItr == null) {
+                    writtenItr = written.iteratorCharSequence();
+                }
+                if (writtenItr.hasNext()) {
+                    return writtenItr.next();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Entry<CharSequence, CharSequence> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<CharSequence, CharSequence> current = next;
+            next = null;
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+
+    private static final class StringEntryIterator implements Iterator<Entry<String, String>> {
+        private final Iterator<Entry<CharSequence, CharSequence>> itr;
+
+        StringEntryIterator(Iterator<Entry<CharSequence, CharSequence>> itr) {
+            this.itr = itr;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return itr.hasNext();
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            Entry<CharSequence, CharSequence> entry = itr.next();
+            return new SimpleImmutableEntry<String, String>(entry.getKey().toString(), entry.getValue().toString());
+        }
+
+        @Override
+        public void remove() {
+            itr.remove();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import io.netty.handler.codec.UnsupportedValueConverter;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeadersFactory;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpMessage;
 import io.netty.handler.codec.http.FullHttpRequest;
@@ -60,6 +61,7 @@ import static io.netty.util.AsciiString.indexOf;
 import static io.netty.util.AsciiString.trim;
 import static io.netty.util.ByteProcessor.FIND_COMMA;
 import static io.netty.util.ByteProcessor.FIND_SEMI_COLON;
+import static io.netty.util.internal.EmptyArrays.EMPTY_ASCII_STRINGS;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import static io.netty.util.internal.StringUtil.isNullOrEmpty;
 import static io.netty.util.internal.StringUtil.length;
@@ -74,7 +76,7 @@ public final class HttpConversionUtil {
      * The set of headers that should not be directly copied when converting headers from HTTP to HTTP/2.
      */
     private static final CharSequenceMap<AsciiString> HTTP_TO_HTTP2_HEADER_BLACKLIST =
-            new CharSequenceMap<AsciiString>();
+            new CharSequenceMap<AsciiString>(false);
     static {
         HTTP_TO_HTTP2_HEADER_BLACKLIST.add(CONNECTION, EMPTY_STRING);
         @SuppressWarnings("deprecation")
@@ -372,6 +374,140 @@ public final class HttpConversionUtil {
         return msg;
     }
 
+    /**
+     * Create a new object to contain the request data without copying the headers. The headers of the returned
+     * request are a view of {@code http2Headers}, see
+     * {@link #toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)}.
+     *
+     * @param streamId The stream associated with the request
+     * @param http2Headers The initial set of HTTP/2 headers to create the request with
+     * @param content {@link ByteBuf} content to put in {@link FullHttpRequest}, released if the conversion fails
+     * @param validateHttpHeaders <ul>
+     *        <li>{@code true} to validate the trailing HTTP headers in the http-codec</li>
+     *        <li>{@code false} not to validate the trailing HTTP headers in the http-codec</li>
+     *        </ul>
+     * @return A new request object which represents headers/data
+     * @throws Http2Exception see {@link #toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)}
+     */
+    public static FullHttpRequest toFullHttpRequestView(int streamId, Http2Headers http2Headers, ByteBuf content,
+                                                        boolean validateHttpHeaders) throws Http2Exception {
+        try {
+            final CharSequence method = checkNotNull(http2Headers.method(),
+                    "method header cannot be null in conversion to HTTP/1.x");
+            final CharSequence path = extractPath(method, http2Headers);
+            HttpHeaders headers = toHttpHeadersView(streamId, http2Headers, HttpVersion.HTTP_1_1, false, true);
+            return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.valueOf(method.toString()),
+                    path.toString(), content, headers,
+                    DefaultHttpHeadersFactory.trailersFactory(validateHttpHeaders).newHeaders());
+        } catch (Http2Exception e) {
+            content.release();
+            throw e;
+        } catch (Throwable t) {
+            content.release();
+            throw streamError(streamId, PROTOCOL_ERROR, t, "HTTP/2 to HTTP/1.x headers conversion error");
+        }
+    }
+
+    /**
+     * Create a new object to contain the response data without copying the headers. The headers of the returned
+     * response are a view of {@code http2Headers}, see
+     * {@link #toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)}.
+     *
+     * @param streamId The stream associated with the response
+     * @param http2Headers The initial set of HTTP/2 headers to create the response with
+     * @param content {@link ByteBuf} content to put in {@link FullHttpResponse}, released if the conversion fails
+     * @param validateHttpHeaders <ul>
+     *        <li>{@code true} to validate the trailing HTTP headers in the http-codec</li>
+     *        <li>{@code false} not to validate the trailing HTTP headers in the http-codec</li>
+     *        </ul>
+     * @return A new response object which represents headers/data
+     * @throws Http2Exception see {@link #toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)}
+     */
+    public static FullHttpResponse toFullHttpResponseView(int streamId, Http2Headers http2Headers, ByteBuf content,
+                                                          boolean validateHttpHeaders) throws Http2Exception {
+        try {
+            HttpResponseStatus status = parseStatus(http2Headers.status());
+            HttpHeaders headers = toHttpHeadersView(streamId, http2Headers, HttpVersion.HTTP_1_1, false, false);
+            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content, headers,
+                    DefaultHttpHeadersFactory.trailersFactory(validateHttpHeaders).newHeaders());
+        } catch (Http2Exception e) {
+            content.release();
+            throw e;
+        } catch (Throwable t) {
+            content.release();
+            throw streamError(streamId, PROTOCOL_ERROR, t, "HTTP/2 to HTTP/1.x headers conversion error");
+        }
+    }
+
+    /**
+     * Create a new object to contain the request data without copying the headers. The headers of the returned
+     * request are a view of {@code http2Headers}, see
+     * {@link #toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)}.
+     *
+     * @param streamId The stream associated with the request
+     * @param http2Headers The initial set of HTTP/2 headers to create the request with
+     * @return A new request object which represents headers for a chunked request
+     * @throws Http2Exception see {@link #toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)}
+     */
+    public static HttpRequest toHttpRequestView(int streamId, Http2Headers http2Headers) throws Http2Exception {
+        final CharSequence method = checkNotNull(http2Headers.method(),
+                "method header cannot be null in conversion to HTTP/1.x");
+        final CharSequence path = extractPath(method, http2Headers);
+        HttpHeaders headers = toHttpHeadersView(streamId, http2Headers, HttpVersion.HTTP_1_1, false, true);
+        return new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.valueOf(method.toString()),
+                path.toString(), headers);
+    }
+
+    /**
+     * Create a new object to contain the response data without copying the headers. The headers of the returned
+     * response are a view of {@code http2Headers}, see
+     * {@link #toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)}.
+     *
+     * @param streamId The stream associated with the response
+     * @param http2Headers The initial set of HTTP/2 headers to create the response with
+     * @return A new response object which represents headers for a chunked response
+     * @throws Http2Exception see {@link #toHttpHeadersView(int, Http2Headers, HttpVersion, boolean, boolean)}
+     */
+    public static HttpResponse toHttpResponseView(int streamId, Http2Headers http2Headers) throws Http2Exception {
+        final HttpResponseStatus status = parseStatus(http2Headers.status());
+        HttpHeaders headers = toHttpHeadersView(streamId, http2Headers, HttpVersion.HTTP_1_1, false, false);
+        return new DefaultHttpResponse(HttpVersion.HTTP_1_1, status, headers);
+    }
+
+    /**
+     * Translate HTTP/2 headers to HTTP/1.x headers without copying them.
+     * <p>
+     * The returned {@link HttpHeaders} are a view of {@code inputHeaders} that hides the pseudo-headers and computes
+     * the HTTP/1.x equivalents of the pseudo-headers, the extension headers and the joined {@code cookie} header while
+     * they are read. {@code inputHeaders} are never modified, a write to the view copies the values of the written
+     * name into the view first. The view does not validate anything itself. {@code inputHeaders} must not be modified
+     * while the view is in use.
+     *
+     * @param streamId The stream associated with {@code inputHeaders}.
+     * @param inputHeaders The HTTP/2 headers to translate.
+     * @param httpVersion What HTTP/1.x version the returned headers should be treated as when doing the conversion.
+     * @param isTrailer {@code true} if the returned headers should be treated as trailing headers.
+     * {@code false} otherwise.
+     * @param isRequest {@code true} if the returned headers will be used in a request message.
+     * {@code false} for response message.
+     * @return A {@link HttpHeaders} view of {@code inputHeaders}.
+     * @throws Http2Exception If not all HTTP/2 headers can be translated to HTTP/1.x.
+     * @see #addHttp2ToHttpHeaders(int, Http2Headers, HttpHeaders, HttpVersion, boolean, boolean)
+     */
+    public static HttpHeaders toHttpHeadersView(int streamId, Http2Headers inputHeaders, HttpVersion httpVersion,
+                                                boolean isTrailer, boolean isRequest) throws Http2Exception {
+        for (Entry<CharSequence, CharSequence> entry : inputHeaders) {
+            final CharSequence name = entry.getKey();
+            // https://tools.ietf.org/html/rfc7540#section-8.1.2.3
+            // All headers that start with ':' are only valid in HTTP/2 context
+            if (!Http2Headers.PseudoHeaderName.isPseudoHeader(name) && (name.length() == 0 || name.charAt(0) == ':')) {
+                throw streamError(streamId, PROTOCOL_ERROR,
+                        "Invalid HTTP/2 header '%s' encountered in translation to HTTP/1.x", name);
+            }
+        }
+        return new Http2ToHttpHeadersAdapter(inputHeaders, streamId, httpVersion, isTrailer, isRequest);
+    }
+
     /**
      * Translate and add HTTP/2 headers to HTTP/1.x headers.
      *
@@ -468,10 +604,108 @@ public final class HttpConversionUtil {
         return out;
     }
 
+    /**
+     * Presents the given HTTP/1.x message as HTTP/2 headers without copying its headers.
+     * <p>
+     * The pseudo-headers are computed the same way as by {@link #toHttp2Headers(HttpMessage, boolean)}. The returned
+     * {@link Http2Headers} are a read-only view of {@link HttpMessage#headers()} that applies the HTTP/2 rules for
+     * connection-specific headers while it is read. Unlike {@link #toHttp2Headers(HttpMessage, boolean)},
+     * {@code cookie} headers are not split into one header per cookie and nothing is validated. The headers of
+     * {@code in} must not be modified while the view is in use.
+     */
+    public static Http2Headers toHttp2HeadersView(HttpMessage in) {
+        HttpHeaders inHeaders = in.headers();
+        final AsciiString[] pseudoHeaders;
+        if (in instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) in;
+            String host = inHeaders.getAsString(HttpHeaderNames.HOST);
+            final AsciiString path;
+            final AsciiString scheme;
+            if (isOriginForm(request.uri()) || isAsteriskForm(request.uri())) {
+                path = new AsciiString(request.uri());
+                scheme = toHttp2Scheme(inHeaders, URI.create(""));
+            } else {
+                URI requestTargetUri = URI.create(request.uri());
+                path = toHttp2Path(requestTargetUri);
+                // Take from the request-line if HOST header was empty
+                host = isNullOrEmpty(host) ? requestTargetUri.getAuthority() : host;
+                scheme = toHttp2Scheme(inHeaders, requestTargetUri);
+            }
+            AsciiString authority = toHttp2Authority(host);
+            AsciiString method = request.method().asciiName();
+            pseudoHeaders = authority == null ?
+                    new AsciiString[] {
+                            Http2Headers.PseudoHeaderName.PATH.value(), path,
+                            Http2Headers.PseudoHeaderName.SCHEME.value(), scheme,
+                            Http2Headers.PseudoHeaderName.METHOD.value(), method } :
+                    new AsciiString[] {
+                            Http2Headers.PseudoHeaderName.PATH.value(), path,
+                            Http2Headers.PseudoHeaderName.SCHEME.value(), scheme,
+                            Http2Headers.PseudoHeaderName.AUTHORITY.value(), authority,
+                            Http2Headers.PseudoHeaderName.METHOD.value(), method };
+        } else if (in instanceof HttpResponse) {
+            HttpResponse response = (HttpResponse) in;
+            pseudoHeaders = new AsciiString[] {
+                    Http2Headers.PseudoHeaderName.STATUS.value(), response.status().codeAsText() };
+        } else {
+            pseudoHeaders = EMPTY_ASCII_STRINGS;
+        }
+        return new HttpToHttp2HeadersAdapter(inHeaders, pseudoHeaders, connectionHeaders(inHeaders));
+    }
+
+    /**
+     * Presents the given HTTP/1.x headers, usually trailers, as HTTP/2 headers without copying them.
+     *
+     * @see #toHttp2HeadersView(HttpMessage)
+     */
+    public static Http2Headers toHttp2HeadersView(HttpHeaders inHeaders) {
+        if (inHeaders.isEmpty()) {
+            return EmptyHttp2Headers.INSTANCE;
+        }
+        return new HttpToHttp2HeadersAdapter(inHeaders, EMPTY_ASCII_STRINGS, connectionHeaders(inHeaders));
+    }
+
+    /**
+     * Returns {@code true} if the header with the given name is never copied from HTTP/1.x to HTTP/2. The name is
+     * compared case-insensitively.
+     */
+    static boolean isExcludedFromHttp2(CharSequence name) {
+        return HTTP_TO_HTTP2_HEADER_BLACKLIST.contains(name);
+    }
+
+    /**
+     * Returns the header names listed by the {@link HttpHeaderNames#CONNECTION} headers as a case-insensitive map, or
+     * {@code null} if there are no such headers.
+     */
+    static CharSequenceMap<AsciiString> connectionHeaders(HttpHeaders headers) {
+        Iterator<? extends CharSequence> connectionValues = headers.valueCharSequenceIterator(CONNECTION);
+        // Choose 8 as a default size because it is unlikely we will see more than 4 Connection headers values, but
+        // still allowing for "enough" space in the map to reduce the chance of hash code collision.
+        return connectionValues.hasNext() ? toLowercaseMap(connectionValues, 8, false) : null;
+    }
+
+    /**
+     * Returns the lower-case form of {@code name}, which is only allocated if {@code name} is not lower-case already.
+     */
+    static CharSequence toLowerCase(CharSequence name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (AsciiString.isUpperCase(name.charAt(i))) {
+                return AsciiString.of(name).toLowerCase();
+            }
+        }
+        return name;
+    }
+
     private static CharSequenceMap<AsciiString> toLowercaseMap(Iterator<? extends CharSequence> valuesIter,
                                                                int arraySizeHint) {
+        return toLowercaseMap(valuesIter, arraySizeHint, true);
+    }
+
+    private static CharSequenceMap<AsciiString> toLowercaseMap(Iterator<? extends CharSequence> valuesIter,
+                                                               int arraySizeHint, boolean caseSensitive) {
         UnsupportedValueConverter<AsciiString> valueConverter = UnsupportedValueConverter.<AsciiString>instance();
-        CharSequenceMap<AsciiString> result = new CharSequenceMap<AsciiString>(true, valueConverter, arraySizeHint);
+        CharSequenceMap<AsciiString> result =
+                new CharSequenceMap<AsciiString>(caseSensitive, valueConverter, arraySizeHint);
 
         while (valuesIter.hasNext()) {
             AsciiString lowerCased = AsciiString.of(valuesIter.next()).toLowerCase();
@@ -505,19 +739,26 @@ public final class HttpConversionUtil {
      */
     private static void toHttp2HeadersFilterTE(Entry<CharSequence, CharSequence> entry,
                                                Http2Headers out) {
-        if (indexOf(entry.getValue(), ',', 0) == -1) {
-            if (contentEqualsIgnoreCase(trim(entry.getValue()), TRAILERS)) {
-                out.add(TE, TRAILERS);
-            }
-        } else {
-            List<CharSequence> teValues = unescapeCsvFields(entry.getValue());
-            for (CharSequence teValue : teValues) {
-                if (contentEqualsIgnoreCase(trim(teValue), TRAILERS)) {
-                    out.add(TE, TRAILERS);
-                    break;
-                }
+        if (containsTrailers(entry.getValue())) {
+            out.add(TE, TRAILERS);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the given {@link HttpHeaderNames#TE} header value lists {@code trailers}, the only
+     * value allowed in HTTP/2.
+     */
+    static boolean containsTrailers(CharSequence teValue) {
+        if (indexOf(teValue, ',', 0) == -1) {
+            return contentEqualsIgnoreCase(trim(teValue), TRAILERS);
+        }
+        List<CharSequence> teValues = unescapeCsvFields(teValue);
+        for (CharSequence value : teValues) {
+            if (contentEqualsIgnoreCase(trim(value), TRAILERS)) {
+                return true;
             }
         }
+        return false;
     }
 
     public static void toHttp2Headers(HttpHeaders inHeaders, Http2Headers out) {
@@ -590,19 +831,26 @@ public final class HttpConversionUtil {
 
     // package-private for testing only
     static void setHttp2Authority(String authority, Http2Headers out) {
+        AsciiString http2Authority = toHttp2Authority(authority);
+        if (http2Authority != null) {
+            out.authority(http2Authority);
+        }
+    }
+
+    private static AsciiString toHttp2Authority(String authority) {
         // The authority MUST NOT include the deprecated "userinfo" subcomponent
-        if (authority != null) {
-            if (authority.isEmpty()) {
-                out.authority(EMPTY_STRING);
-            } else {
-                int start = authority.indexOf('@') + 1;
-                int length = authority.length() - start;
-                if (length == 0) {
-                    throw new IllegalArgumentException("authority: " + authority);
-                }
-                out.authority(new AsciiString(authority, start, length));
-            }
+        if (authority == null) {
+            return null;
+        }
+        if (authority.isEmpty()) {
+            return EMPTY_STRING;
         }
+        int start = authority.indexOf('@') + 1;
+        int length = authority.length() - start;
+        if (length == 0) {
+            throw new IllegalArgumentException("authority: " + authority);
+        }
+        return new AsciiString(authority, start, length);
     }
 
     private static void setHttp2Scheme(HttpHeaders in, Http2Headers out) {
@@ -610,23 +858,25 @@ public final class HttpConversionUtil {
     }
 
     private static void setHttp2Scheme(HttpHeaders in, URI uri, Http2Headers out) {
+        out.scheme(toHttp2Scheme(in, uri));
+    }
+
+    private static AsciiString toHttp2Scheme(HttpHeaders in, URI uri) {
         String value = uri.getScheme();
         if (!isNullOrEmpty(value)) {
-            out.scheme(new AsciiString(value));
-            return;
+            return new AsciiString(value);
         }
 
         // Consume the Scheme extension header if present
         CharSequence cValue = in.get(ExtensionHeaderNames.SCHEME.text());
         if (cValue != null) {
-            out.scheme(AsciiString.of(cValue));
-            return;
+            return AsciiString.of(cValue);
         }
 
         if (uri.getPort() == HTTPS.port()) {
-            out.scheme(HTTPS.name());
+            return HTTPS.name();
         } else if (uri.getPort() == HTTP.port()) {
-            out.scheme(HTTP.name());
+            return HTTP.name();
         } else {
             throw new IllegalArgumentException(":scheme must be specified. " +
                     "see https://tools.ietf.org/html/rfc7540#section-8.1.2.3");
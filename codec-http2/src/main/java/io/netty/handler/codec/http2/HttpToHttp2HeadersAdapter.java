@@ -0,0 +1,768 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.handler.codec.Headers;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.AsciiString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static io.netty.handler.codec.CharSequenceValueConverter.INSTANCE;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.hasPseudoHeaderFormat;
+import static io.netty.util.AsciiString.contentEquals;
+import static io.netty.util.AsciiString.contentEqualsIgnoreCase;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+
+/**
+ * A read-only view which presents {@link HttpHeaders} and a few pseudo-headers as {@link Http2Headers} without
+ * copying them.
+ * <p>
+ * The headers are translated while they are read, following the same rules as
+ * {@link HttpConversionUtil#toHttp2Headers(HttpHeaders, Http2Headers)}: names are lower-cased, connection-specific
+ * headers and the headers listed in the {@code Connection} header are hidden and {@code TE} is only visible as
+ * {@code trailers}. Unlike the copying conversion, {@code Cookie} headers are not split into one header per cookie.
+ * <p>
+ * The wrapped {@link HttpHeaders} must not be modified while this view is in use.
+ *
+ * @see HttpConversionUtil#toHttp2HeadersView(io.netty.handler.codec.http.HttpMessage)
+ */
+final class HttpToHttp2HeadersAdapter implements Http2Headers {
+    private final HttpHeaders headers;
+    /**
+     * Pseudo-header names and values at even and odd indexes.
+     */
+    private final AsciiString[] pseudoHeaders;
+    /**
+     * The names listed in the {@code Connection} header as a case-insensitive map, or {@code null} if there are none.
+     */
+    private final CharSequenceMap<AsciiString> connectionHeaders;
+
+    HttpToHttp2HeadersAdapter(HttpHeaders headers, AsciiString[] pseudoHeaders,
+                              CharSequenceMap<AsciiString> connectionHeaders) {
+        this.headers = checkNotNull(headers, "headers");
+        this.pseudoHeaders = checkNotNull(pseudoHeaders, "pseudoHeaders");
+        this.connectionHeaders = connectionHeaders;
+    }
+
+    /**
+     * Returns the value to expose for a header of the wrapped {@link HttpHeaders}, or {@code null} if it is hidden.
+     *
+     * @param name the name of the header, which is compared case-insensitively.
+     */
+    private CharSequence http2Value(CharSequence name, CharSequence value) {
+        if (HttpConversionUtil.isExcludedFromHttp2(name) ||
+                connectionHeaders != null && connectionHeaders.contains(name)) {
+            return null;
+        }
+        if (HttpHeaderNames.TE.contentEqualsIgnoreCase(name)) {
+            return HttpConversionUtil.containsTrailers(value) ? HttpHeaderValues.TRAILERS : null;
+        }
+        return value;
+    }
+
+    private CharSequence pseudoHeader(CharSequence name) {
+        for (int i = 0; i < pseudoHeaders.length; i += 2) {
+            if (pseudoHeaders[i].contentEquals(name)) {
+                return pseudoHeaders[i + 1];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public CharSequence get(CharSequence name) {
+        if (hasPseudoHeaderFormat(name)) {
+            return pseudoHeader(name);
+        }
+        Iterator<? extends CharSequence> itr = headers.valueCharSequenceIterator(name);
+        while (itr.hasNext()) {
+            CharSequence value = http2Value(name, itr.next());
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public CharSequence get(CharSequence name, CharSequence defaultValue) {
+        CharSequence value = get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public List<CharSequence> getAll(CharSequence name) {
+        if (hasPseudoHeaderFormat(name)) {
+            CharSequence value = pseudoHeader(name);
+            return value != null ? Collections.singletonList(value) : Collections.<CharSequence>emptyList();
+        }
+        List<CharSequence> values = new ArrayList<CharSequence>(2);
+        Iterator<? extends CharSequence> itr = headers.valueCharSequenceIterator(name);
+        while (itr.hasNext()) {
+            CharSequence value = http2Value(name, itr.next());
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Boolean getBoolean(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToBoolean(value) : null;
+    }
+
+    @Override
+    public boolean getBoolean(CharSequence name, boolean defaultValue) {
+        Boolean value = getBoolean(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Byte getByte(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToByte(value) : null;
+    }
+
+    @Override
+    public byte getByte(CharSequence name, byte defaultValue) {
+        Byte value = getByte(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Character getChar(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToChar(value) : null;
+    }
+
+    @Override
+    public char getChar(CharSequence name, char defaultValue) {
+        Character value = getChar(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Short getShort(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToShort(value) : null;
+    }
+
+    @Override
+    public short getShort(CharSequence name, short defaultValue) {
+        Short value = getShort(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Integer getInt(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToInt(value) : null;
+    }
+
+    @Override
+    public int getInt(CharSequence name, int defaultValue) {
+        Integer value = getInt(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Long getLong(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToLong(value) : null;
+    }
+
+    @Override
+    public long getLong(CharSequence name, long defaultValue) {
+        Long value = getLong(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Float getFloat(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToFloat(value) : null;
+    }
+
+    @Override
+    public float getFloat(CharSequence name, float defaultValue) {
+        Float value = getFloat(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Double getDouble(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToDouble(value) : null;
+    }
+
+    @Override
+    public double getDouble(CharSequence name, double defaultValue) {
+        Double value = getDouble(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Long getTimeMillis(CharSequence name) {
+        CharSequence value = get(name);
+        return value != null ? INSTANCE.convertToTimeMillis(value) : null;
+    }
+
+    @Override
+    public long getTimeMillis(CharSequence name, long defaultValue) {
+        Long value = getTimeMillis(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public CharSequence getAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public CharSequence getAndRemove(CharSequence name, CharSequence defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public List<CharSequence> getAllAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Boolean getBooleanAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public boolean getBooleanAndRemove(CharSequence name, boolean defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Byte getByteAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public byte getByteAndRemove(CharSequence name, byte defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Character getCharAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public char getCharAndRemove(CharSequence name, char defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Short getShortAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public short getShortAndRemove(CharSequence name, short defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Integer getIntAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public int getIntAndRemove(CharSequence name, int defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Long getLongAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public long getLongAndRemove(CharSequence name, long defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Float getFloatAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public float getFloatAndRemove(CharSequence name, float defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Double getDoubleAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public double getDoubleAndRemove(CharSequence name, double defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Long getTimeMillisAndRemove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public long getTimeMillisAndRemove(CharSequence name, long defaultValue) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        return get(name) != null;
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value) {
+        return contains(name, value, false);
+    }
+
+    @Override
+    public boolean contains(CharSequence name, CharSequence value, boolean caseInsensitive) {
+        List<CharSequence> values = getAll(name);
+        for (int i = 0; i < values.size(); i++) {
+            if (caseInsensitive ? contentEqualsIgnoreCase(values.get(i), value) : contentEquals(values.get(i), value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsObject(CharSequence name, Object value) {
+        if (value instanceof CharSequence) {
+            return contains(name, (CharSequence) value);
+        }
+        return contains(name, value.toString());
+    }
+
+    @Override
+    public boolean containsBoolean(CharSequence name, boolean value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public boolean containsByte(CharSequence name, byte value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public boolean containsChar(CharSequence name, char value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public boolean containsShort(CharSequence name, short value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public boolean containsInt(CharSequence name, int value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public boolean containsLong(CharSequence name, long value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public boolean containsFloat(CharSequence name, float value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public boolean containsDouble(CharSequence name, double value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public boolean containsTimeMillis(CharSequence name, long value) {
+        return contains(name, String.valueOf(value));
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Iterator<Map.Entry<CharSequence, CharSequence>> itr = iterator(); itr.hasNext(); itr.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    @Override
+    public Set<CharSequence> names() {
+        Set<CharSequence> names = new LinkedHashSet<CharSequence>();
+        for (Iterator<Map.Entry<CharSequence, CharSequence>> itr = iterator(); itr.hasNext();) {
+            names.add(itr.next().getKey());
+        }
+        return names;
+    }
+
+    @Override
+    public Iterator<Map.Entry<CharSequence, CharSequence>> iterator() {
+        return new ViewIterator();
+    }
+
+    @Override
+    public Iterator<CharSequence> valueIterator(CharSequence name) {
+        return Collections.unmodifiableList(getAll(name)).iterator();
+    }
+
+    @Override
+    public Http2Headers add(CharSequence name, CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers add(CharSequence name, Iterable<? extends CharSequence> values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers add(CharSequence name, CharSequence... values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addObject(CharSequence name, Object value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addObject(CharSequence name, Iterable<?> values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addObject(CharSequence name, Object... values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addBoolean(CharSequence name, boolean value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addByte(CharSequence name, byte value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addChar(CharSequence name, char value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addShort(CharSequence name, short value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addInt(CharSequence name, int value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addLong(CharSequence name, long value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addFloat(CharSequence name, float value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addDouble(CharSequence name, double value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers addTimeMillis(CharSequence name, long value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers add(Headers<? extends CharSequence, ? extends CharSequence, ?> headers) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers set(CharSequence name, CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers set(CharSequence name, Iterable<? extends CharSequence> values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers set(CharSequence name, CharSequence... values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setObject(CharSequence name, Object value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setObject(CharSequence name, Iterable<?> values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setObject(CharSequence name, Object... values) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setBoolean(CharSequence name, boolean value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setByte(CharSequence name, byte value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setChar(CharSequence name, char value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setShort(CharSequence name, short value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setInt(CharSequence name, int value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setLong(CharSequence name, long value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setFloat(CharSequence name, float value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setDouble(CharSequence name, double value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setTimeMillis(CharSequence name, long value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers set(Headers<? extends CharSequence, ? extends CharSequence, ?> headers) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers setAll(Headers<? extends CharSequence, ? extends CharSequence, ?> headers) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public boolean remove(CharSequence name) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers clear() {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers method(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers scheme(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers authority(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers path(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public Http2Headers status(CharSequence value) {
+        throw new UnsupportedOperationException("read only");
+    }
+
+    @Override
+    public CharSequence method() {
+        return pseudoHeader(PseudoHeaderName.METHOD.value());
+    }
+
+    @Override
+    public CharSequence scheme() {
+        return pseudoHeader(PseudoHeaderName.SCHEME.value());
+    }
+
+    @Override
+    public CharSequence authority() {
+        return pseudoHeader(PseudoHeaderName.AUTHORITY.value());
+    }
+
+    @Override
+    public CharSequence path() {
+        return pseudoHeader(PseudoHeaderName.PATH.value());
+    }
+
+    @Override
+    public CharSequence status() {
+        return pseudoHeader(PseudoHeaderName.STATUS.value());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append('[');
+        String separator = "";
+        for (Map.Entry<CharSequence, CharSequence> entry : this) {
+            builder.append(separator);
+            builder.append(entry.getKey()).append(": ").append(entry.getValue());
+            separator = ", ";
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Returns the pseudo-headers first and then the visible headers of the wrapped {@link HttpHeaders}. Like the
+     * iterator of {@link ReadOnlyHttp2Headers} it returns itself as the entry.
+     */
+    private final class ViewIterator implements Map.Entry<CharSequence, CharSequence>,
+                                                Iterator<Map.Entry<CharSequence, CharSequence>> {
+        private final Iterator<Map.Entry<CharSequence, CharSequence>> itr = headers.iteratorCharSequence();
+        private int pseudoIndex;
+        private CharSequence nextKey;
+        private CharSequence nextValue;
+        private CharSequence key;
+        private CharSequence value;
+
+        ViewIterator() {
+            findNext();
+        }
+
+        private void findNext() {
+            if (pseudoIndex < pseudoHeaders.length) {
+                nextKey = pseudoHeaders[pseudoIndex];
+                nextValue = pseudoHeaders[pseudoIndex + 1];
+                pseudoIndex += 2;
+                return;
+            }
+            while (itr.hasNext()) {
+                Map.Entry<CharSequence, CharSequence> entry = itr.next();
+                CharSequence http2Value = http2Value(entry.getKey(), entry.getValue());
+                if (http2Value != null) {
+                    nextKey = HttpConversionUtil.toLowerCase(entry.getKey());
+                    nextValue = http2Value;
+                    return;
+                }
+            }
+            nextKey = null;
+            nextValue = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextKey != null;
+        }
+
+        @Override
+        public Map.Entry<CharSequence, CharSequence> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            key = nextKey;
+            value = nextValue;
+            findNext();
+            return this;
+        }
+
+        @Override
+        public CharSequence getKey() {
+            return key;
+        }
+
+        @Override
+        public CharSequence getValue() {
+            return value;
+        }
+
+        @Override
+        public CharSequence setValue(CharSequence value) {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("read only");
+        }
+
+        @Override
+        public String toString() {
+            return key.toString() + '=' + value.toString();
+        }
+    }
+}
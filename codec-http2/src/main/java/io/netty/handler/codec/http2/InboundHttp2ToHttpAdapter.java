@@ -67,15 +67,29 @@ public class InboundHttp2ToHttpAdapter extends Http2EventAdapter {
     private final ImmediateSendDetector sendDetector;
     private final Http2Connection.PropertyKey messageKey;
     private final boolean propagateSettings;
+    private final boolean wrapHeaders;
     protected final Http2Connection connection;
     protected final boolean validateHttpHeaders;
 
     protected InboundHttp2ToHttpAdapter(Http2Connection connection, int maxContentLength,
                                         boolean validateHttpHeaders, boolean propagateSettings) {
+        this(connection, maxContentLength, validateHttpHeaders, propagateSettings, false);
+    }
+
+    /**
+     * @param wrapHeaders {@code true} to present the received {@link Http2Headers} as the headers of the
+     *        {@link FullHttpMessage} instead of copying them, see
+     *        {@link HttpConversionUtil#toHttpHeadersView(int, Http2Headers, io.netty.handler.codec.http.HttpVersion,
+     *        boolean, boolean)}.
+     */
+    protected InboundHttp2ToHttpAdapter(Http2Connection connection, int maxContentLength,
+                                        boolean validateHttpHeaders, boolean propagateSettings,
+                                        boolean wrapHeaders) {
         this.connection = checkNotNull(connection, "connection");
         this.maxContentLength = checkPositive(maxContentLength, "maxContentLength");
         this.validateHttpHeaders = validateHttpHeaders;
         this.propagateSettings = propagateSettings;
+        this.wrapHeaders = wrapHeaders;
         sendDetector = DEFAULT_SEND_DETECTOR;
         messageKey = connection.newKey();
     }
@@ -149,6 +163,13 @@ public class InboundHttp2ToHttpAdapter extends Http2EventAdapter {
      */
     protected FullHttpMessage newMessage(Http2Stream stream, Http2Headers headers, boolean validateHttpHeaders,
                                          ByteBufAllocator alloc) throws Http2Exception {
+        if (wrapHeaders) {
+            return connection.isServer() ?
+                    HttpConversionUtil.toFullHttpRequestView(stream.id(), headers, alloc.buffer(),
+                            validateHttpHeaders) :
+                    HttpConversionUtil.toFullHttpResponseView(stream.id(), headers, alloc.buffer(),
+                            validateHttpHeaders);
+        }
         return connection.isServer() ? HttpConversionUtil.toFullHttpRequest(stream.id(), headers, alloc,
                 validateHttpHeaders) : HttpConversionUtil.toFullHttpResponse(stream.id(), headers, alloc,
                 validateHttpHeaders);
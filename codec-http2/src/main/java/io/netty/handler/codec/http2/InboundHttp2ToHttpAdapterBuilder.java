@@ -48,6 +48,11 @@ public final class InboundHttp2ToHttpAdapterBuilder
         return super.propagateSettings(propagate);
     }
 
+    @Override
+    public InboundHttp2ToHttpAdapterBuilder wrapHeaders(boolean wrap) {
+        return super.wrapHeaders(wrap);
+    }
+
     @Override
     public InboundHttp2ToHttpAdapter build() {
         return super.build();
@@ -62,4 +67,15 @@ public final class InboundHttp2ToHttpAdapterBuilder
         return new InboundHttp2ToHttpAdapter(connection, maxContentLength,
                                              validateHttpHeaders, propagateSettings);
     }
+
+    @Override
+    protected InboundHttp2ToHttpAdapter build(Http2Connection connection,
+                                              int maxContentLength,
+                                              boolean validateHttpHeaders,
+                                              boolean propagateSettings,
+                                              boolean wrapHeaders) throws Exception {
+
+        return new InboundHttp2ToHttpAdapter(connection, maxContentLength,
+                                             validateHttpHeaders, propagateSettings, wrapHeaders);
+    }
 }
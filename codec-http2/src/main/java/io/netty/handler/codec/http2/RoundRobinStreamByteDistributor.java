@@ -0,0 +1,274 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.streamableBytes;
+import static io.netty.handler.codec.http2.Http2Error.INTERNAL_ERROR;
+import static io.netty.handler.codec.http2.Http2Exception.connectionError;
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static java.lang.Math.min;
+
+/**
+ * A {@link StreamByteDistributor} that ignores stream priority and serves the streams with streamable bytes in
+ * round-robin order, allowing each stream to write up to a {@link #quantum(int) quantum} of bytes per turn. A turn
+ * that is cut short by the connection window continues with the same stream on the next call to
+ * {@link #distribute(int, Writer)}, so all streams get the same share of the connection over time.
+ *
+ * <p>This is meant for connections with many concurrent streams of peers that do not send priorities, which are
+ * deprecated by <a href="https://www.rfc-editor.org/rfc/rfc9113.html#section-5.3.2">RFC 9113</a>. The streams are
+ * kept in an intrusive doubly linked list, so that adding and removing a stream is {@code O(1)} no matter how many
+ * streams are active, and the per-stream state is reused for later streams so that distributing bytes does not
+ * allocate.
+ */
+@UnstableApi
+public final class RoundRobinStreamByteDistributor implements StreamByteDistributor {
+    private final Http2Connection.PropertyKey stateKey;
+    // Head and tail of the list of streams that are waiting for their turn.
+    private State head;
+    private State tail;
+    // States of removed streams, linked via State.next, which are reused for new streams.
+    private State free;
+
+    /**
+     * The maximum number of bytes that a stream may write in its turn.
+     */
+    private int quantum = DEFAULT_MAX_FRAME_SIZE;
+    private long totalStreamableBytes;
+
+    public RoundRobinStreamByteDistributor(Http2Connection connection) {
+        // Add a state for the connection.
+        stateKey = connection.newKey();
+        Http2Stream connectionStream = connection.connectionStream();
+        connectionStream.setProperty(stateKey, newState(connectionStream));
+
+        // Register for notification of new streams.
+        connection.addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamAdded(Http2Stream stream) {
+                stream.setProperty(stateKey, newState(stream));
+            }
+
+            @Override
+            public void onStreamClosed(Http2Stream stream) {
+                State state = state(stream);
+                if (state != null) {
+                    state.close();
+                }
+            }
+
+            @Override
+            public void onStreamRemoved(Http2Stream stream) {
+                State state = stream.removeProperty(stateKey);
+                if (state != null) {
+                    state.close();
+                    state.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the maximum number of bytes that a stream may write in its turn. Defaults to 16KiB, which is the default
+     * {@code SETTINGS_MAX_FRAME_SIZE}.
+     *
+     * @param quantum the maximum number of bytes that a stream may write in its turn. Must be > 0.
+     */
+    public void quantum(int quantum) {
+        this.quantum = checkPositive(quantum, "quantum");
+    }
+
+    @Override
+    public void updateStreamableBytes(StreamState streamState) {
+        State state = state(streamState.stream());
+        if (state != null) {
+            state.updateStreamableBytes(streamableBytes(streamState), streamState.hasFrame(),
+                                        streamState.windowSize());
+        }
+    }
+
+    @Override
+    public void updateDependencyTree(int childStreamId, int parentStreamId, short weight, boolean exclusive) {
+        // This class ignores priority and dependency!
+    }
+
+    @Override
+    public boolean distribute(int maxBytes, Writer writer) throws Http2Exception {
+        State state;
+        while ((state = head) != null) {
+            if (maxBytes == 0 && state.streamableBytes > 0) {
+                // Stop at the first state that can't send. It stays at the head of the list, so that it continues
+                // its turn on the next call. Note that empty frames at the head of the list will always be written.
+                break;
+            }
+            state.unlink();
+
+            // Allocate as much data as this turn allows for this stream.
+            int chunk = min(quantum - state.allocated, min(maxBytes, state.streamableBytes));
+            maxBytes -= chunk;
+            state.allocated += chunk;
+
+            // Write the allocated bytes, which re-enqueues the state at the tail if it has more to write.
+            state.write(chunk, writer);
+
+            if (maxBytes == 0 && state.enqueued && state.allocated < quantum) {
+                // The connection window ended the turn early, continue it first the next time.
+                state.unlink();
+                state.linkFirst();
+            } else {
+                state.allocated = 0;
+            }
+        }
+
+        return totalStreamableBytes > 0;
+    }
+
+    private State state(Http2Stream stream) {
+        return checkNotNull(stream, "stream").getProperty(stateKey);
+    }
+
+    private State newState(Http2Stream stream) {
+        State state = free;
+        if (state == null) {
+            return new State(stream);
+        }
+        free = state.next;
+        state.next = null;
+        state.stream = stream;
+        return state;
+    }
+
+    /**
+     * The remote flow control state for a single stream.
+     */
+    private final class State {
+        Http2Stream stream;
+        State prev;
+        State next;
+        int streamableBytes;
+        // The number of bytes written in the current turn.
+        int allocated;
+        boolean enqueued;
+        boolean writing;
+
+        State(Http2Stream stream) {
+            this.stream = stream;
+        }
+
+        void updateStreamableBytes(int newStreamableBytes, boolean hasFrame, int windowSize) {
+            assert hasFrame || newStreamableBytes == 0 :
+                "hasFrame: " + hasFrame + " newStreamableBytes: " + newStreamableBytes;
+
+            int delta = newStreamableBytes - streamableBytes;
+            if (delta != 0) {
+                streamableBytes = newStreamableBytes;
+                totalStreamableBytes += delta;
+            }
+            if (windowSize < 0) {
+                // Never allow a stream with a negative window to write, removal is cheap.
+                unlink();
+                allocated = 0;
+            } else if (hasFrame && (windowSize > 0 || windowSize == 0 && !writing)) {
+                // If the window is zero only enqueue if we are not writing. If we are writing that means we gave the
+                // state a chance to write zero length frames. We wait until updateStreamableBytes is called again
+                // before this state is allowed to write.
+                linkLast();
+            }
+        }
+
+        /**
+         * Write any allocated bytes for the given stream and updates the streamable bytes,
+         * assuming all of the bytes will be written.
+         */
+        void write(int numBytes, Writer writer) throws Http2Exception {
+            writing = true;
+            try {
+                // Write the allocated bytes.
+                writer.write(stream, numBytes);
+            } catch (Throwable t) {
+                throw connectionError(INTERNAL_ERROR, t, "byte distribution write error");
+            } finally {
+                writing = false;
+            }
+        }
+
+        void linkLast() {
+            if (!enqueued) {
+                enqueued = true;
+                prev = tail;
+                if (tail == null) {
+                    head = this;
+                } else {
+                    tail.next = this;
+                }
+                tail = this;
+            }
+        }
+
+        void linkFirst() {
+            if (!enqueued) {
+                enqueued = true;
+                next = head;
+                if (head == null) {
+                    tail = this;
+                } else {
+                    head.prev = this;
+                }
+                head = this;
+            }
+        }
+
+        void unlink() {
+            if (enqueued) {
+                enqueued = false;
+                if (prev == null) {
+                    head = next;
+                } else {
+                    prev.next = next;
+                }
+                if (next == null) {
+                    tail = prev;
+                } else {
+                    next.prev = prev;
+                }
+                prev = null;
+                next = null;
+            }
+        }
+
+        void close() {
+            // Remove this state from the list.
+            unlink();
+
+            // Clear the streamable bytes.
+            updateStreamableBytes(0, false, 0);
+        }
+
+        /**
+         * Returns this state to the free list once its stream was removed from the connection.
+         */
+        void release() {
+            assert !enqueued;
+            stream = null;
+            allocated = 0;
+            next = free;
+            free = this;
+        }
+    }
+}
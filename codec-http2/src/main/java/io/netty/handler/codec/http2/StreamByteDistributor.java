@@ -74,6 +74,16 @@ public interface StreamByteDistributor {
         void write(Http2Stream stream, int numBytes);
     }
 
+    /**
+     * Creates the {@link StreamByteDistributor} of a connection.
+     */
+    interface Factory {
+        /**
+         * Returns a new {@link StreamByteDistributor} for the given {@code connection}.
+         */
+        StreamByteDistributor newStreamByteDistributor(Http2Connection connection);
+    }
+
     /**
      * Called when the streamable bytes for a stream has changed. Until this
      * method is called for the first time for a give stream, the stream is assumed to have no
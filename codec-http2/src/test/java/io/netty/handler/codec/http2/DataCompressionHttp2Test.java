@@ -50,6 +50,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPOutputStream;
 
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT;
 import static io.netty.handler.codec.http2.Http2TestUtil.runInChannel;
@@ -365,6 +366,38 @@ public class DataCompressionHttp2Test {
         }
     }
 
+    @Test
+    public void preEncodedHeadersAreWrittenAsIs() throws Exception {
+        final String text = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaabbbbbbbbbbbbbbbbbbbbbbbbbbbbbccccccccccccccccccccccc";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(gzipped);
+        out.write(text.getBytes(CharsetUtil.UTF_8.name()));
+        out.close();
+        final ByteBuf data = Unpooled.wrappedBuffer(gzipped.toByteArray());
+        bootstrapEnv(text.length());
+        try {
+            // The data is already gzipped and must neither be compressed again nor fail the write.
+            final Http2Headers headers = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers()
+                    .method(POST).path(PATH))
+                    .withHeaders(new DefaultHttp2Headers()
+                            .set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.GZIP)
+                            .setInt(HttpHeaderNames.CONTENT_LENGTH, data.readableBytes()));
+
+            runInChannel(clientChannel, new Http2Runnable() {
+                @Override
+                public void run() throws Http2Exception {
+                    clientEncoder.writeHeaders(ctxClient(), 3, headers, 0, false, newPromiseClient());
+                    clientEncoder.writeData(ctxClient(), 3, data.retain(), 0, true, newPromiseClient());
+                    clientHandler.flush(ctxClient());
+                }
+            });
+            awaitServer();
+            assertEquals(text, serverOut.toString(CharsetUtil.UTF_8.name()));
+        } finally {
+            data.release();
+        }
+    }
+
     private void bootstrapEnv(int serverOutSize) throws Exception {
         final CountDownLatch prefaceWrittenLatch = new CountDownLatch(1);
         serverOut = new ByteArrayOutputStream(serverOutSize);
@@ -14,9 +14,12 @@
  */
 package io.netty.handler.codec.http2;
 
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -50,5 +53,30 @@ public class DecoratingHttp2ConnectionEncoderTest {
         verify(encoder, times(1)).consumeReceivedSettings(eq(settings));
     }
 
+    @Test
+    public void testWriteEarlyHintsDelegate() {
+        DefaultHttp2ConnectionEncoder encoder = mock(DefaultHttp2ConnectionEncoder.class);
+        DecoratingHttp2ConnectionEncoder decoratingHttp2ConnectionEncoder =
+                new DecoratingHttp2ConnectionEncoder(new DecoratingHttp2ConnectionEncoder(encoder));
+
+        ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+        Http2Headers headers = new DefaultHttp2Headers();
+        ChannelPromise promise = mock(ChannelPromise.class);
+        decoratingHttp2ConnectionEncoder.writeEarlyHints(ctx, 3, headers, promise);
+        verify(encoder, times(1)).writeEarlyHints(eq(ctx), eq(3), eq(headers), eq(promise));
+    }
+
+    @Test
+    public void testWriteEarlyHintsFailsForOtherDelegate() {
+        Http2ConnectionEncoder encoder = mock(Http2ConnectionEncoder.class);
+        DecoratingHttp2ConnectionEncoder decoratingHttp2ConnectionEncoder =
+                new DecoratingHttp2ConnectionEncoder(encoder);
+
+        ChannelPromise promise = mock(ChannelPromise.class);
+        decoratingHttp2ConnectionEncoder.writeEarlyHints(mock(ChannelHandlerContext.class), 3,
+                new DefaultHttp2Headers(), promise);
+        verify(promise, times(1)).setFailure(any(IllegalStateException.class));
+    }
+
     private interface TestHttp2ConnectionEncoder extends Http2ConnectionEncoder, Http2SettingsReceivedConsumer { }
 }
@@ -42,6 +42,7 @@ import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
 import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_PRIORITY_WEIGHT;
 import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
+import static io.netty.handler.codec.http2.Http2FrameTypes.PRIORITY_UPDATE;
 import static io.netty.handler.codec.http2.Http2Stream.State.IDLE;
 import static io.netty.handler.codec.http2.Http2Stream.State.OPEN;
 import static io.netty.handler.codec.http2.Http2Stream.State.RESERVED_REMOTE;
@@ -996,6 +997,19 @@ public class DefaultHttp2ConnectionDecoderTest {
         }
     }
 
+    @Test
+    public void priorityUpdateShouldBePassedOnAsUnknownFrame() throws Exception {
+        when(connection.isServer()).thenReturn(true);
+        ByteBuf payload = dummyData();
+        try {
+            ((Http2PriorityUpdateListener) decode()).onPriorityUpdateRead(ctx, STREAM_ID,
+                    Http2ExtensiblePriority.valueOf(1, true), new Http2Flags(), payload);
+            verify(listener).onUnknownFrame(ctx, PRIORITY_UPDATE, 0, new Http2Flags(), payload);
+        } finally {
+            payload.release();
+        }
+    }
+
     private static ByteBuf dummyData() {
         // The buffer is purposely 8 bytes so it will even work for a ping frame.
         return wrappedBuffer("abcdefgh".getBytes(UTF_8));
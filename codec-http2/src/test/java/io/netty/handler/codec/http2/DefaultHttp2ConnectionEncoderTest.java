@@ -522,6 +522,70 @@ public class DefaultHttp2ConnectionEncoderTest {
         }
     }
 
+    @Test
+    public void earlyHintsShouldBeWrittenAsInformationalHeaders() {
+        writeAllFlowControlledFrames();
+        final int streamId = 6;
+        Http2Headers hints = new DefaultHttp2Headers().add("link", "</style.css>; rel=preload; as=style");
+        ChannelFuture future = encoder.writeEarlyHints(ctx, streamId, hints, newPromise());
+        assertTrue(future.isSuccess());
+        // The caller's headers are left untouched so they can be reused.
+        assertNull(hints.status());
+
+        // The final response can still be written.
+        ChannelPromise promise = newPromise();
+        encoder.writeHeaders(ctx, streamId, EmptyHttp2Headers.INSTANCE, 0, true, promise);
+        assertTrue(promise.isSuccess());
+        Http2Headers expected = new DefaultHttp2Headers()
+                .status(HttpResponseStatus.EARLY_HINTS.codeAsText())
+                .add("link", "</style.css>; rel=preload; as=style");
+        verify(writer).writeHeaders(eq(ctx), eq(streamId), eq(expected), eq(0), eq(false),
+                any(ChannelPromise.class));
+    }
+
+    @Test
+    public void preEncodedEarlyHintsShouldBeWritten() {
+        writeAllFlowControlledFrames();
+        final int streamId = 6;
+        Http2Headers hints = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers()
+                .status(HttpResponseStatus.EARLY_HINTS.codeAsText())
+                .add("link", "</style.css>; rel=preload; as=style"));
+        assertTrue(encoder.writeEarlyHints(ctx, streamId, hints, newPromise()).isSuccess());
+        assertTrue(encoder.writeEarlyHints(ctx, streamId, hints, newPromise()).isSuccess());
+        verify(writer, times(2)).writeHeaders(eq(ctx), eq(streamId), eq(hints), eq(0), eq(false),
+                any(ChannelPromise.class));
+    }
+
+    @Test
+    public void preEncodedEarlyHintsWithoutStatusShouldFail() {
+        writeAllFlowControlledFrames();
+        final int streamId = 6;
+        Http2Headers hints = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers()
+                .add("link", "</style.css>; rel=preload; as=style"));
+        ChannelFuture future = encoder.writeEarlyHints(ctx, streamId, hints, newPromise());
+        assertThat(future.cause(), instanceOf(IllegalArgumentException.class));
+        verify(writer, never()).writeHeaders(eq(ctx), eq(streamId), any(Http2Headers.class), anyInt(),
+                anyBoolean(), any(ChannelPromise.class));
+    }
+
+    @Test
+    public void earlyHintsWithOtherStatusShouldFail() {
+        writeAllFlowControlledFrames();
+        final int streamId = 6;
+        Http2Headers headers = new DefaultHttp2Headers().status(HttpResponseStatus.OK.codeAsText());
+        ChannelFuture future = encoder.writeEarlyHints(ctx, streamId, headers, newPromise());
+        assertThat(future.cause(), instanceOf(IllegalArgumentException.class));
+        verify(writer, never()).writeHeaders(eq(ctx), eq(streamId), any(Http2Headers.class), anyInt(),
+                anyBoolean(), any(ChannelPromise.class));
+    }
+
+    @Test
+    public void earlyHintsFromClientShouldFail() {
+        encoder = new DefaultHttp2ConnectionEncoder(new DefaultHttp2Connection(false), writer);
+        ChannelFuture future = encoder.writeEarlyHints(ctx, 3, new DefaultHttp2Headers(), newPromise());
+        assertThat(future.cause(), instanceOf(IllegalStateException.class));
+    }
+
     private static Http2Headers informationalHeaders() {
         Http2Headers headers = new DefaultHttp2Headers();
         headers.status(HttpResponseStatus.CONTINUE.codeAsText());
@@ -34,6 +34,9 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -535,6 +538,43 @@ public class DefaultHttp2ConnectionTest {
         assertEquals(0, server.numActiveStreams());
     }
 
+    @Test
+    public void activeStreamsShouldBeVisitedInActivationOrder() throws Http2Exception {
+        Http2Stream streamA = server.remote().createStream(3, false);
+        Http2Stream streamB = server.remote().createStream(5, false);
+        Http2Stream streamC = server.remote().createStream(7, false);
+        Http2Stream pushStream = server.local().reservePushStream(2, streamA);
+        streamB.close();
+        pushStream.open(false);
+
+        final List<Http2Stream> visited = new ArrayList<Http2Stream>();
+        server.forEachActiveStream(new Http2StreamVisitor() {
+            @Override
+            public boolean visit(Http2Stream stream) {
+                visited.add(stream);
+                return true;
+            }
+        });
+        assertEquals(Arrays.asList(streamA, streamC, pushStream), visited);
+        assertEquals(3, server.numActiveStreams());
+        assertNull(server.stream(5));
+    }
+
+    @Test
+    public void propertyKeyCreatedAfterStreamShouldBeUsable() throws Http2Exception {
+        Http2Connection.PropertyKey keyA = server.newKey();
+        Http2Stream stream = server.remote().createStream(3, false);
+        assertNull(stream.setProperty(keyA, "a"));
+
+        Http2Connection.PropertyKey keyB = server.newKey();
+        assertNull(stream.getProperty(keyB));
+        assertNull(stream.removeProperty(keyB));
+        assertNull(stream.setProperty(keyB, "b"));
+        assertEquals("a", stream.getProperty(keyA));
+        assertEquals("b", stream.removeProperty(keyB));
+        assertNull(stream.getProperty(keyB));
+    }
+
     @SuppressWarnings("NumericOverflow")
     @Test
     public void localStreamInvalidStreamIdShouldThrow() {
@@ -18,6 +18,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.CharsetUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -125,6 +126,98 @@ public class DefaultHttp2FrameReaderTest {
         }
     }
 
+    @Test
+    public void readPriorityUpdateFrame() throws Http2Exception {
+        Http2FrameListener priorityUpdateListener = mock(Http2FrameListener.class,
+                withSettings().extraInterfaces(Http2PriorityUpdateListener.class));
+        ByteBuf input = Unpooled.buffer();
+        ByteBuf payload = Unpooled.buffer();
+        try {
+            payload.writeInt(3);
+            payload.writeCharSequence("u=1, i", CharsetUtil.US_ASCII);
+
+            writePriorityUpdateFrame(input, 0, 3, "u=1, i");
+            frameReader.readFrame(ctx, input, priorityUpdateListener);
+
+            verify((Http2PriorityUpdateListener) priorityUpdateListener).onPriorityUpdateRead(
+                    ctx, 3, Http2ExtensiblePriority.valueOf(1, true), new Http2Flags(), payload);
+            verify(priorityUpdateListener, never()).onUnknownFrame(
+                    any(ChannelHandlerContext.class), anyByte(), anyInt(), any(Http2Flags.class), any(ByteBuf.class));
+        } finally {
+            payload.release();
+            input.release();
+        }
+    }
+
+    @Test
+    public void readPriorityUpdateFrameAsUnknownFrame() throws Http2Exception {
+        ByteBuf input = Unpooled.buffer();
+        ByteBuf payload = Unpooled.buffer();
+        try {
+            payload.writeInt(3);
+            payload.writeCharSequence("u=1", CharsetUtil.US_ASCII);
+
+            writeFrameHeader(input, payload.readableBytes(), PRIORITY_UPDATE, new Http2Flags(), 0);
+            input.writeBytes(payload, 0, payload.readableBytes());
+            frameReader.readFrame(ctx, input, listener);
+
+            verify(listener).onUnknownFrame(ctx, PRIORITY_UPDATE, 0, new Http2Flags(), payload);
+        } finally {
+            payload.release();
+            input.release();
+        }
+    }
+
+    @Test
+    public void readPriorityUpdateFrameWithStreamIdAsUnknownFrame() throws Http2Exception {
+        ByteBuf input = Unpooled.buffer();
+        try {
+            writePriorityUpdateFrame(input, 1, 3, "u=1");
+            frameReader.readFrame(ctx, input, listener);
+
+            verify(listener).onUnknownFrame(eq(ctx), eq(PRIORITY_UPDATE), eq(1), eq(new Http2Flags()),
+                    any(ByteBuf.class));
+        } finally {
+            input.release();
+        }
+    }
+
+    @Test
+    public void failedWhenPriorityUpdateFrameHasStreamId() throws Http2Exception {
+        final Http2FrameListener priorityUpdateListener = mock(Http2FrameListener.class,
+                withSettings().extraInterfaces(Http2PriorityUpdateListener.class));
+        final ByteBuf input = Unpooled.buffer();
+        try {
+            writePriorityUpdateFrame(input, 1, 3, "u=1");
+            assertThrows(Http2Exception.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    frameReader.readFrame(ctx, input, priorityUpdateListener);
+                }
+            });
+        } finally {
+            input.release();
+        }
+    }
+
+    @Test
+    public void failedWhenPriorityUpdateFramePrioritizesConnection() throws Http2Exception {
+        final Http2FrameListener priorityUpdateListener = mock(Http2FrameListener.class,
+                withSettings().extraInterfaces(Http2PriorityUpdateListener.class));
+        final ByteBuf input = Unpooled.buffer();
+        try {
+            writePriorityUpdateFrame(input, 0, 0, "u=1");
+            assertThrows(Http2Exception.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    frameReader.readFrame(ctx, input, priorityUpdateListener);
+                }
+            });
+        } finally {
+            input.release();
+        }
+    }
+
     @Test
     public void failedWhenUnknownFrameInMiddleOfHeaderBlock() throws Http2Exception {
         final int streamId = 1;
@@ -386,6 +479,13 @@ public class DefaultHttp2FrameReaderTest {
         }
     }
 
+    private static void writePriorityUpdateFrame(ByteBuf output, int streamId, int prioritizedStreamId,
+            String priority) {
+        writeFrameHeader(output, INT_FIELD_LENGTH + priority.length(), PRIORITY_UPDATE, new Http2Flags(), streamId);
+        output.writeInt(prioritizedStreamId);
+        output.writeCharSequence(priority, CharsetUtil.US_ASCII);
+    }
+
     private void writeHeaderFrame(
             ByteBuf output, int streamId, Http2Headers headers,
             Http2Flags flags) throws Http2Exception {
@@ -38,6 +38,7 @@ import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.*;
 
 /**
@@ -180,6 +181,66 @@ public class DefaultHttp2FrameWriterTest {
         assertEquals(expectedOutbound, outbound);
     }
 
+    @Test
+    public void writeSmallDataIsCoalesced() {
+        int streamId = 1;
+        byte[] payload = {(byte) 0x01, (byte) 0x02, (byte) 0x03};
+
+        ByteBuf payloadByteBuf = Unpooled.wrappedBuffer(payload);
+        frameWriter.writeData(ctx, streamId, payloadByteBuf, 0, true, promise);
+
+        assertEquals(0, payloadByteBuf.refCnt());
+        // The frame header and the payload are written as a single buffer.
+        verify(ctx, times(1)).write(any(ByteBuf.class), same(promise));
+
+        byte[] expectedFrameBytes = {
+                (byte) 0x00, (byte) 0x00, (byte) 0x03, // payload length
+                (byte) 0x00, // payload type
+                (byte) 0x01, // flags
+                (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x01, // stream id
+        };
+        expectedOutbound = Unpooled.copiedBuffer(expectedFrameBytes, payload);
+        assertEquals(expectedOutbound, outbound);
+    }
+
+    @Test
+    public void writeSmallDataWithInvalidStreamIdReleasesData() {
+        ByteBuf payloadByteBuf = Unpooled.wrappedBuffer(new byte[] {(byte) 0x01});
+        frameWriter.writeData(ctx, 0, payloadByteBuf, 0, true, promise);
+
+        assertEquals(0, payloadByteBuf.refCnt());
+        assertFalse(promise.isSuccess());
+        assertEquals(0, outbound.readableBytes());
+    }
+
+    @Test
+    public void writeHeadersIsSingleBuffer() throws Exception {
+        int streamId = 1;
+        Http2Headers headers = new DefaultHttp2Headers()
+                .method("GET").path("/").authority("foo.com").scheme("https");
+
+        frameWriter.writeHeaders(ctx, streamId, headers, 0, (short) 16, false, 5, true, promise);
+
+        // The frame header, the priority, the header block and the padding are written as a single buffer.
+        verify(ctx, times(1)).write(any(ByteBuf.class), any(ChannelPromise.class));
+
+        ByteBuf expectedPayload = Unpooled.buffer();
+        expectedPayload.writeByte(4); // pad length
+        expectedPayload.writeInt(0); // stream dependency
+        expectedPayload.writeByte(15); // weight - 1
+        expectedPayload.writeBytes(headerPayload(streamId, headers));
+        expectedPayload.writeZero(4); // padding
+
+        expectedOutbound = Unpooled.buffer();
+        expectedOutbound.writeMedium(expectedPayload.readableBytes()); // payload length
+        expectedOutbound.writeByte(0x01); // payload type
+        expectedOutbound.writeByte(0x2d); // flags = (0x01 | 0x04 | 0x08 | 0x20)
+        expectedOutbound.writeInt(streamId);
+        expectedOutbound.writeBytes(expectedPayload);
+        expectedPayload.release();
+        assertEquals(expectedOutbound, outbound);
+    }
+
     /**
      * Test large headers that exceed {@link DefaultHttp2FrameWriter#maxFrameSize()}
      * the remaining headers will be sent in a CONTINUATION frame
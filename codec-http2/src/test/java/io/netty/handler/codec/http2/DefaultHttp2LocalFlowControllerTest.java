@@ -15,6 +15,7 @@
 
 package io.netty.handler.codec.http2;
 
+import static io.netty.handler.codec.http2.DefaultHttp2LocalFlowController.BDP_PING_DATA;
 import static io.netty.handler.codec.http2.DefaultHttp2LocalFlowController.DEFAULT_WINDOW_UPDATE_RATIO;
 import static io.netty.handler.codec.http2.Http2CodecUtil.CONNECTION_STREAM_ID;
 import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
@@ -25,7 +26,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -398,6 +401,48 @@ public class DefaultHttp2LocalFlowControllerTest {
         }
     }
 
+    @Test
+    public void autoTuningGrowsWindowsAfterPingAck() throws Http2Exception {
+        controller.windowAutoTuning(100000, 200000);
+        receiveFlowControlledFrame(STREAM_ID, 30000, 0, false);
+        receiveFlowControlledFrame(STREAM_ID, 20000, 0, false);
+        // Only one PING is in flight at any time.
+        verify(frameWriter).writePing(eq(ctx), eq(false), eq(BDP_PING_DATA), eq(promise));
+
+        // 50000 bytes were received during the round trip, so the windows grow to twice that, up to the maximums.
+        assertTrue(controller.pingAckReceived(BDP_PING_DATA));
+        assertEquals(100000, controller.initialWindowSize(stream(STREAM_ID)));
+        assertEquals(100000, controller.initialWindowSize(connection.connectionStream()));
+
+        // The grown windows are refilled once the bytes are consumed.
+        assertTrue(consumeBytes(STREAM_ID, 50000));
+        verifyWindowUpdateSent(STREAM_ID, 50000 + 100000 - DEFAULT_WINDOW_SIZE);
+        verifyWindowUpdateSent(CONNECTION_STREAM_ID, 50000 + 100000 - DEFAULT_WINDOW_SIZE);
+
+        // New streams start with the grown window.
+        connection.local().createStream(STREAM_ID + 2, false);
+        assertEquals(100000, controller.initialWindowSize(stream(STREAM_ID + 2)));
+    }
+
+    @Test
+    public void autoTuningIgnoresOtherPingAcks() throws Http2Exception {
+        controller.windowAutoTuning(100000, 200000);
+        assertFalse(controller.pingAckReceived(BDP_PING_DATA));
+        receiveFlowControlledFrame(STREAM_ID, 50000, 0, false);
+        assertFalse(controller.pingAckReceived(1234));
+        assertTrue(controller.pingAckReceived(BDP_PING_DATA));
+        assertFalse(controller.pingAckReceived(BDP_PING_DATA));
+    }
+
+    @Test
+    public void noPingWithoutAutoTuning() throws Http2Exception {
+        assertFalse(controller.isWindowAutoTuning());
+        receiveFlowControlledFrame(STREAM_ID, 50000, 0, false);
+        verify(frameWriter, never()).writePing(any(ChannelHandlerContext.class), anyBoolean(), anyLong(),
+                any(ChannelPromise.class));
+        assertFalse(controller.pingAckReceived(BDP_PING_DATA));
+    }
+
     private static int getWindowDelta(int initialSize, int windowSize, int dataSize) {
         int newWindowSize = windowSize - dataSize;
         return initialSize - newWindowSize;
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http2.Http2TestUtil.TestStreamByteDistributorStreamState;
+import io.netty.util.CharsetUtil;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockito.verification.VerificationMode;
+
+import static io.netty.handler.codec.http2.Http2ExtensiblePriority.valueOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.same;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class ExtensiblePriorityStreamByteDistributorTest {
+    private static final int QUANTUM = 1024;
+
+    private static final int STREAM_A = 1;
+    private static final int STREAM_B = 3;
+    private static final int STREAM_C = 5;
+    private static final int STREAM_D = 7;
+
+    private Http2Connection connection;
+    private ExtensiblePriorityStreamByteDistributor distributor;
+    private IntObjectMap<TestStreamByteDistributorStreamState> stateMap;
+
+    @Mock
+    private StreamByteDistributor.Writer writer;
+
+    @BeforeEach
+    public void setup() throws Http2Exception {
+        MockitoAnnotations.initMocks(this);
+
+        stateMap = new IntObjectHashMap<TestStreamByteDistributorStreamState>();
+        connection = new DefaultHttp2Connection(false);
+        distributor = new ExtensiblePriorityStreamByteDistributor(connection);
+        distributor.quantum(QUANTUM);
+
+        // Assume we always write all the allocated bytes.
+        resetWriter();
+
+        connection.local().createStream(STREAM_A, false);
+        connection.local().createStream(STREAM_B, false);
+        connection.local().createStream(STREAM_C, false);
+        connection.local().createStream(STREAM_D, false);
+    }
+
+    private Answer<Void> writeAnswer() {
+        return new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock in) throws Throwable {
+                Http2Stream stream = in.getArgument(0);
+                int numBytes = in.getArgument(1);
+                TestStreamByteDistributorStreamState state = stateMap.get(stream.id());
+                state.pendingBytes -= numBytes;
+                state.hasFrame = state.pendingBytes > 0;
+                distributor.updateStreamableBytes(state);
+                return null;
+            }
+        };
+    }
+
+    private void resetWriter() {
+        reset(writer);
+        doAnswer(writeAnswer()).when(writer).write(any(Http2Stream.class), anyInt());
+    }
+
+    @Test
+    public void streamsAreServedByUrgency() throws Http2Exception {
+        distributor.updatePriority(STREAM_A, valueOf(5, false));
+        distributor.updatePriority(STREAM_C, valueOf(0, false));
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        initState(STREAM_C, 10, true);
+        initState(STREAM_D, 10, true);
+
+        assertFalse(write(40));
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).write(same(stream(STREAM_C)), eq(10));
+        inOrder.verify(writer).write(same(stream(STREAM_B)), eq(10));
+        inOrder.verify(writer).write(same(stream(STREAM_D)), eq(10));
+        inOrder.verify(writer).write(same(stream(STREAM_A)), eq(10));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void nonIncrementalStreamsAreServedInStreamIdOrder() throws Http2Exception {
+        // Enqueue in reverse order, stream B must still finish before stream D starts.
+        initState(STREAM_D, 2 * QUANTUM, true);
+        initState(STREAM_B, 2 * QUANTUM, true);
+
+        assertTrue(write(3 * QUANTUM));
+        assertEquals(2 * QUANTUM, captureWrite(STREAM_B));
+        assertEquals(QUANTUM, captureWrite(STREAM_D));
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+
+        assertFalse(write(3 * QUANTUM));
+        assertEquals(QUANTUM, captureWrite(STREAM_D));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void incrementalStreamsTakeTurnsOfOneQuantum() throws Http2Exception {
+        distributor.updatePriority(STREAM_A, valueOf(3, true));
+        distributor.updatePriority(STREAM_B, valueOf(3, true));
+        initState(STREAM_A, 2 * QUANTUM, true);
+        initState(STREAM_B, 2 * QUANTUM, true);
+
+        assertFalse(write(4 * QUANTUM));
+        verifyWrite(times(2), STREAM_A, QUANTUM);
+        verifyWrite(times(2), STREAM_B, QUANTUM);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void nonIncrementalStreamsAreServedBeforeIncrementalStreams() throws Http2Exception {
+        distributor.updatePriority(STREAM_A, valueOf(3, true));
+        initState(STREAM_A, QUANTUM, true);
+        initState(STREAM_B, QUANTUM, true);
+
+        assertTrue(write(QUANTUM));
+        assertEquals(QUANTUM, captureWrite(STREAM_B));
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+
+        assertFalse(write(QUANTUM));
+        assertEquals(QUANTUM, captureWrite(STREAM_A));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void incrementalTurnCutShortByConnectionWindowContinuesFirst() throws Http2Exception {
+        distributor.updatePriority(STREAM_A, valueOf(3, true));
+        distributor.updatePriority(STREAM_B, valueOf(3, true));
+        initState(STREAM_A, QUANTUM, true);
+        initState(STREAM_B, QUANTUM, true);
+
+        assertTrue(write(QUANTUM / 2));
+        assertEquals(QUANTUM / 2, captureWrite(STREAM_A));
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+
+        // Stream A continues its turn before stream B gets one.
+        assertTrue(write(QUANTUM));
+        assertEquals(QUANTUM / 2, captureWrite(STREAM_A));
+        assertEquals(QUANTUM / 2, captureWrite(STREAM_B));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void priorityUpdateMovesQueuedStream() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        distributor.updatePriority(STREAM_B, valueOf(1, false));
+        assertSame(valueOf(1, false), distributor.priority(STREAM_B));
+
+        assertFalse(write(20));
+        InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).write(same(stream(STREAM_B)), eq(10));
+        inOrder.verify(writer).write(same(stream(STREAM_A)), eq(10));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void priorityUpdateForUnknownStreamIsIgnored() throws Http2Exception {
+        distributor.updatePriority(101, valueOf(0, true));
+        assertNull(distributor.priority(101));
+        assertSame(Http2ExtensiblePriority.DEFAULT, distributor.priority(STREAM_A));
+    }
+
+    @Test
+    public void emptyFrameAtHeadIsWritten() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 0, true);
+        initState(STREAM_C, 0, true);
+        initState(STREAM_D, 10, true);
+
+        assertTrue(write(10));
+        verifyWrite(STREAM_A, 10);
+        verifyWrite(STREAM_B, 0);
+        verifyWrite(STREAM_C, 0);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void negativeWindowRemovesQueuedStream() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        stateMap.get(STREAM_A).isWriteAllowed = false;
+        distributor.updateStreamableBytes(stateMap.get(STREAM_A));
+
+        assertFalse(write(20));
+        verifyWrite(STREAM_B, 10);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void closedStreamIsNotWrittenAndStateIsReused() throws Http2Exception {
+        distributor.updatePriority(STREAM_A, valueOf(0, true));
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        stream(STREAM_A).close();
+
+        assertFalse(write(20));
+        verifyWrite(STREAM_B, 10);
+        verifyNoMoreInteractions(writer);
+
+        // A new stream gets the state of the removed stream, which must not carry its priority over.
+        connection.local().createStream(9, false);
+        assertSame(Http2ExtensiblePriority.DEFAULT, distributor.priority(9));
+    }
+
+    @Test
+    public void decoderUpdatesPriorityFromHeaderAndFrame() throws Exception {
+        final ExtensiblePriorityStreamByteDistributor[] distributors = new ExtensiblePriorityStreamByteDistributor[1];
+        Http2ConnectionHandler handler = new Http2ConnectionHandlerBuilder()
+                .server(true)
+                .frameListener(new Http2FrameAdapter())
+                .streamByteDistributorFactory(new StreamByteDistributor.Factory() {
+                    @Override
+                    public StreamByteDistributor newStreamByteDistributor(Http2Connection connection) {
+                        return distributors[0] = new ExtensiblePriorityStreamByteDistributor(connection);
+                    }
+                })
+                .build();
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        try {
+            ByteBuf in = Http2CodecUtil.connectionPrefaceBuf();
+            Http2CodecUtil.writeFrameHeader(in, 0, Http2FrameTypes.SETTINGS, new Http2Flags(), 0);
+            channel.writeInbound(in);
+
+            Http2Headers headers = new DefaultHttp2Headers()
+                    .method("GET").path("/").scheme("https").authority("netty.io")
+                    .set(HttpHeaderNames.PRIORITY, "u=1");
+            ByteBuf headerBlock = Unpooled.buffer();
+            new HpackEncoder().encodeHeaders(STREAM_A, headerBlock, headers, Http2HeadersEncoder.NEVER_SENSITIVE);
+            in = Unpooled.buffer();
+            Http2CodecUtil.writeFrameHeader(in, headerBlock.readableBytes(), Http2FrameTypes.HEADERS,
+                    new Http2Flags().endOfHeaders(true), STREAM_A);
+            in.writeBytes(headerBlock);
+            headerBlock.release();
+            channel.writeInbound(in);
+            assertSame(valueOf(1, false), distributors[0].priority(STREAM_A));
+
+            in = Unpooled.buffer();
+            Http2CodecUtil.writeFrameHeader(in, 4 + 6, Http2FrameTypes.PRIORITY_UPDATE, new Http2Flags(), 0);
+            in.writeInt(STREAM_A);
+            in.writeCharSequence("u=4, i", CharsetUtil.US_ASCII);
+            channel.writeInbound(in);
+            assertSame(valueOf(4, true), distributors[0].priority(STREAM_A));
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private Http2Stream stream(int streamId) {
+        return connection.stream(streamId);
+    }
+
+    private void initState(final int streamId, final long streamableBytes, final boolean hasFrame) {
+        final Http2Stream stream = stream(streamId);
+        TestStreamByteDistributorStreamState state = new TestStreamByteDistributorStreamState(stream,
+                streamableBytes, hasFrame, hasFrame);
+        stateMap.put(streamId, state);
+        distributor.updateStreamableBytes(state);
+    }
+
+    private boolean write(int numBytes) throws Http2Exception {
+        return distributor.distribute(numBytes, writer);
+    }
+
+    private void verifyWrite(int streamId, int numBytes) {
+        verify(writer).write(same(stream(streamId)), eq(numBytes));
+    }
+
+    private void verifyWrite(VerificationMode mode, int streamId, int numBytes) {
+        verify(writer, mode).write(same(stream(streamId)), eq(numBytes));
+    }
+
+    private int captureWrite(int streamId) {
+        ArgumentCaptor<Integer> captor = ArgumentCaptor.forClass(Integer.class);
+        verify(writer).write(same(stream(streamId)), captor.capture());
+        return captor.getValue();
+    }
+}
@@ -46,6 +46,7 @@ import org.mockito.invocation.Invocation;
 import java.lang.reflect.Method;
 
 import static io.netty.handler.codec.http2.HpackDecoder.decodeULE128;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
 import static io.netty.handler.codec.http2.Http2Error.PROTOCOL_ERROR;
 import static io.netty.handler.codec.http2.Http2HeadersEncoder.NEVER_SENSITIVE;
 import static io.netty.util.AsciiString.EMPTY_STRING;
@@ -277,6 +278,33 @@ public class HpackDecoderTest {
         }
     }
 
+    @Test
+    public void testLiteralHuffmanEncodedWithTableDecoder() throws Http2Exception {
+        hpackDecoder = new HpackDecoder(8192, DEFAULT_HEADER_TABLE_SIZE, null, true);
+        // Literal without indexing, name "custom-key" and value "custom-value", both Huffman encoded (RFC 7541 C.4.3)
+        byte[] input = StringUtil.decodeHexDump("00" + "8825a849e95ba97d7f" + "8925a849e95bb8e8b4bf");
+        ByteBuf in = Unpooled.wrappedBuffer(input);
+        try {
+            hpackDecoder.decode(0, in, mockHeaders, true);
+            verify(mockHeaders, times(1)).add(of("custom-key"), of("custom-value"));
+        } finally {
+            in.release();
+        }
+
+        // Padding that is not a prefix of EOS
+        final ByteBuf invalid = Unpooled.wrappedBuffer(new byte[] {0, (byte) 0x81, 0});
+        try {
+            assertThrows(Http2Exception.class, new Executable() {
+                @Override
+                public void execute() throws Throwable {
+                    hpackDecoder.decode(0, invalid, mockHeaders, true);
+                }
+            });
+        } finally {
+            invalid.release();
+        }
+    }
+
     @Test
     public void testIncompleteIndex() throws Http2Exception {
         byte[] compressed = StringUtil.decodeHexDump("FFF0");
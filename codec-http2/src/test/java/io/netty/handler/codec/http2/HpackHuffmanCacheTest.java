@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_LIST_SIZE;
+import static io.netty.handler.codec.http2.Http2HeadersEncoder.NEVER_SENSITIVE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class HpackHuffmanCacheTest {
+    private static final AsciiString USER_AGENT = AsciiString.of("Mozilla/5.0 (X11; Linux x86_64)");
+    private static final AsciiString COOKIE = AsciiString.of("session=0123456789abcdef");
+
+    private final HpackHuffmanCache cache = new HpackHuffmanCache(64, 64);
+
+    @Test
+    public void testDecodedValuesAreSharedByDecoders() throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers()
+                .add("user-agent", USER_AGENT)
+                .add("x-custom", "custom-value");
+
+        Http2Headers decoded1 = decode(new HpackDecoder(MAX_HEADER_LIST_SIZE, DEFAULT_HEADER_TABLE_SIZE, cache),
+                encode(headers, null));
+        Http2Headers decoded2 = decode(new HpackDecoder(MAX_HEADER_LIST_SIZE, DEFAULT_HEADER_TABLE_SIZE, cache),
+                encode(headers, null));
+        assertEquals(headers, decoded1);
+        assertEquals(headers, decoded2);
+        assertSame(decoded1.get("user-agent"), decoded2.get("user-agent"));
+        // Only the headers on the allow-list are shared.
+        assertNotSame(decoded1.get("x-custom"), decoded2.get("x-custom"));
+        assertNotSame(getName(decoded1, "x-custom"), getName(decoded2, "x-custom"));
+    }
+
+    @Test
+    public void testConfiguredHeadersAreShared() throws Http2Exception {
+        HpackHuffmanCache cache = new HpackHuffmanCache(64, 64, " X-Custom", "");
+        Http2Headers headers = new DefaultHttp2Headers()
+                .add("user-agent", USER_AGENT)
+                .add("x-custom", "custom-value");
+
+        Http2Headers decoded1 = decode(new HpackDecoder(MAX_HEADER_LIST_SIZE, DEFAULT_HEADER_TABLE_SIZE, cache),
+                encode(headers, null));
+        Http2Headers decoded2 = decode(new HpackDecoder(MAX_HEADER_LIST_SIZE, DEFAULT_HEADER_TABLE_SIZE, cache),
+                encode(headers, null));
+        assertSame(decoded1.get("x-custom"), decoded2.get("x-custom"));
+        assertSame(getName(decoded1, "x-custom"), getName(decoded2, "x-custom"));
+        assertNotSame(decoded1.get("user-agent"), decoded2.get("user-agent"));
+    }
+
+    @Test
+    public void testSensitiveValuesAreNotShared() throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers().add("cookie", COOKIE);
+
+        Http2Headers decoded1 = decode(new HpackDecoder(MAX_HEADER_LIST_SIZE, DEFAULT_HEADER_TABLE_SIZE, cache),
+                encode(headers, null));
+        Http2Headers decoded2 = decode(new HpackDecoder(MAX_HEADER_LIST_SIZE, DEFAULT_HEADER_TABLE_SIZE, cache),
+                encode(headers, null));
+        assertEquals(COOKIE, decoded1.get("cookie"));
+        assertEquals(COOKIE, decoded2.get("cookie"));
+        assertNotSame(decoded1.get("cookie"), decoded2.get("cookie"));
+    }
+
+    @Test
+    public void testEncodeWithCacheMatchesEncodeWithoutCache() throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers()
+                .add("user-agent", USER_AGENT)
+                .add("x-custom", "custom-value")
+                .add("x-short", "a");
+
+        byte[] expected = encode(headers, null);
+        assertArrayEquals(expected, encode(headers, cache));
+        // The second time the cached encoded forms are used.
+        assertArrayEquals(expected, encode(headers, cache));
+    }
+
+    @Test
+    public void testEncodeReturnsNullIfHuffmanIsNotShorter() {
+        assertNull(cache.encode(new HpackHuffmanEncoder(), "{}|~"));
+    }
+
+    private static byte[] encode(Http2Headers headers, HpackHuffmanCache cache) throws Http2Exception {
+        // A threshold of 0 Huffman encodes every string that gets shorter by it.
+        HpackEncoder encoder = new HpackEncoder(false, 16, 0, cache);
+        ByteBuf out = Unpooled.buffer();
+        try {
+            encoder.encodeHeaders(3, out, headers, NEVER_SENSITIVE);
+            return ByteBufUtil.getBytes(out);
+        } finally {
+            out.release();
+        }
+    }
+
+    private static CharSequence getName(Http2Headers headers, String name) {
+        for (Map.Entry<CharSequence, CharSequence> entry : headers) {
+            if (AsciiString.contentEquals(name, entry.getKey())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static Http2Headers decode(HpackDecoder decoder, byte[] block) throws Http2Exception {
+        Http2Headers headers = new DefaultHttp2Headers();
+        decoder.decode(3, Unpooled.wrappedBuffer(block), headers, true);
+        return headers;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HpackHuffmanTableDecoderTest {
+
+    @Test
+    public void testRoundTripAllSymbols() throws Http2Exception {
+        byte[] buf = new byte[1];
+        for (int i = 0; i < 256; i++) {
+            buf[0] = (byte) i;
+            roundTrip(buf);
+        }
+    }
+
+    @Test
+    public void testRoundTripAllSymbolPairs() throws Http2Exception {
+        // Every pair places the second code at another bit offset and covers every possible padding.
+        byte[] buf = new byte[2];
+        for (int i = 0; i < 256; i++) {
+            for (int j = 0; j < 256; j++) {
+                buf[0] = (byte) i;
+                buf[1] = (byte) j;
+                roundTrip(buf);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTripRandom() throws Http2Exception {
+        Random random = new Random(123456789L);
+        for (int length = 0; length < 512; length++) {
+            byte[] buf = new byte[length];
+            random.nextBytes(buf);
+            roundTrip(buf);
+        }
+        byte[] buf = new byte[4096];
+        random.nextBytes(buf);
+        roundTrip(buf);
+    }
+
+    @Test
+    public void testRoundTripRandomAscii() throws Http2Exception {
+        Random random = new Random(987654321L);
+        for (int length = 0; length < 512; length++) {
+            byte[] buf = new byte[length];
+            for (int i = 0; i < length; i++) {
+                buf[i] = (byte) (' ' + random.nextInt(95));
+            }
+            roundTrip(buf);
+        }
+    }
+
+    @Test
+    public void testDecodeRespectsReaderIndexAndLength() throws Http2Exception {
+        byte[] value = "www.example.com".getBytes();
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            buffer.writeByte(0xAA);
+            new HpackHuffmanEncoder().encode(buffer, new AsciiString(value, false));
+            int length = buffer.readableBytes() - 1;
+            buffer.writeByte(0x00);
+            buffer.skipBytes(1);
+
+            AsciiString decoded = HpackHuffmanTableDecoder.INSTANCE.decode(buffer, length);
+            assertArrayEquals(value, decoded.toByteArray());
+            assertEquals(1 + length, buffer.readerIndex());
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void testAgreesWithStateMachineOnAllShortInputs() throws Http2Exception {
+        byte[] buf = new byte[1];
+        for (int i = 0; i < 256; i++) {
+            buf[0] = (byte) i;
+            assertAgrees(buf);
+        }
+        buf = new byte[2];
+        for (int i = 0; i < 1 << 16; i++) {
+            buf[0] = (byte) (i >>> 8);
+            buf[1] = (byte) i;
+            assertAgrees(buf);
+        }
+    }
+
+    @Test
+    public void testAgreesWithStateMachineOnRandomInputs() throws Http2Exception {
+        Random random = new Random(42L);
+        for (int i = 0; i < 100000; i++) {
+            byte[] buf = new byte[3 + random.nextInt(8)];
+            random.nextBytes(buf);
+            // Mostly ones make long codes, EOS and overlong padding likely.
+            for (int j = 0; j < buf.length; j++) {
+                if (random.nextBoolean()) {
+                    buf[j] = (byte) 0xFF;
+                }
+            }
+            assertAgrees(buf);
+        }
+    }
+
+    @Test
+    public void testDecodeEOS() {
+        assertBadEncoding(0xFF, 0xFF, 0xFF, 0xFF);
+        // EOS after a complete symbol, and at a bit offset.
+        assertBadEncoding(0x0F, 0xFF, 0xFF, 0xFF, 0xFF);
+        assertBadEncoding(0x1F, 0xFF, 0xFF, 0xFF, 0xFF);
+    }
+
+    @Test
+    public void testDecodeIllegalPadding() {
+        assertBadEncoding(0x00);
+    }
+
+    @Test
+    public void testDecodeExtraPadding() {
+        assertBadEncoding(0x0F, 0xFF);
+        assertBadEncoding(0xFF);
+        assertBadEncoding(0x1F, 0xFF);
+        assertBadEncoding(0x1F, 0xFF, 0xFF);
+        assertBadEncoding(0x1F, 0xFF, 0xFF, 0xFF);
+        assertBadEncoding(0xFF, 0x9F, 0xFF, 0xFF, 0xFF);
+    }
+
+    @Test
+    public void testDecodePartialSymbol() {
+        assertBadEncoding(0x52, 0xBC, 0x30, 0xFF, 0xFF, 0xFF, 0xFF);
+    }
+
+    private static void assertBadEncoding(int... bytes) {
+        final byte[] buf = new byte[bytes.length];
+        for (int i = 0; i < buf.length; i++) {
+            buf[i] = (byte) bytes[i];
+        }
+        assertThrows(Http2Exception.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                decode(buf);
+            }
+        });
+    }
+
+    private static void assertAgrees(byte[] buf) throws Http2Exception {
+        byte[] expected;
+        try {
+            expected = decode(new HpackHuffmanDecoder(), buf);
+        } catch (Http2Exception e) {
+            expected = null;
+        }
+        byte[] actual;
+        try {
+            actual = decode(buf);
+        } catch (Http2Exception e) {
+            actual = null;
+        }
+        if (!Arrays.equals(expected, actual)) {
+            assertArrayEquals(expected, actual, "input " + Arrays.toString(buf));
+        }
+    }
+
+    private static void roundTrip(byte[] buf) throws Http2Exception {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            new HpackHuffmanEncoder().encode(buffer, new AsciiString(buf, false));
+            byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.readBytes(bytes);
+
+            assertArrayEquals(buf, decode(bytes));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static byte[] decode(byte[] bytes) throws Http2Exception {
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        try {
+            AsciiString decoded = HpackHuffmanTableDecoder.INSTANCE.decode(buffer, buffer.readableBytes());
+            assertFalse(buffer.isReadable());
+            return decoded.toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static byte[] decode(HpackHuffmanDecoder decoder, byte[] bytes) throws Http2Exception {
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        try {
+            return decoder.decode(buffer, buffer.readableBytes()).toByteArray();
+        } finally {
+            buffer.release();
+        }
+    }
+}
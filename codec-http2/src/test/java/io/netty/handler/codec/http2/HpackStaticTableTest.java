@@ -15,10 +15,15 @@
 
 package io.netty.handler.codec.http2;
 
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName;
 import io.netty.util.AsciiString;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class HpackStaticTableTest {
 
@@ -73,4 +78,14 @@ public class HpackStaticTableTest {
         assertEquals(-1, HpackStaticTable.getIndexInsensitive(":scheme", "missing"));
     }
 
+    @Test
+    public void testWellKnownConstants() {
+        assertEquals(31, HpackStaticTable.getIndex(HttpHeaderNames.CONTENT_TYPE));
+        assertEquals(2, HpackStaticTable.getIndexInsensitive(PseudoHeaderName.METHOD.value(),
+                HttpMethod.GET.asciiName()));
+        assertEquals(8, HpackStaticTable.getIndexInsensitive(PseudoHeaderName.STATUS.value(),
+                HttpResponseStatus.OK.codeAsText()));
+        assertSame(HttpHeaderNames.CONTENT_TYPE, HpackStaticTable.getEntry(31).name);
+        assertSame(HttpResponseStatus.NOT_FOUND.codeAsText(), HpackStaticTable.getEntry(13).value);
+    }
 }
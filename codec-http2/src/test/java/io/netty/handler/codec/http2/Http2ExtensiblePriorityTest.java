@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import static io.netty.handler.codec.http2.Http2ExtensiblePriority.DEFAULT;
+import static io.netty.handler.codec.http2.Http2ExtensiblePriority.parse;
+import static io.netty.handler.codec.http2.Http2ExtensiblePriority.valueOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class Http2ExtensiblePriorityTest {
+
+    @Test
+    public void testDefault() {
+        assertEquals(3, DEFAULT.urgency());
+        assertEquals(false, DEFAULT.isIncremental());
+        assertSame(DEFAULT, parse(""));
+        assertSame(DEFAULT, parse(" , "));
+    }
+
+    @Test
+    public void testValueOf() {
+        assertSame(valueOf(0, true), valueOf(0, true));
+        assertEquals("u=0, i", valueOf(0, true).toString());
+        assertEquals("u=7", valueOf(7, false).toString());
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                valueOf(8, false);
+            }
+        });
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                valueOf(-1, false);
+            }
+        });
+    }
+
+    @Test
+    public void testParse() {
+        assertSame(valueOf(0, false), parse("u=0"));
+        assertSame(valueOf(7, false), parse("u=7"));
+        assertSame(valueOf(3, true), parse("i"));
+        assertSame(valueOf(1, true), parse("u=1, i"));
+        assertSame(valueOf(1, true), parse("i,u=1"));
+        assertSame(valueOf(5, true), parse("u=5,\ti=?1"));
+        assertSame(valueOf(5, false), parse("u=5, i=?0"));
+    }
+
+    @Test
+    public void testParseLastValueWins() {
+        assertSame(valueOf(2, false), parse("u=1, u=2"));
+        assertSame(valueOf(3, false), parse("i, i=?0"));
+    }
+
+    @Test
+    public void testParseIgnoresParametersAndUnknownKeys() {
+        assertSame(valueOf(1, true), parse("u=1;a=b, i;c"));
+        assertSame(valueOf(2, false), parse("foo=bar, u=2, ui=1, x"));
+    }
+
+    @Test
+    public void testParseIgnoresInvalidValues() {
+        assertSame(DEFAULT, parse("u=8"));
+        assertSame(DEFAULT, parse("u=10"));
+        assertSame(DEFAULT, parse("u=-1"));
+        assertSame(DEFAULT, parse("u="));
+        assertSame(DEFAULT, parse("u=a"));
+        assertSame(DEFAULT, parse("i=1"));
+        assertSame(DEFAULT, parse("i=?2"));
+        assertSame(DEFAULT, parse("U=1"));
+    }
+}
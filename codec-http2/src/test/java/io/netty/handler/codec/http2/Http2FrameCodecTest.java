@@ -36,6 +36,7 @@ import io.netty.handler.codec.http2.Http2Stream.State;
 import io.netty.handler.logging.LogLevel;
 import io.netty.util.AbstractReferenceCounted;
 import io.netty.util.AsciiString;
+import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
 import io.netty.util.concurrent.DefaultPromise;
@@ -390,6 +391,20 @@ public class Http2FrameCodecTest {
         assertTrue(channel.isActive());
     }
 
+    @Test
+    public void priorityUpdateIsHandledAsUnknownFrameOnConnectionStream() throws Exception {
+        // The codec does not implement Http2PriorityUpdateListener, so the frame must take the same path as any
+        // other unknown frame on the connection stream.
+        ByteBuf payload = Unpooled.buffer().writeInt(3);
+        payload.writeBytes("u=1".getBytes(CharsetUtil.US_ASCII));
+        frameInboundWriter.writeInboundFrame(Http2FrameTypes.PRIORITY_UPDATE, 0, new Http2Flags(), payload);
+        channel.flush();
+
+        assertEquals(0, payload.refCnt());
+        assertTrue(channel.isActive());
+        assertNull(inboundHandler.readInbound());
+    }
+
     @Test
     public void goAwayLastStreamIdOverflowed() throws Exception {
         frameInboundWriter.writeInboundHeaders(5, request, 31, false);
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http2.Http2Exception.StreamException;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link Http2PreEncodedHeaders}.
+ */
+public class Http2PreEncodedHeadersTest {
+
+    @Test
+    public void shouldOnlyUseStaticTableAndLiteralsWithoutIndexing() {
+        Http2PreEncodedHeaders headers = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers()
+                .status("200")
+                .set("content-type", "application/json"));
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            headers.writeEncodedHeaders(buf);
+            // Indexed header field for ":status: 200", static table index 8.
+            assertEquals(0x88, buf.readUnsignedByte());
+            // Literal header field without indexing with the name "content-type", static table index 31.
+            assertEquals(0x0F, buf.readUnsignedByte());
+            assertEquals(31 - 15, buf.readUnsignedByte());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void shouldDecodeAfterDynamicTableChanges() throws Http2Exception {
+        Http2PreEncodedHeaders headers = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers()
+                .status("200")
+                .set("content-type", "application/json")
+                .set("server", "netty"));
+        DefaultHttp2HeadersEncoder encoder = new DefaultHttp2HeadersEncoder();
+        DefaultHttp2HeadersDecoder decoder = new DefaultHttp2HeadersDecoder();
+
+        // Fill the dynamic table of both sides.
+        Http2Headers decoded = roundTrip(encoder, decoder, new DefaultHttp2Headers()
+                .status("404")
+                .set("x-custom", "value"));
+        assertEquals("value", decoded.get("x-custom").toString());
+
+        decoded = roundTrip(encoder, decoder, headers.withHeaders(new DefaultHttp2Headers()
+                .set("x-custom", "value")
+                .setInt("content-length", 42)));
+        assertEquals("200", decoded.status().toString());
+        assertEquals("application/json", decoded.get("content-type").toString());
+        assertEquals("netty", decoded.get("server").toString());
+        assertEquals("value", decoded.get("x-custom").toString());
+        assertEquals(42, (int) decoded.getInt("content-length"));
+        assertEquals(5, decoded.size());
+
+        // A dynamic table size update must still precede the pre-encoded block.
+        encoder.maxHeaderTableSize(0);
+        decoder.maxHeaderTableSize(0);
+        decoded = roundTrip(encoder, decoder, headers);
+        assertEquals("200", decoded.status().toString());
+        assertEquals(3, decoded.size());
+    }
+
+    @Test
+    public void shouldEnforceMaxHeaderListSize() throws Http2Exception {
+        final Http2PreEncodedHeaders headers = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers().status("200"));
+        final DefaultHttp2HeadersEncoder encoder = new DefaultHttp2HeadersEncoder();
+        encoder.maxHeaderListSize(2);
+        assertThrows(StreamException.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                ByteBuf buf = Unpooled.buffer();
+                try {
+                    encoder.encodeHeaders(3, headers, buf);
+                } finally {
+                    buf.release();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void withHeadersShouldRejectPseudoHeaders() {
+        final Http2PreEncodedHeaders headers = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers().status("200"));
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                headers.withHeaders(new DefaultHttp2Headers().path("/"));
+            }
+        });
+    }
+
+    @Test
+    public void withHeadersShouldRejectPreEncodedNames() {
+        final Http2PreEncodedHeaders headers = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers()
+                .status("200")
+                .add("vary", "accept"));
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                headers.withHeaders(new DefaultHttp2Headers().add("vary", "accept-encoding"));
+            }
+        });
+    }
+
+    @Test
+    public void shouldReadEncodedAndAdditionalHeaders() {
+        Http2PreEncodedHeaders headers = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers()
+                .status("200")
+                .add("vary", "accept")
+                .add("vary", "accept-encoding"))
+                .withHeaders(new DefaultHttp2Headers().add("x-request-id", "1"))
+                .withHeaders(new DefaultHttp2Headers().add("content-length", "0"));
+
+        assertEquals("200", headers.status().toString());
+        assertEquals("accept", headers.get("vary").toString());
+        assertEquals(Arrays.asList("accept", "accept-encoding"), Arrays.asList(
+                headers.getAll("vary").get(0).toString(), headers.getAll("vary").get(1).toString()));
+        assertEquals("1", headers.get("x-request-id").toString());
+        assertEquals(0, (int) headers.getInt("content-length"));
+        assertTrue(headers.contains("vary", "accept-encoding"));
+        assertFalse(headers.contains("server"));
+        assertEquals(5, headers.size());
+
+        Iterator<Map.Entry<CharSequence, CharSequence>> itr = headers.iterator();
+        assertEquals(":status", itr.next().getKey().toString());
+        assertEquals("vary", itr.next().getKey().toString());
+        assertEquals("vary", itr.next().getKey().toString());
+        assertEquals("x-request-id", itr.next().getKey().toString());
+        assertEquals("content-length", itr.next().getKey().toString());
+        assertFalse(itr.hasNext());
+    }
+
+    @Test
+    public void shouldBeReadOnly() {
+        final Http2PreEncodedHeaders headers = Http2PreEncodedHeaders.encode(new DefaultHttp2Headers().status("200"));
+        assertThrows(UnsupportedOperationException.class, new Executable() {
+            @Override
+            public void execute() {
+                headers.status(new AsciiString("204"));
+            }
+        });
+        assertThrows(UnsupportedOperationException.class, new Executable() {
+            @Override
+            public void execute() {
+                headers.add("a", "b");
+            }
+        });
+        final Iterator<Map.Entry<CharSequence, CharSequence>> itr = headers.iterator();
+        itr.next();
+        assertThrows(UnsupportedOperationException.class, new Executable() {
+            @Override
+            public void execute() {
+                itr.remove();
+            }
+        });
+    }
+
+    private static Http2Headers roundTrip(Http2HeadersEncoder encoder, Http2HeadersDecoder decoder,
+                                          Http2Headers headers) throws Http2Exception {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            encoder.encodeHeaders(3, headers, buf);
+            return decoder.decodeHeaders(3, buf);
+        } finally {
+            buf.release();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpScheme;
+import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.handler.codec.http2.Http2TestUtil.anyChannelPromise;
+import static io.netty.handler.codec.http2.Http2TestUtil.bb;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+public class Http2StreamDispatchHandlerTest {
+    private final Http2Headers request = new DefaultHttp2Headers()
+            .method(HttpMethod.GET.asciiName()).scheme(HttpScheme.HTTPS.name())
+            .authority(new AsciiString("example.org")).path(new AsciiString("/foo"));
+    private final Http2Headers response = new DefaultHttp2Headers().status(new AsciiString("200"));
+
+    private EmbeddedChannel channel;
+    private Http2FrameWriter frameWriter;
+    private Http2FrameInboundWriter frameInboundWriter;
+    private Http2FrameCodec codec;
+
+    private void setUp(Http2StreamHandler handler, boolean autoConsume) {
+        channel = new EmbeddedChannel();
+        frameInboundWriter = new Http2FrameInboundWriter(channel);
+        channel.connect(new InetSocketAddress(0));
+        frameWriter = Http2TestUtil.mockedFrameWriter();
+        codec = new Http2FrameCodecBuilder(true).frameWriter(frameWriter).build();
+        channel.pipeline().addLast(codec, new Http2StreamDispatchHandler(handler, autoConsume));
+        channel.runPendingTasks();
+        channel.pipeline().fireChannelActive();
+        channel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+        frameInboundWriter.writeInboundSettings(new Http2Settings());
+        frameInboundWriter.writeInboundSettingsAck();
+        ReferenceCountUtil.release(channel.readInbound());
+        ReferenceCountUtil.release(channel.readInbound());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (channel != null) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    public void testFramesAreDispatchedAndConsumed() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        setUp(handler, true);
+
+        frameInboundWriter.writeInboundHeaders(3, request, 0, false);
+        frameInboundWriter.writeInboundData(3, bb("hello"), 0, false);
+
+        assertEquals(1, handler.contexts.size());
+        Http2StreamHandlerContext ctx = handler.contexts.get(0);
+        assertEquals(3, ctx.stream().id());
+        assertTrue(ctx.isWritable());
+        assertEquals(2, handler.frames.size());
+        assertEquals(request, ((Http2HeadersFrame) handler.frames.get(0)).headers());
+        assertEquals(5, ((Http2DataFrame) handler.frames.get(1)).content().readableBytes());
+        assertEquals(0, unconsumedBytes(3));
+        // Nothing reaches the rest of the pipeline.
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void testManualConsume() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        setUp(handler, false);
+
+        frameInboundWriter.writeInboundHeaders(3, request, 0, false);
+        frameInboundWriter.writeInboundData(3, bb("hello"), 0, false);
+        assertEquals(5, unconsumedBytes(3));
+
+        handler.contexts.get(0).consumeBytes(5);
+        assertEquals(0, unconsumedBytes(3));
+    }
+
+    @Test
+    public void testDataWithoutContextIsConsumed() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        setUp(handler, false);
+
+        frameInboundWriter.writeInboundHeaders(3, request, 0, false);
+        handler.contexts.get(0).unbind();
+        frameInboundWriter.writeInboundData(3, bb("hello"), 0, false);
+
+        assertEquals(1, handler.frames.size());
+        assertEquals(0, unconsumedBytes(3));
+        Http2Connection connection = codec.connection();
+        assertEquals(0, connection.local().flowController().unconsumedBytes(connection.connectionStream()));
+    }
+
+    @Test
+    public void testContextIsUnboundAfterStreamClosed() throws Exception {
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void streamRead(Http2StreamHandlerContext ctx, Http2StreamFrame frame) throws Exception {
+                super.streamRead(ctx, frame);
+                ctx.attach(this);
+                ctx.writeAndFlush(new DefaultHttp2HeadersFrame(response, true));
+            }
+        };
+        setUp(handler, true);
+
+        frameInboundWriter.writeInboundHeaders(3, request, 0, true);
+        verify(frameWriter).writeHeaders(eq(codec.ctx), eq(3), eq(response), eq(0), eq(true), anyChannelPromise());
+        assertEquals(1, handler.closed);
+
+        frameInboundWriter.writeInboundHeaders(5, request, 0, true);
+        verify(frameWriter).writeHeaders(eq(codec.ctx), eq(5), eq(response), eq(0), eq(true), anyChannelPromise());
+        assertEquals(2, handler.closed);
+        assertNotSame(handler.contexts.get(0), handler.contexts.get(1));
+        assertNull(handler.contexts.get(0).attachment());
+        assertNull(handler.contexts.get(0).stream());
+
+        // A context that is kept after its stream was closed must never write to another stream.
+        ChannelFuture future = handler.contexts.get(0).writeAndFlush(new DefaultHttp2HeadersFrame(response, true));
+        assertInstanceOf(ClosedChannelException.class, future.cause());
+        verify(frameWriter).writeHeaders(eq(codec.ctx), eq(5), eq(response), eq(0), eq(true), anyChannelPromise());
+    }
+
+    @Test
+    public void testResetFrameIsDispatched() throws Exception {
+        RecordingHandler handler = new RecordingHandler();
+        setUp(handler, true);
+
+        frameInboundWriter.writeInboundHeaders(3, request, 0, false);
+        frameInboundWriter.writeInboundRstStream(3, Http2Error.CANCEL.code());
+
+        assertEquals(2, handler.frames.size());
+        Http2ResetFrame resetFrame = assertInstanceOf(Http2ResetFrame.class, handler.frames.get(1));
+        assertEquals(Http2Error.CANCEL.code(), resetFrame.errorCode());
+        assertEquals(1, handler.closed);
+    }
+
+    @Test
+    public void testExceptionResetsStream() throws Exception {
+        final RuntimeException exception = new RuntimeException();
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void streamRead(Http2StreamHandlerContext ctx, Http2StreamFrame frame) throws Exception {
+                super.streamRead(ctx, frame);
+                throw exception;
+            }
+        };
+        setUp(handler, true);
+
+        frameInboundWriter.writeInboundHeaders(3, request, 0, false);
+        assertEquals(1, handler.exceptions.size());
+        assertSame(exception, handler.exceptions.get(0));
+        verify(frameWriter).writeRstStream(eq(codec.ctx), eq(3), eq(Http2Error.INTERNAL_ERROR.code()),
+                anyChannelPromise());
+        assertEquals(1, handler.closed);
+    }
+
+    private int unconsumedBytes(int streamId) {
+        Http2Connection connection = codec.connection();
+        return connection.local().flowController().unconsumedBytes(connection.stream(streamId));
+    }
+
+    private static class RecordingHandler extends Http2StreamHandlerAdapter {
+        final List<Http2StreamHandlerContext> contexts = new ArrayList<Http2StreamHandlerContext>();
+        final List<Http2StreamFrame> frames = new ArrayList<Http2StreamFrame>();
+        final List<Throwable> exceptions = new ArrayList<Throwable>();
+        int closed;
+
+        @Override
+        public void streamActive(Http2StreamHandlerContext ctx) {
+            contexts.add(ctx);
+        }
+
+        @Override
+        public void streamRead(Http2StreamHandlerContext ctx, Http2StreamFrame frame) throws Exception {
+            frames.add(frame);
+            ReferenceCountUtil.release(frame);
+        }
+
+        @Override
+        public void exceptionCaught(Http2StreamHandlerContext ctx, Throwable cause) throws Exception {
+            exceptions.add(cause);
+            super.exceptionCaught(ctx, cause);
+        }
+
+        @Override
+        public void streamClosed(Http2StreamHandlerContext ctx) {
+            closed++;
+        }
+    }
+}
@@ -376,6 +376,61 @@ public class Http2StreamFrameToHttpObjectCodecTest {
         assertFalse(ch.finish());
     }
 
+    @Test
+    public void testDowngradeHeadersWrapped() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new Http2StreamFrameToHttpObjectCodec(true, false, true));
+        Http2Headers headers = new DefaultHttp2Headers();
+        headers.path("/");
+        headers.method("GET");
+        headers.set("key", "value");
+
+        assertTrue(ch.writeInbound(new DefaultHttp2HeadersFrame(headers)));
+
+        HttpRequest request = ch.readInbound();
+        assertThat(request.uri(), is("/"));
+        assertThat(request.method(), is(HttpMethod.GET));
+        assertThat(request.headers().get("Key"), is("value"));
+        assertFalse(request.headers().contains(":path"));
+        assertTrue(HttpUtil.isTransferEncodingChunked(request));
+        // The headers of the frame are used instead of a copy, but never modified.
+        assertThat(headers.get("key").toString(), is("value"));
+        assertFalse(headers.contains("transfer-encoding"));
+        assertFalse(headers.contains(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text()));
+
+        assertThat(ch.readInbound(), is(nullValue()));
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testWrapHeadersRejectsValidateHeaders() {
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                new Http2StreamFrameToHttpObjectCodec(true, true, true);
+            }
+        });
+    }
+
+    @Test
+    public void testDowngradeTrailersWrapped() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new Http2StreamFrameToHttpObjectCodec(true, false, true));
+        Http2Headers headers = new DefaultHttp2Headers();
+        headers.set("key", "value");
+        assertTrue(ch.writeInbound(new DefaultHttp2HeadersFrame(headers, true)));
+
+        LastHttpContent trailers = ch.readInbound();
+        try {
+            assertThat(trailers.content().readableBytes(), is(0));
+            assertThat(trailers.trailingHeaders().get("key"), is("value"));
+            assertFalse(trailers instanceof FullHttpRequest);
+        } finally {
+            trailers.release();
+        }
+
+        assertThat(ch.readInbound(), is(nullValue()));
+        assertFalse(ch.finish());
+    }
+
     @Test
     public void testDowngradeData() throws Exception {
         EmbeddedChannel ch = new EmbeddedChannel(new Http2StreamFrameToHttpObjectCodec(true));
@@ -594,6 +649,28 @@ public class Http2StreamFrameToHttpObjectCodecTest {
         assertFalse(ch.finish());
     }
 
+    @Test
+    public void testEncodeRequestHeadersWrapped() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel(new Http2StreamFrameToHttpObjectCodec(false, false, true));
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/hello/world");
+        request.headers().set("Key", "value");
+        request.headers().set("Connection", "keep-alive");
+        assertTrue(ch.writeOutbound(request));
+
+        Http2HeadersFrame headersFrame = ch.readOutbound();
+        Http2Headers headers = headersFrame.headers();
+
+        assertThat(headers.scheme().toString(), is("http"));
+        assertThat(headers.method().toString(), is("GET"));
+        assertThat(headers.path().toString(), is("/hello/world"));
+        assertThat(headers.get("key").toString(), is("value"));
+        assertFalse(headers.contains("connection"));
+        assertFalse(headersFrame.isEndStream());
+
+        assertThat(ch.readOutbound(), is(nullValue()));
+        assertFalse(ch.finish());
+    }
+
     @Test
     public void testEncodeChunkAsClient() throws Exception {
         EmbeddedChannel ch = new EmbeddedChannel(new Http2StreamFrameToHttpObjectCodec(false));
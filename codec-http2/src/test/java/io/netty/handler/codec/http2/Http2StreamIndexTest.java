@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link Http2StreamIndex}.
+ */
+public class Http2StreamIndexTest {
+
+    @Test
+    public void putGetRemove() {
+        Http2StreamIndex index = new Http2StreamIndex();
+        Http2Stream connection = newStream(0);
+        Http2Stream stream = newStream(3);
+        assertNull(index.put(connection));
+        assertNull(index.put(stream));
+        assertEquals(2, index.size());
+        assertSame(connection, index.get(0));
+        assertSame(stream, index.get(3));
+        assertNull(index.get(1));
+
+        Http2Stream replacement = newStream(3);
+        assertSame(stream, index.put(replacement));
+        assertEquals(2, index.size());
+        assertSame(replacement, index.get(3));
+
+        assertSame(replacement, index.remove(3));
+        assertNull(index.remove(3));
+        assertNull(index.get(3));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void growShouldKeepAllStreams() {
+        Http2StreamIndex index = new Http2StreamIndex(2);
+        for (int id = 1; id < 1000; id++) {
+            assertNull(index.put(newStream(id)));
+        }
+        assertEquals(999, index.size());
+        for (int id = 1; id < 1000; id++) {
+            assertEquals(id, index.get(id).id());
+        }
+        assertNull(index.get(1000));
+    }
+
+    @Test
+    public void removeShouldKeepCollidingStreamsReachable() {
+        Http2StreamIndex index = new Http2StreamIndex(16);
+        // Streams 1 and 2, 17 and 18 and 33 share a slot, and the probe sequences wrap around the end of the table.
+        int[] ids = { 1, 2, 17, 18, 33, 29, 30, 31, 32 };
+        for (int id : ids) {
+            index.put(newStream(id));
+        }
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], index.remove(ids[i]).id());
+            for (int j = i + 1; j < ids.length; j++) {
+                assertEquals(ids[j], index.get(ids[j]).id());
+            }
+        }
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void iteratorRemoveShouldVisitEveryStreamOnce() {
+        Http2StreamIndex index = new Http2StreamIndex(16);
+        int[] ids = { 0, 1, 2, 17, 18, 33, 29, 30, 31, 32 };
+        for (int id : ids) {
+            index.put(newStream(id));
+        }
+        Set<Integer> visited = new HashSet<Integer>();
+        Iterator<Http2Stream> itr = index.iterator();
+        while (itr.hasNext()) {
+            assertTrue(visited.add(itr.next().id()));
+            itr.remove();
+        }
+        assertEquals(ids.length, visited.size());
+        assertEquals(0, index.size());
+        assertFalse(index.iterator().hasNext());
+    }
+
+    @Test
+    public void iteratorRemoveWithoutNextShouldThrow() {
+        Http2StreamIndex index = new Http2StreamIndex();
+        index.put(newStream(1));
+        final Iterator<Http2Stream> itr = index.iterator();
+        assertThrows(IllegalStateException.class, new Executable() {
+            @Override
+            public void execute() {
+                itr.remove();
+            }
+        });
+    }
+
+    private static Http2Stream newStream(int id) {
+        Http2Stream stream = mock(Http2Stream.class);
+        when(stream.id()).thenReturn(id);
+        return stream;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uploads a body over a {@link LocalChannel} that delays everything the client receives, which simulates a
+ * connection with a high latency on which the default windows limit the throughput.
+ */
+public class Http2WindowAutoTuningTest {
+    private static final long DEFAULT_AWAIT_TIMEOUT_SECONDS = 15;
+    private static final int LATENCY_MILLIS = 5;
+    private static final int BODY_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_STREAM_WINDOW_SIZE = 1024 * 1024;
+    private static final int MAX_CONNECTION_WINDOW_SIZE = 2 * 1024 * 1024;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private volatile Http2ConnectionHandler serverHandler;
+    private volatile int maxStreamWindowSize;
+    private volatile boolean pingAckRead;
+    private CountDownLatch bodyLatch;
+
+    @BeforeEach
+    public void setUp() {
+        group = new DefaultEventLoopGroup(2);
+        bodyLatch = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (clientChannel != null) {
+            clientChannel.close().sync();
+        }
+        if (serverChannel != null) {
+            serverChannel.close().sync();
+        }
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    @Test
+    public void windowsGrowWithAutoTuning() throws Exception {
+        upload(true);
+
+        DefaultHttp2LocalFlowController flowController =
+                (DefaultHttp2LocalFlowController) serverHandler.connection().local().flowController();
+        int connectionWindowSize = flowController.initialWindowSize(serverHandler.connection().connectionStream());
+        assertTrue(connectionWindowSize > DEFAULT_WINDOW_SIZE, "connection window: " + connectionWindowSize);
+        assertTrue(connectionWindowSize <= MAX_CONNECTION_WINDOW_SIZE, "connection window: " + connectionWindowSize);
+        assertTrue(maxStreamWindowSize > DEFAULT_WINDOW_SIZE, "stream window: " + maxStreamWindowSize);
+        assertTrue(maxStreamWindowSize <= MAX_STREAM_WINDOW_SIZE, "stream window: " + maxStreamWindowSize);
+        // The PINGs of the flow controller are not passed to the application.
+        assertFalse(pingAckRead);
+    }
+
+    @Test
+    public void windowsStayWithoutAutoTuning() throws Exception {
+        upload(false);
+
+        Http2LocalFlowController flowController = serverHandler.connection().local().flowController();
+        assertEquals(DEFAULT_WINDOW_SIZE,
+                flowController.initialWindowSize(serverHandler.connection().connectionStream()));
+        assertEquals(DEFAULT_WINDOW_SIZE, maxStreamWindowSize);
+    }
+
+    private void upload(final boolean autoTuning) throws Exception {
+        ServerBootstrap sb = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        Http2ConnectionHandlerBuilder builder = new Http2ConnectionHandlerBuilder()
+                                .server(true)
+                                .frameListener(new ServerListener());
+                        if (autoTuning) {
+                            builder.flowControlWindowAutoTuning(MAX_STREAM_WINDOW_SIZE, MAX_CONNECTION_WINDOW_SIZE);
+                        }
+                        serverHandler = builder.build();
+                        ch.pipeline().addLast(serverHandler);
+                    }
+                });
+        serverChannel = sb.bind(new LocalAddress(getClass())).sync().channel();
+
+        final Http2ConnectionHandler clientHandler = new Http2ConnectionHandlerBuilder()
+                .server(false)
+                .frameListener(new Http2FrameAdapter())
+                .build();
+        Bootstrap cb = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new LatencyHandler(), clientHandler);
+                    }
+                });
+        clientChannel = cb.connect(serverChannel.localAddress()).sync().channel();
+
+        clientChannel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                ChannelHandlerContext ctx = clientChannel.pipeline().context(clientHandler);
+                Http2Headers headers = new DefaultHttp2Headers()
+                        .method("POST").path("/").scheme("http").authority("localhost");
+                clientHandler.encoder().writeHeaders(ctx, 3, headers, 0, false, ctx.newPromise());
+                clientHandler.encoder().writeData(ctx, 3, Unpooled.wrappedBuffer(new byte[BODY_SIZE]), 0, true,
+                        ctx.newPromise());
+                ctx.flush();
+            }
+        });
+        assertTrue(bodyLatch.await(DEFAULT_AWAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private final class ServerListener extends Http2FrameAdapter {
+        @Override
+        public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data, int padding,
+                              boolean endOfStream) {
+            Http2Connection connection = serverHandler.connection();
+            int windowSize = connection.local().flowController().initialWindowSize(connection.stream(streamId));
+            maxStreamWindowSize = Math.max(maxStreamWindowSize, windowSize);
+            if (endOfStream) {
+                bodyLatch.countDown();
+            }
+            return data.readableBytes() + padding;
+        }
+
+        @Override
+        public void onPingAckRead(ChannelHandlerContext ctx, long data) {
+            pingAckRead = true;
+        }
+    }
+
+    /**
+     * Delays all inbound events, so that each round trip takes at least {@link #LATENCY_MILLIS}.
+     */
+    private static final class LatencyHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.fireChannelRead(msg);
+                }
+            }, LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void channelReadComplete(final ChannelHandlerContext ctx) {
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.fireChannelReadComplete();
+                }
+            }, LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -25,6 +25,8 @@ import io.netty.util.AsciiString;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 
+import java.util.Arrays;
+
 import static io.netty.handler.codec.http.HttpHeaderNames.CONNECTION;
 import static io.netty.handler.codec.http.HttpHeaderNames.COOKIE;
 import static io.netty.handler.codec.http.HttpHeaderNames.HOST;
@@ -276,4 +278,126 @@ public class HttpConversionUtilTest {
         assertTrue(httpHeaders.contains(HttpConversionUtil.ExtensionHeaderNames.PATH.text()));
         assertEquals("meow", httpHeaders.get("cat"));
     }
+
+    @Test
+    public void httpRequestViewShouldMatchCopy() throws Exception {
+        HttpRequest copy = HttpConversionUtil.toHttpRequest(3, newRequestHeaders(), true);
+        HttpRequest view = HttpConversionUtil.toHttpRequestView(3, newRequestHeaders());
+        assertEquals(copy.method(), view.method());
+        assertEquals(copy.uri(), view.uri());
+        assertEquals(copy.headers().size(), view.headers().size());
+        for (String name : copy.headers().names()) {
+            assertEquals(copy.headers().getAll(name), view.headers().getAll(name), name);
+        }
+        assertEquals("a=b; c=d", view.headers().get(COOKIE));
+        assertEquals("example.org", view.headers().get(HOST));
+        assertFalse(view.headers().contains(TRANSFER_ENCODING));
+        assertFalse(view.headers().contains(":path"));
+    }
+
+    @Test
+    public void httpHeadersViewShouldNotModifyHttp2Headers() throws Exception {
+        Http2Headers http2Headers = newRequestHeaders();
+        Http2Headers expected = newRequestHeaders();
+        final HttpHeaders view = HttpConversionUtil.toHttpHeadersView(
+                3, http2Headers, HttpVersion.HTTP_1_1, false, true);
+        assertEquals("a=b; c=d", view.get(COOKIE));
+        assertEquals(expected, http2Headers);
+
+        view.add("X-Added", "1");
+        assertEquals("1", view.get("x-added"));
+        view.add(HOST, "example.com");
+        assertEquals(Arrays.asList("example.org", "example.com"), view.getAll(HOST));
+        view.remove("Accept");
+        assertFalse(view.contains("accept"));
+        view.set(COOKIE, "e=f");
+        assertEquals("e=f", view.get(COOKIE));
+        assertEquals(expected, http2Headers);
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                view.set(":path", "/");
+            }
+        });
+
+        view.clear();
+        assertTrue(view.isEmpty());
+        assertEquals(0, view.size());
+        view.add("X-Added", "2");
+        assertEquals(1, view.size());
+        assertEquals(expected, http2Headers);
+    }
+
+    @Test
+    public void httpHeadersViewShouldRejectInvalidHeaders() {
+        final Http2Headers http2Headers = newRequestHeaders().add(":invalid", "x");
+        assertThrows(Http2Exception.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                HttpConversionUtil.toHttpHeadersView(3, http2Headers, HttpVersion.HTTP_1_1, false, true);
+            }
+        });
+    }
+
+    @Test
+    public void http2HeadersViewShouldMatchCopy() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                "https://user@example.org:8443/foo?q#f");
+        request.headers()
+                .add(CONNECTION, "x-hop, keep-alive")
+                .add("X-Hop", "1")
+                .add(TE, GZIP + ", " + TRAILERS)
+                .add(HOST, "example.org")
+                .add(COOKIE, "a=b")
+                .add("Accept", "*/*")
+                .add("X-Multi", "1")
+                .add("X-Multi", "2");
+        request.headers().set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), "https");
+
+        Http2Headers copy = HttpConversionUtil.toHttp2Headers(request, true);
+        Http2Headers view = HttpConversionUtil.toHttp2HeadersView(request);
+        assertEquals(copy.size(), view.size());
+        assertEquals(copy.names(), view.names());
+        for (CharSequence name : copy.names()) {
+            // The copy converts some values to AsciiString, so only the text is compared.
+            assertEquals(copy.getAll(name).toString(), view.getAll(name).toString(), name.toString());
+        }
+        assertEquals("/foo?q#f", view.path().toString());
+        assertEquals("example.org", view.authority().toString());
+        assertEquals("https", view.scheme().toString());
+        assertEquals("POST", view.method().toString());
+        assertEquals(TRAILERS, view.get(TE));
+        assertEquals("*/*", view.get("Accept").toString());
+        assertFalse(view.contains("x-hop"));
+        assertFalse(view.contains(HOST));
+    }
+
+    @Test
+    public void http2HeadersViewShouldBeReadOnly() {
+        HttpHeaders headers = new DefaultHttpHeaders().add("a", "b");
+        final Http2Headers view = HttpConversionUtil.toHttp2HeadersView(headers);
+        assertEquals("b", view.get("a").toString());
+        assertThrows(UnsupportedOperationException.class, new Executable() {
+            @Override
+            public void execute() {
+                view.add("c", "d");
+            }
+        });
+        assertSame(EmptyHttp2Headers.INSTANCE, HttpConversionUtil.toHttp2HeadersView(new DefaultHttpHeaders()));
+    }
+
+    private static Http2Headers newRequestHeaders() {
+        Http2Headers headers = new DefaultHttp2Headers();
+        headers.method("GET");
+        headers.path("/foo?x");
+        headers.scheme("https");
+        headers.authority("example.org");
+        headers.add(COOKIE, "a=b");
+        headers.add(COOKIE, "c=d");
+        headers.add("accept", "text/html");
+        headers.add("x-multi", "1");
+        headers.add("x-multi", "2");
+        headers.add(TRANSFER_ENCODING, "chunked");
+        return headers;
+    }
 }
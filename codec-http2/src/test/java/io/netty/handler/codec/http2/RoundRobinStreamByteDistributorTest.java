@@ -0,0 +1,338 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.codec.http2;
+
+import io.netty.handler.codec.http2.Http2TestUtil.TestStreamByteDistributorStreamState;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockito.verification.VerificationMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.same;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests for {@link RoundRobinStreamByteDistributor}.
+ */
+public class RoundRobinStreamByteDistributorTest {
+    private static final int QUANTUM = 1024;
+
+    private static final int STREAM_A = 1;
+    private static final int STREAM_B = 3;
+    private static final int STREAM_C = 5;
+    private static final int STREAM_D = 7;
+
+    private Http2Connection connection;
+    private RoundRobinStreamByteDistributor distributor;
+    private IntObjectMap<TestStreamByteDistributorStreamState> stateMap;
+
+    @Mock
+    private StreamByteDistributor.Writer writer;
+
+    @BeforeEach
+    public void setup() throws Http2Exception {
+        MockitoAnnotations.initMocks(this);
+
+        stateMap = new IntObjectHashMap<TestStreamByteDistributorStreamState>();
+        connection = new DefaultHttp2Connection(false);
+        distributor = new RoundRobinStreamByteDistributor(connection);
+        distributor.quantum(QUANTUM);
+
+        // Assume we always write all the allocated bytes.
+        resetWriter();
+
+        connection.local().createStream(STREAM_A, false);
+        connection.local().createStream(STREAM_B, false);
+        connection.local().createStream(STREAM_C, false);
+        connection.local().createStream(STREAM_D, false);
+    }
+
+    private Answer<Void> writeAnswer() {
+        return new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock in) throws Throwable {
+                Http2Stream stream = in.getArgument(0);
+                int numBytes = in.getArgument(1);
+                TestStreamByteDistributorStreamState state = stateMap.get(stream.id());
+                state.pendingBytes -= numBytes;
+                state.hasFrame = state.pendingBytes > 0;
+                distributor.updateStreamableBytes(state);
+                return null;
+            }
+        };
+    }
+
+    private void resetWriter() {
+        reset(writer);
+        doAnswer(writeAnswer()).when(writer).write(any(Http2Stream.class), anyInt());
+    }
+
+    @Test
+    public void bytesUnassignedAfterProcessing() throws Http2Exception {
+        initState(STREAM_A, 1, true);
+        initState(STREAM_B, 2, true);
+        initState(STREAM_C, 3, true);
+        initState(STREAM_D, 4, true);
+
+        assertFalse(write(10));
+        verifyWrite(STREAM_A, 1);
+        verifyWrite(STREAM_B, 2);
+        verifyWrite(STREAM_C, 3);
+        verifyWrite(STREAM_D, 4);
+        verifyNoMoreInteractions(writer);
+
+        assertFalse(write(10));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void connectionErrorForWriterException() throws Http2Exception {
+        initState(STREAM_A, 1, true);
+        initState(STREAM_B, 2, true);
+        initState(STREAM_C, 3, true);
+        initState(STREAM_D, 4, true);
+
+        Exception fakeException = new RuntimeException("Fake exception");
+        doThrow(fakeException).when(writer).write(same(stream(STREAM_C)), eq(3));
+
+        Http2Exception e = assertThrows(Http2Exception.class, new Executable() {
+            @Override
+            public void execute() throws Throwable {
+                write(10);
+            }
+        });
+        assertFalse(Http2Exception.isStreamError(e));
+        assertEquals(Http2Error.INTERNAL_ERROR, e.error());
+        assertSame(fakeException, e.getCause());
+
+        verifyWrite(atMost(1), STREAM_A, 1);
+        verifyWrite(atMost(1), STREAM_B, 2);
+        verifyWrite(STREAM_C, 3);
+        verifyWrite(atMost(1), STREAM_D, 4);
+
+        doNothing().when(writer).write(same(stream(STREAM_C)), eq(3));
+        write(10);
+        verifyWrite(STREAM_A, 1);
+        verifyWrite(STREAM_B, 2);
+        verifyWrite(STREAM_C, 3);
+        verifyWrite(STREAM_D, 4);
+    }
+
+    @Test
+    public void streamsTakeTurnsOfOneQuantum() throws Http2Exception {
+        initState(STREAM_A, 2 * QUANTUM, true);
+        initState(STREAM_B, 2 * QUANTUM, true);
+
+        assertFalse(write(4 * QUANTUM));
+        verifyWrite(times(2), STREAM_A, QUANTUM);
+        verifyWrite(times(2), STREAM_B, QUANTUM);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void turnCutShortByConnectionWindowContinuesFirst() throws Http2Exception {
+        initState(STREAM_A, QUANTUM, true);
+        initState(STREAM_B, QUANTUM, true);
+
+        assertTrue(write(QUANTUM / 2));
+        assertEquals(QUANTUM / 2, captureWrite(STREAM_A));
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+
+        // Stream A continues its turn before stream B gets one.
+        assertTrue(write(QUANTUM));
+        assertEquals(QUANTUM / 2, captureWrite(STREAM_A));
+        assertEquals(QUANTUM / 2, captureWrite(STREAM_B));
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+
+        assertFalse(write(QUANTUM));
+        assertEquals(QUANTUM / 2, captureWrite(STREAM_B));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void streamsWithoutTurnAreServedNextTime() throws Http2Exception {
+        initState(STREAM_A, QUANTUM, true);
+        initState(STREAM_B, QUANTUM, true);
+        initState(STREAM_C, QUANTUM, true);
+        initState(STREAM_D, QUANTUM, true);
+
+        // Only write 3 * quantum, so that we'll only write to the first 3 streams.
+        assertTrue(write(3 * QUANTUM));
+        assertEquals(QUANTUM, captureWrite(STREAM_A));
+        assertEquals(QUANTUM, captureWrite(STREAM_B));
+        assertEquals(QUANTUM, captureWrite(STREAM_C));
+        verifyNoMoreInteractions(writer);
+
+        resetWriter();
+
+        // Now write again and verify that the last stream is written to.
+        assertFalse(write(QUANTUM));
+        assertEquals(QUANTUM, captureWrite(STREAM_D));
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void emptyFrameAtHeadIsWritten() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 0, true);
+        initState(STREAM_C, 0, true);
+        initState(STREAM_D, 10, true);
+
+        assertTrue(write(10));
+        verifyWrite(STREAM_A, 10);
+        verifyWrite(STREAM_B, 0);
+        verifyWrite(STREAM_C, 0);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void streamWindowExhaustedDoesNotWrite() throws Http2Exception {
+        initState(STREAM_A, 0, true, false);
+        initState(STREAM_B, 0, true);
+        initState(STREAM_C, 0, true);
+        initState(STREAM_D, 0, true, false);
+
+        assertFalse(write(10));
+        verifyWrite(STREAM_B, 0);
+        verifyWrite(STREAM_C, 0);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void negativeWindowRemovesQueuedStream() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        stateMap.get(STREAM_A).isWriteAllowed = false;
+        distributor.updateStreamableBytes(stateMap.get(STREAM_A));
+
+        assertFalse(write(20));
+        verifyWrite(STREAM_B, 10);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void closedStreamIsNotWrittenAndStateIsReused() throws Http2Exception {
+        initState(STREAM_A, 10, true);
+        initState(STREAM_B, 10, true);
+        stream(STREAM_A).close();
+
+        assertFalse(write(20));
+        verifyWrite(STREAM_B, 10);
+        verifyNoMoreInteractions(writer);
+
+        // A new stream gets the state of the removed stream, which must not carry anything over.
+        resetWriter();
+        connection.local().createStream(9, false);
+        initState(9, 10, true);
+        assertFalse(write(20));
+        verifyWrite(9, 10);
+        verifyNoMoreInteractions(writer);
+    }
+
+    @Test
+    public void streamWindowLargerThanIntDoesNotInfiniteLoop() throws Http2Exception {
+        distributor.quantum(Integer.MAX_VALUE);
+        initState(STREAM_A, Integer.MAX_VALUE + 1L, true, true);
+        assertTrue(write(Integer.MAX_VALUE));
+        verifyWrite(STREAM_A, Integer.MAX_VALUE);
+        assertFalse(write(1));
+        verifyWrite(STREAM_A, 1);
+    }
+
+    @Test
+    public void builderUsesStreamByteDistributorFactory() {
+        final Http2Connection[] connections = new Http2Connection[1];
+        Http2ConnectionHandler handler = new Http2ConnectionHandlerBuilder()
+                .server(true)
+                .frameListener(new Http2FrameAdapter())
+                .streamByteDistributorFactory(new StreamByteDistributor.Factory() {
+                    @Override
+                    public StreamByteDistributor newStreamByteDistributor(Http2Connection connection) {
+                        connections[0] = connection;
+                        return new RoundRobinStreamByteDistributor(connection);
+                    }
+                })
+                .build();
+        try {
+            assertSame(handler.connection(), connections[0]);
+            assertTrue(handler.connection().remote().flowController() instanceof DefaultHttp2RemoteFlowController);
+        } finally {
+            handler.encoder().close();
+            handler.decoder().close();
+        }
+    }
+
+    private Http2Stream stream(int streamId) {
+        return connection.stream(streamId);
+    }
+
+    private void initState(final int streamId, final long streamableBytes, final boolean hasFrame) {
+        initState(streamId, streamableBytes, hasFrame, hasFrame);
+    }
+
+    private void initState(final int streamId, final long pendingBytes, final boolean hasFrame,
+            final boolean isWriteAllowed) {
+        final Http2Stream stream = stream(streamId);
+        TestStreamByteDistributorStreamState state = new TestStreamByteDistributorStreamState(stream, pendingBytes,
+                hasFrame, isWriteAllowed);
+        stateMap.put(streamId, state);
+        distributor.updateStreamableBytes(state);
+    }
+
+    private boolean write(int numBytes) throws Http2Exception {
+        return distributor.distribute(numBytes, writer);
+    }
+
+    private void verifyWrite(int streamId, int numBytes) {
+        verify(writer).write(same(stream(streamId)), eq(numBytes));
+    }
+
+    private void verifyWrite(VerificationMode mode, int streamId, int numBytes) {
+        verify(writer, mode).write(same(stream(streamId)), eq(numBytes));
+    }
+
+    private int captureWrite(int streamId) {
+        ArgumentCaptor<Integer> captor = ArgumentCaptor.forClass(Integer.class);
+        verify(writer).write(same(stream(streamId)), captor.capture());
+        return captor.getValue();
+    }
+}
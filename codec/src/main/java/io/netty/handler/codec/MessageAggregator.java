@@ -24,6 +24,7 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 
 import java.util.List;
 
@@ -43,6 +44,12 @@ import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
  * return {@code true} for, the aggregator will finish the aggregation and produce the aggregated message and expect
  * another start message.
  * </p>
+ * <p>
+ * By default the content is merged into a {@link CompositeByteBuf}. If the length of the content is known up front
+ * (see {@link #expectedContentLength(Object)}) and {@link #setMaxPreallocatedContentBytes(long)} was set, a single
+ * buffer of that length is allocated instead and the content is copied into it, so the aggregated message never
+ * needs to be consolidated.
+ * </p>
  *
  * @param <I> the type that covers both start message and content message
  * @param <S> the type of the start message
@@ -54,11 +61,22 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
 
     private static final int DEFAULT_MAX_COMPOSITEBUFFER_COMPONENTS = 1024;
 
+    // The number of bytes that all aggregators of the current event loop allocated up front and did not finish yet.
+    private static final FastThreadLocal<long[]> PREALLOCATED_BYTES = new FastThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
     private final int maxContentLength;
     private O currentMessage;
     private boolean handlingOversizedMessage;
 
     private int maxCumulationBufferComponents = DEFAULT_MAX_COMPOSITEBUFFER_COMPONENTS;
+    private long maxPreallocatedContentBytes;
+    private long[] preallocatedBytes;
+    private int preallocated;
     private ChannelHandlerContext ctx;
     private ChannelFutureListener continueResponseWriteListener;
 
@@ -187,6 +205,32 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
         }
     }
 
+    /**
+     * Returns the maximum number of bytes that the aggregators of an event loop may allocate up front for the
+     * content of messages whose length is known. {@code 0} means that the content is always merged into a
+     * {@link CompositeByteBuf}, which is the default.
+     */
+    public final long maxPreallocatedContentBytes() {
+        return maxPreallocatedContentBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes that the aggregators of an event loop may allocate up front for the
+     * content of messages whose length is known. If a message would exceed this limit, because too many messages
+     * are aggregated at the same time, its content is merged into a {@link CompositeByteBuf} as the data arrives.
+     * This prevents peers from making the aggregators allocate memory they never fill.
+     * The default value of this property is {@code 0}, which disables the allocation up front.
+     */
+    public final void setMaxPreallocatedContentBytes(long maxPreallocatedContentBytes) {
+        checkPositiveOrZero(maxPreallocatedContentBytes, "maxPreallocatedContentBytes");
+        if (ctx == null) {
+            this.maxPreallocatedContentBytes = maxPreallocatedContentBytes;
+        } else {
+            throw new IllegalStateException(
+                    "decoder properties cannot be changed once the decoder is added to a pipeline.");
+        }
+    }
+
     /**
      * @deprecated This method will be removed in future releases.
      */
@@ -210,6 +254,7 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
             if (currentMessage != null) {
                 currentMessage.release();
                 currentMessage = null;
+                releasePreallocatedBytes();
                 throw new MessageAggregationException();
             }
 
@@ -266,7 +311,7 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
             }
 
             // A streamed message - initialize the cumulative buffer, and wait for incoming chunks.
-            CompositeByteBuf content = ctx.alloc().compositeBuffer(maxCumulationBufferComponents);
+            ByteBuf content = newCumulationBuffer(ctx, m);
             if (m instanceof ByteBufHolder) {
                 appendPartialContent(content, ((ByteBufHolder) m).content());
             }
@@ -279,7 +324,7 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
             }
 
             // Merge the received chunk into the content of the current message.
-            CompositeByteBuf content = (CompositeByteBuf) currentMessage.content();
+            ByteBuf content = currentMessage.content();
 
             @SuppressWarnings("unchecked")
             final C m = (C) msg;
@@ -326,12 +371,49 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
         }
     }
 
-    private static void appendPartialContent(CompositeByteBuf content, ByteBuf partialContent) {
+    private ByteBuf newCumulationBuffer(ChannelHandlerContext ctx, S start) throws Exception {
+        if (maxPreallocatedContentBytes > 0) {
+            long length = expectedContentLength(start);
+            if (length > 0 && length <= maxContentLength) {
+                long[] bytes = PREALLOCATED_BYTES.get();
+                if (bytes[0] + length <= maxPreallocatedContentBytes) {
+                    bytes[0] += length;
+                    preallocatedBytes = bytes;
+                    preallocated = (int) length;
+                    return ctx.alloc().buffer(preallocated);
+                }
+            }
+        }
+        return ctx.alloc().compositeBuffer(maxCumulationBufferComponents);
+    }
+
+    private void releasePreallocatedBytes() {
+        if (preallocatedBytes != null) {
+            preallocatedBytes[0] -= preallocated;
+            preallocatedBytes = null;
+            preallocated = 0;
+        }
+    }
+
+    private static void appendPartialContent(ByteBuf content, ByteBuf partialContent) {
         if (partialContent.isReadable()) {
-            content.addComponent(true, partialContent.retain());
+            if (content instanceof CompositeByteBuf) {
+                ((CompositeByteBuf) content).addComponent(true, partialContent.retain());
+            } else {
+                content.writeBytes(partialContent, partialContent.readerIndex(), partialContent.readableBytes());
+            }
         }
     }
 
+    /**
+     * Returns the length of the content that follows the specified start message, or {@code -1} if it is not
+     * known up front. This is only used if {@link #setMaxPreallocatedContentBytes(long)} was set, and the default
+     * implementation always returns {@code -1}.
+     */
+    protected long expectedContentLength(S start) throws Exception {
+        return -1;
+    }
+
     /**
      * Determine if the message {@code start}'s content length is known, and if it greater than
      * {@code maxContentLength}.
@@ -387,6 +469,7 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
 
     private void finishAggregation0(O aggregated) throws Exception {
         aggregating = false;
+        releasePreallocatedBytes();
         finishAggregation(aggregated);
     }
 
@@ -398,6 +481,7 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
     private void invokeHandleOversizedMessage(ChannelHandlerContext ctx, S oversized) throws Exception {
         handlingOversizedMessage = true;
         currentMessage = null;
+        releasePreallocatedBytes();
         handleIncompleteAggregateDuringClose = false;
         try {
             handleOversizedMessage(ctx, oversized);
@@ -464,6 +548,7 @@ public abstract class MessageAggregator<I, S, C extends ByteBufHolder, O extends
         if (currentMessage != null) {
             currentMessage.release();
             currentMessage = null;
+            releasePreallocatedBytes();
             handlingOversizedMessage = false;
             aggregating = false;
         }
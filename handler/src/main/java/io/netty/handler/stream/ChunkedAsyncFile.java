@@ -0,0 +1,332 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.FileRegion;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A {@link ChunkedInput} that fetches data from a file chunk by chunk using an {@link AsynchronousFileChannel}, so
+ * the {@link io.netty.channel.EventLoop} is never blocked by disk I/O.
+ * <p>
+ * Up to {@code readAhead} chunks are read ahead of time into (pooled) direct buffers obtained from the
+ * {@link ByteBufAllocator} given to {@link #readChunk(ByteBufAllocator)}. If the next chunk is not read yet
+ * {@link #readChunk(ByteBufAllocator)} returns {@code null}, and {@link ChunkedWriteHandler} is resumed as soon as
+ * the chunk is available. This also works if this input is wrapped by another {@link ChunkedInput}, for example
+ * {@code HttpChunkedInput}. If used without {@link ChunkedWriteHandler}, {@link #readChunk(ByteBufAllocator)} must be
+ * polled until {@link #isEndOfInput()} returns {@code true}.
+ * <p>
+ * This is mostly useful if {@link FileRegion} can not be used because the content needs to be transformed in the
+ * {@link io.netty.channel.ChannelPipeline}, for example when TLS or compression is used.
+ */
+public class ChunkedAsyncFile implements ChunkedInput<ByteBuf> {
+
+    /**
+     * Default number of chunks that are read ahead of time.
+     */
+    static final int DEFAULT_READ_AHEAD = 2;
+
+    private static final int PENDING = 0;
+    private static final int DONE = 1;
+    private static final int FAILED = 2;
+    private static final int CLOSED = 3;
+
+    private final AsynchronousFileChannel in;
+    private final long startOffset;
+    private final long endOffset;
+    private final int chunkSize;
+    private final int readAhead;
+    private final ArrayDeque<PendingRead> reads;
+    private long offset;
+    private long readOffset;
+
+    // Set if a ChunkedWriteHandler needs to be resumed once the next chunk is available.
+    private volatile ChunkedWriteHandler waitingHandler;
+
+    /**
+     * Creates a new instance that fetches data from the specified file using the default thread pool of the
+     * {@link AsynchronousFileChannel}.
+     */
+    public ChunkedAsyncFile(File in) throws IOException {
+        this(in, ChunkedStream.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified file using the default thread pool of the
+     * {@link AsynchronousFileChannel}.
+     *
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ByteBufAllocator)} call
+     */
+    public ChunkedAsyncFile(File in, int chunkSize) throws IOException {
+        this(in, chunkSize, DEFAULT_READ_AHEAD, null);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified file.
+     *
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ByteBufAllocator)} call
+     * @param readAhead the maximum number of chunks that are read ahead of time
+     * @param ioExecutor the {@link ExecutorService} used to execute the file I/O or {@code null} if the default
+     *                   thread pool of the {@link AsynchronousFileChannel} should be used
+     */
+    public ChunkedAsyncFile(File in, int chunkSize, int readAhead, ExecutorService ioExecutor) throws IOException {
+        this(open(in, ioExecutor), chunkSize, readAhead);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified file.
+     *
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ByteBufAllocator)} call
+     * @param readAhead the maximum number of chunks that are read ahead of time
+     */
+    public ChunkedAsyncFile(AsynchronousFileChannel in, int chunkSize, int readAhead) throws IOException {
+        this(in, 0, in.size(), chunkSize, readAhead);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified file.
+     *
+     * @param offset the offset of the file where the transfer begins
+     * @param length the number of bytes to transfer
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ByteBufAllocator)} call
+     * @param readAhead the maximum number of chunks that are read ahead of time
+     */
+    public ChunkedAsyncFile(AsynchronousFileChannel in, long offset, long length, int chunkSize, int readAhead)
+            throws IOException {
+        ObjectUtil.checkNotNull(in, "in");
+        ObjectUtil.checkPositiveOrZero(offset, "offset");
+        ObjectUtil.checkPositiveOrZero(length, "length");
+        ObjectUtil.checkPositive(chunkSize, "chunkSize");
+        ObjectUtil.checkPositive(readAhead, "readAhead");
+        if (!in.isOpen()) {
+            throw new ClosedChannelException();
+        }
+        this.in = in;
+        this.chunkSize = chunkSize;
+        this.readAhead = readAhead;
+        this.offset = readOffset = startOffset = offset;
+        endOffset = offset + length;
+        reads = new ArrayDeque<PendingRead>(readAhead);
+    }
+
+    private static AsynchronousFileChannel open(File in, ExecutorService ioExecutor) throws IOException {
+        ObjectUtil.checkNotNull(in, "in");
+        return AsynchronousFileChannel.open(in.toPath(),
+                Collections.singleton(StandardOpenOption.READ), ioExecutor);
+    }
+
+    /**
+     * Returns the offset in the file where the transfer began.
+     */
+    public long startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Returns the offset in the file where the transfer will end.
+     */
+    public long endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Returns the offset in the file where the transfer is happening currently.
+     */
+    public long currentOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isEndOfInput() throws Exception {
+        return !(offset < endOffset && in.isOpen());
+    }
+
+    @Override
+    public void close() throws Exception {
+        waitingHandler = null;
+        for (;;) {
+            PendingRead read = reads.poll();
+            if (read == null) {
+                break;
+            }
+            read.close();
+        }
+        in.close();
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        if (offset >= endOffset) {
+            return null;
+        }
+        if (!in.isOpen()) {
+            throw new ClosedChannelException();
+        }
+        startReads(allocator);
+
+        PendingRead read = reads.peek();
+        assert read != null;
+        if (read.state == PENDING) {
+            ChunkedWriteHandler handler = ChunkedWriteHandler.currentHandler();
+            if (handler != null) {
+                waitingHandler = handler;
+                // Check again as the read may have completed before we set the handler.
+                if (read.state == PENDING) {
+                    return null;
+                }
+                waitingHandler = null;
+            } else {
+                return null;
+            }
+        }
+        reads.remove();
+        ByteBuf buffer = read.buffer;
+        if (read.state == FAILED) {
+            buffer.release();
+            PlatformDependent.throwException(read.cause);
+        }
+        offset += buffer.readableBytes();
+        // Start the next read right away so it can progress while this chunk is written.
+        startReads(allocator);
+        return buffer;
+    }
+
+    private void startReads(ByteBufAllocator allocator) {
+        while (reads.size() < readAhead && readOffset < endOffset) {
+            int length = (int) Math.min(chunkSize, endOffset - readOffset);
+            PendingRead read = new PendingRead(this, allocator.directBuffer(length), readOffset, length);
+            reads.add(read);
+            readOffset += length;
+            read.start();
+        }
+    }
+
+    @Override
+    public long length() {
+        return endOffset - startOffset;
+    }
+
+    @Override
+    public long progress() {
+        return offset - startOffset;
+    }
+
+    private void readComplete() {
+        ChunkedWriteHandler handler = waitingHandler;
+        if (handler != null) {
+            waitingHandler = null;
+            handler.resumeTransfer();
+        }
+    }
+
+    private static final class PendingRead implements CompletionHandler<Integer, Void> {
+        private static final AtomicIntegerFieldUpdater<PendingRead> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(PendingRead.class, "state");
+
+        private final ChunkedAsyncFile file;
+        final ByteBuf buffer;
+        private final ByteBuffer nioBuffer;
+        private final long position;
+        private final int length;
+        volatile int state;
+        Throwable cause;
+
+        PendingRead(ChunkedAsyncFile file, ByteBuf buffer, long position, int length) {
+            this.file = file;
+            this.buffer = buffer;
+            this.position = position;
+            this.length = length;
+            nioBuffer = buffer.nioBuffer(0, length);
+        }
+
+        void start() {
+            try {
+                file.in.read(nioBuffer, position, null, this);
+            } catch (Throwable cause) {
+                failed(cause, null);
+            }
+        }
+
+        @Override
+        public void completed(Integer result, Void attachment) {
+            if (result < 0) {
+                failed(new EOFException("Unexpected end of file at position " + (position + nioBuffer.position())),
+                        attachment);
+                return;
+            }
+            if (nioBuffer.hasRemaining()) {
+                // Short read, continue where we left off.
+                try {
+                    file.in.read(nioBuffer, position + nioBuffer.position(), null, this);
+                } catch (Throwable cause) {
+                    failed(cause, attachment);
+                }
+                return;
+            }
+            buffer.writerIndex(length);
+            if (STATE_UPDATER.compareAndSet(this, PENDING, DONE)) {
+                file.readComplete();
+            } else {
+                // Closed in the meantime.
+                buffer.release();
+            }
+        }
+
+        @Override
+        public void failed(Throwable cause, Void attachment) {
+            this.cause = cause;
+            if (STATE_UPDATER.compareAndSet(this, PENDING, FAILED)) {
+                file.readComplete();
+            } else {
+                buffer.release();
+            }
+        }
+
+        void close() {
+            if (!STATE_UPDATER.compareAndSet(this, PENDING, CLOSED)) {
+                // The read is complete already, so we are responsible for the buffer.
+                buffer.release();
+            }
+        }
+    }
+}
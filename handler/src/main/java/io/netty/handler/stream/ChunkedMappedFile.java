@@ -0,0 +1,174 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.FileRegion;
+import io.netty.util.internal.ObjectUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * A {@link ChunkedInput} that fetches data from a {@link MappedFile} chunk by chunk without copying it.
+ * <p>
+ * Each chunk is a read-only view of the mapped file, so the content is only copied once it is transformed, for
+ * example by TLS or compression. Use {@link MappedFileCache} to share mappings between transfers of the same file.
+ * <p>
+ * If your operating system supports
+ * <a href="https://en.wikipedia.org/wiki/Zero-copy">zero-copy file transfer</a>
+ * such as {@code sendfile()} and the content does not need to be transformed, you might want to use
+ * {@link FileRegion} instead.
+ */
+public class ChunkedMappedFile implements ChunkedInput<ByteBuf> {
+
+    private final MappedFile file;
+    private final long startOffset;
+    private final long endOffset;
+    private final int chunkSize;
+    private long offset;
+    private boolean closed;
+
+    /**
+     * Creates a new instance that maps and fetches data from the specified file.
+     */
+    public ChunkedMappedFile(File in) throws IOException {
+        this(MappedFile.map(in));
+    }
+
+    /**
+     * Creates a new instance that maps and fetches data from the specified file.
+     *
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ByteBufAllocator)} call
+     */
+    public ChunkedMappedFile(File in, int chunkSize) throws IOException {
+        this(MappedFile.map(in), chunkSize);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified mapping. The reference of the caller is
+     * transferred to this instance and released by {@link #close()}.
+     */
+    public ChunkedMappedFile(MappedFile in) throws IOException {
+        this(in, ChunkedStream.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified mapping. The reference of the caller is
+     * transferred to this instance and released by {@link #close()}.
+     *
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ByteBufAllocator)} call
+     */
+    public ChunkedMappedFile(MappedFile in, int chunkSize) throws IOException {
+        this(in, 0, in.length(), chunkSize);
+    }
+
+    /**
+     * Creates a new instance that fetches data from the specified mapping. The reference of the caller is
+     * transferred to this instance and released by {@link #close()}.
+     *
+     * @param offset the offset of the file where the transfer begins
+     * @param length the number of bytes to transfer
+     * @param chunkSize the number of bytes to fetch on each
+     *                  {@link #readChunk(ByteBufAllocator)} call
+     */
+    public ChunkedMappedFile(MappedFile in, long offset, long length, int chunkSize) throws IOException {
+        ObjectUtil.checkNotNull(in, "in");
+        ObjectUtil.checkPositiveOrZero(offset, "offset");
+        ObjectUtil.checkPositiveOrZero(length, "length");
+        ObjectUtil.checkPositive(chunkSize, "chunkSize");
+        if (in.refCnt() == 0) {
+            throw new ClosedChannelException();
+        }
+        if (offset + length > in.length()) {
+            throw new IllegalArgumentException("offset + length: " + (offset + length) +
+                    " (expected: <= " + in.length() + ')');
+        }
+        file = in;
+        this.chunkSize = chunkSize;
+        this.offset = startOffset = offset;
+        endOffset = offset + length;
+    }
+
+    /**
+     * Returns the offset in the file where the transfer began.
+     */
+    public long startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Returns the offset in the file where the transfer will end.
+     */
+    public long endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Returns the offset in the file where the transfer is happening currently.
+     */
+    public long currentOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean isEndOfInput() throws Exception {
+        return !(offset < endOffset && !closed);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (!closed) {
+            closed = true;
+            file.release();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        long offset = this.offset;
+        if (offset >= endOffset) {
+            return null;
+        }
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        ByteBuf chunk = file.retainedSlice(allocator, offset, (int) Math.min(chunkSize, endOffset - offset));
+        this.offset += chunk.readableBytes();
+        return chunk;
+    }
+
+    @Override
+    public long length() {
+        return endOffset - startOffset;
+    }
+
+    @Override
+    public long progress() {
+        return offset - startOffset;
+    }
+}
@@ -29,6 +29,7 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelProgressivePromise;
 import io.netty.channel.ChannelPromise;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -65,13 +66,18 @@ import java.util.Queue;
  * Such {@link ChunkedInput} implementation often returns {@code null} on
  * {@link ChunkedInput#readChunk(ChannelHandlerContext)}, resulting in the indefinitely suspended
  * transfer.  To resume the transfer when a new chunk is available, you have to
- * call {@link #resumeTransfer()}.
+ * call {@link #resumeTransfer()}. {@link ChunkedAsyncFile} does this automatically.
  */
 public class ChunkedWriteHandler extends ChannelDuplexHandler {
 
     private static final InternalLogger logger =
         InternalLoggerFactory.getInstance(ChunkedWriteHandler.class);
 
+    // The handler which is currently calling ChunkedInput.readChunk(...), so asynchronous inputs like
+    // ChunkedAsyncFile know which handler to resume once the next chunk is available.
+    private static final FastThreadLocal<ChunkedWriteHandler> CURRENT_HANDLER =
+            new FastThreadLocal<ChunkedWriteHandler>();
+
     private final Queue<PendingWrite> queue = new ArrayDeque<PendingWrite>();
     private volatile ChannelHandlerContext ctx;
 
@@ -121,6 +127,14 @@ public class ChunkedWriteHandler extends ChannelDuplexHandler {
         }
     }
 
+    /**
+     * Returns the {@link ChunkedWriteHandler} that is currently reading a chunk on the calling thread or {@code null}
+     * if none.
+     */
+    static ChunkedWriteHandler currentHandler() {
+        return CURRENT_HANDLER.get();
+    }
+
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         queue.add(new PendingWrite(msg, promise));
@@ -225,6 +239,8 @@ public class ChunkedWriteHandler extends ChannelDuplexHandler {
                 boolean endOfInput;
                 boolean suspend;
                 Object message = null;
+                ChunkedWriteHandler previousHandler = CURRENT_HANDLER.get();
+                CURRENT_HANDLER.set(this);
                 try {
                     message = chunks.readChunk(allocator);
                     endOfInput = chunks.isEndOfInput();
@@ -245,6 +261,8 @@ public class ChunkedWriteHandler extends ChannelDuplexHandler {
                     closeInput(chunks);
                     currentWrite.fail(t);
                     break;
+                } finally {
+                    CURRENT_HANDLER.set(previousHandler);
                 }
 
                 if (suspend) {
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only memory mapping of a whole file.
+ * <p>
+ * The mapping is reference counted and unmapped as soon as {@link #refCnt()} reaches {@code 0}, so the memory is
+ * returned to the operating system deterministically instead of when the garbage collector runs. Each buffer that is
+ * returned by {@link #retainedSlice(ByteBufAllocator, long, int)} holds a reference to this instance, so it is safe
+ * to release a {@link MappedFile} while such buffers are still in flight.
+ * <p>
+ * Files that are bigger than {@link Integer#MAX_VALUE} bytes are mapped in multiple segments. Use
+ * {@link MappedFileCache} to share mappings between many transfers of the same file.
+ */
+public final class MappedFile extends AbstractReferenceCounted {
+
+    // Keep segments well below Integer.MAX_VALUE so they are page aligned.
+    static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final File file;
+    private final long lastModified;
+    private final long length;
+    private final MappedByteBuffer[] segments;
+
+    private MappedFile(File file, long lastModified, long length, MappedByteBuffer[] segments) {
+        this.file = file;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.segments = segments;
+    }
+
+    /**
+     * Maps the whole content of the given {@link File} into memory.
+     */
+    public static MappedFile map(File file) throws IOException {
+        return map(file, false);
+    }
+
+    /**
+     * Maps the whole content of the given {@link File} into memory.
+     *
+     * @param load  {@code true} if the content should be loaded into physical memory right away, which blocks the
+     *              calling thread until the content was read from disk
+     */
+    public static MappedFile map(File file, boolean load) throws IOException {
+        ObjectUtil.checkNotNull(file, "file");
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // Obtain the modification time before mapping, this way a concurrent modification will be detected by
+            // MappedFileCache later on.
+            long lastModified = file.lastModified();
+            FileChannel channel = raf.getChannel();
+            long length = channel.size();
+            int numSegments = (int) ((length + MAX_SEGMENT_SIZE - 1) / MAX_SEGMENT_SIZE);
+            MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+            try {
+                for (int i = 0; i < numSegments; i++) {
+                    long position = (long) i * MAX_SEGMENT_SIZE;
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAX_SEGMENT_SIZE, length - position));
+                    if (load) {
+                        segments[i].load();
+                    }
+                }
+            } catch (IOException e) {
+                unmap(segments);
+                throw e;
+            }
+            // The mapping stays valid after the file was closed.
+            return new MappedFile(file, lastModified, length, segments);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the {@link File} which is mapped.
+     */
+    public File file() {
+        return file;
+    }
+
+    /**
+     * Returns the modification time of the file at the time it was mapped.
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the number of mapped bytes.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns a read-only view of the mapped content which starts at {@code position} and contains at most
+     * {@code maxLength} bytes. The returned view may contain less bytes if it would cross the boundary of a segment.
+     * <p>
+     * The returned {@link ByteBuffer} must not be used after this {@link MappedFile} was released.
+     */
+    public ByteBuffer nioBuffer(long position, int maxLength) {
+        ObjectUtil.checkPositiveOrZero(maxLength, "maxLength");
+        if (position < 0 || position > length) {
+            throw new IndexOutOfBoundsException(
+                    "position: " + position + " (expected: 0 <= position <= " + length + ')');
+        }
+        if (refCnt() == 0) {
+            throw new IllegalReferenceCountException(0);
+        }
+        if (position == length || maxLength == 0) {
+            return Unpooled.EMPTY_BUFFER.nioBuffer();
+        }
+        MappedByteBuffer segment = segments[(int) (position / MAX_SEGMENT_SIZE)];
+        int index = (int) (position % MAX_SEGMENT_SIZE);
+        int length = (int) Math.min(maxLength, Math.min(segment.capacity() - index, this.length - position));
+        ByteBuffer view = segment.duplicate();
+        view.position(index).limit(index + length);
+        return view.slice();
+    }
+
+    /**
+     * Returns a read-only {@link ByteBuf} of the mapped content which starts at {@code position} and contains at most
+     * {@code maxLength} bytes. The returned buffer may contain less bytes if it would cross the boundary of a segment.
+     * <p>
+     * The returned buffer holds a reference to this {@link MappedFile} until it is released itself.
+     */
+    public ByteBuf retainedSlice(ByteBufAllocator allocator, long position, int maxLength) {
+        ByteBuffer view = nioBuffer(position, maxLength);
+        retain();
+        try {
+            return new MappedByteBuf(allocator, Unpooled.wrappedBuffer(view), this).asReadOnly();
+        } catch (Throwable cause) {
+            release();
+            PlatformDependent.throwException(cause);
+            return null;
+        }
+    }
+
+    @Override
+    protected void deallocate() {
+        unmap(segments);
+    }
+
+    private static void unmap(MappedByteBuffer[] segments) {
+        for (int i = 0; i < segments.length; i++) {
+            MappedByteBuffer segment = segments[i];
+            if (segment != null) {
+                segments[i] = null;
+                PlatformDependent.freeDirectBuffer(segment);
+            }
+        }
+    }
+
+    @Override
+    public MappedFile retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public MappedFile retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public MappedFile touch() {
+        return this;
+    }
+
+    @Override
+    public MappedFile touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedFile(" + file + ", length: " + length + ", refCnt: " + refCnt() + ')';
+    }
+
+    /**
+     * Holds a reference to the {@link MappedFile} for as long as the mapped content is accessible through it.
+     */
+    private static final class MappedByteBuf extends CompositeByteBuf {
+        private final MappedFile mappedFile;
+
+        MappedByteBuf(ByteBufAllocator allocator, ByteBuf content, MappedFile mappedFile) {
+            super(allocator, true, 1, content);
+            this.mappedFile = mappedFile;
+        }
+
+        @Override
+        protected void deallocate() {
+            try {
+                super.deallocate();
+            } finally {
+                mappedFile.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.util.internal.ObjectUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of {@link MappedFile}s which is keyed by the path of the file and evicts the least recently used mappings
+ * once either the maximal number of entries or the maximal number of mapped bytes is exceeded.
+ * <p>
+ * A cached mapping is only reused if the modification time and the length of the file did not change since it was
+ * mapped, otherwise the file is mapped again. Evicted mappings are released by the cache and unmapped once all
+ * transfers that still use them are complete.
+ * <p>
+ * This class is thread-safe, so a single instance can be shared by all {@link io.netty.channel.EventLoop}s.
+ */
+public final class MappedFileCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final boolean load;
+    private final LinkedHashMap<String, MappedFile> mappings = new LinkedHashMap<String, MappedFile>(16, 0.75f, true);
+    private long mappedBytes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries    the maximal number of files that are mapped at the same time
+     * @param maxBytes      the maximal number of bytes that are mapped at the same time
+     */
+    public MappedFileCache(int maxEntries, long maxBytes) {
+        this(maxEntries, maxBytes, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries    the maximal number of files that are mapped at the same time
+     * @param maxBytes      the maximal number of bytes that are mapped at the same time
+     * @param load          {@code true} if the content of a file should be loaded into physical memory when it is
+     *                      mapped, see {@link MappedFile#map(File, boolean)}
+     */
+    public MappedFileCache(int maxEntries, long maxBytes, boolean load) {
+        this.maxEntries = ObjectUtil.checkPositive(maxEntries, "maxEntries");
+        this.maxBytes = ObjectUtil.checkPositive(maxBytes, "maxBytes");
+        this.load = load;
+    }
+
+    /**
+     * Returns the {@link MappedFile} for the given {@link File}, mapping it if necessary. The caller is responsible
+     * for releasing the returned instance, which is usually done by passing it to {@link ChunkedMappedFile} or
+     * {@link MappedFileRegion}.
+     * <p>
+     * Files which are bigger than the maximal number of mapped bytes of this cache are mapped but not cached.
+     */
+    public MappedFile acquire(File file) throws IOException {
+        ObjectUtil.checkNotNull(file, "file");
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        synchronized (this) {
+            MappedFile mapped = mappings.get(key);
+            if (mapped != null) {
+                if (mapped.lastModified() == lastModified && mapped.length() == length) {
+                    return mapped.retain();
+                }
+                // Stale mapping.
+                remove(key);
+            }
+        }
+
+        // Map outside of the lock, as this may take some time.
+        MappedFile mapped = MappedFile.map(file, load);
+        if (mapped.length() > maxBytes) {
+            return mapped;
+        }
+
+        MappedFile old;
+        synchronized (this) {
+            old = mappings.put(key, mapped);
+            if (old != null) {
+                mappedBytes -= old.length();
+            }
+            mappedBytes += mapped.length();
+            // Retain for the caller, the cache holds the initial reference.
+            mapped.retain();
+            evict();
+        }
+        if (old != null) {
+            // Another thread mapped the same file concurrently.
+            old.release();
+        }
+        return mapped;
+    }
+
+    /**
+     * Removes the mapping of the given {@link File} from the cache, if any.
+     *
+     * @return {@code true} if a mapping was removed
+     */
+    public synchronized boolean invalidate(File file) {
+        return remove(file.getAbsolutePath());
+    }
+
+    /**
+     * Removes all mappings from the cache.
+     */
+    public synchronized void clear() {
+        Iterator<MappedFile> it = mappings.values().iterator();
+        while (it.hasNext()) {
+            MappedFile mapped = it.next();
+            it.remove();
+            mapped.release();
+        }
+        mappedBytes = 0;
+    }
+
+    /**
+     * Returns the number of cached mappings.
+     */
+    public synchronized int size() {
+        return mappings.size();
+    }
+
+    /**
+     * Returns the number of bytes of all cached mappings.
+     */
+    public synchronized long mappedBytes() {
+        return mappedBytes;
+    }
+
+    private boolean remove(String key) {
+        MappedFile mapped = mappings.remove(key);
+        if (mapped == null) {
+            return false;
+        }
+        mappedBytes -= mapped.length();
+        mapped.release();
+        return true;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, MappedFile>> it = mappings.entrySet().iterator();
+        while ((mappings.size() > maxEntries || mappedBytes > maxBytes) && it.hasNext()) {
+            MappedFile eldest = it.next().getValue();
+            it.remove();
+            mappedBytes -= eldest.length();
+            eldest.release();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.channel.FileRegion;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.internal.ObjectUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * A {@link FileRegion} which transfers the content of a {@link MappedFile} by writing the mapped memory directly to
+ * the target, which avoids opening the file for every transfer when used with {@link MappedFileCache}.
+ * <p>
+ * Be aware that the reference of the {@link MappedFile} is released once {@link #refCnt()} returns {@code 0}.
+ */
+public class MappedFileRegion extends AbstractReferenceCounted implements FileRegion {
+
+    private final MappedFile file;
+    private final long position;
+    private final long count;
+    private long transferred;
+
+    /**
+     * Create a new instance that transfers the whole mapped file. The reference of the caller is transferred to
+     * this instance.
+     *
+     * @param file  the {@link MappedFile} which should be transferred
+     */
+    public MappedFileRegion(MappedFile file) {
+        this(file, 0, file.length());
+    }
+
+    /**
+     * Create a new instance. The reference of the caller is transferred to this instance.
+     *
+     * @param file         the {@link MappedFile} which should be transferred
+     * @param position     the position from which the transfer should start
+     * @param count        the number of bytes to transfer
+     */
+    public MappedFileRegion(MappedFile file, long position, long count) {
+        this.file = ObjectUtil.checkNotNull(file, "file");
+        this.position = checkPositiveOrZero(position, "position");
+        this.count = checkPositiveOrZero(count, "count");
+        if (position + count > file.length()) {
+            throw new IllegalArgumentException("position + count: " + (position + count) +
+                    " (expected: <= " + file.length() + ')');
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Deprecated
+    @Override
+    public long transfered() {
+        return transferred;
+    }
+
+    @Override
+    public long transferred() {
+        return transferred;
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target, long position) throws IOException {
+        long count = this.count - position;
+        if (count < 0 || position < 0) {
+            throw new IllegalArgumentException(
+                    "position out of range: " + position +
+                    " (expected: 0 - " + (this.count - 1) + ')');
+        }
+        if (count == 0) {
+            return 0L;
+        }
+        if (refCnt() == 0) {
+            throw new IllegalReferenceCountException(0);
+        }
+
+        long written = 0;
+        do {
+            ByteBuffer buffer = file.nioBuffer(this.position + position + written,
+                    (int) Math.min(Integer.MAX_VALUE, count - written));
+            int localWritten = target.write(buffer);
+            written += localWritten;
+            if (buffer.hasRemaining()) {
+                // The target can not accept more data right now.
+                break;
+            }
+        } while (written < count);
+
+        transferred += written;
+        return written;
+    }
+
+    @Override
+    protected void deallocate() {
+        file.release();
+    }
+
+    @Override
+    public FileRegion retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public FileRegion retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public FileRegion touch() {
+        return this;
+    }
+
+    @Override
+    public FileRegion touch(Object hint) {
+        return this;
+    }
+}
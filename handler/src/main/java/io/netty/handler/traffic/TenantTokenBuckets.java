@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * Holds one {@link TokenBucket} per tenant, so all the {@link io.netty.channel.Channel}s that belong to the same
+ * tenant share the same limit, regardless of the {@link io.netty.channel.EventLoop} they are served by.
+ * <p>
+ * Buckets are created lazily on first access. A bucket which was full for longer than the idle timeout is removed
+ * the next time a bucket is created, so the number of buckets does not grow with every tenant ever seen. As a full
+ * bucket behaves exactly like a new one this does not change the limits, unless a {@link io.netty.channel.Channel}
+ * kept using the removed bucket while another one of the same tenant got a new bucket. Use {@link #remove(Object)}
+ * to remove the bucket of a tenant which is known to be gone.
+ *
+ * @param <K> the type of the tenant identifier, which must implement {@link Object#equals(Object)} and
+ *            {@link Object#hashCode()}.
+ */
+public final class TenantTokenBuckets<K> {
+
+    /**
+     * Default time in seconds after which a bucket that was not used anymore is removed.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<TenantTokenBuckets> NEXT_SWEEP_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(TenantTokenBuckets.class, "nextSweepNanos");
+
+    private final ConcurrentMap<K, TokenBucket> buckets = PlatformDependent.newConcurrentHashMap();
+    private final long bytesPerSecond;
+    private final long burstBytes;
+    private final long idleTimeoutNanos;
+
+    private volatile long nextSweepNanos;
+
+    /**
+     * Create a new instance which removes buckets after {@value #DEFAULT_IDLE_TIMEOUT_SECONDS} seconds of idleness.
+     *
+     * @param bytesPerSecond    the sustained rate of each tenant in bytes per second.
+     * @param burstBytes        the number of bytes each tenant can consume at once without any delay.
+     */
+    public TenantTokenBuckets(long bytesPerSecond, long burstBytes) {
+        this(bytesPerSecond, burstBytes, DEFAULT_IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param bytesPerSecond    the sustained rate of each tenant in bytes per second.
+     * @param burstBytes        the number of bytes each tenant can consume at once without any delay.
+     * @param idleTimeout       the time a bucket must have been full before it is removed.
+     * @param unit              the {@link TimeUnit} of {@code idleTimeout}.
+     */
+    public TenantTokenBuckets(long bytesPerSecond, long burstBytes, long idleTimeout, TimeUnit unit) {
+        this.bytesPerSecond = checkPositive(bytesPerSecond, "bytesPerSecond");
+        this.burstBytes = checkPositiveOrZero(burstBytes, "burstBytes");
+        idleTimeoutNanos = ObjectUtil.checkNotNull(unit, "unit").toNanos(checkPositive(idleTimeout, "idleTimeout"));
+        nextSweepNanos = System.nanoTime() + idleTimeoutNanos;
+    }
+
+    /**
+     * Return the {@link TokenBucket} of the given tenant, creating it if needed.
+     */
+    public TokenBucket bucket(K tenant) {
+        ObjectUtil.checkNotNull(tenant, "tenant");
+        TokenBucket bucket = buckets.get(tenant);
+        if (bucket == null) {
+            long nowNanos = System.nanoTime();
+            long nextSweep = nextSweepNanos;
+            if (nowNanos - nextSweep >= 0 &&
+                    NEXT_SWEEP_UPDATER.compareAndSet(this, nextSweep, nowNanos + idleTimeoutNanos)) {
+                removeIdle(nowNanos);
+            }
+            bucket = new TokenBucket(bytesPerSecond, burstBytes);
+            TokenBucket old = buckets.putIfAbsent(tenant, bucket);
+            if (old != null) {
+                bucket = old;
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Remove all buckets which were full for at least the idle timeout at {@code nowNanos}.
+     */
+    void removeIdle(long nowNanos) {
+        Iterator<Map.Entry<K, TokenBucket>> it = buckets.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().fullForNanos(nowNanos) >= idleTimeoutNanos) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove the {@link TokenBucket} of the given tenant. Handlers which still hold a reference to it keep using it.
+     *
+     * @return the removed bucket or {@code null} if there was none.
+     */
+    public TokenBucket remove(K tenant) {
+        return buckets.remove(tenant);
+    }
+
+    /**
+     * Return the number of tenants for which a {@link TokenBucket} exists.
+     */
+    public int size() {
+        return buckets.size();
+    }
+}
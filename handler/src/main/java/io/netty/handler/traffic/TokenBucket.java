@@ -0,0 +1,142 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * A lock-free token bucket which limits the throughput of one or more {@link io.netty.channel.Channel}s to a fixed
+ * number of bytes per second while allowing bursts of up to {@link #burstBytes()} bytes.
+ * <p>
+ * The bucket does not need any timer to refill: it only keeps track of the theoretical time at which all
+ * previously reserved bytes will have been "paid for", and advances it with a single CAS per reservation.
+ * This makes it cheap to share one instance between many channels, even if these are served by different
+ * {@link io.netty.channel.EventLoop}s.
+ * <p>
+ * Reservations are always granted; the caller is told how long it should wait before actually consuming the
+ * reserved bytes. This allows to shape traffic without ever losing data.
+ */
+public final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final AtomicLongFieldUpdater<TokenBucket> TAT_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(TokenBucket.class, "theoreticalArrivalTime");
+
+    private final long bytesPerSecond;
+    private final long burstBytes;
+    private final long burstNanos;
+
+    // The time (in nanoTime scale) at which all the bytes reserved so far are considered to be consumed.
+    private volatile long theoreticalArrivalTime;
+
+    /**
+     * Create a new instance which starts full.
+     *
+     * @param bytesPerSecond    the sustained rate of the bucket in bytes per second. Must be positive.
+     * @param burstBytes        the number of bytes that can be consumed at once without any delay.
+     */
+    public TokenBucket(long bytesPerSecond, long burstBytes) {
+        this.bytesPerSecond = checkPositive(bytesPerSecond, "bytesPerSecond");
+        this.burstBytes = checkPositiveOrZero(burstBytes, "burstBytes");
+        burstNanos = bytesToNanos(burstBytes);
+        theoreticalArrivalTime = System.nanoTime();
+    }
+
+    /**
+     * Return the sustained rate of this bucket in bytes per second.
+     */
+    public long bytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Return the number of bytes that can be consumed at once without any delay.
+     */
+    public long burstBytes() {
+        return burstBytes;
+    }
+
+    /**
+     * Reserve {@code bytes} from this bucket using {@link System#nanoTime()} as the current time.
+     *
+     * @see #reserve(long, long)
+     */
+    public long reserve(long bytes) {
+        return reserve(bytes, System.nanoTime());
+    }
+
+    /**
+     * Reserve {@code bytes} from this bucket.
+     *
+     * @param bytes         the number of bytes to reserve.
+     * @param nowNanos      the current time as returned by {@link System#nanoTime()}.
+     * @return              the number of nanoseconds the caller should wait before consuming the bytes, or {@code 0}
+     *                      if they can be consumed immediately.
+     */
+    public long reserve(long bytes, long nowNanos) {
+        if (bytes <= 0) {
+            return 0;
+        }
+        final long cost = bytesToNanos(bytes);
+        for (;;) {
+            long tat = theoreticalArrivalTime;
+            // If the bucket was idle for a while it is full, which means we start from now.
+            long newTat = (tat - nowNanos < 0 ? nowNanos : tat) + cost;
+            if (TAT_UPDATER.compareAndSet(this, tat, newTat)) {
+                long wait = newTat - burstNanos - nowNanos;
+                return wait > 0 ? wait : 0;
+            }
+        }
+    }
+
+    /**
+     * Return the number of bytes that could be reserved at {@code nowNanos} without any delay.
+     */
+    public long availableBytes(long nowNanos) {
+        long idleNanos = nowNanos - (theoreticalArrivalTime - burstNanos);
+        if (idleNanos <= 0) {
+            return 0;
+        }
+        return Math.min(burstBytes, nanosToBytes(idleNanos));
+    }
+
+    /**
+     * Return for how many nanoseconds this bucket was full at {@code nowNanos}, or a negative value if it is not full.
+     */
+    long fullForNanos(long nowNanos) {
+        // Once all reserved bytes are paid for the burst was refilled as well.
+        return nowNanos - theoreticalArrivalTime;
+    }
+
+    private long bytesToNanos(long bytes) {
+        // Split the computation to not overflow for big values.
+        return bytes / bytesPerSecond * NANOS_PER_SECOND + bytes % bytesPerSecond * NANOS_PER_SECOND / bytesPerSecond;
+    }
+
+    private long nanosToBytes(long nanos) {
+        return nanos / NANOS_PER_SECOND * bytesPerSecond + nanos % NANOS_PER_SECOND * bytesPerSecond / NANOS_PER_SECOND;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucket(bytesPerSecond: " + bytesPerSecond + ", burstBytes: " + burstBytes + ')';
+    }
+}
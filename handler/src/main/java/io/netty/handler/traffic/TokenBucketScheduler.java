@@ -0,0 +1,174 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.DefaultPriorityQueue;
+import io.netty.util.internal.PriorityQueueNode;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes up {@link TokenBucketTrafficShapingHandler}s once their reservations are due. There is only one instance
+ * (and so at most one pending timer) per {@link EventExecutor}, no matter how many channels are shaped.
+ * <p>
+ * All methods must be called from the {@link EventExecutor} itself.
+ */
+final class TokenBucketScheduler implements Runnable {
+
+    private static final FastThreadLocal<Map<EventExecutor, TokenBucketScheduler>> SCHEDULERS =
+            new FastThreadLocal<Map<EventExecutor, TokenBucketScheduler>>() {
+                @Override
+                protected Map<EventExecutor, TokenBucketScheduler> initialValue() {
+                    // Usually there is exactly one EventExecutor per thread.
+                    return new WeakHashMap<EventExecutor, TokenBucketScheduler>(2);
+                }
+            };
+
+    private static final Comparator<Wakeup> WAKEUP_COMPARATOR = new Comparator<Wakeup>() {
+        @Override
+        public int compare(Wakeup o1, Wakeup o2) {
+            long diff = o1.deadlineNanos - o2.deadlineNanos;
+            return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+        }
+    };
+
+    /**
+     * Return the {@link TokenBucketScheduler} for the given {@link EventExecutor}.
+     */
+    static TokenBucketScheduler get(EventExecutor executor) {
+        assert executor.inEventLoop();
+        Map<EventExecutor, TokenBucketScheduler> schedulers = SCHEDULERS.get();
+        TokenBucketScheduler scheduler = schedulers.get(executor);
+        if (scheduler == null) {
+            scheduler = new TokenBucketScheduler();
+            schedulers.put(executor, scheduler);
+        }
+        return scheduler;
+    }
+
+    // The EventExecutor is not stored here as it is the key of the WeakHashMap this scheduler is the value of. It is
+    // taken from the scheduled Wakeups instead, which all belong to the same EventExecutor. The timer references it
+    // as well, so it is only kept while there are Wakeups, which keep the EventExecutor busy anyway.
+    private final DefaultPriorityQueue<Wakeup> wakeups =
+            new DefaultPriorityQueue<Wakeup>(WAKEUP_COMPARATOR, 16);
+    private ScheduledFuture<?> timer;
+    private long timerDeadlineNanos;
+
+    private TokenBucketScheduler() { }
+
+    /**
+     * Schedule the {@link Wakeup} to be run at {@code deadlineNanos}, replacing any previous deadline of it.
+     */
+    void schedule(Wakeup wakeup, long deadlineNanos) {
+        assert wakeup.executor().inEventLoop();
+        if (wakeups.containsTyped(wakeup)) {
+            wakeup.deadlineNanos = deadlineNanos;
+            wakeups.priorityChanged(wakeup);
+        } else {
+            wakeup.deadlineNanos = deadlineNanos;
+            wakeups.offer(wakeup);
+        }
+        armTimer();
+    }
+
+    /**
+     * Cancel the {@link Wakeup} if it was scheduled before.
+     */
+    void cancel(Wakeup wakeup) {
+        assert wakeup.executor().inEventLoop();
+        if (wakeups.removeTyped(wakeup) && wakeups.isEmpty() && timer != null) {
+            // The timer references the EventExecutor, which must not be kept alive by this scheduler once there is
+            // nothing left to wake up.
+            timer.cancel(false);
+            timer = null;
+        }
+    }
+
+    /**
+     * Return the number of scheduled {@link Wakeup}s.
+     */
+    int size() {
+        return wakeups.size();
+    }
+
+    private void armTimer() {
+        Wakeup first = wakeups.peek();
+        if (first == null) {
+            // Only reached from run(), after the timer fired.
+            return;
+        }
+        long deadlineNanos = first.deadlineNanos;
+        if (timer != null) {
+            if (timerDeadlineNanos - deadlineNanos <= 0) {
+                // The timer will fire early enough.
+                return;
+            }
+            timer.cancel(false);
+        }
+        timerDeadlineNanos = deadlineNanos;
+        timer = first.executor().schedule(this, Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void run() {
+        timer = null;
+        long nowNanos = System.nanoTime();
+        for (;;) {
+            Wakeup wakeup = wakeups.peek();
+            if (wakeup == null || wakeup.deadlineNanos - nowNanos > 0) {
+                break;
+            }
+            wakeups.poll();
+            wakeup.run(nowNanos);
+        }
+        armTimer();
+    }
+
+    /**
+     * Something that needs to be run once a deadline was reached.
+     */
+    abstract static class Wakeup implements PriorityQueueNode {
+        private int queueIndex = INDEX_NOT_IN_QUEUE;
+        long deadlineNanos;
+
+        /**
+         * Called once the deadline was reached. Implementations may re-schedule themselves, but only with a deadline
+         * after {@code nowNanos}.
+         */
+        abstract void run(long nowNanos);
+
+        /**
+         * Return the {@link EventExecutor} this {@link Wakeup} is scheduled on.
+         */
+        abstract EventExecutor executor();
+
+        @Override
+        public int priorityQueueIndex(DefaultPriorityQueue<?> queue) {
+            return queueIndex;
+        }
+
+        @Override
+        public void priorityQueueIndex(DefaultPriorityQueue<?> queue, int i) {
+            queueIndex = i;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.internal.ObjectUtil.checkInRange;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * Traffic shaping handler which uses {@link TokenBucket}s to limit the read and / or write throughput of a
+ * {@link io.netty.channel.Channel}.
+ * <p>
+ * Compared to {@link ChannelTrafficShapingHandler} and {@link GlobalChannelTrafficShapingHandler} there is no
+ * periodic {@link TrafficCounter} computation: every read or write directly reserves its bytes in the
+ * {@link TokenBucket}, which is precise to the millisecond. As {@link TokenBucket}s are lock-free they can be
+ * shared between any number of channels, for example all the channels of one tenant (see
+ * {@link TenantTokenBuckets}), even if these are served by different {@link io.netty.channel.EventLoop}s.
+ * <p>
+ * Once the read limit is exceeded, {@link ChannelConfig#setAutoRead(boolean)} is switched off until the reserved
+ * bytes are paid for. Writes which exceed the write limit are queued (in order) and written once they are due.
+ * All delayed operations of all the handlers that run on the same {@link io.netty.channel.EventLoop} share a single
+ * timer, so there is no per-channel timer overhead.
+ * <p>
+ * Note that a new {@link TokenBucketTrafficShapingHandler} must be created for each {@link io.netty.channel.Channel}
+ * as it holds per channel state, while the {@link TokenBucket}s are meant to be shared.
+ */
+public class TokenBucketTrafficShapingHandler extends ChannelDuplexHandler {
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(TokenBucketTrafficShapingHandler.class);
+
+    /**
+     * Default number of queued bytes after which the channel is marked as not writable.
+     */
+    public static final long DEFAULT_MAX_PENDING_BYTES = 4 * 1024 * 1024L;
+
+    /**
+     * Default index used for {@link ChannelOutboundBuffer#setUserDefinedWritability(int, boolean)}.
+     */
+    static final int DEFAULT_USER_DEFINED_WRITABILITY_INDEX = 4;
+
+    /**
+     * Delays shorter than that are not worth to suspend reads for.
+     */
+    private static final long MINIMAL_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final TokenBucket readBucket;
+    private final TokenBucket writeBucket;
+    private final long maxPendingBytes;
+    private final int userDefinedWritabilityIndex;
+    private final ArrayDeque<PendingWrite> pendingWrites = new ArrayDeque<PendingWrite>();
+    private final ShapingWakeup wakeup = new ShapingWakeup();
+
+    private ChannelHandlerContext ctx;
+    private TokenBucketScheduler scheduler;
+    private long pendingBytes;
+    private boolean readSuspended;
+    private long readResumeNanos;
+
+    /**
+     * Create a new instance using {@link #DEFAULT_MAX_PENDING_BYTES}.
+     *
+     * @param readBucket    the {@link TokenBucket} used to limit reads or {@code null} if reads should not be limited.
+     * @param writeBucket   the {@link TokenBucket} used to limit writes or {@code null} if writes should not be
+     *                      limited.
+     */
+    public TokenBucketTrafficShapingHandler(TokenBucket readBucket, TokenBucket writeBucket) {
+        this(readBucket, writeBucket, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param readBucket        the {@link TokenBucket} used to limit reads or {@code null} if reads should not be
+     *                          limited.
+     * @param writeBucket       the {@link TokenBucket} used to limit writes or {@code null} if writes should not be
+     *                          limited.
+     * @param maxPendingBytes   the number of delayed bytes after which the channel is marked as not writable.
+     */
+    public TokenBucketTrafficShapingHandler(TokenBucket readBucket, TokenBucket writeBucket, long maxPendingBytes) {
+        this.readBucket = readBucket;
+        this.writeBucket = writeBucket;
+        this.maxPendingBytes = checkPositive(maxPendingBytes, "maxPendingBytes");
+        userDefinedWritabilityIndex = checkInRange(userDefinedWritabilityIndex(), 1, 31, "userDefinedWritabilityIndex");
+    }
+
+    /**
+     * Return the index to use for {@link ChannelOutboundBuffer#setUserDefinedWritability(int, boolean)}. Defaults to
+     * {@value #DEFAULT_USER_DEFINED_WRITABILITY_INDEX} so it does not conflict with the other traffic shaping handlers.
+     */
+    protected int userDefinedWritabilityIndex() {
+        return DEFAULT_USER_DEFINED_WRITABILITY_INDEX;
+    }
+
+    /**
+     * Return the {@link TokenBucket} used to limit reads or {@code null} if reads are not limited.
+     */
+    public TokenBucket readBucket() {
+        return readBucket;
+    }
+
+    /**
+     * Return the {@link TokenBucket} used to limit writes or {@code null} if writes are not limited.
+     */
+    public TokenBucket writeBucket() {
+        return writeBucket;
+    }
+
+    /**
+     * Return the number of bytes which are currently delayed.
+     */
+    public long pendingBytes() {
+        return pendingBytes;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        scheduler = TokenBucketScheduler.get(ctx.executor());
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        scheduler.cancel(wakeup);
+        if (ctx.channel().isActive()) {
+            // Write everything that is left to preserve ordering, the limit is not enforced anymore.
+            for (;;) {
+                PendingWrite pending = pendingWrites.poll();
+                if (pending == null) {
+                    break;
+                }
+                ctx.write(pending.msg, pending.promise);
+            }
+            ctx.flush();
+        } else {
+            failPendingWrites(new ClosedChannelException());
+        }
+        pendingBytes = 0;
+        setUserDefinedWritability(true);
+        if (readSuspended) {
+            readSuspended = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+        setUserDefinedWritability(true);
+        super.channelRegistered(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        scheduler.cancel(wakeup);
+        failPendingWrites(new ClosedChannelException());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (readBucket != null) {
+            long size = calculateSize(msg);
+            if (size > 0) {
+                long nowNanos = System.nanoTime();
+                long wait = readBucket.reserve(size, nowNanos);
+                if (wait >= MINIMAL_WAIT_NANOS) {
+                    suspendRead(ctx, nowNanos + wait);
+                }
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void suspendRead(ChannelHandlerContext ctx, long resumeNanos) {
+        ChannelConfig config = ctx.channel().config();
+        if (readSuspended) {
+            // Already suspended, just make sure we do not resume too early.
+            if (resumeNanos - readResumeNanos > 0) {
+                readResumeNanos = resumeNanos;
+                scheduleWakeup();
+            }
+        } else if (config.isAutoRead()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} Read suspended for {} ms", ctx.channel(),
+                        TimeUnit.NANOSECONDS.toMillis(resumeNanos - System.nanoTime()));
+            }
+            config.setAutoRead(false);
+            readSuspended = true;
+            readResumeNanos = resumeNanos;
+            scheduleWakeup();
+        }
+    }
+
+    @Override
+    public void read(ChannelHandlerContext ctx) {
+        if (!readSuspended) {
+            ctx.read();
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (writeBucket == null) {
+            ctx.write(msg, promise);
+            return;
+        }
+        long size = calculateSize(msg);
+        long nowNanos = System.nanoTime();
+        long wait = size > 0 ? writeBucket.reserve(size, nowNanos) : 0;
+        if (wait < MINIMAL_WAIT_NANOS && pendingWrites.isEmpty()) {
+            ctx.write(msg, promise);
+            return;
+        }
+        // Even messages without a known size need to be queued to maintain ordering.
+        pendingWrites.add(new PendingWrite(msg, promise, Math.max(0, size), nowNanos + wait));
+        if (size > 0) {
+            pendingBytes += size;
+            if (pendingBytes > maxPendingBytes) {
+                setUserDefinedWritability(false);
+            }
+        }
+        if (pendingWrites.size() == 1) {
+            scheduleWakeup();
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        // Delayed writes are flushed once they are written.
+        ctx.flush();
+    }
+
+    private void scheduleWakeup() {
+        long deadlineNanos;
+        PendingWrite first = pendingWrites.peek();
+        if (first != null) {
+            deadlineNanos = first.deadlineNanos;
+            if (readSuspended && readResumeNanos - deadlineNanos < 0) {
+                deadlineNanos = readResumeNanos;
+            }
+        } else if (readSuspended) {
+            deadlineNanos = readResumeNanos;
+        } else {
+            scheduler.cancel(wakeup);
+            return;
+        }
+        scheduler.schedule(wakeup, deadlineNanos);
+    }
+
+    private void processDue(long nowNanos) {
+        boolean written = false;
+        for (;;) {
+            PendingWrite pending = pendingWrites.peek();
+            if (pending == null || pending.deadlineNanos - nowNanos > 0) {
+                break;
+            }
+            pendingWrites.poll();
+            pendingBytes -= pending.size;
+            ctx.write(pending.msg, pending.promise);
+            written = true;
+        }
+        if (written) {
+            if (pendingBytes <= maxPendingBytes) {
+                setUserDefinedWritability(true);
+            }
+            ctx.flush();
+        }
+
+        if (readSuspended && readResumeNanos - nowNanos <= 0) {
+            readSuspended = false;
+            ChannelConfig config = ctx.channel().config();
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} Read resumed", ctx.channel());
+            }
+            config.setAutoRead(true);
+            ctx.read();
+        }
+        scheduleWakeup();
+    }
+
+    private void failPendingWrites(Throwable cause) {
+        for (;;) {
+            PendingWrite pending = pendingWrites.poll();
+            if (pending == null) {
+                break;
+            }
+            ReferenceCountUtil.safeRelease(pending.msg);
+            pending.promise.tryFailure(cause);
+        }
+        pendingBytes = 0;
+    }
+
+    private void setUserDefinedWritability(boolean writable) {
+        ChannelOutboundBuffer cob = ctx.channel().unsafe().outboundBuffer();
+        if (cob != null) {
+            cob.setUserDefinedWritability(userDefinedWritabilityIndex, writable);
+        }
+    }
+
+    /**
+     * Calculate the size of the given {@link Object}.
+     *
+     * This implementation supports {@link ByteBuf}, {@link ByteBufHolder} and {@link FileRegion}.
+     * Sub-classes may override this.
+     * @param msg the msg for which the size should be calculated.
+     * @return size the size of the msg or {@code -1} if unknown.
+     */
+    protected long calculateSize(Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        }
+        if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content().readableBytes();
+        }
+        if (msg instanceof FileRegion) {
+            return ((FileRegion) msg).count();
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucketTrafficShapingHandler(read: " + readBucket + ", write: " + writeBucket +
+                ", pendingBytes: " + pendingBytes + ')';
+    }
+
+    private final class ShapingWakeup extends TokenBucketScheduler.Wakeup {
+        @Override
+        void run(long nowNanos) {
+            processDue(nowNanos);
+        }
+
+        @Override
+        EventExecutor executor() {
+            return ctx.executor();
+        }
+    }
+
+    private static final class PendingWrite {
+        final Object msg;
+        final ChannelPromise promise;
+        final long size;
+        final long deadlineNanos;
+
+        PendingWrite(Object msg, ChannelPromise promise, long size, long deadlineNanos) {
+            this.msg = msg;
+            this.promise = promise;
+            this.size = size;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
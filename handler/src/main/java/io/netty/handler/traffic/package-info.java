@@ -32,6 +32,11 @@
  * implementations: see {@link io.netty.handler.traffic.ChannelTrafficShapingHandler} and
  * {@link io.netty.handler.traffic.GlobalTrafficShapingHandler} respectively for Channel traffic shaping and
  * global traffic shaping.</li>
+ *
+ * <li> <tt>{@link io.netty.handler.traffic.TokenBucketTrafficShapingHandler}</tt>: a lighter alternative which
+ * reserves bytes in lock-free {@link io.netty.handler.traffic.TokenBucket}s instead of using a
+ * {@link io.netty.handler.traffic.TrafficCounter}. Buckets can be shared by any number of channels, for instance
+ * per tenant using {@link io.netty.handler.traffic.TenantTokenBuckets}.</li>
  * </ul></p>
  *
  * <p>Both inbound and outbound traffic can be shaped independently.  This is done by either passing in
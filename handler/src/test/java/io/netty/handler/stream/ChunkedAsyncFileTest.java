@@ -0,0 +1,155 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChunkedAsyncFileTest {
+    private static final byte[] BYTES = new byte[1024 * 64 + 17];
+    private static File file;
+    private static EventLoopGroup group;
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        for (int i = 0; i < BYTES.length; i++) {
+            BYTES[i] = (byte) i;
+        }
+        file = PlatformDependent.createTempFile("netty-chunk-async-", ".tmp", null);
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(BYTES);
+        } finally {
+            out.close();
+        }
+        group = new DefaultEventLoopGroup(1);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        group.shutdownGracefully();
+        file.delete();
+    }
+
+    @Test
+    public void testReadWithoutHandler() throws Exception {
+        ChunkedAsyncFile input = new ChunkedAsyncFile(file, 1024, 4, null);
+        ByteBuf content = Unpooled.buffer(BYTES.length);
+        try {
+            assertEquals(BYTES.length, input.length());
+            while (!input.isEndOfInput()) {
+                ByteBuf chunk = input.readChunk(ByteBufAllocator.DEFAULT);
+                if (chunk == null) {
+                    Thread.sleep(1);
+                    continue;
+                }
+                assertTrue(chunk.isDirect());
+                content.writeBytes(chunk);
+                chunk.release();
+            }
+            assertEquals(BYTES.length, input.progress());
+            assertArrayEquals(BYTES, ByteBufUtil.getBytes(content));
+        } finally {
+            content.release();
+            input.close();
+        }
+    }
+
+    @Test
+    public void testCloseWithPendingReads() throws Exception {
+        ChunkedAsyncFile input = new ChunkedAsyncFile(file, 1024, 8, null);
+        // Trigger the read-ahead and close right away, this must not leak any buffer.
+        ByteBuf chunk = input.readChunk(ByteBufAllocator.DEFAULT);
+        if (chunk != null) {
+            chunk.release();
+        }
+        input.close();
+        assertTrue(input.isEndOfInput());
+    }
+
+    @Test
+    public void testWriteThroughChunkedWriteHandler() throws Exception {
+        final ByteBuf received = Unpooled.buffer(BYTES.length);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        LocalAddress address = new LocalAddress(ChunkedAsyncFileTest.class);
+        Channel server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ChunkedWriteHandler(), new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                                ctx.writeAndFlush(new ChunkedAsyncFile(file, 512, 2, null));
+                            }
+                        });
+                    }
+                }).bind(address).syncUninterruptibly().channel();
+
+        Channel client = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buf = (ByteBuf) msg;
+                        received.writeBytes(buf);
+                        buf.release();
+                        if (received.readableBytes() == BYTES.length) {
+                            latch.countDown();
+                        }
+                    }
+                }).connect(address).syncUninterruptibly().channel();
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertArrayEquals(BYTES, ByteBufUtil.getBytes(received));
+        } finally {
+            received.release();
+            client.close().syncUninterruptibly();
+            server.close().syncUninterruptibly();
+        }
+    }
+}
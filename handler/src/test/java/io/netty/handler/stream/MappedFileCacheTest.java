@@ -0,0 +1,205 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedFileCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testMappingIsReused() throws Exception {
+        File file = newFile("a", 1024);
+        MappedFileCache cache = new MappedFileCache(4, 1024 * 1024);
+        MappedFile first = cache.acquire(file);
+        MappedFile second = cache.acquire(file);
+        assertSame(first, second);
+        // One reference by the cache and one for each acquire.
+        assertEquals(3, first.refCnt());
+        first.release(2);
+        assertEquals(1, cache.size());
+        assertEquals(1024, cache.mappedBytes());
+
+        cache.clear();
+        assertEquals(0, first.refCnt());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.mappedBytes());
+    }
+
+    @Test
+    public void testModifiedFileIsMappedAgain() throws Exception {
+        File file = newFile("a", 1024);
+        MappedFileCache cache = new MappedFileCache(4, 1024 * 1024);
+        MappedFile first = cache.acquire(file);
+
+        write(file, 2048);
+        MappedFile second = cache.acquire(file);
+        assertNotSame(first, second);
+        assertEquals(2048, second.length());
+        // The stale mapping is still usable by the first user.
+        assertEquals(1, first.refCnt());
+        first.release();
+        second.release();
+
+        assertEquals(1, cache.size());
+        assertEquals(2048, cache.mappedBytes());
+        cache.clear();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        File a = newFile("a", 100);
+        File b = newFile("b", 100);
+        File c = newFile("c", 100);
+        MappedFileCache cache = new MappedFileCache(4, 250);
+
+        MappedFile mappedA = cache.acquire(a);
+        cache.acquire(b).release();
+        // Access a again so b is the least recently used entry.
+        cache.acquire(a).release();
+        cache.acquire(c).release();
+
+        assertEquals(2, cache.size());
+        assertEquals(200, cache.mappedBytes());
+        assertEquals(2, mappedA.refCnt());
+        assertFalse(cache.invalidate(b));
+        assertTrue(cache.invalidate(a));
+        assertEquals(1, mappedA.refCnt());
+        mappedA.release();
+        cache.clear();
+    }
+
+    @Test
+    public void testTooLargeFileIsNotCached() throws Exception {
+        File file = newFile("a", 1024);
+        MappedFileCache cache = new MappedFileCache(4, 512);
+        MappedFile mapped = cache.acquire(file);
+        assertEquals(1, mapped.refCnt());
+        assertEquals(0, cache.size());
+        mapped.release();
+    }
+
+    @Test
+    public void testChunkedMappedFile() throws Exception {
+        byte[] bytes = write(newFile("a", 0), 10000);
+        MappedFileCache cache = new MappedFileCache(4, 1024 * 1024);
+        MappedFile mapped = cache.acquire(new File(tempDir, "a"));
+
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler());
+        assertTrue(channel.writeOutbound(new ChunkedMappedFile(mapped, 1000)));
+        ByteBuf content = Unpooled.buffer();
+        for (;;) {
+            ByteBuf chunk = channel.readOutbound();
+            if (chunk == null) {
+                break;
+            }
+            assertTrue(chunk.isReadOnly());
+            assertTrue(chunk.isDirect());
+            content.writeBytes(chunk);
+            chunk.release();
+        }
+        assertArrayEquals(bytes, ByteBufUtil.getBytes(content));
+        content.release();
+        assertFalse(channel.finish());
+
+        // Only the reference of the cache is left.
+        assertEquals(1, mapped.refCnt());
+        cache.clear();
+    }
+
+    @Test
+    public void testSliceKeepsMappingAlive() throws Exception {
+        byte[] bytes = write(newFile("a", 0), 100);
+        MappedFile mapped = MappedFile.map(new File(tempDir, "a"));
+        ByteBuf slice = mapped.retainedSlice(UnpooledByteBufAllocator.DEFAULT, 10, 20);
+        mapped.release();
+        assertEquals(1, mapped.refCnt());
+        assertEquals(20, slice.readableBytes());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(bytes[10 + i], slice.getByte(i));
+        }
+        slice.release();
+        assertEquals(0, mapped.refCnt());
+    }
+
+    @Test
+    public void testMappedFileRegion() throws Exception {
+        byte[] bytes = write(newFile("a", 0), 5000);
+        MappedFileRegion region = new MappedFileRegion(MappedFile.map(new File(tempDir, "a")), 100, 4000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        while (region.transferred() < region.count()) {
+            region.transferTo(target, region.transferred());
+        }
+        assertEquals(4000, out.size());
+        byte[] expected = new byte[4000];
+        System.arraycopy(bytes, 100, expected, 0, expected.length);
+        assertArrayEquals(expected, out.toByteArray());
+        assertTrue(region.release());
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        MappedFile mapped = MappedFile.map(newFile("a", 0));
+        ChunkedMappedFile input = new ChunkedMappedFile(mapped);
+        assertTrue(input.isEndOfInput());
+        assertNull(input.readChunk(UnpooledByteBufAllocator.DEFAULT));
+        input.close();
+        assertEquals(0, mapped.refCnt());
+    }
+
+    private File newFile(String name, int length) throws IOException {
+        File file = new File(tempDir, name);
+        write(file, length);
+        return file;
+    }
+
+    private static byte[] write(File file, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        PlatformDependent.threadLocalRandom().nextBytes(bytes);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        return bytes;
+    }
+}
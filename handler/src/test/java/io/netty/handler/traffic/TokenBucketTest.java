@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TokenBucketTest {
+
+    @Test
+    public void testBurstIsGrantedImmediately() {
+        TokenBucket bucket = new TokenBucket(1000, 500);
+        long now = System.nanoTime();
+        assertEquals(0, bucket.reserve(200, now));
+        assertEquals(0, bucket.reserve(300, now));
+        assertEquals(0, bucket.availableBytes(now));
+    }
+
+    @Test
+    public void testWaitIsProportionalToDebt() {
+        TokenBucket bucket = new TokenBucket(1000, 0);
+        long now = System.nanoTime();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(100, now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(300), bucket.reserve(200, now));
+        // 100ms later only 200ms are left to wait for the already reserved bytes.
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250),
+                bucket.reserve(50, now + TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    public void testRefillAfterIdle() {
+        TokenBucket bucket = new TokenBucket(1000, 100);
+        long now = System.nanoTime();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(200, now));
+        long later = now + TimeUnit.SECONDS.toNanos(10);
+        // Idle time must not accumulate more than the burst.
+        assertEquals(100, bucket.availableBytes(later));
+        assertEquals(0, bucket.reserve(100, later));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), bucket.reserve(1, later));
+    }
+
+    @Test
+    public void testNoOverflowForBigValues() {
+        TokenBucket bucket = new TokenBucket(3, 0);
+        long now = System.nanoTime();
+        assertEquals(TimeUnit.SECONDS.toNanos(Integer.MAX_VALUE / 3) + TimeUnit.SECONDS.toNanos(1) / 3,
+                bucket.reserve(Integer.MAX_VALUE, now));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                new TokenBucket(0, 0);
+            }
+        });
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                new TokenBucket(1, -1);
+            }
+        });
+    }
+
+    @Test
+    public void testTenantBucketsAreShared() {
+        TenantTokenBuckets<String> buckets = new TenantTokenBuckets<String>(1000, 100);
+        TokenBucket bucket = buckets.bucket("tenant1");
+        assertSame(bucket, buckets.bucket("tenant1"));
+        assertNotSame(bucket, buckets.bucket("tenant2"));
+        assertEquals(2, buckets.size());
+        assertSame(bucket, buckets.remove("tenant1"));
+        assertEquals(1, buckets.size());
+    }
+
+    @Test
+    public void testIdleTenantBucketsAreRemoved() {
+        TenantTokenBuckets<String> buckets = new TenantTokenBuckets<String>(1000, 100, 1, TimeUnit.SECONDS);
+        TokenBucket idle = buckets.bucket("idle");
+        TokenBucket busy = buckets.bucket("busy");
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        // Keep the bucket from being refilled until two seconds from now.
+        busy.reserve(2100, now - TimeUnit.SECONDS.toNanos(1));
+
+        buckets.removeIdle(now);
+        assertEquals(1, buckets.size());
+        assertSame(busy, buckets.bucket("busy"));
+        assertNotSame(idle, buckets.bucket("idle"));
+    }
+}
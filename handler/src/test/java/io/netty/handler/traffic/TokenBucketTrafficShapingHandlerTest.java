@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTrafficShapingHandlerTest {
+
+    @Test
+    public void testWritesWithinBurstAreNotDelayed() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new TokenBucketTrafficShapingHandler(null, new TokenBucket(1000, 100)));
+        assertTrue(channel.writeOutbound(Unpooled.wrappedBuffer(new byte[100])));
+        ByteBuf buf = channel.readOutbound();
+        assertEquals(100, buf.readableBytes());
+        buf.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testWritesAreDelayedInOrder() throws Exception {
+        TokenBucketTrafficShapingHandler handler =
+                new TokenBucketTrafficShapingHandler(null, new TokenBucket(1000, 0), 50);
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+
+        ChannelFuture first = channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 1 }));
+        ChannelFuture second = channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[100]));
+        assertNull(channel.readOutbound());
+        assertEquals(101, handler.pendingBytes());
+        assertFalse(channel.isWritable());
+
+        ByteBuf buf = awaitOutbound(channel);
+        assertEquals(1, buf.readableBytes());
+        buf.release();
+        assertTrue(first.isSuccess());
+        assertFalse(second.isDone());
+
+        buf = awaitOutbound(channel);
+        assertEquals(100, buf.readableBytes());
+        buf.release();
+        assertTrue(second.isSuccess());
+        assertEquals(0, handler.pendingBytes());
+        assertTrue(channel.isWritable());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testPendingWritesFailedOnClose() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new TokenBucketTrafficShapingHandler(null, new TokenBucket(1, 0)));
+        ByteBuf buf = Unpooled.wrappedBuffer(new byte[10]);
+        ChannelFuture future = channel.writeAndFlush(buf);
+        assertFalse(channel.finish());
+        assertInstanceOf(ClosedChannelException.class, future.cause());
+        assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    public void testTimerCancelledOnRemoval() {
+        TokenBucketTrafficShapingHandler handler =
+                new TokenBucketTrafficShapingHandler(null, new TokenBucket(1, 0));
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[10]));
+        assertTrue(channel.runScheduledPendingTasks() > 0);
+
+        channel.pipeline().remove(handler);
+        // Nothing is left to wake up, so the timer must not keep the EventLoop referenced.
+        assertEquals(-1, channel.runScheduledPendingTasks());
+        assertTrue(future.isSuccess());
+        ByteBuf buf = channel.readOutbound();
+        assertEquals(10, buf.readableBytes());
+        buf.release();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testReadSuspendsAutoRead() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new TokenBucketTrafficShapingHandler(new TokenBucket(1000, 0), null));
+        assertTrue(channel.writeInbound(Unpooled.wrappedBuffer(new byte[50])));
+        // The message itself is never delayed, only further reads.
+        ByteBuf buf = channel.readInbound();
+        buf.release();
+        assertFalse(channel.config().isAutoRead());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!channel.config().isAutoRead()) {
+            assertTrue(System.nanoTime() - deadline < 0, "autoRead was not restored");
+            Thread.sleep(10);
+            channel.runScheduledPendingTasks();
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testSharedBucketLimitsAllChannels() {
+        TokenBucket bucket = new TokenBucket(1000, 100);
+        EmbeddedChannel channel1 = new EmbeddedChannel(new TokenBucketTrafficShapingHandler(null, bucket));
+        EmbeddedChannel channel2 = new EmbeddedChannel(new TokenBucketTrafficShapingHandler(null, bucket));
+
+        assertTrue(channel1.writeOutbound(Unpooled.wrappedBuffer(new byte[100])));
+        // The burst was consumed by the first channel.
+        assertFalse(channel2.writeOutbound(Unpooled.wrappedBuffer(new byte[100])));
+
+        ByteBuf buf = channel1.readOutbound();
+        buf.release();
+        assertFalse(channel1.finish());
+        assertFalse(channel2.finish());
+    }
+
+    private static ByteBuf awaitOutbound(EmbeddedChannel channel) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (;;) {
+            channel.runScheduledPendingTasks();
+            ByteBuf buf = channel.readOutbound();
+            if (buf != null) {
+                return buf;
+            }
+            assertTrue(System.nanoTime() - deadline < 0, "no outbound message");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
 
 import java.nio.charset.Charset;
 import java.util.List;
@@ -63,4 +64,30 @@ public class QueryStringDecoderBenchmark extends AbstractMicrobenchmark {
                                       SHIFT_JIS, false)
                 .parameters();
     }
+
+    @Benchmark
+    public CharSequence noDecodingLazy() {
+        return new QueryStringDecoder("foo=bar&cat=dog", false).parameter("cat");
+    }
+
+    @Benchmark
+    public List<String> singleParameter() {
+        return new QueryStringDecoder("/search?q=netty&page=2&sort=desc&lang=en&limit=50").parameters().get("page");
+    }
+
+    @Benchmark
+    public CharSequence singleParameterLazy() {
+        return new QueryStringDecoder("/search?q=netty&page=2&sort=desc&lang=en&limit=50").parameter("page");
+    }
+
+    @Benchmark
+    public void mixedDecodingLazy(Blackhole bh) {
+        // foo=bar&ほげ=ぼけ&cat=dog&ねこ=いぬ
+        QueryStringDecoder decoder = new QueryStringDecoder("foo=bar%E3%81%BB%E3%81%92=%E3%81%BC%E3%81%91&cat=dog&" +
+                                                            "&%E3%81%AD%E3%81%93=%E3%81%84%E3%81%AC", false);
+        for (int i = 0; i < decoder.parameterCount(); i++) {
+            bh.consume(decoder.parameterName(i));
+            bh.consume(decoder.parameterValue(i));
+        }
+    }
 }
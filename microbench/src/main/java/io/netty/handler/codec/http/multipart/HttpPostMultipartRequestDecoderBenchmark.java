@@ -17,6 +17,9 @@ package io.netty.handler.codec.http.multipart;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
@@ -25,14 +28,17 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ResourceLeakDetector;
 import io.netty.util.ResourceLeakDetector.Level;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 
@@ -112,6 +118,88 @@ public class HttpPostMultipartRequestDecoderBenchmark
         return time;
     }
 
+    /**
+     * Uploads a file of 1 GB in chunks of 64 KB, either to disk with the {@link HttpPostRequestDecoder} or with the
+     * {@link HttpPostMultipartStreamDecoder}, optionally followed by a {@link HttpPostMultipartFileWriter}.
+     */
+    public double testBigUpload(boolean stream, boolean toDisk) throws Exception {
+        String BOUNDARY = "01f136d9282f";
+        int chunkSize = 64 * 1024;
+        int chunkNumber = 16 * 1024;
+        byte[] data = new byte[chunkSize];
+        Arrays.fill(data, (byte) 'a');
+
+        ByteBuf firstBuf = Unpooled.wrappedBuffer(("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"msg1\"; filename=\"file1.bin\"\r\n" +
+                "Content-Type: application/octet-stream\r\n\r\n").getBytes(CharsetUtil.UTF_8));
+        ByteBuf nextBuf = Unpooled.unreleasableBuffer(Unpooled.directBuffer(chunkSize).writeBytes(data));
+        ByteBuf finalBuf = Unpooled.wrappedBuffer(("\r\n--" + BOUNDARY + "--\r\n").getBytes(CharsetUtil.UTF_8));
+        DefaultHttpRequest req =
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/up");
+        req.headers().add(HttpHeaderNames.CONTENT_TYPE,
+                          "multipart/form-data; boundary=" + BOUNDARY);
+
+        long start = System.nanoTime();
+
+        DefaultHttpDataFactory defaultHttpDataFactory = new DefaultHttpDataFactory(toDisk);
+        if (stream) {
+            EmbeddedChannel channel = new EmbeddedChannel(new HttpPostMultipartStreamDecoder());
+            if (toDisk) {
+                channel.pipeline().addLast(new HttpPostMultipartFileWriter(
+                        defaultHttpDataFactory, ImmediateEventExecutor.INSTANCE, 4 * chunkSize));
+            }
+            channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    if (msg instanceof FileUpload) {
+                        ((FileUpload) msg).delete();
+                    }
+                    ReferenceCountUtil.release(msg);
+                }
+            });
+            channel.writeInbound(req);
+            channel.writeInbound(new DefaultHttpContent(firstBuf));
+            for (int i = 0; i < chunkNumber; i++) {
+                channel.writeInbound(new DefaultHttpContent(nextBuf.duplicate()));
+            }
+            channel.writeInbound(new DefaultLastHttpContent(finalBuf));
+            channel.finishAndReleaseAll();
+        } else {
+            HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(defaultHttpDataFactory, req);
+            decoder.offer(new DefaultHttpContent(firstBuf));
+            firstBuf.release();
+            for (int i = 0; i < chunkNumber; i++) {
+                decoder.offer(new DefaultHttpContent(nextBuf.duplicate()));
+            }
+            decoder.offer(new DefaultLastHttpContent(finalBuf));
+            finalBuf.release();
+            while (decoder.hasNext()) {
+                decoder.next();
+            }
+            decoder.destroy();
+        }
+        long stop = System.nanoTime();
+        double time = (stop - start) / 1000000.0;
+        defaultHttpDataFactory.cleanAllHttpData();
+        nextBuf.unwrap().release();
+        return time;
+    }
+
+    @Benchmark
+    public double multipartRequestDecoderBigUploadToDisk() throws Exception {
+        return testBigUpload(false, true);
+    }
+
+    @Benchmark
+    public double multipartStreamDecoderBigUpload() throws Exception {
+        return testBigUpload(true, false);
+    }
+
+    @Benchmark
+    public double multipartStreamDecoderBigUploadToDisk() throws Exception {
+        return testBigUpload(true, true);
+    }
+
     @Benchmark
     public double multipartRequestDecoderHighDisabledLevel() {
         final Level level = ResourceLeakDetector.getLevel();
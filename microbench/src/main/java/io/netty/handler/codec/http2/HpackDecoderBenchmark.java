@@ -44,6 +44,7 @@ import org.openjdk.jmh.infra.Blackhole;
 
 import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.netty.handler.codec.http2.HpackBenchmarkUtil.http2Headers;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
 
 public class HpackDecoderBenchmark extends AbstractMicrobenchmark {
 
@@ -57,21 +58,53 @@ public class HpackDecoderBenchmark extends AbstractMicrobenchmark {
     public boolean limitToAscii;
 
     private ByteBuf input;
+    private ByteBuf huffmanInput;
+    private HpackHuffmanCache huffmanCache;
 
     @Setup(Level.Trial)
     public void setup() throws Http2Exception {
-        input = wrappedBuffer(getSerializedHeaders(http2Headers(size, limitToAscii), sensitive));
+        Http2Headers headers = http2Headers(size, limitToAscii);
+        input = wrappedBuffer(getSerializedHeaders(HpackUtilBenchmark.newTestEncoder(), headers, sensitive));
+        // Like browsers, Huffman encode every string that gets shorter by it.
+        huffmanInput = wrappedBuffer(getSerializedHeaders(new HpackEncoder(false, 64, 0), headers, sensitive));
+        huffmanCache = new HpackHuffmanCache(1024, 512);
     }
 
     @TearDown(Level.Trial)
     public void teardown() {
         input.release();
+        huffmanInput.release();
     }
 
     @Benchmark
     @BenchmarkMode(Mode.Throughput)
     public void decode(final Blackhole bh) throws Http2Exception {
-        HpackDecoder hpackDecoder = new HpackDecoder(Integer.MAX_VALUE);
+        decode(bh, new HpackDecoder(Integer.MAX_VALUE), input);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void decodeHuffman(final Blackhole bh) throws Http2Exception {
+        decode(bh, new HpackDecoder(Integer.MAX_VALUE, DEFAULT_HEADER_TABLE_SIZE, null, false), huffmanInput);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void decodeHuffmanTable(final Blackhole bh) throws Http2Exception {
+        decode(bh, new HpackDecoder(Integer.MAX_VALUE, DEFAULT_HEADER_TABLE_SIZE, null, true), huffmanInput);
+    }
+
+    /**
+     * Decodes the same header block on a new connection each time, which is what the process-wide
+     * {@link HpackHuffmanCache} is meant for.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void decodeHuffmanSharedCache(final Blackhole bh) throws Http2Exception {
+        decode(bh, new HpackDecoder(Integer.MAX_VALUE, DEFAULT_HEADER_TABLE_SIZE, huffmanCache), huffmanInput);
+    }
+
+    private void decode(final Blackhole bh, HpackDecoder hpackDecoder, ByteBuf input) throws Http2Exception {
         @SuppressWarnings("unchecked")
         Http2Headers headers =
                 new DefaultHttp2Headers() {
@@ -84,8 +117,8 @@ public class HpackDecoderBenchmark extends AbstractMicrobenchmark {
         hpackDecoder.decode(0, input.duplicate(), headers, true);
     }
 
-    private byte[] getSerializedHeaders(Http2Headers headers, boolean sensitive) throws Http2Exception {
-        HpackEncoder hpackEncoder = HpackUtilBenchmark.newTestEncoder();
+    private byte[] getSerializedHeaders(HpackEncoder hpackEncoder, Http2Headers headers, boolean sensitive)
+            throws Http2Exception {
         ByteBuf out = size.newOutBuffer();
         try {
             hpackEncoder.encodeHeaders(3 /* randomly chosen */, out, headers,
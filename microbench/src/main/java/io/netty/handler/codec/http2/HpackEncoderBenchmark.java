@@ -76,6 +76,7 @@ public class HpackEncoderBenchmark extends AbstractMicrobenchmark {
     private Http2Headers http2Headers;
     private ByteBuf output;
     private Http2HeadersEncoder.SensitivityDetector sensitivityDetector;
+    private HpackHuffmanCache huffmanCache;
 
     @Setup(Level.Trial)
     public void setup() {
@@ -93,6 +94,7 @@ public class HpackEncoderBenchmark extends AbstractMicrobenchmark {
         }
         output = size.newOutBuffer();
         sensitivityDetector = sensitive ? Http2HeadersEncoder.ALWAYS_SENSITIVE : Http2HeadersEncoder.NEVER_SENSITIVE;
+        huffmanCache = new HpackHuffmanCache(1024, 512);
     }
 
     @TearDown(Level.Trial)
@@ -108,4 +110,28 @@ public class HpackEncoderBenchmark extends AbstractMicrobenchmark {
         hpackEncoder.encodeHeaders(3 /*randomly chosen*/, output, http2Headers, sensitivityDetector);
         bh.consume(output);
     }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void encodeHuffman(Blackhole bh) throws Exception {
+        encodeHuffman(bh, null);
+    }
+
+    /**
+     * Encodes the same headers on a new connection each time, which is what the process-wide
+     * {@link HpackHuffmanCache} is meant for.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void encodeHuffmanSharedCache(Blackhole bh) throws Exception {
+        encodeHuffman(bh, huffmanCache);
+    }
+
+    private void encodeHuffman(Blackhole bh, HpackHuffmanCache cache) throws Exception {
+        // Like browsers, Huffman encode every string that gets shorter by it.
+        HpackEncoder hpackEncoder = new HpackEncoder(false, 64, 0, cache);
+        output.clear();
+        hpackEncoder.encodeHeaders(3 /*randomly chosen*/, output, http2Headers, sensitivityDetector);
+        bh.consume(output);
+    }
 }
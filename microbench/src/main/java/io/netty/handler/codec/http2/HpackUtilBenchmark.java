@@ -26,6 +26,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
@@ -42,10 +43,26 @@ public class HpackUtilBenchmark extends AbstractMicrobenchmark {
     public HpackHeadersSize size;
 
     private List<HpackHeader> hpackHeaders;
+    private ByteBuf huffmanValues;
+    private int[] huffmanLengths;
+    private final HpackHuffmanDecoder huffmanDecoder = new HpackHuffmanDecoder();
 
     @Setup(Level.Trial)
     public void setup() {
         hpackHeaders = HpackBenchmarkUtil.headers(size, false);
+        HpackHuffmanEncoder huffmanEncoder = new HpackHuffmanEncoder();
+        huffmanValues = Unpooled.buffer();
+        huffmanLengths = new int[hpackHeaders.size()];
+        for (int i = 0; i < hpackHeaders.size(); ++i) {
+            int writerIndex = huffmanValues.writerIndex();
+            huffmanEncoder.encode(huffmanValues, hpackHeaders.get(i).value);
+            huffmanLengths[i] = huffmanValues.writerIndex() - writerIndex;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        huffmanValues.release();
     }
 
     @Benchmark
@@ -72,6 +89,26 @@ public class HpackUtilBenchmark extends AbstractMicrobenchmark {
         return count;
     }
 
+    @Benchmark
+    public int huffmanDecode() throws Http2Exception {
+        ByteBuf in = huffmanValues.duplicate();
+        int length = 0;
+        for (int huffmanLength : huffmanLengths) {
+            length += huffmanDecoder.decode(in, huffmanLength).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int huffmanTableDecode() throws Http2Exception {
+        ByteBuf in = huffmanValues.duplicate();
+        int length = 0;
+        for (int huffmanLength : huffmanLengths) {
+            length += HpackHuffmanTableDecoder.INSTANCE.decode(in, huffmanLength).length();
+        }
+        return length;
+    }
+
     private static boolean oldEquals(CharSequence s1, CharSequence s2) {
         if (s1.length() != s2.length()) {
             return false;
@@ -67,10 +67,17 @@ public class Http2FrameWriterDataBenchmark extends AbstractMicrobenchmark {
     @Param({ "true", "false" })
     public boolean pooled;
 
+    /**
+     * The number of streams that each write a frame before the flush, like a connection multiplexing many requests.
+     */
+    @Param({ "1", "100" })
+    public int streams;
+
     private ByteBuf payload;
     private ChannelHandlerContext ctx;
-    private Http2DataWriter writer;
+    private DefaultHttp2FrameWriter writer;
     private Http2DataWriter oldWriter;
+    private Http2Headers headers;
 
     @Setup(Level.Trial)
     public void setup() {
@@ -78,6 +85,7 @@ public class Http2FrameWriterDataBenchmark extends AbstractMicrobenchmark {
         oldWriter = new OldDefaultHttp2FrameWriter();
         payload = pooled ? PooledByteBufAllocator.DEFAULT.buffer(payloadSize) : Unpooled.buffer(payloadSize);
         payload.writeZero(payloadSize);
+        headers = new DefaultHttp2Headers().status("200").add("content-type", "text/plain");
         ctx = new EmbeddedChannelWriteReleaseHandlerContext(
                 pooled ? PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT,
                 new ChannelInboundHandlerAdapter()) {
@@ -101,17 +109,39 @@ public class Http2FrameWriterDataBenchmark extends AbstractMicrobenchmark {
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     public void newWriter() {
-        writer.writeData(ctx, 3, payload.retain(), padding, true, ctx.voidPromise());
+        for (int i = 0; i < streams; i++) {
+            writer.writeData(ctx, streamId(i), payload.retainedDuplicate(), padding, true, ctx.voidPromise());
+        }
         ctx.flush();
     }
 
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     public void oldWriter() {
-        oldWriter.writeData(ctx, 3, payload.retain(), padding, true, ctx.voidPromise());
+        for (int i = 0; i < streams; i++) {
+            oldWriter.writeData(ctx, streamId(i), payload.retainedDuplicate(), padding, true, ctx.voidPromise());
+        }
         ctx.flush();
     }
 
+    /**
+     * Writes a complete response, {@code HEADERS} followed by {@code DATA} with {@code END_STREAM}, on each stream.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void newWriterHeadersAndData() {
+        for (int i = 0; i < streams; i++) {
+            int streamId = streamId(i);
+            writer.writeHeaders(ctx, streamId, headers, 0, false, ctx.voidPromise());
+            writer.writeData(ctx, streamId, payload.retainedDuplicate(), padding, true, ctx.voidPromise());
+        }
+        ctx.flush();
+    }
+
+    private static int streamId(int index) {
+        return 3 + 2 * index;
+    }
+
     private static final class OldDefaultHttp2FrameWriter implements Http2DataWriter {
         private static final ByteBuf ZERO_BUFFER =
                 unreleasableBuffer(directBuffer(MAX_UNSIGNED_BYTE).writeZero(MAX_UNSIGNED_BYTE)).asReadOnly();
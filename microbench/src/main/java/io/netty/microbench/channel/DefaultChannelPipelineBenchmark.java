@@ -18,10 +18,12 @@ package io.netty.microbench.channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Param;
@@ -56,18 +58,42 @@ public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
         }
     };
 
-    @Param({ "4" })
+    private static final ChannelHandler OUTBOUND_HANDLER = new ChannelOutboundHandlerAdapter() {
+        @Override
+        public boolean isSharable() {
+            return true;
+        }
+    };
+
+    private static final ChannelHandler CONSUMING_READ_HANDLER = new ChannelInboundHandlerAdapter() {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            // NOOP
+        }
+
+        @Override
+        public boolean isSharable() {
+            return true;
+        }
+    };
+
+    @Param({ "4", "16" })
     public int extraHandlers;
 
+    // The default is read once when DefaultChannelPipeline is loaded, so the cached variants need their own forks.
+    private static final String CACHE_CONTEXTS = "-Dio.netty.channel.pipeline.cacheContexts=true";
+
     private ChannelPipeline pipeline;
 
     @Setup(Level.Iteration)
     public void setup() {
         pipeline = new EmbeddedChannel().pipeline();
         for (int i = 0; i < extraHandlers; i++) {
-            pipeline.addLast(NOOP_HANDLER);
+            // Mix in outbound handlers as well, which need to be skipped for all inbound events.
+            pipeline.addLast(i % 2 == 0 ? NOOP_HANDLER : OUTBOUND_HANDLER);
         }
         pipeline.addLast(CONSUMING_HANDLER);
+        pipeline.addLast(CONSUMING_READ_HANDLER);
     }
 
     @TearDown
@@ -81,4 +107,23 @@ public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
             hole.consume(pipeline.fireChannelReadComplete());
         }
     }
+
+    @Benchmark
+    @Fork(value = DEFAULT_FORKS, jvmArgsAppend = CACHE_CONTEXTS)
+    public void propagateEventCachedContexts(Blackhole hole) {
+        propagateEvent(hole);
+    }
+
+    @Benchmark
+    public void propagateRead(Blackhole hole) {
+        for (int i = 0; i < 100; i++) {
+            hole.consume(pipeline.fireChannelRead(Boolean.TRUE));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = DEFAULT_FORKS, jvmArgsAppend = CACHE_CONTEXTS)
+    public void propagateReadCachedContexts(Blackhole hole) {
+        propagateRead(hole);
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.EventLoopChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Acquires and releases {@link Channel}s from all {@link io.netty.channel.EventLoop}s concurrently, which is the
+ * typical usage of a {@link ChannelPool} by a client that fans out requests.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ChannelPoolBenchmark extends AbstractMicrobenchmark {
+    private static final int OPERATIONS_PER_LOOP = 1000;
+    private static final int LOOPS = 4;
+
+    public enum PoolType {
+        FIXED,
+        EVENT_LOOP
+    }
+
+    @Param
+    public PoolType poolType;
+
+    @Param({ "4", "64" })
+    public int maxConnections;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private ChannelPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        group = new DefaultEventLoopGroup(LOOPS);
+        LocalAddress address = new LocalAddress(ChannelPoolBenchmark.class);
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(address).syncUninterruptibly().channel();
+
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .remoteAddress(address);
+        AbstractChannelPoolHandler handler = new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(Channel ch) {
+                // NOOP
+            }
+        };
+        switch (poolType) {
+            case FIXED:
+                pool = new FixedChannelPool(bootstrap, handler, maxConnections);
+                break;
+            case EVENT_LOOP:
+                pool = new EventLoopChannelPool(bootstrap, handler, maxConnections);
+                break;
+            default:
+                throw new Error();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS_PER_LOOP * LOOPS)
+    public void acquireRelease() throws Exception {
+        CountDownLatch latch = new CountDownLatch(LOOPS);
+        for (EventExecutor executor : group) {
+            executor.execute(new AcquireReleaseTask(pool, latch));
+        }
+        latch.await();
+    }
+
+    private static final class AcquireReleaseTask implements Runnable, FutureListener<Channel> {
+        private final ChannelPool pool;
+        private final CountDownLatch latch;
+        private int remaining = OPERATIONS_PER_LOOP;
+
+        AcquireReleaseTask(ChannelPool pool, CountDownLatch latch) {
+            this.pool = pool;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            pool.acquire().addListener(this);
+        }
+
+        @Override
+        public void operationComplete(Future<Channel> future) {
+            if (!future.isSuccess()) {
+                throw new IllegalStateException(future.cause());
+            }
+            pool.release(future.getNow());
+            if (--remaining == 0) {
+                latch.countDown();
+            } else {
+                run();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.handler.ssl;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedAsyncFile;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Serves a large file over TLS using {@link ChunkedWriteHandler}, which is the path used when {@code sendfile} can not
+ * be used, and compares the blocking {@link ChunkedNioFile} with the non-blocking {@link ChunkedAsyncFile}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class SslChunkedFileBenchmark extends AbstractMicrobenchmark {
+    private static final String CIPHER = "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256";
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    public enum InputType {
+        NIO,
+        ASYNC
+    }
+
+    @Param
+    public InputType inputType;
+
+    @Param
+    public AbstractSslHandlerBenchmark.SslEngineProvider sslProvider;
+
+    @Param({ "1048576", "16777216" })
+    public int fileSize;
+
+    private EventLoopGroup group;
+    private File file;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private volatile Channel childChannel;
+    private volatile CountDownLatch latch;
+    private long received;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        file = PlatformDependent.createTempFile("netty-ssl-chunked-", ".tmp", null);
+        file.deleteOnExit();
+        byte[] bytes = new byte[CHUNK_SIZE];
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            for (int written = 0; written < fileSize; written += bytes.length) {
+                ThreadLocalRandom.current().nextBytes(bytes);
+                out.write(bytes, 0, Math.min(bytes.length, fileSize - written));
+            }
+        } finally {
+            out.close();
+        }
+
+        // Use different threads for client and server, like in a real deployment.
+        group = new DefaultEventLoopGroup(2);
+        LocalAddress address = new LocalAddress(SslChunkedFileBenchmark.class);
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(sslProvider.newServerHandler(ch.alloc(), CIPHER),
+                                new ChunkedWriteHandler());
+                        childChannel = ch;
+                    }
+                }).bind(address).sync().channel();
+
+        final SslHandler clientSslHandler = sslProvider.newClientHandler(PooledByteBufAllocator.DEFAULT, CIPHER);
+        clientChannel = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(clientSslHandler, new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                ByteBuf buf = (ByteBuf) msg;
+                                received += buf.readableBytes();
+                                buf.release();
+                                if (received == fileSize) {
+                                    received = 0;
+                                    latch.countDown();
+                                }
+                            }
+                        });
+                    }
+                }).connect(address).sync().channel();
+        clientSslHandler.handshakeFuture().sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully().sync();
+        file.delete();
+    }
+
+    @Benchmark
+    public void serveFile() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        this.latch = latch;
+        childChannel.writeAndFlush(newInput());
+        latch.await();
+    }
+
+    private ChunkedInput<ByteBuf> newInput() throws Exception {
+        switch (inputType) {
+            case NIO:
+                return new ChunkedNioFile(file, CHUNK_SIZE);
+            case ASYNC:
+                return new ChunkedAsyncFile(file, CHUNK_SIZE);
+            default:
+                throw new Error();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.handler.stream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedMappedFile;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.MappedFileCache;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+/**
+ * Reads a whole file through a {@link ChunkedInput} and consumes every chunk, which is what happens when a static
+ * file is served through TLS or compression.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ChunkedFileBenchmark extends AbstractMicrobenchmark {
+    private static final int CHUNK_SIZE = 8192;
+
+    public enum InputType {
+        NIO,
+        MAPPED_CACHED
+    }
+
+    @Param
+    public InputType inputType;
+
+    @Param({ "65536", "4194304" })
+    public int fileSize;
+
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    private File file;
+    private MappedFileCache cache;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        file = PlatformDependent.createTempFile("netty-chunked-file-", ".tmp", null);
+        file.deleteOnExit();
+        byte[] bytes = new byte[fileSize];
+        PlatformDependent.threadLocalRandom().nextBytes(bytes);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        cache = new MappedFileCache(16, 64 * 1024 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.clear();
+        file.delete();
+    }
+
+    @Benchmark
+    public long readFile() throws Exception {
+        ChunkedInput<ByteBuf> input = newInput();
+        long checksum = 0;
+        try {
+            while (!input.isEndOfInput()) {
+                ByteBuf chunk = input.readChunk(allocator);
+                // Touch the content like TLS or compression would do.
+                checksum += chunk.getLong(chunk.readerIndex()) + chunk.getByte(chunk.writerIndex() - 1);
+                chunk.release();
+            }
+        } finally {
+            input.close();
+        }
+        return checksum;
+    }
+
+    private ChunkedInput<ByteBuf> newInput() throws Exception {
+        switch (inputType) {
+            case NIO:
+                return new ChunkedNioFile(file, CHUNK_SIZE);
+            case MAPPED_CACHED:
+                return new ChunkedMappedFile(cache.acquire(file), CHUNK_SIZE);
+            default:
+                throw new Error();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.handler.traffic;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.traffic.ChannelTrafficShapingHandler;
+import io.netty.handler.traffic.GlobalChannelTrafficShapingHandler;
+import io.netty.handler.traffic.TokenBucket;
+import io.netty.handler.traffic.TokenBucketTrafficShapingHandler;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Measures the per message overhead of the different traffic shaping handlers when the limit is not reached, which
+ * is the common case for a server with many connections.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TrafficShapingHandlerBenchmark extends AbstractMicrobenchmark {
+
+    // High enough to never delay anything.
+    private static final long LIMIT = Long.MAX_VALUE / 1000000000L;
+
+    public enum HandlerType {
+        CHANNEL,
+        GLOBAL_CHANNEL,
+        TOKEN_BUCKET
+    }
+
+    @Param
+    public HandlerType handlerType;
+
+    @Param({ "64", "4096" })
+    public int size;
+
+    private ScheduledExecutorService executor;
+    private GlobalChannelTrafficShapingHandler globalChannelHandler;
+    private TokenBucket readBucket;
+    private TokenBucket writeBucket;
+    private EmbeddedChannel channel;
+    private ByteBuf buffer;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        globalChannelHandler = new GlobalChannelTrafficShapingHandler(executor, LIMIT, LIMIT, LIMIT, LIMIT);
+        readBucket = new TokenBucket(LIMIT, LIMIT);
+        writeBucket = new TokenBucket(LIMIT, LIMIT);
+        buffer = Unpooled.unreleasableBuffer(Unpooled.directBuffer(size).writeZero(size));
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final ChannelHandler handler;
+        switch (handlerType) {
+            case CHANNEL:
+                handler = new ChannelTrafficShapingHandler(LIMIT, LIMIT);
+                break;
+            case GLOBAL_CHANNEL:
+                handler = globalChannelHandler;
+                break;
+            case TOKEN_BUCKET:
+                handler = new TokenBucketTrafficShapingHandler(readBucket, writeBucket);
+                break;
+            default:
+                throw new Error();
+        }
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                promise.setSuccess();
+            }
+        }, handler, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ReferenceCountUtil.release(msg);
+            }
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        globalChannelHandler.release();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void write() {
+        channel.write(buffer.duplicate(), channel.voidPromise());
+    }
+
+    @Benchmark
+    public void read() {
+        channel.pipeline().fireChannelRead(buffer.duplicate());
+    }
+}
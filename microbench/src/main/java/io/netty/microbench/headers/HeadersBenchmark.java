@@ -15,8 +15,13 @@
  */
 package io.netty.microbench.headers;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.Headers;
+import io.netty.handler.codec.http.CompactHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequestEncoder;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.AsciiString;
@@ -31,6 +36,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
@@ -67,12 +73,15 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
     AsciiString[] httpValues;
 
     DefaultHttpHeaders httpHeaders;
+    CompactHttpHeaders compactHttpHeaders;
     DefaultHttp2Headers http2Headers;
     DefaultHttpHeaders emptyHttpHeaders;
     DefaultHttp2Headers emptyHttp2Headers;
     DefaultHttpHeaders emptyHttpHeadersNoValidate;
     DefaultHttp2Headers emptyHttp2HeadersNoValidate;
     SlowHeaders slowHttp2Headers;
+    HeadersEncoder headersEncoder;
+    ByteBuf encodeBuffer;
 
     @Setup(Level.Trial)
     public void setup() {
@@ -81,6 +90,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         http2Names = new AsciiString[headers.size()];
         httpValues = new AsciiString[headers.size()];
         httpHeaders = new DefaultHttpHeaders(false);
+        compactHttpHeaders = new CompactHttpHeaders(false);
         http2Headers = new DefaultHttp2Headers(false);
         int idx = 0;
         for (Map.Entry<String, String> header : headers.entrySet()) {
@@ -92,6 +102,7 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
             http2Names[idx] = new AsciiString(http2Name);
             httpValues[idx] = new AsciiString(value);
             httpHeaders.add(httpNames[idx], httpValues[idx]);
+            compactHttpHeaders.add(httpNames[idx], httpValues[idx]);
             http2Headers.add(http2Names[idx], httpValues[idx]);
             idx++;
         }
@@ -100,6 +111,13 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         emptyHttp2Headers = new DefaultHttp2Headers(true);
         emptyHttpHeadersNoValidate = new DefaultHttpHeaders(false);
         emptyHttp2HeadersNoValidate = new DefaultHttp2Headers(false);
+        headersEncoder = new HeadersEncoder();
+        encodeBuffer = Unpooled.buffer(4096);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encodeBuffer.release();
     }
 
     @Benchmark
@@ -137,6 +155,51 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         }
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void compactHttpGet(Blackhole bh) {
+        for (AsciiString name : httpNames) {
+            bh.consume(compactHttpHeaders.get(name));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public CompactHttpHeaders compactHttpPut() {
+        CompactHttpHeaders headers = new CompactHttpHeaders(false);
+        for (int i = 0; i < httpNames.length; i++) {
+            headers.add(httpNames[i], httpValues[i]);
+        }
+        return headers;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void compactHttpIterate(Blackhole bh) {
+        Iterator<Entry<CharSequence, CharSequence>> itr = compactHttpHeaders.iteratorCharSequence();
+        while (itr.hasNext()) {
+            bh.consume(itr.next());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int httpEncode() {
+        return encode(httpHeaders);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int compactHttpEncode() {
+        return encode(compactHttpHeaders);
+    }
+
+    private int encode(HttpHeaders headers) {
+        ByteBuf buf = encodeBuffer.clear();
+        headersEncoder.encode(headers, buf);
+        return buf.writerIndex();
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     public void http2Remove(Blackhole bh) {
@@ -206,6 +269,12 @@ public class HeadersBenchmark extends AbstractMicrobenchmark {
         emptyHttp2Headers.clear();
     }
 
+    private static final class HeadersEncoder extends HttpRequestEncoder {
+        void encode(HttpHeaders headers, ByteBuf buf) {
+            encodeHeaders(headers, buf);
+        }
+    }
+
     private static final class SlowHeaders implements Headers<CharSequence, CharSequence, SlowHeaders> {
         private final Headers<CharSequence, CharSequence, ? extends Headers<?, ?, ?>> delegate;
         private SlowHeaders(Headers<CharSequence, CharSequence, ? extends Headers<?, ?, ?>> delegate) {
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpConnectionPool;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends batches of concurrent {@code GET} requests over {@link LocalChannel}s, either with a
+ * {@link HttpConnectionPool} or over a new connection per request.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class HttpConnectionPoolBenchmark extends AbstractMicrobenchmark {
+    private static final int REQUESTS = 64;
+
+    @Param({ "1", "8" })
+    public int maxPipelinedRequests;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private LocalAddress address;
+    private Bootstrap bootstrap;
+    private HttpConnectionPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        group = new DefaultEventLoopGroup(2);
+        address = new LocalAddress(HttpConnectionPoolBenchmark.class);
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec(), new HttpObjectAggregator(1024),
+                                new SimpleChannelInboundHandler<FullHttpRequest>() {
+                                    @Override
+                                    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest msg) {
+                                        FullHttpResponse response = new DefaultFullHttpResponse(
+                                                HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                                                Unpooled.wrappedBuffer(new byte[] { 'o', 'k' }));
+                                        HttpUtil.setContentLength(response, 2);
+                                        ctx.writeAndFlush(response);
+                                    }
+                                });
+                    }
+                })
+                .bind(address).syncUninterruptibly().channel();
+        bootstrap = new Bootstrap().group(group).channel(LocalChannel.class);
+        pool = new HttpConnectionPool(bootstrap, 8, maxPipelinedRequests, Integer.MAX_VALUE, 1024, 60,
+                TimeUnit.SECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    private static FullHttpRequest newRequest() {
+        return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void pooled() {
+        @SuppressWarnings("unchecked")
+        Future<FullHttpResponse>[] futures = new Future[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            futures[i] = pool.request(address, newRequest());
+        }
+        for (Future<FullHttpResponse> future : futures) {
+            future.syncUninterruptibly().getNow().release();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void connectionPerRequest() {
+        @SuppressWarnings("unchecked")
+        Promise<FullHttpResponse>[] promises = new Promise[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            final Promise<FullHttpResponse> promise = group.next().newPromise();
+            promises[i] = promise;
+            new Bootstrap().group(group).channel(LocalChannel.class)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(1024),
+                                    new SimpleChannelInboundHandler<FullHttpResponse>(false) {
+                                        @Override
+                                        protected void channelRead0(ChannelHandlerContext ctx,
+                                                                    FullHttpResponse msg) {
+                                            promise.setSuccess(msg);
+                                            ctx.close();
+                                        }
+                                    });
+                        }
+                    })
+                    .connect(address).addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) {
+                            if (future.isSuccess()) {
+                                future.channel().writeAndFlush(newRequest());
+                            } else {
+                                promise.setFailure(future.cause());
+                            }
+                        }
+                    });
+        }
+        for (Promise<FullHttpResponse> promise : promises) {
+            promise.syncUninterruptibly().getNow().release();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a task waits for the event loop while another {@link Channel} of the same event loop keeps
+ * writing large compressible responses, mixed with responses that are too small or compressed already, through an
+ * {@link HttpContentCompressor}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HttpContentCompressorBenchmark extends AbstractMicrobenchmark {
+
+    private static final String[] CONTENT_TYPES = { "text/html", "image/png", "application/json" };
+
+    @Param({ "false", "true" })
+    public boolean offload;
+
+    @Param({ "16384", "262144" })
+    public int responseSize;
+
+    private EventLoop loop;
+    private EventExecutorGroup compressorGroup;
+    private Channel serverChannel;
+    private Channel channel;
+    private ByteBuf largeContent;
+    private ByteBuf smallContent;
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        loop = new DefaultEventLoop();
+        compressorGroup = offload ? new DefaultEventExecutorGroup(1) : null;
+
+        StringBuilder sb = new StringBuilder(responseSize);
+        Random random = new Random(42);
+        while (sb.length() < responseSize) {
+            sb.append("<div class=\"item-").append(random.nextInt(100)).append("\">value</div>\n");
+        }
+        largeContent = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer(responseSize).writeBytes(sb.substring(0, responseSize).getBytes(
+                        CharsetUtil.US_ASCII)));
+        smallContent = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer().writeBytes("{\"ok\":true}".getBytes(CharsetUtil.US_ASCII)));
+
+        LocalAddress address = new LocalAddress(HttpContentCompressorBenchmark.class);
+        serverChannel = new ServerBootstrap()
+                .group(loop)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ReferenceCountUtil.release(msg);
+                    }
+                })
+                .bind(address).syncUninterruptibly().channel();
+
+        channel = new Bootstrap()
+                .group(loop)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(address).syncUninterruptibly().channel();
+        channel.pipeline().addLast(new HttpResponseEncoder());
+        channel.pipeline().addLast(new HttpContentCompressor(compressorGroup, 1024, true));
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ReferenceCountUtil.release(msg);
+            }
+        });
+
+        running = true;
+        loop.execute(new ResponseWriter());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        running = false;
+        channel.close().syncUninterruptibly();
+        serverChannel.close().syncUninterruptibly();
+        loop.shutdownGracefully().syncUninterruptibly();
+        if (compressorGroup != null) {
+            compressorGroup.shutdownGracefully().syncUninterruptibly();
+        }
+        largeContent.unwrap().release();
+        smallContent.unwrap().release();
+    }
+
+    @Benchmark
+    public void loopLatency() throws Exception {
+        loop.submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).sync();
+    }
+
+    private final class ResponseWriter implements Runnable, ChannelFutureListener {
+        private int count;
+
+        @Override
+        public void run() {
+            if (!running) {
+                return;
+            }
+            DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, "gzip");
+            channel.pipeline().fireChannelRead(request);
+
+            int index = count++;
+            String contentType = CONTENT_TYPES[index % CONTENT_TYPES.length];
+            ByteBuf content = index % 4 == 3 ? smallContent : largeContent;
+            FullHttpResponse response = new DefaultFullHttpResponse(
+                    HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content.duplicate());
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+            channel.writeAndFlush(response).addListener(this);
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            if (future.isSuccess()) {
+                // Give the other tasks of the event loop a chance to run between two responses.
+                future.channel().eventLoop().execute(this);
+            }
+        }
+    }
+}
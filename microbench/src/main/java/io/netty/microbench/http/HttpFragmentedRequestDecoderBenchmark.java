@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpDecoderConfig;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.ReferenceCountUtil;
@@ -38,10 +39,6 @@ import java.util.ArrayList;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
 
-import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE;
-import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE;
-import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE;
-import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH;
 import static io.netty.microbench.http.HttpRequestDecoderUtils.CONTENT_LENGTH;
 import static io.netty.microbench.http.HttpRequestDecoderUtils.CONTENT_MIXED_DELIMITERS;
 
@@ -64,6 +61,9 @@ public class HttpFragmentedRequestDecoderBenchmark extends AbstractMicrobenchmar
     @Param({ "true", "false"})
     public boolean validateHeaders;
 
+    @Param({ "false", "true" })
+    public boolean headerViews;
+
     private EmbeddedChannel channel;
 
     private ByteBuf[] fragmentedRequest;
@@ -97,8 +97,9 @@ public class HttpFragmentedRequestDecoderBenchmark extends AbstractMicrobenchmar
         final ByteBufAllocator allocator = pooled? PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT;
         fragmentedRequest = stepsBuffers(allocator, CONTENT_MIXED_DELIMITERS, headerFragmentBytes, direct);
         channel = new EmbeddedChannel(
-                new HttpRequestDecoder(DEFAULT_MAX_INITIAL_LINE_LENGTH, DEFAULT_MAX_HEADER_SIZE, DEFAULT_MAX_CHUNK_SIZE,
-                                       validateHeaders, DEFAULT_INITIAL_BUFFER_SIZE));
+                new HttpRequestDecoder(new HttpDecoderConfig()
+                        .setValidateHeaders(validateHeaders)
+                        .setHeaderViews(headerViews)));
     }
 
     @TearDown
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Aggregates requests with a {@code Content-Length} whose content arrives in 8 KiB chunks, and reads the aggregated
+ * content as a single {@link ByteBuffer} like most consumers of the content eventually do.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class HttpObjectAggregatorBenchmark extends AbstractMicrobenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({ "1024", "65536", "1048576", "10485760" })
+    public int contentLength;
+
+    @Param({ "false", "true" })
+    public boolean preallocate;
+
+    private EmbeddedChannel channel;
+    private ByteBuf chunk;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HttpObjectAggregator aggregator = new HttpObjectAggregator(16 * 1024 * 1024);
+        if (preallocate) {
+            aggregator.setMaxPreallocatedContentBytes(64 * 1024 * 1024);
+        }
+        channel = new EmbeddedChannel(aggregator);
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+        chunk = PooledByteBufAllocator.DEFAULT.directBuffer(CHUNK_SIZE);
+        chunk.writeZero(CHUNK_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        chunk.release();
+    }
+
+    @Benchmark
+    public ByteBuffer aggregate() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload");
+        HttpUtil.setContentLength(request, contentLength);
+        channel.writeInbound(request);
+        int remaining = contentLength;
+        while (remaining > CHUNK_SIZE) {
+            channel.writeInbound(new DefaultHttpContent(chunk.retainedSlice()));
+            remaining -= CHUNK_SIZE;
+        }
+        channel.writeInbound(new DefaultLastHttpContent(chunk.retainedSlice(0, remaining)));
+
+        FullHttpRequest aggregated = channel.readInbound();
+        try {
+            ByteBuf content = aggregated.content();
+            return content.nioBuffer(content.readerIndex(), content.readableBytes());
+        } finally {
+            aggregated.release();
+        }
+    }
+}
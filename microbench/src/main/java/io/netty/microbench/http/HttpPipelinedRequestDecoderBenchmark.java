@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpDecoderConfig;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import io.netty.util.ReferenceCountUtil;
@@ -37,10 +38,6 @@ import org.openjdk.jmh.annotations.Warmup;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
 
-import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_INITIAL_BUFFER_SIZE;
-import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_MAX_CHUNK_SIZE;
-import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_MAX_HEADER_SIZE;
-import static io.netty.handler.codec.http.HttpObjectDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH;
 import static io.netty.microbench.http.HttpRequestDecoderUtils.CONTENT_MIXED_DELIMITERS;
 
 /**
@@ -63,6 +60,9 @@ public class HttpPipelinedRequestDecoderBenchmark extends AbstractMicrobenchmark
     @Param({ "true", "false" })
     public boolean validateHeaders;
 
+    @Param({ "false", "true" })
+    public boolean headerViews;
+
     private EmbeddedChannel channel;
 
     private ByteBuf pipelinedRequest;
@@ -72,8 +72,9 @@ public class HttpPipelinedRequestDecoderBenchmark extends AbstractMicrobenchmark
         final ByteBufAllocator allocator = pooled? PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT;
         pipelinedRequest = pipelined(allocator, CONTENT_MIXED_DELIMITERS, pipeline, direct);
         channel = new EmbeddedChannel(
-                new HttpRequestDecoder(DEFAULT_MAX_INITIAL_LINE_LENGTH, DEFAULT_MAX_HEADER_SIZE, DEFAULT_MAX_CHUNK_SIZE,
-                                       validateHeaders, DEFAULT_INITIAL_BUFFER_SIZE));
+                new HttpRequestDecoder(new HttpDecoderConfig()
+                        .setValidateHeaders(validateHeaders)
+                        .setHeaderViews(headerViews)));
         // this is a trick to save doing it each time
         pipelinedRequest.retain((Integer.MAX_VALUE / 2 - 1) - pipeline);
     }
@@ -27,7 +27,9 @@ import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderBlock;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestDecoder;
@@ -67,6 +69,8 @@ public class HttpRequestResponseBenchmark extends AbstractMicrobenchmark {
     EmbeddedChannel nettyChannel;
     @Param({ "true", "false" })
     boolean websocket;
+    @Param({ "false", "true" })
+    boolean staticHeaders;
 
     static class Alloc implements ByteBufAllocator {
 
@@ -188,7 +192,10 @@ public class HttpRequestResponseBenchmark extends AbstractMicrobenchmark {
         HttpRequestDecoder httpRequestDecoder = new HttpRequestDecoder(
                 HttpRequestDecoder.DEFAULT_MAX_INITIAL_LINE_LENGTH, HttpRequestDecoder.DEFAULT_MAX_HEADER_SIZE,
                 HttpRequestDecoder.DEFAULT_MAX_CHUNK_SIZE, false);
-        HttpResponseEncoder httpResponseEncoder = new HttpResponseEncoder();
+        final HttpResponseEncoder httpResponseEncoder = staticHeaders ?
+                new HttpResponseEncoder(HttpHeaderBlock.of(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN,
+                                                           HttpHeaderNames.SERVER, "Netty"), true) :
+                new HttpResponseEncoder();
         ChannelInboundHandlerAdapter inboundHandlerAdapter = new ChannelInboundHandlerAdapter() {
 
             private final byte[] STATIC_PLAINTEXT = "Hello, World!".getBytes(CharsetUtil.UTF_8);
@@ -239,9 +246,11 @@ public class HttpRequestResponseBenchmark extends AbstractMicrobenchmark {
                 FullHttpResponse response =
                         new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, buf, false);
                 HttpHeaders headers = response.headers();
-                headers.set(CONTENT_TYPE_ENTITY, contentType);
-                headers.set(SERVER_ENTITY, SERVER_NAME);
-                headers.set(DATE_ENTITY, date);
+                if (!staticHeaders) {
+                    headers.set(CONTENT_TYPE_ENTITY, contentType);
+                    headers.set(SERVER_ENTITY, SERVER_NAME);
+                    headers.set(DATE_ENTITY, date);
+                }
                 headers.set(CONTENT_LENGTH_ENTITY, contentLength);
                 ctx.write(response, ctx.voidPromise());
             }
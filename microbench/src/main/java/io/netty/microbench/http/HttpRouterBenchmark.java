@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRouteMatch;
+import io.netty.handler.codec.http.HttpRouter;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.AsciiString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Routes requests with a {@link HttpRouter} of up to 1k routes, a third of which are literal and the rest have one
+ * or two parameters. {@link #queryStringDecoder} is the usual alternative for the literal routes: decoding the path
+ * with a {@link QueryStringDecoder} and looking it up in a {@link HashMap}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class HttpRouterBenchmark extends AbstractMicrobenchmark {
+
+    private static final int URIS = 1024;
+
+    @Param({ "10", "1000" })
+    public int routes;
+
+    @Param({ "false", "true" })
+    public boolean asciiString;
+
+    private HttpRouter<Integer> router;
+    private Map<String, Integer> literalRoutes;
+    private CharSequence[] uris;
+    private String[] literalUris;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HttpRouter.Builder<Integer> builder = HttpRouter.builder();
+        literalRoutes = new HashMap<String, Integer>();
+        for (int i = 0; i < routes; i++) {
+            String base = "/api/v" + (i & 3) + "/resource" + i;
+            switch (i % 3) {
+                case 0:
+                    builder.get(base, i);
+                    literalRoutes.put(base, i);
+                    break;
+                case 1:
+                    builder.get(base + "/:id", i);
+                    break;
+                default:
+                    builder.get(base + "/:id/items/:item", i);
+                    break;
+            }
+        }
+        router = builder.build();
+
+        Random random = new Random(42);
+        uris = new CharSequence[URIS];
+        literalUris = new String[URIS];
+        for (int i = 0; i < URIS; i++) {
+            int route = random.nextInt(routes);
+            String base = "/api/v" + (route & 3) + "/resource" + route;
+            String uri;
+            switch (route % 3) {
+                case 0:
+                    uri = base;
+                    break;
+                case 1:
+                    uri = base + '/' + random.nextInt(100000);
+                    break;
+                default:
+                    uri = base + '/' + random.nextInt(100000) + "/items/" + random.nextInt(100);
+                    break;
+            }
+            uri += "?page=" + random.nextInt(10);
+            uris[i] = asciiString ? AsciiString.of(uri) : uri;
+            int literal = route - route % 3;
+            literalUris[i] = "/api/v" + (literal & 3) + "/resource" + literal + "?page=1";
+        }
+    }
+
+    @Benchmark
+    public void route(Blackhole bh) {
+        HttpRouteMatch<Integer> match = router.route(HttpMethod.GET, uris[index++ & URIS - 1]);
+        bh.consume(match.target());
+        if (match.paramCount() > 0) {
+            bh.consume(match.param(0));
+        }
+    }
+
+    @Benchmark
+    public void routeLiteral(Blackhole bh) {
+        bh.consume(router.route(HttpMethod.GET, literalUris[index++ & URIS - 1]).target());
+    }
+
+    @Benchmark
+    public void queryStringDecoder(Blackhole bh) {
+        bh.consume(literalRoutes.get(new QueryStringDecoder(literalUris[index++ & URIS - 1]).path()));
+    }
+}
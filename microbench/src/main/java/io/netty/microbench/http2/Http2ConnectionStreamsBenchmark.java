@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http2;
+
+import io.netty.handler.codec.http2.DefaultHttp2Connection;
+import io.netty.handler.codec.http2.DefaultHttp2LocalFlowController;
+import io.netty.handler.codec.http2.DefaultHttp2RemoteFlowController;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.netty.handler.codec.http2.Http2StreamVisitor;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the lifecycle of the streams of a {@link DefaultHttp2Connection}: creating them, looking them up, visiting
+ * the active streams and closing them again. Run with {@code -prof gc} to see the memory used per stream.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class Http2ConnectionStreamsBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "10", "100" })
+    public int streams;
+
+    @Benchmark
+    public int streamLifecycle(Blackhole blackhole) throws Http2Exception {
+        Http2Connection connection = new DefaultHttp2Connection(true);
+        // The flow controllers register their stream property keys the same way they do in a real connection.
+        connection.local().flowController(new DefaultHttp2LocalFlowController(connection));
+        connection.remote().flowController(new DefaultHttp2RemoteFlowController(connection));
+
+        final int lastStreamId = streams * 2 - 1;
+        for (int streamId = 1; streamId <= lastStreamId; streamId += 2) {
+            connection.remote().createStream(streamId, false);
+        }
+        for (int streamId = 1; streamId <= lastStreamId; streamId += 2) {
+            blackhole.consume(connection.stream(streamId));
+        }
+        final int[] visited = new int[1];
+        connection.forEachActiveStream(new Http2StreamVisitor() {
+            @Override
+            public boolean visit(Http2Stream stream) {
+                visited[0]++;
+                return true;
+            }
+        });
+        for (int streamId = 1; streamId <= lastStreamId; streamId += 2) {
+            connection.stream(streamId).close();
+        }
+        return visited[0];
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersEncoder;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2PreEncodedHeaders;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares HPACK encoding of a static response header block with writing the same block pre-encoded by
+ * {@link Http2PreEncodedHeaders}. A fresh encoder is used per invocation when {@code newConnection} is set, which is
+ * where the dynamic table can not help.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class Http2PreEncodedHeadersBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "false", "true" })
+    public boolean preEncoded;
+
+    @Param({ "false", "true" })
+    public boolean newConnection;
+
+    private Http2Headers headers;
+    private DefaultHttp2HeadersEncoder encoder;
+    private ByteBuf out;
+
+    @Setup
+    public void setup() {
+        Http2Headers responseHeaders = new DefaultHttp2Headers()
+                .status("200")
+                .set("content-type", "application/json; charset=utf-8")
+                .set("cache-control", "private, max-age=0, must-revalidate")
+                .set("server", "netty")
+                .set("strict-transport-security", "max-age=31536000; includeSubDomains")
+                .set("x-content-type-options", "nosniff")
+                .set("vary", "accept-encoding");
+        headers = preEncoded ? Http2PreEncodedHeaders.encode(responseHeaders) : responseHeaders;
+        encoder = new DefaultHttp2HeadersEncoder();
+        out = Unpooled.buffer(1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        out.release();
+    }
+
+    @Benchmark
+    public int encode() throws Http2Exception {
+        if (newConnection) {
+            encoder = new DefaultHttp2HeadersEncoder();
+        }
+        out.clear();
+        encoder.encodeHeaders(3, headers, out);
+        return out.readableBytes();
+    }
+}
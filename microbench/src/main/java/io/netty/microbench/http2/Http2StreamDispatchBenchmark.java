@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2FrameWriter;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2FrameWriter;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamDispatchHandler;
+import io.netty.handler.codec.http2.Http2StreamFrame;
+import io.netty.handler.codec.http2.Http2StreamHandlerAdapter;
+import io.netty.handler.codec.http2.Http2StreamHandlerContext;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.AsciiString;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how many short request/response streams per second a server connection handles when the streams are
+ * served by child channels of a {@link Http2MultiplexHandler} or by a {@link Http2StreamDispatchHandler}.
+ */
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class Http2StreamDispatchBenchmark extends AbstractMicrobenchmark {
+    private static final int STREAMS_PER_READ = 64;
+    private static final Http2Headers REQUEST = new DefaultHttp2Headers()
+            .method(new AsciiString("GET")).scheme(new AsciiString("https"))
+            .authority(new AsciiString("example.org")).path(new AsciiString("/service/method"));
+    private static final Http2Headers RESPONSE = new DefaultHttp2Headers().status(new AsciiString("200"));
+
+    public enum Dispatch {
+        MULTIPLEX,
+        STREAM_HANDLER
+    }
+
+    @Param
+    public Dispatch dispatch;
+
+    private EmbeddedChannel clientChannel;
+    private ChannelHandlerContext clientCtx;
+    private Http2FrameWriter clientWriter;
+    private EmbeddedChannel serverChannel;
+    private int nextStreamId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        clientChannel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        clientCtx = clientChannel.pipeline().firstContext();
+        clientWriter = new DefaultHttp2FrameWriter();
+
+        serverChannel = new EmbeddedChannel();
+        serverChannel.pipeline().addLast(Http2FrameCodecBuilder.forServer()
+                .initialSettings(new Http2Settings().maxConcurrentStreams(Integer.MAX_VALUE)).build());
+        switch (dispatch) {
+            case MULTIPLEX:
+                serverChannel.pipeline().addLast(new Http2MultiplexHandler(new ChildHandler()));
+                break;
+            case STREAM_HANDLER:
+                serverChannel.pipeline().addLast(new Http2StreamDispatchHandler(new StreamHandler()));
+                break;
+            default:
+                throw new Error();
+        }
+        serverChannel.writeInbound(Http2CodecUtil.connectionPrefaceBuf());
+        clientWriter.writeSettings(clientCtx, new Http2Settings(), clientCtx.newPromise());
+        flushToServer();
+        nextStreamId = 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientChannel.finishAndReleaseAll();
+        serverChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAMS_PER_READ)
+    public void requestResponse() {
+        for (int i = 0; i < STREAMS_PER_READ; i++) {
+            clientWriter.writeHeaders(clientCtx, nextStreamId, REQUEST, 0, true, clientCtx.newPromise());
+            nextStreamId += 2;
+        }
+        flushToServer();
+    }
+
+    private void flushToServer() {
+        clientCtx.flush();
+        List<Object> buffers = new ArrayList<Object>();
+        for (;;) {
+            ByteBuf buffer = clientChannel.readOutbound();
+            if (buffer == null) {
+                break;
+            }
+            buffers.add(buffer);
+        }
+        // All frames are read as part of a single read loop of the connection.
+        serverChannel.writeInbound(buffers.toArray());
+        serverChannel.runPendingTasks();
+        serverChannel.releaseOutbound();
+    }
+
+    @ChannelHandler.Sharable
+    private static final class ChildHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof Http2HeadersFrame && ((Http2HeadersFrame) msg).isEndStream()) {
+                ctx.write(new DefaultHttp2HeadersFrame(RESPONSE, true));
+            }
+            ReferenceCountUtil.release(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    private static final class StreamHandler extends Http2StreamHandlerAdapter {
+        @Override
+        public void streamRead(Http2StreamHandlerContext ctx, Http2StreamFrame frame) {
+            if (frame instanceof Http2HeadersFrame && ((Http2HeadersFrame) frame).isEndStream()) {
+                ctx.writeAndFlush(new DefaultHttp2HeadersFrame(RESPONSE, true));
+            }
+            ReferenceCountUtil.release(frame);
+        }
+    }
+}
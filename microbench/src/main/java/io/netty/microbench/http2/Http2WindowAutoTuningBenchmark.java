@@ -0,0 +1,190 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http2;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder;
+import io.netty.handler.codec.http2.Http2FrameAdapter;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of uploads over a {@link LocalChannel} that delays everything the client receives by
+ * {@link #latencyMillis}, with and without auto-tuning of the server's flow control windows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class Http2WindowAutoTuningBenchmark extends AbstractMicrobenchmark {
+    private static final int MAX_STREAM_WINDOW_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_CONNECTION_WINDOW_SIZE = 32 * 1024 * 1024;
+
+    @Param({ "0", "10" })
+    public int latencyMillis;
+
+    @Param({ "false", "true" })
+    public boolean autoTuning;
+
+    @Param({ "8388608" })
+    public int bodySize;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private Http2ConnectionHandler clientHandler;
+    private ByteBuf body;
+    private int streamId = 3;
+    private volatile CountDownLatch bodyLatch;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        group = new DefaultEventLoopGroup(2);
+        body = Unpooled.directBuffer(bodySize).writeZero(bodySize);
+
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        Http2ConnectionHandlerBuilder builder = new Http2ConnectionHandlerBuilder()
+                                .server(true)
+                                .frameListener(new Http2FrameAdapter() {
+                                    @Override
+                                    public int onDataRead(ChannelHandlerContext ctx, int streamId, ByteBuf data,
+                                                          int padding, boolean endOfStream) {
+                                        if (endOfStream) {
+                                            bodyLatch.countDown();
+                                        }
+                                        return data.readableBytes() + padding;
+                                    }
+                                });
+                        if (autoTuning) {
+                            builder.flowControlWindowAutoTuning(MAX_STREAM_WINDOW_SIZE, MAX_CONNECTION_WINDOW_SIZE);
+                        }
+                        ch.pipeline().addLast(builder.build());
+                    }
+                })
+                .bind(new LocalAddress(Http2WindowAutoTuningBenchmark.class)).sync().channel();
+
+        clientHandler = new Http2ConnectionHandlerBuilder()
+                .server(false)
+                .frameListener(new Http2FrameAdapter())
+                .build();
+        clientChannel = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        if (latencyMillis > 0) {
+                            ch.pipeline().addLast(new LatencyHandler(latencyMillis));
+                        }
+                        ch.pipeline().addLast(clientHandler);
+                    }
+                })
+                .connect(serverChannel.localAddress()).sync().channel();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        body.release();
+    }
+
+    @Benchmark
+    public void upload() throws Exception {
+        bodyLatch = new CountDownLatch(1);
+        final int id = streamId;
+        streamId += 2;
+        clientChannel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                ChannelHandlerContext ctx = clientChannel.pipeline().context(clientHandler);
+                Http2Headers headers = new DefaultHttp2Headers()
+                        .method("POST").path("/").scheme("http").authority("localhost");
+                clientHandler.encoder().writeHeaders(ctx, id, headers, 0, false, ctx.newPromise());
+                clientHandler.encoder().writeData(ctx, id, body.retainedDuplicate(), 0, true, ctx.newPromise());
+                ctx.flush();
+            }
+        });
+        bodyLatch.await();
+    }
+
+    /**
+     * Delays all inbound events, so that each round trip takes at least the given latency.
+     */
+    private static final class LatencyHandler extends ChannelInboundHandlerAdapter {
+        private final int latencyMillis;
+
+        LatencyHandler(int latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.fireChannelRead(msg);
+                }
+            }, latencyMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void channelReadComplete(final ChannelHandlerContext ctx) {
+            ctx.executor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    ctx.fireChannelReadComplete();
+                }
+            }, latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.http2;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares copying request headers between HTTP/2 and HTTP/1.x with presenting them through the views of
+ * {@link HttpConversionUtil}. Each conversion is followed by a lookup and a full iteration, as a handler would do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class HttpConversionBenchmark extends AbstractMicrobenchmark {
+    private static final String[][] REQUEST_HEADERS = {
+            { "accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8" },
+            { "accept-encoding", "gzip, deflate, br" },
+            { "accept-language", "en-US,en;q=0.5" },
+            { "cache-control", "no-cache" },
+            { "cookie", "session=0123456789abcdef" },
+            { "cookie", "theme=dark" },
+            { "user-agent", "Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/115.0" },
+            { "x-request-id", "f81d4fae-7dec-11d0-a765-00a0c91e6bf6" },
+    };
+
+    @Param({ "false", "true" })
+    public boolean wrap;
+
+    private HttpRequest request;
+
+    @Setup
+    public void setup() {
+        request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/index.html?q=netty");
+        request.headers().set(HttpConversionUtil.ExtensionHeaderNames.SCHEME.text(), "https");
+        request.headers().set("Host", "netty.io");
+        for (String[] header : REQUEST_HEADERS) {
+            request.headers().add(header[0], header[1]);
+        }
+    }
+
+    @Benchmark
+    public void http2ToHttp(Blackhole bh) throws Http2Exception {
+        // Every invocation gets new HTTP/2 headers as a decoder would produce them.
+        Http2Headers http2Headers = newHttp2Headers();
+        HttpRequest converted = wrap ? HttpConversionUtil.toHttpRequestView(3, http2Headers) :
+                HttpConversionUtil.toHttpRequest(3, http2Headers, true);
+        HttpHeaders headers = converted.headers();
+        bh.consume(headers.get("User-Agent"));
+        Iterator<Map.Entry<CharSequence, CharSequence>> itr = headers.iteratorCharSequence();
+        while (itr.hasNext()) {
+            bh.consume(itr.next().getValue());
+        }
+    }
+
+    @Benchmark
+    public void httpToHttp2(Blackhole bh) {
+        Http2Headers headers = wrap ? HttpConversionUtil.toHttp2HeadersView(request) :
+                HttpConversionUtil.toHttp2Headers(request, true);
+        bh.consume(headers.get("user-agent"));
+        for (Map.Entry<CharSequence, CharSequence> entry : headers) {
+            bh.consume(entry.getValue());
+        }
+    }
+
+    private static Http2Headers newHttp2Headers() {
+        Http2Headers headers = new DefaultHttp2Headers();
+        headers.method(HttpMethod.GET.asciiName());
+        headers.path("/index.html?q=netty");
+        headers.scheme("https");
+        headers.authority("netty.io");
+        for (String[] header : REQUEST_HEADERS) {
+            headers.add(header[0], header[1]);
+        }
+        return headers;
+    }
+}
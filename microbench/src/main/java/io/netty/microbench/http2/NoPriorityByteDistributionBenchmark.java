@@ -18,6 +18,7 @@ import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http2.DefaultHttp2Connection;
 import io.netty.handler.codec.http2.DefaultHttp2RemoteFlowController;
+import io.netty.handler.codec.http2.ExtensiblePriorityStreamByteDistributor;
 import io.netty.handler.codec.http2.Http2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionHandler;
 import io.netty.handler.codec.http2.Http2ConnectionHandlerBuilder;
@@ -26,6 +27,7 @@ import io.netty.handler.codec.http2.Http2FrameAdapter;
 import io.netty.handler.codec.http2.Http2RemoteFlowController;
 import io.netty.handler.codec.http2.Http2Stream;
 import io.netty.handler.codec.http2.Http2StreamVisitor;
+import io.netty.handler.codec.http2.RoundRobinStreamByteDistributor;
 import io.netty.handler.codec.http2.StreamByteDistributor;
 import io.netty.handler.codec.http2.UniformStreamByteDistributor;
 import io.netty.handler.codec.http2.WeightedFairQueueByteDistributor;
@@ -50,7 +52,9 @@ import org.openjdk.jmh.annotations.Threads;
 public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark {
     public enum Algorithm {
         WFQ,
-        UNIFORM
+        UNIFORM,
+        ROUND_ROBIN,
+        EXTENSIBLE_PRIORITY
     }
 
     @Param({ "100", "10000" })
@@ -128,6 +132,12 @@ public class NoPriorityByteDistributionBenchmark extends AbstractMicrobenchmark
             case UNIFORM:
                 distributor = new UniformStreamByteDistributor(connection);
                 break;
+            case ROUND_ROBIN:
+                distributor = new RoundRobinStreamByteDistributor(connection);
+                break;
+            case EXTENSIBLE_PRIORITY:
+                distributor = new ExtensiblePriorityStreamByteDistributor(connection);
+                break;
         }
         controller = new DefaultHttp2RemoteFlowController(connection, new ByteCounter(distributor));
         connection.remote().flowController(controller);
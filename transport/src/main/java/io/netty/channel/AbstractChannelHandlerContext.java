@@ -101,6 +101,10 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
 
     private volatile int handlerState = INIT;
 
+    // Lazily populated cache of the next context per event type, only used if
+    // DefaultChannelPipeline.cacheContexts is true. Replaced as a whole once the pipeline structure changes.
+    private NextContexts nextContexts;
+
     AbstractChannelHandlerContext(DefaultChannelPipeline pipeline, EventExecutor executor,
                                   String name, Class<? extends ChannelHandler> handlerClass) {
         this.name = ObjectUtil.checkNotNull(name, "name");
@@ -1050,6 +1054,20 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     }
 
     private AbstractChannelHandlerContext findContextInbound(int mask) {
+        if (pipeline.cacheContexts) {
+            return findContextCached(mask, true);
+        }
+        return findContextInbound0(mask);
+    }
+
+    private AbstractChannelHandlerContext findContextOutbound(int mask) {
+        if (pipeline.cacheContexts) {
+            return findContextCached(mask, false);
+        }
+        return findContextOutbound0(mask);
+    }
+
+    private AbstractChannelHandlerContext findContextInbound0(int mask) {
         AbstractChannelHandlerContext ctx = this;
         EventExecutor currentExecutor = executor();
         do {
@@ -1058,7 +1076,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         return ctx;
     }
 
-    private AbstractChannelHandlerContext findContextOutbound(int mask) {
+    private AbstractChannelHandlerContext findContextOutbound0(int mask) {
         AbstractChannelHandlerContext ctx = this;
         EventExecutor currentExecutor = executor();
         do {
@@ -1067,6 +1085,22 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         return ctx;
     }
 
+    private AbstractChannelHandlerContext findContextCached(int mask, boolean inbound) {
+        int version = pipeline.contextsVersion;
+        NextContexts cache = nextContexts;
+        if (cache == null || cache.version != version) {
+            nextContexts = cache = new NextContexts(version);
+        }
+        int index = NextContexts.index(mask);
+        AbstractChannelHandlerContext ctx = cache.contexts[index];
+        if (ctx == null) {
+            // Racy population is fine here as every thread will compute the same result for the same version.
+            ctx = inbound ? findContextInbound0(mask) : findContextOutbound0(mask);
+            cache.contexts[index] = ctx;
+        }
+        return ctx;
+    }
+
     private static boolean skipContext(
             AbstractChannelHandlerContext ctx, EventExecutor currentExecutor, int mask, int onlyMask) {
         // Ensure we correctly handle MASK_EXCEPTION_CAUGHT which is not included in the MASK_EXCEPTION_CAUGHT
@@ -1274,6 +1308,29 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         }
     }
 
+    /**
+     * The next contexts per event type, computed for a given {@link DefaultChannelPipeline#contextsVersion}.
+     */
+    private static final class NextContexts {
+        // One slot per ChannelHandlerMask bit and one extra slot for MASK_WRITE | MASK_FLUSH.
+        private static final int WRITE_AND_FLUSH_INDEX = Integer.numberOfTrailingZeros(MASK_FLUSH) + 1;
+
+        final int version;
+        final AbstractChannelHandlerContext[] contexts = new AbstractChannelHandlerContext[WRITE_AND_FLUSH_INDEX + 1];
+
+        NextContexts(int version) {
+            this.version = version;
+        }
+
+        static int index(int mask) {
+            if (mask == (MASK_WRITE | MASK_FLUSH)) {
+                return WRITE_AND_FLUSH_INDEX;
+            }
+            assert Integer.bitCount(mask) == 1;
+            return Integer.numberOfTrailingZeros(mask);
+        }
+    }
+
     private static final class Tasks {
         private final AbstractChannelHandlerContext next;
         private final Runnable invokeChannelReadCompleteTask = new Runnable() {
@@ -23,6 +23,7 @@ import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -50,6 +51,9 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     private static final String HEAD_NAME = generateName0(HeadContext.class);
     private static final String TAIL_NAME = generateName0(TailContext.class);
 
+    private static final boolean CACHE_CONTEXTS =
+            SystemPropertyUtil.getBoolean("io.netty.channel.pipeline.cacheContexts", false);
+
     private static final FastThreadLocal<Map<Class<?>, String>> nameCaches =
             new FastThreadLocal<Map<Class<?>, String>>() {
         @Override
@@ -68,6 +72,13 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     private final ChannelFuture succeededFuture;
     private final VoidChannelPromise voidPromise;
     private final boolean touch = ResourceLeakDetector.isEnabled();
+    final boolean cacheContexts;
+
+    /**
+     * Incremented every time the structure of the pipeline changes, which invalidates the next-context caches of all
+     * {@link AbstractChannelHandlerContext}s. Only used if {@link #cacheContexts} is {@code true}.
+     */
+    volatile int contextsVersion;
 
     private Map<EventExecutorGroup, EventExecutor> childExecutors;
     private volatile MessageSizeEstimator.Handle estimatorHandle;
@@ -90,7 +101,22 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     private boolean registered;
 
     protected DefaultChannelPipeline(Channel channel) {
+        this(channel, CACHE_CONTEXTS);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param channel           the {@link Channel} this pipeline belongs to.
+     * @param cacheContexts     {@code true} if each {@link ChannelHandlerContext} should cache the next context that
+     *                          handles a given event type instead of walking the pipeline on every event. This is
+     *                          beneficial for deep pipelines in which most handlers skip the hot events, at the cost
+     *                          of a small amount of memory per context and a re-computation after every
+     *                          {@code add}, {@code remove} or {@code replace} operation.
+     */
+    protected DefaultChannelPipeline(Channel channel, boolean cacheContexts) {
         this.channel = ObjectUtil.checkNotNull(channel, "channel");
+        this.cacheContexts = cacheContexts;
         succeededFuture = new SucceededChannelFuture(channel, null);
         voidPromise =  new VoidChannelPromise(channel, true);
 
@@ -162,6 +188,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             newCtx = newContext(group, name, handler);
 
             addFirst0(newCtx);
+            invalidateContextCaches();
 
             // If the registered is false it means that the channel was not registered on an eventLoop yet.
             // In this case we add the context to the pipeline and add a task that will call
@@ -204,6 +231,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             newCtx = newContext(group, filterName(name, handler), handler);
 
             addLast0(newCtx);
+            invalidateContextCaches();
 
             // If the registered is false it means that the channel was not registered on an eventLoop yet.
             // In this case we add the context to the pipeline and add a task that will call
@@ -250,6 +278,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             newCtx = newContext(group, name, handler);
 
             addBefore0(ctx, newCtx);
+            invalidateContextCaches();
 
             // If the registered is false it means that the channel was not registered on an eventLoop yet.
             // In this case we add the context to the pipeline and add a task that will call
@@ -304,6 +333,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             newCtx = newContext(group, name, handler);
 
             addAfter0(ctx, newCtx);
+            invalidateContextCaches();
 
             // If the registered is false it means that the channel was not registered on an eventLoop yet.
             // In this case we remove the context from the pipeline and add a task that will call
@@ -486,6 +516,14 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         AbstractChannelHandlerContext next = ctx.next;
         prev.next = next;
         next.prev = prev;
+        invalidateContextCaches();
+    }
+
+    private void invalidateContextCaches() {
+        if (cacheContexts) {
+            // Only modified while holding the lock of the pipeline so there is no need for an atomic update.
+            contextsVersion++;
+        }
     }
 
     @Override
@@ -541,6 +579,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
             newCtx = newContext(ctx.executor, newName, newHandler);
 
             replace0(ctx, newCtx);
+            invalidateContextCaches();
 
             // If the registered is false it means that the channel was not registered on an eventloop yet.
             // In this case we replace the context in the pipeline
@@ -1380,6 +1419,12 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         @Override
         public void channelRegistered(ChannelHandlerContext ctx) {
             invokeHandlerAddedIfNeeded();
+            if (cacheContexts) {
+                // The EventLoop may have changed, which also changes which contexts may be skipped.
+                synchronized (DefaultChannelPipeline.this) {
+                    invalidateContextCaches();
+                }
+            }
             ctx.fireChannelRegistered();
         }
 
@@ -0,0 +1,614 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+
+/**
+ * {@link ChannelPool} implementation which keeps a sub-pool of idle {@link Channel}s per {@link EventLoop} of the
+ * {@link EventLoopGroup} used by the {@link Bootstrap}, and enforces a maximum number of open connections.
+ * <p>
+ * An acquire prefers idle {@link Channel}s which are registered to the {@link EventLoop} of the caller, so no thread
+ * hop is needed when the pool is used from within an {@link EventLoop}. If there is none, an idle {@link Channel} is
+ * taken from another sub-pool and only if there is no idle {@link Channel} at all a new connection is established on
+ * the {@link EventLoop} of the caller. All of this is done without locks and without dispatching to a single
+ * executor, unlike {@link FixedChannelPool}.
+ * <p>
+ * Once the maximum number of connections is reached acquire tries are queued until a {@link Channel} is released or
+ * closed, and failed once the maximum number of pending acquires is exceeded.
+ */
+public class EventLoopChannelPool implements ChannelPool {
+    private static final AttributeKey<EventLoopChannelPool> POOL_KEY =
+            AttributeKey.newInstance("io.netty.channel.pool.EventLoopChannelPool");
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final ChannelHealthChecker healthCheck;
+    private final boolean releaseHealthCheck;
+    private final int maxConnections;
+    private final int maxPendingAcquires;
+    private final SubPool[] subPools;
+    private final Map<EventExecutor, SubPool> subPoolsByLoop;
+    private final Queue<PendingAcquire> pendingAcquires = new ConcurrentLinkedQueue<PendingAcquire>();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger acquiredChannelCount = new AtomicInteger();
+    private final AtomicInteger pendingAcquireCount = new AtomicInteger();
+    private final LongCounter acquireCount = PlatformDependent.newLongCounter();
+    private final LongCounter stealCount = PlatformDependent.newLongCounter();
+    private final LongCounter totalAcquireTimeNanos = PlatformDependent.newLongCounter();
+    private final AtomicLong maxAcquireTimeNanos = new AtomicLong();
+    private final ChannelFutureListener closeListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            connectionCount.decrementAndGet();
+            drainPendingAcquires();
+        }
+    };
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConnections    the number of maximal open connections, once this is reached new tries to acquire
+     *                          a {@link Channel} will be delayed until a connection is released or closed.
+     */
+    public EventLoopChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections) {
+        this(bootstrap, handler, maxConnections, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param maxConnections        the number of maximal open connections, once this is reached new tries to
+     *                              acquire a {@link Channel} will be delayed until a connection is released or
+     *                              closed.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     */
+    public EventLoopChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler, int maxConnections,
+                                int maxPendingAcquires) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE, true, maxConnections, maxPendingAcquires);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap             the {@link Bootstrap} that is used for connections
+     * @param handler               the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck           the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                              still healthy when obtain from the {@link ChannelPool}
+     * @param releaseHealthCheck    will check channel health before offering back if this parameter set to
+     *                              {@code true}; otherwise, channel health is only checked at acquisition time
+     * @param maxConnections        the number of maximal open connections, once this is reached new tries to
+     *                              acquire a {@link Channel} will be delayed until a connection is released or
+     *                              closed.
+     * @param maxPendingAcquires    the maximum number of pending acquires. Once this is exceed acquire tries will
+     *                              be failed.
+     */
+    public EventLoopChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler,
+                                ChannelHealthChecker healthCheck, boolean releaseHealthCheck,
+                                int maxConnections, int maxPendingAcquires) {
+        this.handler = checkNotNull(handler, "handler");
+        this.healthCheck = checkNotNull(healthCheck, "healthCheck");
+        this.releaseHealthCheck = releaseHealthCheck;
+        this.maxConnections = checkPositive(maxConnections, "maxConnections");
+        this.maxPendingAcquires = checkPositive(maxPendingAcquires, "maxPendingAcquires");
+        // Clone the original Bootstrap as we want to set our own handler
+        this.bootstrap = checkNotNull(bootstrap, "bootstrap").clone();
+        this.bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                assert ch.eventLoop().inEventLoop();
+                handler.channelCreated(ch);
+            }
+        });
+
+        EventLoopGroup group = checkNotNull(this.bootstrap.config().group(), "bootstrap.config().group()");
+        List<SubPool> pools = new ArrayList<SubPool>();
+        Map<EventExecutor, SubPool> poolsByLoop = new IdentityHashMap<EventExecutor, SubPool>();
+        for (EventExecutor executor : group) {
+            SubPool pool = new SubPool((EventLoop) executor, pools.size());
+            pools.add(pool);
+            poolsByLoop.put(executor, pool);
+        }
+        subPools = pools.toArray(new SubPool[0]);
+        subPoolsByLoop = poolsByLoop;
+    }
+
+    /**
+     * Returns the number of maximal open connections.
+     */
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Returns the number of open connections, which includes acquired and idle {@link Channel}s as well as
+     * connections which are currently established.
+     */
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Returns the number of acquired {@link Channel}s.
+     */
+    public int acquiredChannelCount() {
+        return acquiredChannelCount.get();
+    }
+
+    /**
+     * Returns the number of idle {@link Channel}s in all sub-pools.
+     */
+    public int idleChannelCount() {
+        int count = 0;
+        for (SubPool pool : subPools) {
+            count += pool.idle.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of acquires that are waiting for a {@link Channel}.
+     */
+    public int pendingAcquireCount() {
+        return pendingAcquireCount.get();
+    }
+
+    /**
+     * Returns the number of successful acquires.
+     */
+    public long acquireCount() {
+        return acquireCount.value();
+    }
+
+    /**
+     * Returns the number of acquires which were satisfied by an idle {@link Channel} of another {@link EventLoop}.
+     */
+    public long stealCount() {
+        return stealCount.value();
+    }
+
+    /**
+     * Returns the sum of the time it took to complete all successful acquires, in nanoseconds.
+     */
+    public long totalAcquireTimeNanos() {
+        return totalAcquireTimeNanos.value();
+    }
+
+    /**
+     * Returns the maximal time it took to complete a successful acquire, in nanoseconds.
+     */
+    public long maxAcquireTimeNanos() {
+        return maxAcquireTimeNanos.get();
+    }
+
+    @Override
+    public final Future<Channel> acquire() {
+        return acquire(localSubPool().loop.<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        checkNotNull(promise, "promise");
+        try {
+            acquire0(localSubPool(), promise, System.nanoTime());
+        } catch (Throwable cause) {
+            promise.tryFailure(cause);
+        }
+        return promise;
+    }
+
+    private void acquire0(SubPool local, Promise<Channel> promise, long startNanos) {
+        if (closed) {
+            promise.tryFailure(new IllegalStateException("EventLoopChannelPool was closed"));
+            return;
+        }
+        Channel channel = pollIdle(local);
+        if (channel != null) {
+            checkHealth(channel, local, promise, startNanos);
+        } else if (tryReserveConnection()) {
+            connect(local, promise, startNanos);
+        } else if (pendingAcquireCount.incrementAndGet() > maxPendingAcquires) {
+            pendingAcquireCount.decrementAndGet();
+            promise.tryFailure(new IllegalStateException("Too many outstanding acquire operations"));
+        } else {
+            pendingAcquires.add(new PendingAcquire(local, promise, startNanos));
+            // A channel may have been released or closed before the acquire was queued.
+            drainPendingAcquires();
+        }
+    }
+
+    /**
+     * Returns the {@link SubPool} of the {@link EventLoop} of the caller, or of the next {@link EventLoop} of the
+     * group if the caller is not an {@link EventLoop} of it.
+     */
+    private SubPool localSubPool() {
+        for (SubPool pool : subPools) {
+            if (pool.loop.inEventLoop()) {
+                return pool;
+            }
+        }
+        SubPool pool = subPoolsByLoop.get(bootstrap.config().group().next());
+        return pool != null ? pool : subPools[0];
+    }
+
+    private Channel pollIdle(SubPool local) {
+        // Use LIFO order for the local sub-pool, so the most recently used Channel is reused.
+        Channel channel = local.idle.pollLast();
+        if (channel != null) {
+            return channel;
+        }
+        // Steal the least recently used Channel from a sibling.
+        for (int i = 1; i < subPools.length; i++) {
+            channel = subPools[(local.index + i) % subPools.length].idle.pollFirst();
+            if (channel != null) {
+                stealCount.increment();
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    private boolean tryReserveConnection() {
+        for (;;) {
+            int count = connectionCount.get();
+            if (count >= maxConnections) {
+                return false;
+            }
+            if (connectionCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hands idle {@link Channel}s and free connection slots over to pending acquires until either of them is
+     * exhausted.
+     */
+    private void drainPendingAcquires() {
+        for (;;) {
+            PendingAcquire head = pendingAcquires.peek();
+            if (head == null) {
+                return;
+            }
+            // Obtain the resource first, so a pending acquire is never dropped.
+            Channel channel = pollIdle(head.local);
+            if (channel == null && !tryReserveConnection()) {
+                return;
+            }
+            PendingAcquire pending = pendingAcquires.poll();
+            if (pending == null) {
+                // Someone else served the pending acquire, give the resource back and check again.
+                if (channel != null) {
+                    offerIdle(channel);
+                } else {
+                    connectionCount.decrementAndGet();
+                }
+                continue;
+            }
+            pendingAcquireCount.decrementAndGet();
+            if (channel != null) {
+                checkHealth(channel, pending.local, pending.promise, pending.startNanos);
+            } else {
+                connect(pending.local, pending.promise, pending.startNanos);
+            }
+        }
+    }
+
+    private void connect(final SubPool local, final Promise<Channel> promise, final long startNanos) {
+        ChannelFuture f;
+        try {
+            f = connectChannel(bootstrap.clone(local.loop));
+        } catch (Throwable cause) {
+            connectionCount.decrementAndGet();
+            promise.tryFailure(cause);
+            drainPendingAcquires();
+            return;
+        }
+        if (f.isDone()) {
+            notifyConnect(f, promise, startNanos);
+        } else {
+            f.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    notifyConnect(future, promise, startNanos);
+                }
+            });
+        }
+    }
+
+    private void notifyConnect(ChannelFuture future, Promise<Channel> promise, long startNanos) {
+        if (future.isSuccess()) {
+            Channel channel = future.channel();
+            // The connection slot is freed once the Channel is closed.
+            channel.closeFuture().addListener(closeListener);
+            notifyAcquired(channel, promise, startNanos);
+        } else {
+            connectionCount.decrementAndGet();
+            promise.tryFailure(future.cause());
+            drainPendingAcquires();
+        }
+    }
+
+    private void checkHealth(final Channel channel, final SubPool local, final Promise<Channel> promise,
+                             final long startNanos) {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            doHealthCheck(channel, local, promise, startNanos);
+        } else {
+            try {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        doHealthCheck(channel, local, promise, startNanos);
+                    }
+                });
+            } catch (Throwable cause) {
+                closeAndFail(channel, cause, promise);
+            }
+        }
+    }
+
+    private void doHealthCheck(final Channel channel, final SubPool local, final Promise<Channel> promise,
+                               final long startNanos) {
+        try {
+            assert channel.eventLoop().inEventLoop();
+            Future<Boolean> f = healthCheck.isHealthy(channel);
+            if (f.isDone()) {
+                notifyHealthCheck(f, channel, local, promise, startNanos);
+            } else {
+                f.addListener(new FutureListener<Boolean>() {
+                    @Override
+                    public void operationComplete(Future<Boolean> future) {
+                        notifyHealthCheck(future, channel, local, promise, startNanos);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+        }
+    }
+
+    private void notifyHealthCheck(Future<Boolean> future, Channel channel, SubPool local,
+                                   Promise<Channel> promise, long startNanos) {
+        if (future.isSuccess() && future.getNow()) {
+            notifyAcquired(channel, promise, startNanos);
+        } else {
+            channel.close();
+            acquire0(local, promise, startNanos);
+        }
+    }
+
+    private void notifyAcquired(Channel channel, Promise<Channel> promise, long startNanos) {
+        try {
+            channel.attr(POOL_KEY).set(this);
+            handler.channelAcquired(channel);
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+            return;
+        }
+        acquiredChannelCount.incrementAndGet();
+        if (promise.trySuccess(channel)) {
+            recordAcquireTime(System.nanoTime() - startNanos);
+        } else {
+            // Promise was completed in the meantime (like cancelled), just release the channel again
+            release(channel);
+        }
+    }
+
+    private void recordAcquireTime(long nanos) {
+        acquireCount.increment();
+        totalAcquireTimeNanos.add(nanos);
+        for (;;) {
+            long max = maxAcquireTimeNanos.get();
+            if (nanos <= max || maxAcquireTimeNanos.compareAndSet(max, nanos)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Bootstrap a new {@link Channel}. The default implementation uses {@link Bootstrap#connect()}, sub-classes may
+     * override this.
+     * <p>
+     * The {@link Bootstrap} that is passed in here is cloned via {@link Bootstrap#clone(EventLoopGroup)}, so it is
+     * safe to modify.
+     */
+    protected ChannelFuture connectChannel(Bootstrap bs) {
+        return bs.connect();
+    }
+
+    @Override
+    public final Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        try {
+            checkNotNull(channel, "channel");
+            checkNotNull(promise, "promise");
+            EventLoop loop = channel.eventLoop();
+            if (loop.inEventLoop()) {
+                doReleaseChannel(channel, promise);
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        doReleaseChannel(channel, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+        }
+        return promise;
+    }
+
+    private void doReleaseChannel(final Channel channel, final Promise<Void> promise) {
+        assert channel.eventLoop().inEventLoop();
+        // Remove the POOL_KEY attribute from the Channel and check if it was acquired from this pool, if not fail.
+        if (channel.attr(POOL_KEY).getAndSet(null) != this) {
+            closeAndFail(channel,
+                         // Better include a stacktrace here as this is an user error.
+                         new IllegalArgumentException(
+                                 "Channel " + channel + " was not acquired from this ChannelPool"),
+                         promise);
+            return;
+        }
+        acquiredChannelCount.decrementAndGet();
+        try {
+            if (releaseHealthCheck) {
+                Future<Boolean> f = healthCheck.isHealthy(channel);
+                if (f.isDone()) {
+                    releaseAndOfferIfHealthy(channel, promise, f);
+                } else {
+                    f.addListener(new FutureListener<Boolean>() {
+                        @Override
+                        public void operationComplete(Future<Boolean> future) {
+                            releaseAndOfferIfHealthy(channel, promise, future);
+                        }
+                    });
+                }
+            } else {
+                releaseAndOffer(channel, promise);
+            }
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+        }
+    }
+
+    private void releaseAndOfferIfHealthy(Channel channel, Promise<Void> promise, Future<Boolean> future) {
+        try {
+            if (future.isSuccess() && future.getNow()) {
+                releaseAndOffer(channel, promise);
+            } else {
+                // The connection slot is freed by the close listener.
+                channel.close();
+                handler.channelReleased(channel);
+                promise.setSuccess(null);
+            }
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+        }
+    }
+
+    private void releaseAndOffer(Channel channel, Promise<Void> promise) throws Exception {
+        handler.channelReleased(channel);
+        if (closed) {
+            channel.close();
+        } else {
+            offerIdle(channel);
+            drainPendingAcquires();
+        }
+        promise.setSuccess(null);
+    }
+
+    private void offerIdle(Channel channel) {
+        SubPool pool = subPoolsByLoop.get(channel.eventLoop());
+        (pool != null ? pool : subPools[0]).idle.offerLast(channel);
+    }
+
+    private static void closeAndFail(Channel channel, Throwable cause, Promise<?> promise) {
+        if (channel != null) {
+            channel.attr(POOL_KEY).set(null);
+            channel.close();
+        }
+        promise.tryFailure(cause);
+    }
+
+    /**
+     * Closes all idle {@link Channel}s and fails all pending acquires. {@link Channel}s which are still acquired are
+     * closed once they are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (;;) {
+            PendingAcquire pending = pendingAcquires.poll();
+            if (pending == null) {
+                break;
+            }
+            pendingAcquireCount.decrementAndGet();
+            pending.promise.tryFailure(new ClosedChannelException());
+        }
+        for (SubPool pool : subPools) {
+            for (;;) {
+                Channel channel = pool.idle.pollFirst();
+                if (channel == null) {
+                    break;
+                }
+                channel.close();
+            }
+        }
+    }
+
+    private static final class SubPool {
+        final EventLoop loop;
+        final int index;
+        final Deque<Channel> idle = PlatformDependent.newConcurrentDeque();
+
+        SubPool(EventLoop loop, int index) {
+            this.loop = loop;
+            this.index = index;
+        }
+    }
+
+    private static final class PendingAcquire {
+        final SubPool local;
+        final Promise<Channel> promise;
+        final long startNanos;
+
+        PendingAcquire(SubPool local, Promise<Channel> promise, long startNanos) {
+            this.local = local;
+            this.promise = promise;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -449,6 +449,66 @@ public class DefaultChannelPipelineTest {
         assertTrue(latch.await(2, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testCachedContextsInvalidatedOnModification() throws Exception {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+        Channel channel = new LocalChannel() {
+            @Override
+            protected DefaultChannelPipeline newChannelPipeline() {
+                return new DefaultChannelPipeline(this, true);
+            }
+        };
+        ChannelPipeline pipeline = channel.pipeline();
+        pipeline.addLast("h1", new RecordingReadHandler("h1", events));
+        pipeline.addLast("outbound", new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                events.add("outbound");
+                ctx.write(msg, promise);
+            }
+        });
+        pipeline.addLast("h2", new RecordingReadHandler("h2", events));
+        group.register(channel).sync();
+        try {
+            pipeline.fireChannelRead("msg");
+            assertEquals("h1", events.take());
+            assertEquals("h2", events.take());
+
+            pipeline.remove("h1");
+            pipeline.addAfter("h2", "h3", new RecordingReadHandler("h3", events));
+            pipeline.fireChannelRead("msg");
+            assertEquals("h2", events.take());
+            assertEquals("h3", events.take());
+
+            pipeline.replace("h2", "h4", new RecordingReadHandler("h4", events));
+            pipeline.fireChannelRead("msg");
+            assertEquals("h4", events.take());
+            assertEquals("h3", events.take());
+
+            pipeline.context("h3").write("msg").addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+            assertEquals("outbound", events.take());
+            assertTrue(events.isEmpty());
+        } finally {
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    private static final class RecordingReadHandler extends ChannelInboundHandlerAdapter {
+        private final String name;
+        private final Queue<String> events;
+
+        RecordingReadHandler(String name, Queue<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            events.add(name);
+            ctx.fireChannelRead(msg);
+        }
+    }
+
     @Test
     public void testPipelineOperation() {
         ChannelPipeline pipeline = new LocalChannel().pipeline();
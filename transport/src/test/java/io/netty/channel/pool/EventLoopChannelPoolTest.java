@@ -0,0 +1,208 @@
+/*
+ * Copyright 2023 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.channel.pool.ChannelPoolTestUtils.getLocalAddrId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventLoopChannelPoolTest {
+    private static EventLoopGroup group;
+
+    private LocalAddress addr;
+    private Channel sc;
+    private Bootstrap cb;
+
+    @BeforeAll
+    public static void createEventLoop() {
+        group = new DefaultEventLoopGroup(2);
+    }
+
+    @AfterAll
+    public static void destroyEventLoop() {
+        if (group != null) {
+            group.shutdownGracefully();
+        }
+    }
+
+    @BeforeEach
+    public void startServer() {
+        addr = new LocalAddress(getLocalAddrId());
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+        sc = sb.bind(addr).syncUninterruptibly().channel();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        sc.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testAcquireReusesReleasedChannel() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, handler, 2);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        assertEquals(1, pool.connectionCount());
+        assertEquals(1, pool.acquiredChannelCount());
+        pool.release(channel).syncUninterruptibly();
+        assertEquals(0, pool.acquiredChannelCount());
+        assertEquals(1, pool.idleChannelCount());
+
+        Channel channel2 = pool.acquire().syncUninterruptibly().getNow();
+        assertSame(channel, channel2);
+        assertEquals(1, handler.channelCount());
+        assertEquals(2, handler.acquiredCount());
+        assertEquals(1, handler.releasedCount());
+        assertEquals(2, pool.acquireCount());
+        assertTrue(pool.maxAcquireTimeNanos() > 0);
+        assertTrue(pool.totalAcquireTimeNanos() >= pool.maxAcquireTimeNanos());
+
+        pool.release(channel2).syncUninterruptibly();
+        pool.close();
+        channel2.closeFuture().syncUninterruptibly();
+    }
+
+    @Test
+    public void testPrefersChannelOfCallerEventLoop() throws Exception {
+        final EventLoopChannelPool pool = new EventLoopChannelPool(cb, new CountingChannelPoolHandler(), 4);
+        final EventLoop loop1 = group.next();
+        EventLoop loop2 = group.next();
+        assertNotSame(loop1, loop2);
+
+        Channel channel1 = acquireFrom(pool, loop1);
+        Channel channel2 = acquireFrom(pool, loop2);
+        assertSame(loop1, channel1.eventLoop());
+        assertSame(loop2, channel2.eventLoop());
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+
+        assertSame(channel2, acquireFrom(pool, loop2));
+        assertEquals(0, pool.stealCount());
+
+        // Nothing left on loop2, so the idle channel of loop1 is stolen.
+        assertSame(channel1, acquireFrom(pool, loop2));
+        assertEquals(1, pool.stealCount());
+        assertEquals(2, pool.connectionCount());
+
+        pool.release(channel1).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test
+    public void testMaxConnectionsAndPendingAcquires() throws Exception {
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, new CountingChannelPoolHandler(), 1, 1);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> pending = pool.acquire();
+        assertFalse(pending.isDone());
+        assertEquals(1, pool.pendingAcquireCount());
+
+        Future<Channel> failed = pool.acquire().awaitUninterruptibly();
+        assertInstanceOf(IllegalStateException.class, failed.cause());
+
+        pool.release(channel).syncUninterruptibly();
+        assertTrue(pending.await(1, TimeUnit.SECONDS));
+        assertSame(channel, pending.getNow());
+        assertEquals(0, pool.pendingAcquireCount());
+        assertEquals(1, pool.connectionCount());
+
+        pool.release(channel).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test
+    public void testClosedChannelFreesConnection() throws Exception {
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, new CountingChannelPoolHandler(), 1);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> pending = pool.acquire();
+        assertFalse(pending.isDone());
+
+        channel.close().syncUninterruptibly();
+        Channel channel2 = pending.syncUninterruptibly().getNow();
+        assertNotSame(channel, channel2);
+        assertEquals(1, pool.connectionCount());
+
+        pool.release(channel).syncUninterruptibly();
+        pool.release(channel2).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test
+    public void testCloseFailsPendingAcquires() throws Exception {
+        EventLoopChannelPool pool = new EventLoopChannelPool(cb, new CountingChannelPoolHandler(), 1);
+
+        Channel channel = pool.acquire().syncUninterruptibly().getNow();
+        Future<Channel> pending = pool.acquire();
+        pool.close();
+        assertInstanceOf(ClosedChannelException.class, pending.awaitUninterruptibly().cause());
+
+        // Channels that are released after the pool was closed are closed.
+        pool.release(channel).syncUninterruptibly();
+        channel.closeFuture().syncUninterruptibly();
+        assertInstanceOf(IllegalStateException.class, pool.acquire().awaitUninterruptibly().cause());
+    }
+
+    private static Channel acquireFrom(final ChannelPool pool, EventLoop loop) throws Exception {
+        return loop.submit(new Callable<Future<Channel>>() {
+            @Override
+            public Future<Channel> call() {
+                return pool.acquire();
+            }
+        }).get().syncUninterruptibly().getNow();
+    }
+}